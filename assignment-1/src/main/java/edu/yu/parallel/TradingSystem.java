@@ -1,21 +1,147 @@
 package edu.yu.parallel;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.Execution;
 import edu.yu.parallel.model.MarketData;
 import edu.yu.parallel.model.Order;
 import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.persistence.ExecutionJournal;
+import edu.yu.parallel.persistence.MarketSnapshot;
+import edu.yu.parallel.persistence.OrderTape;
 import edu.yu.parallel.threads.TradingThreadFactory;
 import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.MarketMaker;
+import edu.yu.parallel.trading.OrderBook;
 import edu.yu.parallel.trading.OrderGenerator;
 import edu.yu.parallel.trading.OrderQueue;
+import edu.yu.parallel.trading.OrderSink;
+import edu.yu.parallel.trading.ShardRebalancer;
+import edu.yu.parallel.trading.ShardedOrderQueue;
+import edu.yu.parallel.trading.StripedOrderBooks;
+import edu.yu.parallel.util.IdGenerator;
 
 /**
  * TradingSystem coordinates traders, market data, order generation, and
  * execution.
+ *
+ * With a plain {@link OrderQueue}, every market maker thread pulls from the one
+ * shared queue and keeps its own books for all symbols. Setting the system
+ * property {@value #STRIPED_BOOKS_PROPERTY} to true makes those market makers
+ * share one book per symbol instead, through a {@link StripedOrderBooks}, so
+ * orders taken by different market makers trade with each other. With a
+ * {@link ShardedOrderQueue}, orders are routed by symbol to per-shard queues
+ * and each shard's books are owned by exactly one market maker thread, so the
+ * number of market makers must equal the number of shards. Setting the system
+ * property {@value #REBALANCE_SHARDS_PROPERTY} to true lets the system move
+ * symbols between shards while it runs: the market makers then share their
+ * books through a {@link StripedOrderBooks}, and a monitoring thread drives a
+ * {@link ShardRebalancer} every {@value #REBALANCE_INTERVAL_MS} ms.
+ *
+ * Setting the system property {@value #AUCTION_INTERVAL_PROPERTY} to a number
+ * of microseconds makes market makers that own their books clear orders in
+ * call auctions of that length instead of matching each order as it arrives.
+ * Market makers that share their books always match continuously.
+ *
+ * Setting the system property {@value #ORDER_TAPE_PROPERTY} to a file name
+ * records every order generated between start() and stop() to an
+ * {@link OrderTape} in that file, for replay by
+ * {@link edu.yu.parallel.benchmark.OrderTapeReplay}.
+ *
+ * Setting the system property {@value #EXECUTION_JOURNAL_PROPERTY} to a
+ * directory appends every execution between start() and stop() to an
+ * {@link ExecutionJournal} in that directory. Executed orders that have
+ * recorded nothing yet are first rebuilt from the journal, so a new process
+ * carries on from the executions of the last one.
+ *
+ * Setting the system property {@value #SNAPSHOT_PROPERTY} to a file name
+ * makes the system warm-start from a {@link MarketSnapshot} in that file, if
+ * there is one, and save a new snapshot there when it stops (see
+ * {@link #start(Path)} and {@link #stop(Path)}).
+ *
+ * If the order generator takes orders from a pool, the market makers run in
+ * pooled mode (see {@link MarketMaker}), so filled orders go back to the pool
+ * and fills are booked without allocating. The market makers publish their
+ * top of book to the generator's {@link edu.yu.parallel.trading.TopOfBookFeed},
+ * if it has one.
  */
 public class TradingSystem {
-    private boolean running = false;
+    private final static Logger logger = LogManager.getLogger(TradingSystem.class);
+
+    /**
+     * How long stop() waits for each thread to finish.
+     */
+    private static final long JOIN_TIMEOUT_MS = 5_000;
+
+    /**
+     * System property that makes market makers pulling from one shared queue
+     * share their books.
+     */
+    public static final String STRIPED_BOOKS_PROPERTY = "edu.yu.parallel.stripedBooks";
+
+    /**
+     * System property that turns on moving symbols between the shards of a
+     * {@link ShardedOrderQueue} at runtime.
+     */
+    public static final String REBALANCE_SHARDS_PROPERTY = "edu.yu.parallel.rebalanceShards";
+
+    /**
+     * How often the shard rebalancer measures the load.
+     */
+    public static final long REBALANCE_INTERVAL_MS = 100;
+
+    /**
+     * System property giving the length of each call auction in microseconds;
+     * unset or 0 for continuous matching.
+     */
+    public static final String AUCTION_INTERVAL_PROPERTY = "edu.yu.parallel.auctionIntervalMicros";
+
+    /**
+     * System property naming the file generated orders are recorded to; unset
+     * to record nothing.
+     */
+    public static final String ORDER_TAPE_PROPERTY = "edu.yu.parallel.orderTape";
+
+    /**
+     * System property naming the directory executions are journaled to; unset
+     * to journal nothing.
+     */
+    public static final String EXECUTION_JOURNAL_PROPERTY = "edu.yu.parallel.executionJournal";
+
+    /**
+     * System property naming the snapshot file the system starts from, if it
+     * exists, and saves to when it stops; unset for neither.
+     */
+    public static final String SNAPSHOT_PROPERTY = "edu.yu.parallel.snapshot";
+
+    private final List<Trader> traders;
+    private final int numberOfMarketMakers;
+    private final MarketData marketData;
+    private final OrderGenerator orderGenerator;
+    private final OrderSink orderQueue;
+    private final ExecutedOrders executedOrders;
+    private final TradingThreadFactory threadFactory;
+
+    private final List<Thread> traderThreads = new ArrayList<>();
+    private final List<Thread> marketMakerThreads = new ArrayList<>();
+    private final List<MarketMaker> marketMakers = new ArrayList<>();
+    private Thread rebalancerThread;
+    private OrderTape orderTape;
+    private ExecutionJournal journal;
+    private volatile boolean running = false;
 
     /**
      * Constructs a TradingSystem with all required dependencies.
@@ -65,16 +191,121 @@ public class TradingSystem {
             OrderQueue orderQueue,
             ExecutedOrders executedOrders,
             TradingThreadFactory threadFactory) {
+        this(traders, numberOfMarketMakers, marketData, orderGenerator, (OrderSink) orderQueue, executedOrders,
+                threadFactory);
+    }
+
+    /**
+     * Constructs a TradingSystem whose orders are routed by symbol through a
+     * sharded queue, with one market maker thread per shard.
+     *
+     * @param traders        List of trader objects to manage (must not be null)
+     * @param marketData     Market data for the trading system (must not be null)
+     * @param orderGenerator Generates orders for traders (must not be null)
+     * @param orderQueue     The sharded order queue (must not be null)
+     * @param executedOrders Storage for completed executions (must not be null)
+     * @param threadFactory  Factory to create trader and market maker threads (must not be null)
+     * @throws IllegalArgumentException if any argument is null or if stockSymbols is empty
+     */
+    public TradingSystem(
+            List<Trader> traders,
+            MarketData marketData,
+            OrderGenerator orderGenerator,
+            ShardedOrderQueue orderQueue,
+            ExecutedOrders executedOrders,
+            TradingThreadFactory threadFactory) {
+        this(traders, orderQueue == null ? 1 : orderQueue.getShardCount(), marketData, orderGenerator,
+                (OrderSink) orderQueue, executedOrders, threadFactory);
+    }
+
+    private TradingSystem(
+            List<Trader> traders,
+            int numberOfMarketMakers,
+            MarketData marketData,
+            OrderGenerator orderGenerator,
+            OrderSink orderQueue,
+            ExecutedOrders executedOrders,
+            TradingThreadFactory threadFactory) {
+        if (traders == null || marketData == null || orderGenerator == null || orderQueue == null
+                || executedOrders == null || threadFactory == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        if (marketData.getAvailableSymbols().length == 0) {
+            throw new IllegalArgumentException("Market data has no symbols");
+        }
+        if (numberOfMarketMakers < 1) {
+            throw new IllegalArgumentException("Number of market makers must be positive");
+        }
+        if (orderQueue instanceof ShardedOrderQueue sharded && sharded.getShardCount() != numberOfMarketMakers) {
+            throw new IllegalArgumentException("Number of market makers must equal the number of shards");
+        }
+        this.traders = List.copyOf(traders);
+        this.numberOfMarketMakers = numberOfMarketMakers;
+        this.marketData = marketData;
+        this.orderGenerator = orderGenerator;
+        this.orderQueue = orderQueue;
+        this.executedOrders = executedOrders;
+        this.threadFactory = threadFactory;
     }
 
     /**
      * Starts the trading system.
      * Creates and starts all trader threads and market data thread(s).
-     * This method must be called before trading begins.
+     * This method must be called before trading begins. A stopped system can
+     * be started again.
+     * If {@value #SNAPSHOT_PROPERTY} names an existing snapshot, the system
+     * starts from it as {@link #start(Path)} does.
      * 
      * @throws IllegalArgumentException if the system is already started
      */
-    public void start() {
+    public synchronized void start() {
+        Path snapshotFile = snapshotFile();
+        start(snapshotFile != null && Files.exists(snapshotFile) ? snapshotFile : null);
+    }
+
+    /**
+     * Starts the trading system from a snapshot saved by {@link #stop(Path)}.
+     * Before any thread starts, the saved resting orders go back into the
+     * books of the market maker that held them, or of the first market maker
+     * handling their symbol if the system is laid out differently. Each
+     * symbol's last execution and totals replace those in the executed
+     * orders, and each trader's saved statistics those of the trader with the
+     * same ID, so restarting in the same process from the snapshot the last
+     * stop saved leaves them as they were. Statistics of traders not in this
+     * system are dropped. The snapshot is checked before anything is
+     * restored, so a start that fails on it changes no statistics.
+     *
+     * @param snapshotFile the snapshot to start from, or null to start with
+     *                     empty books
+     * @throws IllegalArgumentException if the system is already started or the
+     *                                  file is not a snapshot
+     * @throws java.io.UncheckedIOException if the snapshot cannot be read
+     */
+    public synchronized void start(Path snapshotFile) {
+        if (running) {
+            throw new IllegalArgumentException("Trading system is already started");
+        }
+        long auctionIntervalNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong(AUCTION_INTERVAL_PROPERTY, 0));
+        if (auctionIntervalNanos < 0) {
+            throw new IllegalArgumentException("Auction interval must not be negative");
+        }
+        // Reopen the queue a previous stop() shut down; no thread is using it yet
+        orderQueue.reopen();
+        // Create every thread before starting any, and undo the setup if a step
+        // fails (thread factory, order tape, journal or snapshot), so a failed start has
+        // started nothing and leaves nothing behind for a retry to duplicate
+        try {
+            setUp(snapshotFile, auctionIntervalNanos);
+        } catch (RuntimeException e) {
+            tearDown();
+            throw e;
+        }
+
+        marketMakerThreads.forEach(Thread::start);
+        traderThreads.forEach(Thread::start);
+        if (rebalancerThread != null) {
+            rebalancerThread.start();
+        }
         this.running = true;
     }
 
@@ -82,14 +313,85 @@ public class TradingSystem {
      * Stops the trading system gracefully.
      * Interrupts all threads and waits for them to complete.
      * After stopping, no new trades or orders will be processed.
+     * If {@value #SNAPSHOT_PROPERTY} is set, a snapshot is saved to it as
+     * {@link #stop(Path)} does.
      * 
      * @return List of all orders that were canceled due to the stop operation
      * 
      * @throws IllegalArgumentException if the system is not started
      */
-    public List<Order> stop() {
+    public synchronized List<Order> stop() {
+        return stop(snapshotFile());
+    }
+
+    /**
+     * Stops the trading system and saves a {@link MarketSnapshot} once the
+     * market makers have stopped and before their books are emptied: the
+     * resting orders, each symbol's last execution and totals, and every
+     * trader's statistics. The books must be saved at this point, since while
+     * running each is confined to its market maker's thread. Orders still in
+     * the queue, or waiting for a call auction, are cancelled rather than
+     * saved. If a market maker thread does not stop within the join timeout,
+     * no snapshot is saved and that market maker's resting orders are left
+     * in its books rather than cancelled.
+     *
+     * @param snapshotFile where to save the snapshot, or null to save none
+     * @return List of all orders that were canceled due to the stop operation,
+     *         including those the market makers cancelled by expiry while
+     *         running
+     * @throws IllegalArgumentException if the system is not started
+     * @throws java.io.UncheckedIOException if the snapshot cannot be written
+     */
+    public synchronized List<Order> stop(Path snapshotFile) {
+        if (!running) {
+            throw new IllegalArgumentException("Trading system is not started");
+        }
         this.running = false;
-        return List.of();
+        List<Order> cancelled = new ArrayList<>();
+        if (rebalancerThread != null) {
+            interruptAndJoin(List.of(rebalancerThread));
+            rebalancerThread = null;
+        }
+
+        // Shut the queue before stopping producers, so it cannot race new orders.
+        // Shutdown releases every trader blocked on a full queue with a single
+        // notifyAll, rather than one interrupt per waiting trader.
+        cancelled.addAll(orderQueue.shutdown());
+        interruptAndJoin(traderThreads);
+        if (orderTape != null) {
+            orderGenerator.setOrderTape(null);
+            orderTape.close();
+            logger.info("Recorded " + orderTape.getOrderCount() + " orders to " + orderTape.getFile());
+            orderTape = null;
+        }
+        interruptAndJoin(marketMakerThreads);
+        if (snapshotFile != null) {
+            if (marketMakerThreads.stream().anyMatch(Thread::isAlive)) {
+                logger.warn("Market makers still running, not saving a snapshot to " + snapshotFile);
+            } else {
+                saveSnapshot(snapshotFile);
+            }
+        }
+        closeJournal();
+        long expired = 0;
+        for (int i = 0; i < marketMakers.size(); i++) {
+            if (marketMakerThreads.get(i).isAlive()) {
+                // Its books still belong to its thread; cancelling them here would race it
+                logger.warn("Not cancelling the resting orders of " + marketMakerThreads.get(i).getName()
+                        + ", which is still running");
+                continue;
+            }
+            expired += marketMakers.get(i).getExpiredCount();
+            cancelled.addAll(marketMakers.get(i).shutdown());
+        }
+        if (expired > 0) {
+            logger.info("Orders cancelled by expiry while running: " + expired);
+        }
+
+        traderThreads.clear();
+        marketMakerThreads.clear();
+        marketMakers.clear();
+        return cancelled;
     }
 
     /**
@@ -100,4 +402,230 @@ public class TradingSystem {
     public boolean isRunning() {
         return running;
     }
+
+    private void setUp(Path snapshotFile, long auctionIntervalNanos) {
+        if (orderQueue instanceof ShardedOrderQueue sharded) {
+            StripedOrderBooks sharedBooks = Boolean.getBoolean(REBALANCE_SHARDS_PROPERTY)
+                    ? new StripedOrderBooks(sharded.getSymbols())
+                    : null;
+            for (int shard = 0; shard < sharded.getShardCount(); shard++) {
+                marketMakers.add(sharedBooks != null
+                        ? new MarketMaker(sharedBooks, executedOrders, orderGenerator.isPooled(),
+                                IdGenerator.getInstance(), orderGenerator.getTopOfBookFeed())
+                        : new MarketMaker(sharded.getShardSymbols(shard), executedOrders, orderGenerator.isPooled(),
+                                IdGenerator.getInstance(), orderGenerator.getTopOfBookFeed(), auctionIntervalNanos));
+            }
+            ShardRebalancer rebalancer = sharedBooks != null ? new ShardRebalancer(sharded, marketMakers) : null;
+            for (int shard = 0; shard < sharded.getShardCount(); shard++) {
+                marketMakerThreads.add(threadFactory.createMarketMakerThread(marketMakers.get(shard),
+                        sharded.getShard(shard), rebalancer, shard));
+            }
+            if (rebalancer != null) {
+                rebalancerThread = new Thread(() -> {
+                    try {
+                        while (!Thread.currentThread().isInterrupted()) {
+                            Thread.sleep(REBALANCE_INTERVAL_MS);
+                            rebalancer.rebalance();
+                        }
+                    } catch (InterruptedException e) {
+                        // Stopped
+                    }
+                }, "ShardRebalancer");
+                rebalancerThread.setDaemon(true);
+            }
+        } else if (orderQueue instanceof OrderQueue shared) {
+            List<String> symbols = Arrays.asList(marketData.getAvailableSymbols());
+            StripedOrderBooks sharedBooks = Boolean.getBoolean(STRIPED_BOOKS_PROPERTY)
+                    ? new StripedOrderBooks(symbols)
+                    : null;
+            for (int i = 0; i < numberOfMarketMakers; i++) {
+                MarketMaker marketMaker = sharedBooks != null
+                        ? new MarketMaker(sharedBooks, executedOrders, orderGenerator.isPooled(),
+                                IdGenerator.getInstance(), orderGenerator.getTopOfBookFeed())
+                        : new MarketMaker(symbols, executedOrders, orderGenerator.isPooled(),
+                                IdGenerator.getInstance(), orderGenerator.getTopOfBookFeed(), auctionIntervalNanos);
+                marketMakers.add(marketMaker);
+                marketMakerThreads.add(threadFactory.createMarketMakerThread(marketMaker, shared));
+            }
+        }
+        for (Trader trader : traders) {
+            traderThreads.add(threadFactory.createTradingThread(trader, orderGenerator, orderQueue));
+        }
+        String tapeFile = System.getProperty(ORDER_TAPE_PROPERTY);
+        if (tapeFile != null) {
+            orderTape = new OrderTape(Path.of(tapeFile));
+            orderGenerator.setOrderTape(orderTape);
+        }
+        // Attached before the snapshot is restored, so a snapshot replaces the
+        // totals recovered from the journal where they differ
+        String journalDirectory = System.getProperty(EXECUTION_JOURNAL_PROPERTY);
+        if (journalDirectory != null) {
+            ExecutionJournal opened = new ExecutionJournal(Path.of(journalDirectory));
+            try {
+                executedOrders.attachJournal(opened);
+            } catch (RuntimeException e) {
+                opened.close();
+                throw e;
+            }
+            journal = opened;
+        }
+
+        if (snapshotFile != null) {
+            restore(snapshotFile);
+        }
+    }
+
+    /**
+     * Drops the threads and market makers set up by a start() that failed
+     * before starting them, and closes its order tape and journal.
+     */
+    private void tearDown() {
+        if (orderTape != null) {
+            orderGenerator.setOrderTape(null);
+            orderTape.close();
+            orderTape = null;
+        }
+        closeJournal();
+        rebalancerThread = null;
+        traderThreads.clear();
+        marketMakerThreads.clear();
+        marketMakers.clear();
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            executedOrders.detachJournal();
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private static Path snapshotFile() {
+        String file = System.getProperty(SNAPSHOT_PROPERTY);
+        return file == null ? null : Path.of(file);
+    }
+
+    private void restore(Path file) {
+        long startNanos = System.nanoTime();
+        Map<String, Trader> tradersById = new HashMap<>();
+        for (Trader trader : traders) {
+            tradersById.put(trader.getTraderId(), trader);
+        }
+        MarketSnapshot.Contents contents = MarketSnapshot.read(file, traderId -> {
+            Trader trader = tradersById.get(traderId);
+            return trader != null ? trader : new Trader(traderId);
+        });
+        // New orders and executions must not reuse the restored IDs
+        int maxOrderId = 0;
+        int maxExecutionId = 0;
+        for (MarketSnapshot.Book book : contents.books()) {
+            for (Order order : book.orders()) {
+                maxOrderId = Math.max(maxOrderId, order.getOrderId());
+            }
+        }
+        for (MarketSnapshot.SymbolTotals totals : contents.executions()) {
+            maxOrderId = Math.max(maxOrderId, Math.max(totals.last().getBuyOrder().getOrderId(),
+                    totals.last().getSellOrder().getOrderId()));
+            maxExecutionId = Math.max(maxExecutionId, totals.last().getExecutionId());
+        }
+        IdGenerator.getInstance().skipPast(maxOrderId, maxExecutionId);
+
+        // Check everything before changing the executed orders or the traders,
+        // which outlive a failed start
+        for (MarketSnapshot.SymbolTotals totals : contents.executions()) {
+            if (totals.count() < 0 || totals.volume() < 0) {
+                throw new IllegalArgumentException("Negative execution totals in snapshot " + file);
+            }
+        }
+        for (MarketSnapshot.Position position : contents.positions()) {
+            if (position.count() < 0) {
+                throw new IllegalArgumentException("Negative trade count in snapshot " + file);
+            }
+        }
+
+        long orders = 0;
+        long matched = 0;
+        for (MarketSnapshot.Book book : contents.books()) {
+            MarketMaker owner = book.marketMaker() < marketMakers.size()
+                    && marketMakers.get(book.marketMaker()).getBook(book.symbol()) != null
+                            ? marketMakers.get(book.marketMaker())
+                            : null;
+            for (int i = 0; owner == null && i < marketMakers.size(); i++) {
+                if (marketMakers.get(i).getBook(book.symbol()) != null) {
+                    owner = marketMakers.get(i);
+                }
+            }
+            if (owner == null) {
+                logger.warn("No market maker handles " + book.symbol() + ", dropping its "
+                        + book.orders().size() + " saved orders");
+                continue;
+            }
+            matched += owner.restore(book.symbol(), book.orders());
+            orders += book.orders().size();
+        }
+        ExecutedOrders.Statistics statistics = executedOrders.getStatistics();
+        for (MarketSnapshot.SymbolTotals totals : contents.executions()) {
+            // After a stop in this process, keep the live last execution rather than its saved copy
+            String symbol = totals.last().getSymbol();
+            Execution current = executedOrders.getLastExecution(symbol);
+            if (current == null || current.getExecutionId() != totals.last().getExecutionId()
+                    || statistics.symbolCount().getOrDefault(symbol, 0L) != totals.count()
+                    || statistics.symbolVolume().getOrDefault(symbol, 0L) != totals.volume()) {
+                executedOrders.restore(totals.last(), totals.count(), totals.volume());
+            }
+        }
+        for (MarketSnapshot.Position position : contents.positions()) {
+            position.trader().restorePosition(position.symbolId(), position.count(), position.cashTicks(),
+                    position.position());
+        }
+        logger.info(String.format("Restored %d resting orders (%d matched on the way in) from %s in %.1f ms",
+                orders, matched, file, (System.nanoTime() - startNanos) / 1e6));
+    }
+
+    private void saveSnapshot(Path file) {
+        long startNanos = System.nanoTime();
+        String[] symbols = marketData.getAvailableSymbols();
+        List<MarketSnapshot.Book> books = new ArrayList<>();
+        // Market makers on shared books see the same book; save it once
+        Set<OrderBook> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+        long orders = 0;
+        for (int i = 0; i < marketMakers.size(); i++) {
+            for (String symbol : symbols) {
+                OrderBook book = marketMakers.get(i).getBook(symbol);
+                if (book != null && saved.add(book)) {
+                    List<Order> resting = book.getRestingOrders();
+                    books.add(new MarketSnapshot.Book(i, symbol, resting));
+                    orders += resting.size();
+                }
+            }
+        }
+        ExecutedOrders.Statistics statistics = executedOrders.getStatistics();
+        List<MarketSnapshot.SymbolTotals> executions = new ArrayList<>();
+        for (String symbol : symbols) {
+            Execution last = executedOrders.getLastExecution(symbol);
+            if (last != null) {
+                executions.add(new MarketSnapshot.SymbolTotals(last,
+                        statistics.symbolCount().getOrDefault(symbol, 0L),
+                        statistics.symbolVolume().getOrDefault(symbol, 0L)));
+            }
+        }
+        MarketSnapshot.write(file, books, executions, traders);
+        logger.info(String.format("Saved %d resting orders to %s in %.1f ms", orders, file,
+                (System.nanoTime() - startNanos) / 1e6));
+    }
+
+    private void interruptAndJoin(List<Thread> threads) {
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            try {
+                thread.join(JOIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (thread.isAlive()) {
+                logger.warn("Thread " + thread.getName() + " did not stop within " + JOIN_TIMEOUT_MS + " ms");
+            }
+        }
+    }
 }
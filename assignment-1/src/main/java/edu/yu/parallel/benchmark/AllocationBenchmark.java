@@ -0,0 +1,126 @@
+package edu.yu.parallel.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderPool;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.MarketMaker;
+import edu.yu.parallel.trading.OrderBook;
+import edu.yu.parallel.trading.OrderQueue;
+import edu.yu.parallel.trading.RingBufferOrderQueue;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Measures the steady-state allocation rate of the order path, allocating
+ * versus pooled.
+ *
+ * One thread sends orders through a RingBufferOrderQueue to a MarketMaker, so
+ * all allocation is charged to that thread and read with
+ * com.sun.management.ThreadMXBean. As in {@link OrderBookBenchmark}, the book
+ * is seeded with a fixed number of levels per side and each round sends an
+ * aggressive order that takes the best level followed by a passive order that
+ * puts it back, so the book stays the same size. Each mode first runs a
+ * warm-up that fills the pool, then the measured run reports bytes allocated
+ * per order.
+ *
+ * Usage: AllocationBenchmark [rounds] [depth]
+ */
+public class AllocationBenchmark {
+    private final static Logger logger = LogManager.getLogger(AllocationBenchmark.class);
+
+    private static final String SYMBOL = "BENCH";
+    private static final double MID = 100.00;
+    private static final int QUANTITY = 100;
+    private static final int DRAIN_BATCH_SIZE = 256;
+
+    public static void main(String[] args) {
+        int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+
+        logger.info(String.format("Benchmark: allocation on the order path, rounds=%d, depth=%d", rounds, depth));
+        for (boolean pooled : new boolean[] { false, true }) {
+            Result r = run(pooled, depth, rounds);
+            logger.info(String.format("%-10s orders=%-9d time=%8.2f ms  %,12.0f orders/s  %10.2f bytes/order",
+                    pooled ? "pooled" : "allocating", r.orders, r.nanos / 1e6,
+                    r.orders * 1e9 / r.nanos, (double) r.bytes / r.orders));
+        }
+    }
+
+    private record Result(long orders, long nanos, long bytes) {
+    }
+
+    private static Result run(boolean pooled, int depth, int rounds) {
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        MarketMaker marketMaker = new MarketMaker(List.of(SYMBOL), executedOrders, pooled);
+        OrderQueue queue = new RingBufferOrderQueue();
+        Source source = new Source(pooled ? new OrderPool() : null);
+        List<Order> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        double tick = OrderBook.DEFAULT_TICK_SIZE;
+
+        for (int level = 1; level <= depth; level++) {
+            marketMaker.processOrder(source.order(OrderType.BUY, MID - level * tick));
+            marketMaker.processOrder(source.order(OrderType.SELL, MID + level * tick));
+        }
+        drive(source, queue, marketMaker, batch, Math.min(rounds, 200_000));
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        drive(source, queue, marketMaker, batch, rounds);
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+
+        marketMaker.shutdown();
+        queue.shutdown();
+        return new Result(2L * rounds, nanos, bytes);
+    }
+
+    private static void drive(Source source, OrderQueue queue, MarketMaker marketMaker,
+            List<Order> batch, int rounds) {
+        double tick = OrderBook.DEFAULT_TICK_SIZE;
+        for (int round = 0; round < rounds; round++) {
+            boolean buy = (round & 1) == 0;
+            queue.addOrder(source.order(buy ? OrderType.BUY : OrderType.SELL, buy ? MID + tick : MID - tick));
+            queue.addOrder(source.order(buy ? OrderType.SELL : OrderType.BUY, buy ? MID + tick : MID - tick));
+            if (round % (DRAIN_BATCH_SIZE / 2) == DRAIN_BATCH_SIZE / 2 - 1 || round == rounds - 1) {
+                while (queue.getStatistics().pendingCount() > 0) {
+                    queue.drainTo(batch, DRAIN_BATCH_SIZE);
+                    for (Order order : batch) {
+                        marketMaker.processOrder(order);
+                    }
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the benchmark's orders, from a pool if one is given.
+     */
+    private static final class Source {
+        private final OrderPool pool;
+        private final IdGenerator idGen = IdGenerator.getInstance();
+        private final Trader buyer = new Trader("Buyer");
+        private final Trader seller = new Trader("Seller");
+
+        Source(OrderPool pool) {
+            this.pool = pool;
+        }
+
+        Order order(OrderType type, double price) {
+            Trader trader = type == OrderType.BUY ? buyer : seller;
+            return pool != null
+                    ? pool.acquire(idGen, SYMBOL, type, QUANTITY, price, trader)
+                    : Order.createOrder(idGen, SYMBOL, type, QUANTITY, price, trader);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package edu.yu.parallel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Measures contention between {@link ExecutedOrders#recordExecution} and
+ * {@link ExecutedOrders#getLastExecution} for every combination of writer and
+ * reader counts.
+ *
+ * Writers record executions built before the run, cycling through a fixed
+ * set each, so the run measures bookkeeping rather than execution creation.
+ * Writer and reader t both use symbol t modulo the symbol count: with one
+ * symbol every thread contends for the same slot and statistics cells, with
+ * more the threads spread out as market makers for different symbols do.
+ *
+ * Usage: ExecutedOrdersBenchmark [iterations] [iterationMillis] [symbols]
+ */
+public class ExecutedOrdersBenchmark {
+    private final static Logger logger = LogManager.getLogger(ExecutedOrdersBenchmark.class);
+
+    private static final int[] WRITERS = { 1, 2, 4, 8 };
+    private static final int[] READERS = { 0, 1, 4, 16 };
+    private static final int EXECUTIONS_PER_WRITER = 1024;
+
+    public static void main(String[] args) {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : Microbenchmark.DEFAULT_ITERATIONS;
+        long millis = (args.length > 1) ? Long.parseLong(args[1]) : Microbenchmark.DEFAULT_ITERATION_MILLIS;
+        int symbols = (args.length > 2) ? Integer.parseInt(args[2]) : 1;
+
+        logger.info(String.format("Benchmark: ExecutedOrders record/read, iterations=%d x %d ms, symbols=%d, cpus=%d",
+                iterations, millis, symbols, Runtime.getRuntime().availableProcessors()));
+        Microbenchmark harness = new Microbenchmark(Microbenchmark.DEFAULT_WARMUP_ITERATIONS, iterations,
+                TimeUnit.MILLISECONDS.toNanos(millis));
+        for (int writers : WRITERS) {
+            for (int readers : READERS) {
+                for (Microbenchmark.Result r : harness.run(() -> trial(writers, readers, symbols))) {
+                    logger.info(String.format("writers=%-2d readers=%-2d %s", writers, readers, r.format()));
+                }
+            }
+        }
+    }
+
+    private static Microbenchmark.Trial trial(int writers, int readers, int symbols) {
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        IdGenerator idGen = new IdGenerator(IdGenerator.DEFAULT_BLOCK_SIZE);
+        Trader buyer = new Trader("Buyer");
+        Trader seller = new Trader("Seller");
+        Microbenchmark.Group record = new Microbenchmark.Group("record", writers, t -> {
+            String symbol = "BENCH" + (t % symbols);
+            Execution[] executions = new Execution[EXECUTIONS_PER_WRITER];
+            for (int i = 0; i < executions.length; i++) {
+                Order buy = Order.createOrder(idGen, symbol, OrderType.BUY, 100, 100.00, buyer);
+                Order sell = Order.createOrder(idGen, symbol, OrderType.SELL, 100, 100.00, seller);
+                executions[i] = Execution.createExecution(idGen, buy, sell, 1 + (i & 63), buy.getPriceTicks());
+            }
+            int[] next = { 0 };
+            return () -> {
+                executedOrders.recordExecution(executions[next[0]++ & (EXECUTIONS_PER_WRITER - 1)]);
+                return 1;
+            };
+        });
+        Microbenchmark.Group read = new Microbenchmark.Group("read", readers, t -> {
+            String symbol = "BENCH" + (t % symbols);
+            return () -> {
+                executedOrders.getLastExecution(symbol);
+                return 1;
+            };
+        });
+        return new Microbenchmark.Trial(record, read);
+    }
+}
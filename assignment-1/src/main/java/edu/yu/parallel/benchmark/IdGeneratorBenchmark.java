@@ -0,0 +1,96 @@
+package edu.yu.parallel.benchmark;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Compares the block-leasing {@link IdGenerator} against a single shared
+ * atomic counter as the number of allocating threads grows. The counter is
+ * an int field incremented with a VarHandle getAndAdd, the same instruction
+ * an AtomicInteger would issue.
+ *
+ * Each allocator is measured with {@link Microbenchmark}, fresh for every
+ * iteration so that no iteration starts with leases left over from the
+ * previous one. A fast run can allocate more IDs than fit in an int, so when
+ * an IdGenerator runs out the threads switch to a new one; the shared counter
+ * simply wraps around.
+ *
+ * Usage: IdGeneratorBenchmark [iterations] [iterationMillis] [blockSize]
+ */
+public class IdGeneratorBenchmark {
+    private final static Logger logger = LogManager.getLogger(IdGeneratorBenchmark.class);
+
+    private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+
+    private static final VarHandle COUNT;
+    private static final VarHandle GENERATOR;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            COUNT = lookup.findVarHandle(Counter.class, "count", int.class);
+            GENERATOR = lookup.findVarHandle(Leases.class, "generator", IdGenerator.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static void main(String[] args) {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : Microbenchmark.DEFAULT_ITERATIONS;
+        long millis = (args.length > 1) ? Long.parseLong(args[1]) : Microbenchmark.DEFAULT_ITERATION_MILLIS;
+        int blockSize = (args.length > 2) ? Integer.parseInt(args[2]) : IdGenerator.DEFAULT_BLOCK_SIZE;
+
+        logger.info(String.format("Benchmark: ID allocation, iterations=%d x %d ms, blockSize=%d, cpus=%d",
+                iterations, millis, blockSize, Runtime.getRuntime().availableProcessors()));
+        Microbenchmark harness = new Microbenchmark(Microbenchmark.DEFAULT_WARMUP_ITERATIONS, iterations,
+                TimeUnit.MILLISECONDS.toNanos(millis));
+        for (int threads : THREADS) {
+            Microbenchmark.Result atomic = harness.run(() -> {
+                Counter counter = new Counter();
+                return new Microbenchmark.Trial(new Microbenchmark.Group("atomic", threads, t -> () -> {
+                    COUNT.getAndAdd(counter, 1);
+                    return 1;
+                }));
+            }).get(0);
+            Microbenchmark.Result leased = harness.run(() -> {
+                Leases leases = new Leases(new IdGenerator(blockSize));
+                return new Microbenchmark.Trial(new Microbenchmark.Group("leased", threads, t -> () -> {
+                    IdGenerator current = leases.generator;
+                    try {
+                        current.nextOrderId();
+                    } catch (IllegalStateException e) {
+                        GENERATOR.compareAndSet(leases, current, new IdGenerator(blockSize));
+                    }
+                    return 1;
+                }));
+            }).get(0);
+            logger.info(String.format("%s   speedup %6.2fx", atomic.format(), leased.mean() / atomic.mean()));
+            logger.info(leased.format());
+        }
+    }
+
+    /**
+     * The shared counter every thread increments.
+     */
+    private static final class Counter {
+        @SuppressWarnings("unused")
+        private volatile int count;
+    }
+
+    /**
+     * The IdGenerator every thread leases from, replaced when it runs out.
+     */
+    private static final class Leases {
+        private volatile IdGenerator generator;
+
+        Leases(IdGenerator generator) {
+            this.generator = generator;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package edu.yu.parallel.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.OrderPool;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.MarketMaker;
+import edu.yu.parallel.trading.OrderBook;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Measures {@link MarketMaker#processOrder} throughput against book depth,
+ * the fraction of orders that cross, and the number of market makers running
+ * at once.
+ *
+ * Each thread drives its own pooled market maker and symbol, as the trading
+ * system does, all recording into one {@link ExecutedOrders}. The book is
+ * seeded with the given number of levels per side. Orders then alternate
+ * between the sides of the book and always go to the best level: a crossing
+ * order takes quantity from it, a passive order adds quantity back. For a
+ * cross rate r, crossing orders are sized so that r of the orders cross while
+ * the quantity taken equals the quantity added, so the book keeps its depth
+ * for the whole run. This differs from {@link OrderBookBenchmark}, where every
+ * other order crosses and the depth varies alone.
+ *
+ * Usage: MarketMakerBenchmark [iterations] [iterationMillis] [threads]
+ */
+public class MarketMakerBenchmark {
+    private final static Logger logger = LogManager.getLogger(MarketMakerBenchmark.class);
+
+    private static final int[] DEPTHS = { 1, 10, 100, 1_000, 10_000 };
+    private static final double[] CROSS_RATES = { 0.1, 0.5, 0.9 };
+    private static final double MID = 100.00;
+
+    /**
+     * Sum of the crossing and passive order sizes; cross rates are rounded to
+     * a multiple of 1/LOT.
+     */
+    private static final int LOT = 1_000;
+
+    public static void main(String[] args) {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : Microbenchmark.DEFAULT_ITERATIONS;
+        long millis = (args.length > 1) ? Long.parseLong(args[1]) : Microbenchmark.DEFAULT_ITERATION_MILLIS;
+        int maxThreads = (args.length > 2) ? Integer.parseInt(args[2])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        logger.info(String.format("Benchmark: MarketMaker.processOrder, iterations=%d x %d ms, threads=1..%d",
+                iterations, millis, maxThreads));
+        Microbenchmark harness = new Microbenchmark(Microbenchmark.DEFAULT_WARMUP_ITERATIONS, iterations,
+                TimeUnit.MILLISECONDS.toNanos(millis));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            for (int depth : DEPTHS) {
+                for (double crossRate : CROSS_RATES) {
+                    int t = threads;
+                    Microbenchmark.Result r = harness.run(() -> trial(t, depth, crossRate)).get(0);
+                    logger.info(String.format("depth=%-6d crossRate=%.2f %s", depth, crossRate, r.format()));
+                }
+            }
+        }
+    }
+
+    private static Microbenchmark.Trial trial(int threads, int depth, double crossRate) {
+        int passiveQuantity = (int) Math.round(crossRate * LOT);
+        if (passiveQuantity <= 0 || passiveQuantity >= LOT) {
+            throw new IllegalArgumentException("Cross rate must be strictly between 0 and 1");
+        }
+        int crossQuantity = LOT - passiveQuantity;
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        // A generator per trial, so a long run cannot exhaust the global IDs
+        IdGenerator idGen = new IdGenerator(IdGenerator.DEFAULT_BLOCK_SIZE);
+        return new Microbenchmark.Trial(new Microbenchmark.Group("process", threads, t -> {
+            String symbol = "BENCH" + t;
+            int symbolId = SymbolDictionary.getInstance().idOf(symbol);
+            MarketMaker marketMaker = new MarketMaker(List.of(symbol), executedOrders, true, idGen);
+            OrderPool pool = new OrderPool();
+            Trader buyer = new Trader("Buyer" + t);
+            Trader seller = new Trader("Seller" + t);
+            double tick = OrderBook.DEFAULT_TICK_SIZE;
+            double bid = MID - tick;
+            double ask = MID + tick;
+
+            // The best levels hold enough to absorb the schedule's swings
+            for (int level = 1; level <= depth; level++) {
+                int quantity = level == 1 ? 2 * LOT : LOT;
+                marketMaker.processOrder(pool.acquire(idGen, symbolId, OrderType.BUY, quantity, MID - level * tick, buyer));
+                marketMaker.processOrder(pool.acquire(idGen, symbolId, OrderType.SELL, quantity, MID + level * tick, seller));
+            }
+
+            // Per side, passiveQuantity of every LOT credits triggers a cross
+            int[] credit = new int[2];
+            int[] next = { 0 };
+            return () -> {
+                int side = next[0]++ & 1;
+                credit[side] += passiveQuantity;
+                boolean cross = credit[side] >= LOT;
+                if (cross) {
+                    credit[side] -= LOT;
+                }
+                // Side 0 works the ask, side 1 the bid
+                OrderType type = (side == 0) == cross ? OrderType.BUY : OrderType.SELL;
+                marketMaker.processOrder(pool.acquire(idGen, symbolId, type, cross ? crossQuantity : passiveQuantity,
+                        side == 0 ? ask : bid, type == OrderType.BUY ? buyer : seller));
+                return 1;
+            };
+        }));
+    }
+}
@@ -0,0 +1,375 @@
+package edu.yu.parallel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Small time-based harness for measuring the throughput of concurrent
+ * components, shared by the component benchmarks so that every change can be
+ * measured the same way.
+ *
+ * A benchmark is a {@link Trial}: one or more named groups of threads, each
+ * thread calling its own {@link Operation} in a loop, all against the same
+ * component. Every iteration builds a fresh trial, starts all of its threads
+ * together, lets them run for a fixed time and reports each group's
+ * throughput; the first few iterations only warm up the JIT and are
+ * discarded. Stopping is cooperative: threads check a flag between
+ * operations, and the trial's stop action releases threads blocked inside
+ * one (for example by shutting a queue down). Threads still running a second
+ * later are interrupted.
+ *
+ * Operations must have an effect the JIT cannot remove, such as a lock or a
+ * volatile access, since their results are not consumed.
+ */
+public final class Microbenchmark {
+    public static final int DEFAULT_WARMUP_ITERATIONS = 3;
+    public static final int DEFAULT_ITERATIONS = 5;
+    public static final long DEFAULT_ITERATION_MILLIS = 1_000;
+
+    private static final long STOP_TIMEOUT_MILLIS = 1_000;
+
+    /**
+     * One unit of work, called repeatedly by one thread.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * Performs the operation once.
+         *
+         * @return the number of items processed, counted towards the
+         *         group's throughput (usually 1)
+         */
+        int invoke();
+    }
+
+    /**
+     * A group of threads running the same kind of operation.
+     *
+     * @param name       label used in the results
+     * @param threads    number of threads; a group with none is skipped
+     * @param operations creates the operation for each thread index; called on
+     *                   the harness thread before the threads start, so it
+     *                   may do per-thread setup that is not measured
+     */
+    public record Group(String name, int threads, IntFunction<Operation> operations) {
+        public Group {
+            if (name == null || operations == null || threads < 0) {
+                throw new IllegalArgumentException("Name and operations must not be null and threads must not be negative");
+            }
+        }
+    }
+
+    /**
+     * The groups of one iteration and how to release their threads.
+     *
+     * @param groups the thread groups, run concurrently
+     * @param stop   called once the run time is up, after the stop flag is
+     *               set, to release threads blocked in an operation
+     */
+    public record Trial(List<Group> groups, Runnable stop) {
+        public Trial {
+            if (groups == null || stop == null) {
+                throw new IllegalArgumentException("Groups and stop must not be null");
+            }
+        }
+
+        /**
+         * Constructs a trial whose threads never block.
+         *
+         * @param groups the thread groups
+         */
+        public Trial(Group... groups) {
+            this(List.of(groups), () -> {
+            });
+        }
+    }
+
+    /**
+     * Throughput of one group over the measured iterations.
+     *
+     * @param group   the group's name
+     * @param threads the group's thread count
+     * @param mean    mean items per second
+     * @param stdDev  sample standard deviation of items per second
+     * @param min     lowest iteration's items per second
+     * @param max     highest iteration's items per second
+     */
+    public record Result(String group, int threads, double mean, double stdDev, double min, double max) {
+        /**
+         * Formats the result on one line.
+         *
+         * @return the formatted result
+         */
+        public String format() {
+            return String.format("%-8s threads=%-3d %,14.0f ops/s +/- %,12.0f  (min %,14.0f, max %,14.0f)",
+                    group, threads, mean, stdDev, min, max);
+        }
+    }
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+
+    /**
+     * Constructs a harness.
+     *
+     * @param warmupIterations iterations run and discarded before measuring
+     * @param iterations       iterations measured (must be positive)
+     * @param iterationNanos   run time of each iteration (must be positive)
+     * @throws IllegalArgumentException if warmupIterations is negative, or
+     *                                  iterations or iterationNanos is not
+     *                                  positive
+     */
+    public Microbenchmark(int warmupIterations, int iterations, long iterationNanos) {
+        if (warmupIterations < 0 || iterations <= 0 || iterationNanos <= 0) {
+            throw new IllegalArgumentException("Iterations and iteration time must be positive");
+        }
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationNanos = iterationNanos;
+    }
+
+    /**
+     * Runs the warm-up and measured iterations, each on a fresh trial.
+     *
+     * @param trials creates the trial for each iteration
+     * @return one result per group that has threads, in trial order
+     * @throws IllegalArgumentException if trials is null
+     * @throws IllegalStateException    if an operation throws before the run
+     *                                  time is up
+     */
+    public List<Result> run(Supplier<Trial> trials) {
+        if (trials == null) {
+            throw new IllegalArgumentException("Trials must not be null");
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(trials.get());
+        }
+        List<String> names = new ArrayList<>();
+        List<Integer> threads = new ArrayList<>();
+        double[][] rates = null;
+        for (int i = 0; i < iterations; i++) {
+            Trial trial = trials.get();
+            double[] iterationRates = iterate(trial);
+            if (rates == null) {
+                rates = new double[iterationRates.length][iterations];
+                for (Group group : trial.groups()) {
+                    if (group.threads() > 0) {
+                        names.add(group.name());
+                        threads.add(group.threads());
+                    }
+                }
+            }
+            for (int g = 0; g < iterationRates.length; g++) {
+                rates[g][i] = iterationRates[g];
+            }
+        }
+        List<Result> results = new ArrayList<>(names.size());
+        for (int g = 0; g < names.size(); g++) {
+            results.add(summarize(names.get(g), threads.get(g), rates[g]));
+        }
+        return results;
+    }
+
+    /**
+     * Runs one iteration.
+     *
+     * @return items per second for each group that has threads
+     */
+    private double[] iterate(Trial trial) {
+        List<Group> groups = new ArrayList<>();
+        int total = 0;
+        for (Group group : trial.groups()) {
+            if (group.threads() > 0) {
+                groups.add(group);
+                total += group.threads();
+            }
+        }
+        Worker[] workers = new Worker[total];
+        Gate gate = new Gate();
+        int w = 0;
+        for (Group group : groups) {
+            for (int t = 0; t < group.threads(); t++) {
+                workers[w++] = new Worker(group.name() + "-" + t, group.operations().apply(t), gate);
+            }
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+
+        gate.awaitArrivals(total);
+        long start = System.nanoTime();
+        gate.open();
+        sleepUntil(start + iterationNanos);
+        Worker.stopped = true;
+        long elapsed = System.nanoTime() - start;
+        trial.stop().run();
+        for (Worker worker : workers) {
+            worker.finish();
+        }
+        Worker.stopped = false;
+
+        double[] rates = new double[groups.size()];
+        w = 0;
+        for (int g = 0; g < groups.size(); g++) {
+            long items = 0;
+            for (int t = 0; t < groups.get(g).threads(); t++) {
+                Worker worker = workers[w++];
+                if (worker.failure != null) {
+                    throw new IllegalStateException("Operation failed in " + worker.getName(), worker.failure);
+                }
+                items += worker.items;
+            }
+            rates[g] = items * 1e9 / elapsed;
+        }
+        return rates;
+    }
+
+    private static Result summarize(String name, int threads, double[] rates) {
+        double sum = 0;
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (double rate : rates) {
+            sum += rate;
+            min = Math.min(min, rate);
+            max = Math.max(max, rate);
+        }
+        double mean = sum / rates.length;
+        double squares = 0;
+        for (double rate : rates) {
+            squares += (rate - mean) * (rate - mean);
+        }
+        double stdDev = rates.length > 1 ? Math.sqrt(squares / (rates.length - 1)) : 0;
+        return new Result(name, threads, mean, stdDev, min, max);
+    }
+
+    /**
+     * Sleeps until System.nanoTime() reaches the deadline, even if interrupted;
+     * the interrupt status is restored afterwards.
+     */
+    private static void sleepUntil(long deadline) {
+        boolean interrupted = false;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Monitor at which the workers of one iteration check in and then wait
+     * until the harness releases them all at once. Waits ignore interrupts,
+     * which are re-asserted once the wait is over.
+     */
+    private static final class Gate {
+        private int arrived = 0;
+        private boolean open = false;
+
+        /**
+         * Checks in a worker and waits for the gate to open.
+         */
+        synchronized void arriveAndAwait() {
+            arrived++;
+            notifyAll();
+            boolean interrupted = false;
+            while (!open) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Waits until the given number of workers have checked in.
+         */
+        synchronized void awaitArrivals(int count) {
+            boolean interrupted = false;
+            while (arrived < count) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Releases every worker that has checked in or will.
+         */
+        synchronized void open() {
+            open = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * A thread that calls one operation until the iteration is stopped.
+     */
+    private static final class Worker extends Thread {
+        /**
+         * Set when the run time is up; one iteration runs at a time.
+         */
+        static volatile boolean stopped;
+
+        private final Operation operation;
+        private final Gate gate;
+        private long items;
+        private Throwable failure;
+
+        Worker(String name, Operation operation, Gate gate) {
+            super(name);
+            this.operation = operation;
+            this.gate = gate;
+        }
+
+        @Override
+        public void run() {
+            gate.arriveAndAwait();
+            long n = 0;
+            try {
+                while (!stopped) {
+                    n += operation.invoke();
+                }
+            } catch (RuntimeException | Error e) {
+                // Operations may fail once the trial's stop action has run
+                if (!stopped) {
+                    failure = e;
+                }
+            } finally {
+                items = n;
+            }
+        }
+
+        /**
+         * Waits for the thread to end, interrupting it if it does not stop in
+         * time.
+         */
+        void finish() {
+            try {
+                join(STOP_TIMEOUT_MILLIS);
+                while (isAlive()) {
+                    interrupt();
+                    join(STOP_TIMEOUT_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package edu.yu.parallel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.TradingSystem;
+import edu.yu.parallel.model.MarketData;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.threads.TradingThreadFactory;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.OpenLoopLoadGenerator;
+import edu.yu.parallel.trading.OrderGenerator;
+import edu.yu.parallel.trading.OrderQueue;
+
+/**
+ * Steps an {@link OpenLoopLoadGenerator} through increasing target rates to
+ * find the saturation point of a {@link TradingSystem}.
+ *
+ * Each rate step gets a fresh system with market makers but no trader
+ * threads, so the generator is the only source of orders. A one-second
+ * warm-up at the step's rate is discarded, then the measured run reports the
+ * rate actually sent and the p50, p99, p99.9 and max order-to-execution
+ * latency from intended send time. Past saturation the tail grows with the
+ * length of the run rather than leveling off, and the sent rate falls short of
+ * the target once the queue is full.
+ *
+ * Usage: OpenLoopBenchmark [seconds] [marketMakers] [fixed|poisson] [rate ...]
+ */
+public class OpenLoopBenchmark {
+    private final static Logger logger = LogManager.getLogger(OpenLoopBenchmark.class);
+
+    private static final double[] RATES = { 25_000, 50_000, 100_000, 200_000, 400_000, 800_000 };
+    private static final int QUEUE_CAPACITY = 100_000;
+    private static final int TRADERS = 100;
+    private static final int MIN_QUANTITY = 10;
+    private static final int MAX_QUANTITY = 100;
+    private static final long WARM_UP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public static void main(String[] args) {
+        int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+        int marketMakers = (args.length > 1) ? Integer.parseInt(args[1]) : 1;
+        OpenLoopLoadGenerator.Arrivals arrivals = (args.length > 2)
+                ? OpenLoopLoadGenerator.Arrivals.valueOf(args[2].toUpperCase())
+                : OpenLoopLoadGenerator.Arrivals.POISSON;
+        double[] rates = RATES;
+        if (args.length > 3) {
+            rates = new double[args.length - 3];
+            for (int i = 3; i < args.length; i++) {
+                rates[i - 3] = Double.parseDouble(args[i]);
+            }
+        }
+
+        logger.info(String.format("Benchmark: open-loop latency, seconds=%d, marketMakers=%d, arrivals=%s, queueCapacity=%d",
+                seconds, marketMakers, arrivals, QUEUE_CAPACITY));
+        for (double rate : rates) {
+            OpenLoopLoadGenerator.Result r = step(rate, seconds, marketMakers, arrivals);
+            logger.info(String.format(
+                    "target=%,10.0f/s  sent=%,10.0f/s  samples=%-9d p50=%10.1f us  p99=%10.1f us  p99.9=%10.1f us  max=%10.1f us",
+                    r.targetRate(), r.sentRate(), r.samples(), r.p50() / 1e3, r.p99() / 1e3, r.p999() / 1e3,
+                    r.max() / 1e3));
+        }
+    }
+
+    private static OpenLoopLoadGenerator.Result step(double rate, int seconds, int marketMakers,
+            OpenLoopLoadGenerator.Arrivals arrivals) {
+        List<Trader> traders = new ArrayList<>(TRADERS);
+        for (int i = 0; i < TRADERS; i++) {
+            traders.add(new Trader("Trader" + i));
+        }
+        MarketData marketData = new MarketData();
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        OrderQueue queue = new OrderQueue(QUEUE_CAPACITY);
+        OrderGenerator orderGenerator = new OrderGenerator(marketData, executedOrders, MIN_QUANTITY, MAX_QUANTITY);
+        // No traders: the system runs only its market makers
+        TradingSystem system = new TradingSystem(List.of(), marketMakers, marketData, orderGenerator, queue,
+                executedOrders, new TradingThreadFactory());
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(orderGenerator, queue, executedOrders,
+                traders, arrivals);
+
+        system.start();
+        try {
+            generator.run(rate, WARM_UP_NANOS);
+            return generator.run(rate, TimeUnit.SECONDS.toNanos(seconds));
+        } finally {
+            system.stop();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package edu.yu.parallel.benchmark;
+
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.MarketMaker;
+import edu.yu.parallel.trading.OrderBook;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Measures single-threaded matching throughput of {@link MarketMaker} against
+ * the depth of the book.
+ *
+ * For each depth D the book is seeded with D one-order levels per side around
+ * a fixed mid price. Each round then sends an aggressive order that sweeps the
+ * best {@code sweep} levels of one side, followed by passive orders that put
+ * those levels back, so the depth stays at D for the whole run.
+ *
+ * Usage: OrderBookBenchmark [rounds] [sweep]
+ */
+public class OrderBookBenchmark {
+    private final static Logger logger = LogManager.getLogger(OrderBookBenchmark.class);
+
+    private static final String SYMBOL = "BENCH";
+    private static final double MID = 100.00;
+    private static final int QUANTITY = 100;
+    private static final int[] DEPTHS = { 1, 10, 100, 1_000, 10_000 };
+
+    public static void main(String[] args) {
+        int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 200_000;
+        int sweep = (args.length > 1) ? Integer.parseInt(args[1]) : 1;
+
+        logger.info(String.format("Benchmark: MarketMaker.processOrder, rounds=%d, sweep=%d level(s)", rounds, sweep));
+
+        // Warm up the JIT on a mid-sized book before measuring anything
+        run(100, sweep, Math.min(rounds, 50_000));
+
+        for (int depth : DEPTHS) {
+            if (depth < sweep) {
+                continue;
+            }
+            Result r = run(depth, sweep, rounds);
+            logger.info(String.format("depth=%-6d orders=%-9d executions=%-9d time=%8.2f ms  %,12.0f orders/s  %,12.0f executions/s",
+                    depth, r.orders, r.executions, r.nanos / 1e6,
+                    r.orders * 1e9 / r.nanos, r.executions * 1e9 / r.nanos));
+        }
+    }
+
+    private record Result(long orders, long executions, long nanos) {
+    }
+
+    private static Result run(int depth, int sweep, int rounds) {
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        MarketMaker marketMaker = new MarketMaker(List.of(SYMBOL), executedOrders);
+        Trader buyer = new Trader("Buyer");
+        Trader seller = new Trader("Seller");
+        IdGenerator idGen = IdGenerator.getInstance();
+        double tick = OrderBook.DEFAULT_TICK_SIZE;
+
+        for (int level = 1; level <= depth; level++) {
+            marketMaker.processOrder(Order.createOrder(idGen, SYMBOL, OrderType.BUY, QUANTITY, MID - level * tick, buyer));
+            marketMaker.processOrder(Order.createOrder(idGen, SYMBOL, OrderType.SELL, QUANTITY, MID + level * tick, seller));
+        }
+
+        long orders = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            boolean buy = (round & 1) == 0;
+            double sweepPrice = buy ? MID + sweep * tick : MID - sweep * tick;
+            marketMaker.processOrder(Order.createOrder(idGen, SYMBOL, buy ? OrderType.BUY : OrderType.SELL,
+                    QUANTITY * sweep, sweepPrice, buy ? buyer : seller));
+            for (int level = 1; level <= sweep; level++) {
+                double price = buy ? MID + level * tick : MID - level * tick;
+                marketMaker.processOrder(Order.createOrder(idGen, SYMBOL, buy ? OrderType.SELL : OrderType.BUY,
+                        QUANTITY, price, buy ? seller : buyer));
+            }
+            orders += 1 + sweep;
+        }
+        long nanos = System.nanoTime() - start;
+
+        marketMaker.shutdown();
+        return new Result(orders, (long) rounds * sweep, nanos);
+    }
+}
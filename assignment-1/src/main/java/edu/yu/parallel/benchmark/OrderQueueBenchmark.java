@@ -0,0 +1,87 @@
+package edu.yu.parallel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.trading.OrderQueue;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Measures {@link OrderQueue} throughput for every combination of producer
+ * and consumer counts, with consumers taking one order at a time through
+ * getNextOrder or in batches through drainTo, as the market makers do.
+ *
+ * Each producer cycles through its own fixed set of orders, so the run
+ * measures the queue rather than order creation. Producer and consumer rates
+ * are reported separately; they agree unless the queue filled or emptied
+ * during the run.
+ *
+ * Usage: OrderQueueBenchmark [iterations] [iterationMillis] [capacity] [drainBatchSize]
+ */
+public class OrderQueueBenchmark {
+    private final static Logger logger = LogManager.getLogger(OrderQueueBenchmark.class);
+
+    private static final int[] PRODUCERS = { 1, 2, 4, 8 };
+    private static final int[] CONSUMERS = { 1, 2, 4 };
+    private static final int ORDERS_PER_PRODUCER = 1024;
+    private static final String SYMBOL = "BENCH";
+
+    public static void main(String[] args) {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : Microbenchmark.DEFAULT_ITERATIONS;
+        long millis = (args.length > 1) ? Long.parseLong(args[1]) : Microbenchmark.DEFAULT_ITERATION_MILLIS;
+        int capacity = (args.length > 2) ? Integer.parseInt(args[2]) : 10_000;
+        int drainBatchSize = (args.length > 3) ? Integer.parseInt(args[3]) : 256;
+
+        logger.info(String.format("Benchmark: OrderQueue add/take, iterations=%d x %d ms, capacity=%d, drainBatchSize=%d, cpus=%d",
+                iterations, millis, capacity, drainBatchSize, Runtime.getRuntime().availableProcessors()));
+        Microbenchmark harness = new Microbenchmark(Microbenchmark.DEFAULT_WARMUP_ITERATIONS, iterations,
+                TimeUnit.MILLISECONDS.toNanos(millis));
+        for (int batch : new int[] { 1, drainBatchSize }) {
+            for (int producers : PRODUCERS) {
+                for (int consumers : CONSUMERS) {
+                    List<Microbenchmark.Result> results = harness.run(
+                            () -> trial(capacity, producers, consumers, batch));
+                    for (Microbenchmark.Result r : results) {
+                        logger.info(String.format("%-8s producers=%-2d consumers=%-2d %s",
+                                batch == 1 ? "take" : "drain", producers, consumers, r.format()));
+                    }
+                }
+            }
+        }
+    }
+
+    private static Microbenchmark.Trial trial(int capacity, int producers, int consumers, int batch) {
+        OrderQueue queue = new OrderQueue(capacity);
+        Trader trader = new Trader("Bench");
+        Microbenchmark.Group add = new Microbenchmark.Group("add", producers, t -> {
+            Order[] orders = new Order[ORDERS_PER_PRODUCER];
+            for (int i = 0; i < orders.length; i++) {
+                orders[i] = Order.createOrder(IdGenerator.getInstance(), SYMBOL,
+                        (i & 1) == 0 ? OrderType.BUY : OrderType.SELL, 100, 100.00, trader);
+            }
+            int[] next = { 0 };
+            return () -> {
+                queue.addOrder(orders[next[0]++ & (ORDERS_PER_PRODUCER - 1)]);
+                return 1;
+            };
+        });
+        Microbenchmark.Group take = new Microbenchmark.Group("take", consumers, t -> {
+            if (batch == 1) {
+                return () -> queue.getNextOrder() != null ? 1 : 0;
+            }
+            List<Order> drained = new ArrayList<>(batch);
+            return () -> {
+                drained.clear();
+                return queue.drainTo(drained, batch);
+            };
+        });
+        return new Microbenchmark.Trial(List.of(add, take), queue::shutdown);
+    }
+}
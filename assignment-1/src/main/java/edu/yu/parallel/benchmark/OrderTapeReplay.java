@@ -0,0 +1,196 @@
+package edu.yu.parallel.benchmark;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.Price;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.persistence.OrderTape;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.MarketMaker;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Replays an {@link OrderTape} through market makers as fast as they can
+ * match, and checks that every way of running it produces the same
+ * executions.
+ *
+ * The tape is loaded once. Each iteration rebuilds its orders and traders,
+ * untimed, and then replays them twice. The first replay is single-threaded,
+ * with one market maker for every symbol and the orders in tape order. The
+ * second is sharded: symbols are dealt to the shards in order of first
+ * appearance, and each shard's thread has its own market maker and feeds it
+ * its symbols' orders in tape order. No queue sits in between, so the
+ * throughput reported is that of matching alone.
+ *
+ * Matching one symbol's orders in the same order always gives the same
+ * executions, so the two replays must agree symbol by symbol. Each replay
+ * digests every symbol's executions (the order IDs on both sides, quantity
+ * and price, in sequence); execution IDs and timestamps are left out. A
+ * mismatch fails the run. The combined digest is logged too, so replays of
+ * one tape can be compared across builds. Replays match continuously, and
+ * orders never expire.
+ *
+ * Usage: OrderTapeReplay tapeFile [shards] [iterations]
+ */
+public class OrderTapeReplay {
+    private final static Logger logger = LogManager.getLogger(OrderTapeReplay.class);
+
+    private static final int DEFAULT_ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: OrderTapeReplay tapeFile [shards] [iterations]");
+        }
+        Path file = Path.of(args[0]);
+        int shards = (args.length > 1) ? Integer.parseInt(args[1])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_ITERATIONS;
+        if (shards < 1 || iterations < 1) {
+            throw new IllegalArgumentException("Shards and iterations must be positive");
+        }
+
+        List<OrderTape.Entry> tape = new ArrayList<>();
+        long loadStart = System.nanoTime();
+        OrderTape.forEach(file, tape::add);
+        logger.info(String.format("Loaded %d orders from %s in %.0f ms", tape.size(), file,
+                (System.nanoTime() - loadStart) / 1e6));
+
+        // Deal the symbols to the shards in order of first appearance
+        Map<String, Integer> shardOf = new LinkedHashMap<>();
+        for (OrderTape.Entry entry : tape) {
+            shardOf.computeIfAbsent(entry.symbol(), s -> shardOf.size() % shards);
+        }
+        List<List<String>> shardSymbols = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            shardSymbols.add(new ArrayList<>());
+        }
+        shardOf.forEach((symbol, shard) -> shardSymbols.get(shard).add(symbol));
+        shardSymbols.removeIf(List::isEmpty);
+
+        for (int i = 1; i <= iterations; i++) {
+            Replay single = replay(tape, List.of(new ArrayList<>(shardOf.keySet())), shardOf);
+            Replay sharded = replay(tape, shardSymbols, shardOf);
+            logger.info(String.format(
+                    "iteration %d: single %.0f orders/s, %d shards %.0f orders/s, %d executions, digest %016x",
+                    i, tape.size() / (single.nanos / 1e9), shardSymbols.size(),
+                    tape.size() / (sharded.nanos / 1e9), single.executions(), single.digest()));
+            for (String symbol : shardOf.keySet()) {
+                int symbolId = SymbolDictionary.getInstance().find(symbol);
+                if (single.counts[symbolId] != sharded.counts[symbolId]
+                        || single.digests[symbolId] != sharded.digests[symbolId]) {
+                    throw new IllegalStateException("Sharded replay diverged from single-threaded replay on "
+                            + symbol + ": " + sharded.counts[symbolId] + " executions against "
+                            + single.counts[symbolId]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays the tape with one thread and market maker per group of symbols,
+     * and digests the executions.
+     */
+    private static Replay replay(List<OrderTape.Entry> tape, List<List<String>> groups, Map<String, Integer> shardOf) {
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        Map<String, Integer> groupOf = new HashMap<>();
+        for (int group = 0; group < groups.size(); group++) {
+            for (String symbol : groups.get(group)) {
+                groupOf.put(symbol, group);
+            }
+        }
+
+        // Build every order up front, so the replay itself only matches
+        Map<String, Trader> traders = new HashMap<>();
+        List<List<Order>> orders = new ArrayList<>();
+        for (int group = 0; group < groups.size(); group++) {
+            orders.add(new ArrayList<>());
+        }
+        for (OrderTape.Entry entry : tape) {
+            int symbolId = dictionary.idOf(entry.symbol());
+            Trader trader = traders.computeIfAbsent(entry.traderId(), Trader::new);
+            orders.get(groupOf.get(entry.symbol())).add(Order.restoreOrder(entry.orderId(), entry.symbol(),
+                    entry.orderType(), entry.quantity(), Price.toPrice(entry.priceTicks(), dictionary.tickSize(symbolId)),
+                    trader, OrderStatus.NEW));
+        }
+
+        int maxId = 0;
+        for (String symbol : shardOf.keySet()) {
+            maxId = Math.max(maxId, dictionary.idOf(symbol));
+        }
+        long[] counts = new long[maxId + 1];
+        long[] digests = new long[maxId + 1];
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        // Each symbol is matched by one thread, so its digest has one writer
+        executedOrders.addListener(execution -> {
+            int symbolId = execution.getSymbolId();
+            counts[symbolId]++;
+            digests[symbolId] = digests[symbolId] * 31 + mix(execution);
+        });
+        IdGenerator idGen = new IdGenerator(IdGenerator.DEFAULT_BLOCK_SIZE);
+
+        // Threads are created up front and only started once timing begins; a
+        // start costs microseconds, far below the time to replay a tape
+        Thread[] threads = new Thread[groups.size()];
+        for (int group = 0; group < groups.size(); group++) {
+            MarketMaker marketMaker = new MarketMaker(groups.get(group), executedOrders, false, idGen);
+            List<Order> groupOrders = orders.get(group);
+            threads[group] = new Thread(() -> {
+                for (Order order : groupOrders) {
+                    marketMaker.processOrder(order);
+                }
+            }, "Replay-" + group);
+        }
+        long startNanos = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replaying", e);
+            }
+        }
+        return new Replay(System.nanoTime() - startNanos, counts, digests);
+    }
+
+    private static long mix(Execution execution) {
+        long h = execution.getBuyOrder().getOrderId();
+        h = h * 0x9E3779B97F4A7C15L + execution.getSellOrder().getOrderId();
+        h = h * 0x9E3779B97F4A7C15L + execution.getQuantity();
+        h = h * 0x9E3779B97F4A7C15L + execution.getPriceTicks();
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Duration of one replay and each symbol's execution count and digest,
+     * indexed by symbol ID.
+     */
+    private record Replay(long nanos, long[] counts, long[] digests) {
+        long executions() {
+            return Arrays.stream(counts).sum();
+        }
+
+        long digest() {
+            long h = 0;
+            for (int i = 0; i < digests.length; i++) {
+                h = h * 31 + digests[i] * 17 + counts[i];
+            }
+            return h;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package edu.yu.parallel.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.TradingSystem;
+import edu.yu.parallel.model.MarketData;
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.threads.TradingThreadFactory;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.OrderGenerator;
+import edu.yu.parallel.trading.OrderQueue;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Compares platform and virtual trader threads (see
+ * {@link TradingThreadFactory}) by memory footprint and order throughput as
+ * the number of traders grows.
+ *
+ * Footprint: T trader threads are started against a full queue that nobody
+ * drains, so every trader ends up blocked in {@link OrderQueue#addOrder}. The
+ * report gives heap used after a GC and resident set size (from /proc, so only
+ * on Linux), each per trader over an idle baseline.
+ *
+ * Throughput: a {@link TradingSystem} runs T traders against one bounded queue
+ * and the given number of market makers. After a one-second warm-up the report
+ * gives orders taken off the queue per second over the measured interval.
+ *
+ * Platform runs above maxPlatformTraders are skipped, since creating that many
+ * OS threads can exhaust the machine. Run with -Xms equal to -Xmx so the heap
+ * does not resize between measurements and move the RSS figures.
+ *
+ * Usage: TraderThreadBenchmark [seconds] [marketMakers] [maxPlatformTraders]
+ */
+public class TraderThreadBenchmark {
+    private final static Logger logger = LogManager.getLogger(TraderThreadBenchmark.class);
+
+    private static final int[] TRADERS = { 100, 1_000, 10_000, 100_000 };
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MIN_QUANTITY = 10;
+    private static final int MAX_QUANTITY = 100;
+    private static final long WARM_UP_MS = 1_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+        int marketMakers = (args.length > 1) ? Integer.parseInt(args[1]) : 1;
+        int maxPlatformTraders = (args.length > 2) ? Integer.parseInt(args[2]) : 10_000;
+
+        logger.info(String.format("Benchmark: trader threads, seconds=%d, marketMakers=%d, queueCapacity=%d, cpus=%d",
+                seconds, marketMakers, QUEUE_CAPACITY, Runtime.getRuntime().availableProcessors()));
+
+        // All footprints first, so no run's leftover books skew a baseline
+        logger.info("Footprint of traders blocked on a full queue:");
+        for (int traders : TRADERS) {
+            for (boolean virtual : new boolean[] { false, true }) {
+                if (skip(traders, virtual, maxPlatformTraders)) {
+                    continue;
+                }
+                Footprint f = footprint(traders, virtual);
+                logger.info(String.format("traders=%-7d %-8s start=%8.1f ms  heap=%8.2f KB/trader  rss=%8.2f KB/trader",
+                        traders, mode(virtual), f.startNanos / 1e6, f.heapBytes / 1024.0 / traders,
+                        f.rssBytes / 1024.0 / traders));
+            }
+        }
+        logger.info("Throughput:");
+        for (int traders : TRADERS) {
+            for (boolean virtual : new boolean[] { false, true }) {
+                if (skip(traders, virtual, maxPlatformTraders)) {
+                    continue;
+                }
+                logger.info(String.format("traders=%-7d %-8s %,12.0f orders/s",
+                        traders, mode(virtual), throughput(traders, virtual, marketMakers, seconds)));
+            }
+        }
+    }
+
+    private static String mode(boolean virtual) {
+        return virtual ? "virtual" : "platform";
+    }
+
+    private static boolean skip(int traders, boolean virtual, int maxPlatformTraders) {
+        if (!virtual && traders > maxPlatformTraders) {
+            logger.info(String.format("traders=%-7d %-8s skipped (above maxPlatformTraders)", traders, mode(virtual)));
+            return true;
+        }
+        return false;
+    }
+
+    private record Footprint(long startNanos, long heapBytes, double rssBytes) {
+    }
+
+    private static Footprint footprint(int traders, boolean virtual) throws InterruptedException {
+        MarketData marketData = new MarketData();
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        OrderGenerator orderGenerator = new OrderGenerator(marketData, executedOrders, MIN_QUANTITY, MAX_QUANTITY);
+        TradingThreadFactory factory = new TradingThreadFactory(1, TradingThreadFactory.DEFAULT_DRAIN_BATCH_SIZE, virtual);
+        OrderQueue queue = new OrderQueue(1);
+        String symbol = marketData.getAvailableSymbols()[0];
+        queue.addOrder(Order.createOrder(IdGenerator.getInstance(), symbol, OrderType.BUY, MIN_QUANTITY,
+                marketData.getClosingPrice(symbol), new Trader("Filler")));
+
+        long heapBefore = usedHeapAfterGc();
+        double rssBefore = residentBytes();
+        List<Thread> threads = new ArrayList<>(traders);
+        long start = System.nanoTime();
+        for (int i = 0; i < traders; i++) {
+            Thread thread = factory.createTradingThread(new Trader("Trader" + i), orderGenerator, queue);
+            threads.add(thread);
+            thread.start();
+        }
+        long startNanos = System.nanoTime() - start;
+        // Let every trader reach addOrder and block on the full queue
+        Thread.sleep(WARM_UP_MS);
+        long heapBytes = usedHeapAfterGc() - heapBefore;
+        double rssBytes = residentBytes() - rssBefore;
+
+        queue.shutdown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Footprint(startNanos, heapBytes, rssBytes);
+    }
+
+    private static double throughput(int traders, boolean virtual, int marketMakers, int seconds)
+            throws InterruptedException {
+        List<Trader> traderList = new ArrayList<>(traders);
+        for (int i = 0; i < traders; i++) {
+            traderList.add(new Trader("Trader" + i));
+        }
+        MarketData marketData = new MarketData();
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        OrderQueue queue = new OrderQueue(QUEUE_CAPACITY);
+        TradingSystem system = new TradingSystem(traderList, marketMakers, marketData,
+                new OrderGenerator(marketData, executedOrders, MIN_QUANTITY, MAX_QUANTITY), queue, executedOrders,
+                new TradingThreadFactory(1, TradingThreadFactory.DEFAULT_DRAIN_BATCH_SIZE, virtual));
+
+        system.start();
+        Thread.sleep(WARM_UP_MS);
+        long before = processed(queue);
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1_000L);
+        long after = processed(queue);
+        long nanos = System.nanoTime() - start;
+        system.stop();
+        return (after - before) * 1e9 / nanos;
+    }
+
+    private static long processed(OrderQueue queue) {
+        OrderQueue.Statistics statistics = queue.getStatistics();
+        return statistics.totalCount() - statistics.pendingCount();
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Reads the process's resident set size from /proc/self/status.
+     *
+     * @return resident bytes, or NaN where /proc is not available
+     */
+    private static double residentBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024.0;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux; report NaN
+        }
+        return Double.NaN;
+    }
+}
@@ -6,42 +6,58 @@ import edu.yu.parallel.util.IdGenerator;
  * Represents a single execution of an order in the trading system.
  * Provides details about the executed quantity, price, involved orders, and
  * counterparties.
+ *
+ * A flyweight execution (see {@link #createFlyweight()}) is overwritten by
+ * {@link #reset} for every fill its owner books. Code that receives one, such
+ * as {@link edu.yu.parallel.trading.ExecutedOrders#recordExecution}, may only
+ * use it for the duration of that call and must copy anything it keeps.
  */
 public class Execution {
     /**
      * Unique identifier for this execution.
      */
-    private final int executionId;
+    private int executionId;
 
     /**
      * The buy order that was matched in this execution.
      */
-    private final Order buyOrder;
+    private Order buyOrder;
 
     /**
      * The sell order that was matched in this execution.
      */
-    private final Order sellOrder;
+    private Order sellOrder;
 
     /**
      * Symbol being traded (derived from orders).
      */
-    private final String symbol;
+    private String symbol;
+
+    /**
+     * {@link SymbolDictionary} ID of the symbol.
+     */
+    private int symbolId;
 
     /**
      * Quantity executed (may be partial fill).
      */
-    private final int quantity;
+    private int quantity;
 
     /**
-     * Price at which the execution occurred.
+     * Price at which the execution occurred, in ticks of the symbol's tick
+     * size.
      */
-    private final double price;
+    private long priceTicks;
 
     /**
      * Timestamp when this execution occurred.
      */
-    private final long timestamp;
+    private long timestamp;
+
+    /**
+     * Whether this instance is reused by {@link #reset}.
+     */
+    private final boolean flyweight;
 
     /**
      * Factory method to create an Execution with a generated execution ID.
@@ -50,7 +66,7 @@ public class Execution {
      * @param buyOrder  The buy order being matched
      * @param sellOrder The sell order being matched
      * @param quantity  The quantity being executed (must be positive)
-     * @param price     The execution price
+     * @param price     The execution price, rounded to the nearest tick
      * @return a new Execution instance
      * @throws IllegalArgumentException if orders have different symbols, quantity
      *                                  is non-positive,
@@ -59,25 +75,62 @@ public class Execution {
      */
     public static Execution createExecution(IdGenerator idGen, Order buyOrder, Order sellOrder,
             int quantity, double price) {
-        // Validation
-        if (!buyOrder.getSymbol().equals(sellOrder.getSymbol())) {
-            throw new IllegalArgumentException("Buy and sell orders must have the same symbol");
-        }
-        if (buyOrder.getOrderType() != OrderType.BUY) {
-            throw new IllegalArgumentException("Buy order must be BUY type");
-        }
-        if (sellOrder.getOrderType() != OrderType.SELL) {
-            throw new IllegalArgumentException("Sell order must be SELL type");
-        }
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be positive");
-        }
+        validate(buyOrder, sellOrder, quantity);
+        return createExecution(idGen, buyOrder, sellOrder, quantity,
+                Price.roundTicks(price, SymbolDictionary.getInstance().tickSize(buyOrder.getSymbolId())));
+    }
+
+    /**
+     * Factory method to create an Execution at a price given in ticks of the
+     * symbol's tick size, with a generated execution ID.
+     *
+     * @param idGen      IdGenerator instance for generating unique execution IDs
+     * @param buyOrder   The buy order being matched
+     * @param sellOrder  The sell order being matched
+     * @param quantity   The quantity being executed (must be positive)
+     * @param priceTicks The execution price in ticks
+     * @return a new Execution instance
+     * @throws IllegalArgumentException under the same conditions as
+     *                                  {@link #createExecution(IdGenerator, Order, Order, int, double)}
+     */
+    public static Execution createExecution(IdGenerator idGen, Order buyOrder, Order sellOrder,
+            int quantity, long priceTicks) {
+        validate(buyOrder, sellOrder, quantity);
 
         int executionId = idGen.nextExecutionId();
         long timestamp = System.currentTimeMillis();
 
         return new Execution(executionId, buyOrder, sellOrder, buyOrder.getSymbol(),
-                quantity, price, timestamp);
+                quantity, priceTicks, timestamp);
+    }
+
+    /**
+     * Factory method to create an empty flyweight Execution, to be filled in by
+     * {@link #reset} for each fill.
+     *
+     * @return a new flyweight Execution
+     */
+    public static Execution createFlyweight() {
+        return new Execution();
+    }
+
+    /**
+     * Factory method to rebuild an Execution that was created earlier, e.g. from
+     * a journal or snapshot, keeping its original ID and timestamp.
+     *
+     * @param executionId The execution's original ID
+     * @param buyOrder    The buy order
+     * @param sellOrder   The sell order
+     * @param quantity    The executed quantity
+     * @param price       The execution price, rounded to the nearest tick
+     * @param timestamp   The original execution timestamp
+     * @return a new Execution instance
+     */
+    public static Execution restoreExecution(int executionId, Order buyOrder, Order sellOrder,
+            int quantity, double price, long timestamp) {
+        long priceTicks = Price.roundTicks(price, SymbolDictionary.getInstance().tickSize(buyOrder.getSymbolId()));
+        return new Execution(executionId, buyOrder, sellOrder, buyOrder.getSymbol(),
+                quantity, priceTicks, timestamp);
     }
 
     /**
@@ -88,20 +141,81 @@ public class Execution {
      * @param sellOrder   The sell order
      * @param symbol      The symbol being traded
      * @param quantity    The executed quantity
-     * @param price       The execution price
+     * @param priceTicks  The execution price in ticks
      * @param timestamp   The execution timestamp
      */
     private Execution(int executionId, Order buyOrder, Order sellOrder, String symbol,
-            int quantity, double price, long timestamp) {
+            int quantity, long priceTicks, long timestamp) {
+        this.flyweight = false;
         this.executionId = executionId;
         this.buyOrder = buyOrder;
         this.sellOrder = sellOrder;
         this.symbol = symbol;
+        this.symbolId = buyOrder.getSymbolId();
         this.quantity = quantity;
-        this.price = price;
+        this.priceTicks = priceTicks;
         this.timestamp = timestamp;
     }
 
+    /**
+     * Private constructor for an empty flyweight Execution.
+     */
+    private Execution() {
+        this.flyweight = true;
+    }
+
+    /**
+     * Overwrites this flyweight with a new fill, with a generated execution ID,
+     * exactly as {@link #createExecution} would initialize a new Execution.
+     *
+     * @param idGen      IdGenerator instance for generating unique execution IDs
+     * @param buyOrder   The buy order being matched
+     * @param sellOrder  The sell order being matched
+     * @param quantity   The quantity being executed (must be positive)
+     * @param priceTicks The execution price in ticks
+     * @throws IllegalStateException    if this is not a flyweight
+     * @throws IllegalArgumentException under the same conditions as
+     *                                  {@link #createExecution}
+     */
+    public void reset(IdGenerator idGen, Order buyOrder, Order sellOrder, int quantity, long priceTicks) {
+        if (!flyweight) {
+            throw new IllegalStateException("Only a flyweight execution can be reset");
+        }
+        validate(buyOrder, sellOrder, quantity);
+        this.executionId = idGen.nextExecutionId();
+        this.buyOrder = buyOrder;
+        this.sellOrder = sellOrder;
+        this.symbol = buyOrder.getSymbol();
+        this.symbolId = buyOrder.getSymbolId();
+        this.quantity = quantity;
+        this.priceTicks = priceTicks;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Checks whether this execution is a reusable flyweight.
+     *
+     * @return true if this execution is overwritten for every fill
+     */
+    public boolean isFlyweight() {
+        return flyweight;
+    }
+
+    private static void validate(Order buyOrder, Order sellOrder, int quantity) {
+        if (buyOrder.getSymbolId() != sellOrder.getSymbolId()) {
+            throw new IllegalArgumentException("Buy and sell orders must have the same symbol");
+        }
+        if (buyOrder.getOrderType() != OrderType.BUY) {
+            throw new IllegalArgumentException("Buy order must be BUY type");
+        }
+        if (sellOrder.getOrderType() != OrderType.SELL) {
+            throw new IllegalArgumentException("Sell order must be SELL type");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+    }
+
     /**
      * Gets the unique execution ID for this order execution.
      * 
@@ -138,6 +252,15 @@ public class Execution {
         return symbol;
     }
 
+    /**
+     * Gets the {@link SymbolDictionary} ID of the executed symbol.
+     * 
+     * @return symbol ID
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
     /**
      * Gets the quantity executed in this execution.
      * 
@@ -153,7 +276,16 @@ public class Execution {
      * @return execution price
      */
     public double getPrice() {
-        return price;
+        return Price.toPrice(priceTicks, SymbolDictionary.getInstance().tickSize(symbolId));
+    }
+
+    /**
+     * Gets the execution price in ticks of the symbol's tick size.
+     * 
+     * @return execution price in ticks
+     */
+    public long getPriceTicks() {
+        return priceTicks;
     }
 
     /**
@@ -173,7 +305,7 @@ public class Execution {
     @Override
     public String toString() {
         return String.format("Execution[id=%d, symbol=%s, qty=%d, price=%.2f, buyer=%s, seller=%s]",
-                executionId, symbol, quantity, price,
+                executionId, symbol, quantity, getPrice(),
                 buyOrder.getTrader().getTraderId(),
                 sellOrder.getTrader().getTraderId());
     }
@@ -1,5 +1,6 @@
 package edu.yu.parallel.model;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
@@ -11,13 +12,18 @@ import java.util.Random;
  */
 public class MarketData {
     /**
-     * Map of stock symbols to their closing prices.
+     * Closing prices indexed by {@link SymbolDictionary} ID; NaN for symbols
+     * this market does not list.
      */
-    private final Map<String, Double> closingPrices;
+    private final double[] closingPrices;
     /**
      * Array of available stock symbols in the market.
      */
     private final String[] availableSymbols;
+    /**
+     * {@link SymbolDictionary} IDs of the available symbols, in the same order.
+     */
+    private final int[] availableSymbolIds;
     /**
      * Random number generator for price simulation.
      */
@@ -30,15 +36,27 @@ public class MarketData {
         this.random = new Random();
 
         // Initialize with realistic closing prices
-        this.closingPrices = new HashMap<>();
-        closingPrices.put("META", 334.50);
-        closingPrices.put("AAPL", 189.25);
-        closingPrices.put("AMZN", 145.75);
-        closingPrices.put("NFLX", 485.30);
-        closingPrices.put("MSFT", 378.90);
-        closingPrices.put("GOOGL", 2875.40);
-
-        this.availableSymbols = closingPrices.keySet().toArray(new String[0]);
+        Map<String, Double> prices = new HashMap<>();
+        prices.put("META", 334.50);
+        prices.put("AAPL", 189.25);
+        prices.put("AMZN", 145.75);
+        prices.put("NFLX", 485.30);
+        prices.put("MSFT", 378.90);
+        prices.put("GOOGL", 2875.40);
+
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        this.availableSymbols = prices.keySet().toArray(new String[0]);
+        this.availableSymbolIds = new int[availableSymbols.length];
+        int maxId = 0;
+        for (int i = 0; i < availableSymbols.length; i++) {
+            availableSymbolIds[i] = dictionary.idOf(availableSymbols[i]);
+            maxId = Math.max(maxId, availableSymbolIds[i]);
+        }
+        this.closingPrices = new double[maxId + 1];
+        Arrays.fill(closingPrices, Double.NaN);
+        for (int i = 0; i < availableSymbols.length; i++) {
+            closingPrices[availableSymbolIds[i]] = prices.get(availableSymbols[i]);
+        }
     }
 
     /**
@@ -59,6 +77,16 @@ public class MarketData {
         return availableSymbols[random.nextInt(availableSymbols.length)];
     }
 
+    /**
+     * Returns the {@link SymbolDictionary} ID of a random stock symbol from the
+     * available symbols.
+     * 
+     * @return random symbol ID
+     */
+    public int getRandomSymbolId() {
+        return availableSymbolIds[random.nextInt(availableSymbolIds.length)];
+    }
+
     /**
      * Gets the closing price for a given symbol.
      * 
@@ -67,11 +95,20 @@ public class MarketData {
      * @throws IllegalArgumentException if symbol is unknown
      */
     public double getClosingPrice(String symbol) {
-        Double price = closingPrices.get(symbol);
-        if (price == null) {
-            throw new IllegalArgumentException("Unknown symbol: " + symbol);
-        }
-        return price;
+        return getClosingPrice(idOf(symbol));
+    }
+
+    /**
+     * Gets the closing price for a symbol given by its {@link SymbolDictionary}
+     * ID.
+     * 
+     * @param symbolId the symbol ID
+     * @return closing price
+     * @throws IllegalArgumentException if symbol is unknown
+     */
+    public double getClosingPrice(int symbolId) {
+        validateSymbol(symbolId);
+        return closingPrices[symbolId];
     }
 
     /**
@@ -84,7 +121,20 @@ public class MarketData {
      * @throws IllegalArgumentException if symbol is unknown
      */
     public double generateBuyPrice(String symbol, double currentPrice) {
-        validateSymbol(symbol);
+        return generateBuyPrice(idOf(symbol), currentPrice);
+    }
+
+    /**
+     * Generates a realistic buy price for a symbol given by its
+     * {@link SymbolDictionary} ID.
+     * 
+     * @param symbolId     the symbol ID (for validation)
+     * @param currentPrice the current market price to base the buy price on
+     * @return generated buy price
+     * @throws IllegalArgumentException if symbol is unknown
+     */
+    public double generateBuyPrice(int symbolId, double currentPrice) {
+        validateSymbol(symbolId);
         // Buyers willing to pay at or slightly above current market
         return currentPrice * (1.0 + random.nextDouble() * 0.02); // 0-2% above
     }
@@ -99,7 +149,20 @@ public class MarketData {
      * @throws IllegalArgumentException if symbol is unknown
      */
     public double generateSellPrice(String symbol, double currentPrice) {
-        validateSymbol(symbol);
+        return generateSellPrice(idOf(symbol), currentPrice);
+    }
+
+    /**
+     * Generates a realistic sell price for a symbol given by its
+     * {@link SymbolDictionary} ID.
+     * 
+     * @param symbolId     the symbol ID (for validation)
+     * @param currentPrice the current market price to base the sell price on
+     * @return generated sell price
+     * @throws IllegalArgumentException if symbol is unknown
+     */
+    public double generateSellPrice(int symbolId, double currentPrice) {
+        validateSymbol(symbolId);
         // Sellers want to sell at or slightly below current market
         return currentPrice * (0.98 + random.nextDouble() * 0.02); // -2% to 0%
     }
@@ -107,12 +170,31 @@ public class MarketData {
     /**
      * Validates that a symbol is known to this market data provider.
      * 
-     * @param symbol the symbol to validate
+     * @param symbolId the ID of the symbol to validate
      * @throws IllegalArgumentException if symbol is unknown
      */
-    private void validateSymbol(String symbol) {
-        if (!closingPrices.containsKey(symbol)) {
+    private void validateSymbol(int symbolId) {
+        if (!lists(symbolId)) {
+            throw new IllegalArgumentException("Unknown symbol ID: " + symbolId);
+        }
+    }
+
+    /**
+     * Gets the ID of a symbol listed by this market.
+     * 
+     * @param symbol the symbol to look up
+     * @return the symbol's {@link SymbolDictionary} ID
+     * @throws IllegalArgumentException if symbol is unknown
+     */
+    private int idOf(String symbol) {
+        int symbolId = SymbolDictionary.getInstance().find(symbol);
+        if (!lists(symbolId)) {
             throw new IllegalArgumentException("Unknown symbol: " + symbol);
         }
+        return symbolId;
+    }
+
+    private boolean lists(int symbolId) {
+        return symbolId >= 0 && symbolId < closingPrices.length && !Double.isNaN(closingPrices[symbolId]);
     }
 }
\ No newline at end of file
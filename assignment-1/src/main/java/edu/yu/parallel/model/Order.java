@@ -6,6 +6,13 @@ import edu.yu.parallel.util.IdGenerator;
  * Represents an order placed by a trader.
  * Contains all necessary information about the order, including symbol, type,
  * quantity, price, trader, and status.
+ *
+ * An order's identity (ID, symbol, type, limit price and trader) never
+ * changes; only its remaining quantity, status and lifecycle timestamps do.
+ * The one exception is the package-private {@link PooledOrder} that an
+ * {@link OrderPool} hands out: the pool reinitializes it in place each time it
+ * is reused, so a pooled order must not be referenced after it has been
+ * returned to its pool.
  */
 public class Order {
     /**
@@ -18,6 +25,11 @@ public class Order {
      */
     private final String symbol;
 
+    /**
+     * ID of the symbol in the {@link SymbolDictionary}.
+     */
+    private final int symbolId;
+
     /**
      * Type of order: BUY or SELL.
      */
@@ -29,9 +41,10 @@ public class Order {
     private int quantity;
 
     /**
-     * Price per unit for this order.
+     * Limit price per unit, in ticks of the symbol's tick size (see
+     * {@link Price}).
      */
-    private final double price;
+    private final long priceTicks;
 
     /**
      * Trader who placed this order.
@@ -43,6 +56,21 @@ public class Order {
      */
     private OrderStatus status;
 
+    /**
+     * Lifecycle timestamps from {@link System#nanoTime()}, taken when the
+     * order was generated, handed to the queue and taken off it; 0 if not
+     * taken. Each is written by the thread that owns the order at that stage.
+     */
+    private long generatedNanos;
+    private long enqueuedNanos;
+    private long dequeuedNanos;
+
+    /**
+     * How long the order may rest in the book before it expires, in
+     * nanoseconds; 0 if it rests until filled or cancelled.
+     */
+    private long ttlNanos;
+
     /**
      * Factory method to create an Order with a generated order ID and default
      * status NEW.
@@ -51,38 +79,149 @@ public class Order {
      * @param symbol    Symbol being traded
      * @param orderType Type of order (BUY or SELL)
      * @param quantity  Number of shares/contracts
-     * @param price     Price per unit
+     * @param price     Price per unit, converted to ticks in the order's favor
+     *                  (down for a BUY, up for a SELL)
      * @param trader    Trader who placed the order
      * @return a new Order instance
      */
     public static Order createOrder(IdGenerator idGen, String symbol, OrderType orderType,
             int quantity, double price, Trader trader) {
         int orderId = idGen.nextOrderId();
-        return new Order(orderId, symbol, orderType, quantity, price, trader, OrderStatus.NEW);
+        return new Order(orderId, SymbolDictionary.getInstance().idOf(symbol), orderType, quantity, price, trader,
+                OrderStatus.NEW);
+    }
+
+    /**
+     * Factory method to create an Order for a symbol given by its
+     * {@link SymbolDictionary} ID, with a generated order ID and default status
+     * NEW. Unlike {@link #createOrder(IdGenerator, String, OrderType, int, double, Trader)}
+     * it does not hash the symbol.
+     *
+     * @param idGen     IdGenerator instance for generating unique order IDs
+     * @param symbolId  ID of the symbol being traded
+     * @param orderType Type of order (BUY or SELL)
+     * @param quantity  Number of shares/contracts
+     * @param price     Price per unit
+     * @param trader    Trader who placed the order
+     * @return a new Order instance
+     * @throws IllegalArgumentException if no symbol has this ID
+     */
+    public static Order createOrder(IdGenerator idGen, int symbolId, OrderType orderType,
+            int quantity, double price, Trader trader) {
+        int orderId = idGen.nextOrderId();
+        return new Order(orderId, symbolId, orderType, quantity, price, trader, OrderStatus.NEW);
+    }
+
+    /**
+     * Factory method to rebuild an Order that was created earlier, e.g. from a
+     * journal or snapshot, keeping its original order ID.
+     *
+     * @param orderId   The order's original ID
+     * @param symbol    Symbol being traded
+     * @param orderType Type of order (BUY or SELL)
+     * @param quantity  Number of shares/contracts
+     * @param price     Price per unit
+     * @param trader    Trader who placed the order
+     * @param status    Status of the order
+     * @return a new Order instance
+     */
+    public static Order restoreOrder(int orderId, String symbol, OrderType orderType,
+            int quantity, double price, Trader trader, OrderStatus status) {
+        return new Order(orderId, SymbolDictionary.getInstance().idOf(symbol), orderType, quantity, price, trader,
+                status);
+    }
+
+    /**
+     * Factory method to rebuild an Order for a symbol given by its
+     * {@link SymbolDictionary} ID, keeping its original order ID. Unlike
+     * {@link #restoreOrder(int, String, OrderType, int, double, Trader, OrderStatus)}
+     * it does not hash the symbol.
+     *
+     * @param orderId   The order's original ID
+     * @param symbolId  ID of the symbol being traded
+     * @param orderType Type of order (BUY or SELL)
+     * @param quantity  Number of shares/contracts
+     * @param price     Price per unit
+     * @param trader    Trader who placed the order
+     * @param status    Status of the order
+     * @return a new Order instance
+     * @throws IllegalArgumentException if no symbol has this ID
+     */
+    public static Order restoreOrder(int orderId, int symbolId, OrderType orderType,
+            int quantity, double price, Trader trader, OrderStatus status) {
+        return new Order(orderId, symbolId, orderType, quantity, price, trader, status);
     }
 
     /**
      * Private constructor for Order. Use createOrder to instantiate.
      *
      * @param orderId   Unique integer order ID
-     * @param symbol    Symbol being traded
+     * @param symbolId  ID of the symbol being traded
      * @param orderType Type of order (BUY or SELL)
      * @param quantity  Number of shares/contracts
      * @param price     Price per unit
      * @param trader    Trader who placed the order
      * @param status    Initial status of the order
      */
-    private Order(int orderId, String symbol, OrderType orderType, int quantity, double price, Trader trader,
+    private Order(int orderId, int symbolId, OrderType orderType, int quantity, double price, Trader trader,
             OrderStatus status) {
         this.orderId = orderId;
-        this.symbol = symbol;
+        this.symbolId = symbolId;
+        this.symbol = SymbolDictionary.getInstance().symbolOf(symbolId);
         this.orderType = orderType;
         this.quantity = quantity;
-        this.price = price;
+        this.priceTicks = toTicks(symbolId, orderType, price);
         this.trader = trader;
         this.status = status;
     }
 
+    /**
+     * Constructs the blank base of a {@link PooledOrder}, which keeps its
+     * identity in fields of its own and overrides the getters for it.
+     */
+    Order() {
+        this.orderId = 0;
+        this.symbolId = -1;
+        this.symbol = null;
+        this.orderType = null;
+        this.priceTicks = 0;
+        this.trader = null;
+    }
+
+    /**
+     * Converts a limit price to ticks without ever making it worse for the
+     * order's owner: a buy limit rounds down and a sell limit rounds up.
+     *
+     * @param symbolId  ID of the symbol being traded
+     * @param orderType Type of order (BUY or SELL)
+     * @param price     Price per unit
+     * @return the limit price in ticks of the symbol's tick size
+     */
+    public static long toTicks(int symbolId, OrderType orderType, double price) {
+        double tickSize = SymbolDictionary.getInstance().tickSize(symbolId);
+        return orderType == OrderType.SELL
+                ? Price.ceilTicks(price, tickSize)
+                : Price.floorTicks(price, tickSize);
+    }
+
+    /**
+     * Gets the pool this order belongs to.
+     *
+     * @return the owning pool, or null if the order is not pooled
+     */
+    OrderPool getPool() {
+        return null;
+    }
+
+    /**
+     * Checks whether this order was taken from an {@link OrderPool}.
+     *
+     * @return true if the order is pooled
+     */
+    public boolean isPooled() {
+        return getPool() != null;
+    }
+
     /**
      * Gets the unique order ID for this order.
      * 
@@ -101,6 +240,15 @@ public class Order {
         return symbol;
     }
 
+    /**
+     * Gets the {@link SymbolDictionary} ID of the symbol being traded.
+     * 
+     * @return symbolId
+     */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
     /**
      * Gets the type of order (BUY or SELL).
      * 
@@ -152,7 +300,97 @@ public class Order {
      * @return price
      */
     public double getPrice() {
-        return price;
+        return Price.toPrice(getPriceTicks(), SymbolDictionary.getInstance().tickSize(getSymbolId()));
+    }
+
+    /**
+     * Gets the price per unit for this order in ticks of the symbol's tick
+     * size.
+     * 
+     * @return price in ticks
+     */
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    /**
+     * Gets the time this order was generated.
+     * 
+     * @return {@link System#nanoTime()} at generation, or 0 if not taken
+     */
+    public long getGeneratedNanos() {
+        return generatedNanos;
+    }
+
+    /**
+     * Sets the time this order was generated.
+     * 
+     * @param generatedNanos {@link System#nanoTime()} at generation
+     */
+    public void setGeneratedNanos(long generatedNanos) {
+        this.generatedNanos = generatedNanos;
+    }
+
+    /**
+     * Gets the time this order was handed to the order queue.
+     * 
+     * @return {@link System#nanoTime()} at enqueue, or 0 if not taken
+     */
+    public long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+
+    /**
+     * Sets the time this order was handed to the order queue. Must be set
+     * before the order is added, since a market maker may take it at once.
+     * 
+     * @param enqueuedNanos {@link System#nanoTime()} at enqueue
+     */
+    public void setEnqueuedNanos(long enqueuedNanos) {
+        this.enqueuedNanos = enqueuedNanos;
+    }
+
+    /**
+     * Gets the time a market maker took this order off the queue.
+     * 
+     * @return {@link System#nanoTime()} at dequeue, or 0 if not taken
+     */
+    public long getDequeuedNanos() {
+        return dequeuedNanos;
+    }
+
+    /**
+     * Sets the time a market maker took this order off the queue.
+     * 
+     * @param dequeuedNanos {@link System#nanoTime()} at dequeue
+     */
+    public void setDequeuedNanos(long dequeuedNanos) {
+        this.dequeuedNanos = dequeuedNanos;
+    }
+
+    /**
+     * Gets how long this order may rest in the book.
+     * 
+     * @return time-to-live in nanoseconds, or 0 if the order never expires
+     */
+    public long getTtlNanos() {
+        return ttlNanos;
+    }
+
+    /**
+     * Sets how long this order may rest in the book before its market maker
+     * cancels it. The time counts from when the order first rests, not from
+     * when it was generated. Must be set before the order is added to the
+     * queue.
+     * 
+     * @param ttlNanos time-to-live in nanoseconds, or 0 to never expire
+     * @throws IllegalArgumentException if ttlNanos is negative
+     */
+    public void setTtlNanos(long ttlNanos) {
+        if (ttlNanos < 0) {
+            throw new IllegalArgumentException("TTL must not be negative");
+        }
+        this.ttlNanos = ttlNanos;
     }
 
     /**
@@ -167,12 +405,12 @@ public class Order {
     @Override
     public String toString() {
         return "Order{" +
-                "orderId=" + orderId +
-                ", symbol='" + symbol + '\'' +
-                ", orderType=" + orderType +
+                "orderId=" + getOrderId() +
+                ", symbol='" + getSymbol() + '\'' +
+                ", orderType=" + getOrderType() +
                 ", quantity=" + quantity +
-                ", price=" + price +
-                ", trader=" + trader +
+                ", price=" + getPrice() +
+                ", trader=" + getTrader() +
                 ", status=" + status +
                 '}';
     }
@@ -180,13 +418,12 @@ public class Order {
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
-        Order other = (Order) obj;
-        return orderId == other.orderId;
+        if (!(obj instanceof Order other)) return false;
+        return getOrderId() == other.getOrderId();
     }
 
     @Override
     public int hashCode() {
-        return Integer.hashCode(orderId);
+        return Integer.hashCode(getOrderId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package edu.yu.parallel.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Recycles {@link Order} instances so that a running system stops allocating
+ * orders once it has warmed up. The pool hands out {@link PooledOrder}s, the
+ * only orders whose identity can change, and is the only code that changes
+ * it.
+ *
+ * Orders are taken on trader threads and returned on market maker threads, so
+ * each thread keeps a private magazine of free orders and only exchanges whole
+ * batches with a shared stack, under a lock taken once per batch. An order is
+ * allocated only when both the thread's magazine and the shared stack are
+ * empty.
+ *
+ * Ownership: an order taken from the pool belongs to whoever holds it along
+ * the pipeline (generator, queue, market maker, book). Whoever sees it reach
+ * FILLED after every reference to it is gone returns it with
+ * {@link #recycle(Order)}. Cancelled orders are handed to the caller of the
+ * shutdown that cancelled them and are not returned; the pool simply
+ * allocates replacements.
+ */
+public class OrderPool {
+    /**
+     * Number of orders moved between a thread's magazine and the shared stack
+     * at a time, used by {@link #OrderPool()}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private static final VarHandle ALLOCATED;
+
+    static {
+        try {
+            ALLOCATED = MethodHandles.lookup().findVarHandle(OrderPool.class, "allocated", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int batchSize;
+    private final ThreadLocal<Magazine> magazines;
+    private volatile long allocated = 0;
+
+    /**
+     * Shared stack of free orders. Guarded by this.
+     */
+    private PooledOrder[] shared = new PooledOrder[0];
+    private int sharedCount = 0;
+
+    /**
+     * Constructs a pool with {@link #DEFAULT_BATCH_SIZE}.
+     */
+    public OrderPool() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a pool.
+     *
+     * @param batchSize number of orders moved between a thread's magazine and
+     *                  the shared stack at a time
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public OrderPool(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        this.magazines = ThreadLocal.withInitial(() -> new Magazine(2 * batchSize));
+    }
+
+    /**
+     * Takes a free order from the pool and initializes it like
+     * {@link Order#createOrder}, with a generated order ID and status NEW.
+     *
+     * @param idGen     IdGenerator instance for generating unique order IDs
+     * @param symbol    Symbol being traded
+     * @param orderType Type of order (BUY or SELL)
+     * @param quantity  Number of shares/contracts
+     * @param price     Price per unit
+     * @param trader    Trader who placed the order
+     * @return a pooled Order
+     */
+    public Order acquire(IdGenerator idGen, String symbol, OrderType orderType,
+            int quantity, double price, Trader trader) {
+        return acquire(idGen, SymbolDictionary.getInstance().idOf(symbol), orderType, quantity, price, trader);
+    }
+
+    /**
+     * Takes a free order from the pool and initializes it like
+     * {@link Order#createOrder(IdGenerator, int, OrderType, int, double, Trader)},
+     * for a symbol given by its {@link SymbolDictionary} ID.
+     *
+     * @param idGen     IdGenerator instance for generating unique order IDs
+     * @param symbolId  ID of the symbol being traded
+     * @param orderType Type of order (BUY or SELL)
+     * @param quantity  Number of shares/contracts
+     * @param price     Price per unit
+     * @param trader    Trader who placed the order
+     * @return a pooled Order
+     * @throws IllegalArgumentException if no symbol has this ID
+     */
+    public Order acquire(IdGenerator idGen, int symbolId, OrderType orderType,
+            int quantity, double price, Trader trader) {
+        SymbolDictionary.getInstance().symbolOf(symbolId);
+        Magazine magazine = magazines.get();
+        if (magazine.count == 0) {
+            refill(magazine);
+        }
+        PooledOrder order;
+        if (magazine.count > 0) {
+            order = magazine.orders[--magazine.count];
+            magazine.orders[magazine.count] = null;
+        } else {
+            order = new PooledOrder(this);
+            ALLOCATED.getAndAdd(this, 1L);
+        }
+        order.reinitialize(idGen.nextOrderId(), symbolId, orderType, quantity, price, trader);
+        return order;
+    }
+
+    /**
+     * Returns a finished order to the pool it came from. The caller must hold
+     * the last reference to the order. Orders that are not pooled are ignored.
+     *
+     * @param order the order to return
+     * @throws IllegalArgumentException if order is null
+     */
+    public static void recycle(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order must not be null");
+        }
+        if (order instanceof PooledOrder pooled) {
+            pooled.getPool().release(pooled);
+        }
+    }
+
+    /**
+     * Gets the number of orders this pool has had to allocate. It stops
+     * growing once the pool holds enough orders for the system's steady state.
+     *
+     * @return number of orders allocated
+     */
+    public long getAllocatedCount() {
+        return allocated;
+    }
+
+    private void release(PooledOrder order) {
+        Magazine magazine = magazines.get();
+        if (magazine.count == magazine.orders.length) {
+            flush(magazine);
+        }
+        magazine.orders[magazine.count++] = order;
+    }
+
+    private synchronized void refill(Magazine magazine) {
+        int n = Math.min(batchSize, sharedCount);
+        sharedCount -= n;
+        System.arraycopy(shared, sharedCount, magazine.orders, magazine.count, n);
+        Arrays.fill(shared, sharedCount, sharedCount + n, null);
+        magazine.count += n;
+    }
+
+    private synchronized void flush(Magazine magazine) {
+        if (sharedCount + batchSize > shared.length) {
+            shared = Arrays.copyOf(shared, Math.max(2 * shared.length, sharedCount + batchSize));
+        }
+        magazine.count -= batchSize;
+        System.arraycopy(magazine.orders, magazine.count, shared, sharedCount, batchSize);
+        Arrays.fill(magazine.orders, magazine.count, magazine.count + batchSize, null);
+        sharedCount += batchSize;
+    }
+
+    /**
+     * One thread's free orders.
+     */
+    private static final class Magazine {
+        private final PooledOrder[] orders;
+        private int count;
+
+        Magazine(int capacity) {
+            this.orders = new PooledOrder[capacity];
+        }
+    }
+}
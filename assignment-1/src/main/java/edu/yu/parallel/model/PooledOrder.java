@@ -0,0 +1,93 @@
+package edu.yu.parallel.model;
+
+/**
+ * An {@link Order} owned by an {@link OrderPool}, whose identity is
+ * overwritten each time the pool hands it out again.
+ *
+ * Only the pool creates and reinitializes these, so every other Order stays
+ * immutable apart from its lifecycle state. Between being taken from the pool
+ * and being recycled, a pooled order behaves exactly like one built by
+ * {@link Order#createOrder}.
+ */
+final class PooledOrder extends Order {
+    /**
+     * Pool this order is returned to once it is done.
+     */
+    private final OrderPool pool;
+
+    private int orderId;
+    private String symbol;
+    private int symbolId = -1;
+    private OrderType orderType;
+    private long priceTicks;
+    private Trader trader;
+
+    /**
+     * Constructs an empty order owned by the given pool.
+     *
+     * @param pool the owning pool
+     */
+    PooledOrder(OrderPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Reinitializes this order as a NEW order with a fresh order ID.
+     *
+     * @param orderId   Unique integer order ID
+     * @param symbolId  ID of the symbol being traded
+     * @param orderType Type of order (BUY or SELL)
+     * @param quantity  Number of shares/contracts
+     * @param price     Price per unit
+     * @param trader    Trader who placed the order
+     */
+    void reinitialize(int orderId, int symbolId, OrderType orderType, int quantity, double price, Trader trader) {
+        this.orderId = orderId;
+        this.symbolId = symbolId;
+        this.symbol = SymbolDictionary.getInstance().symbolOf(symbolId);
+        this.orderType = orderType;
+        this.priceTicks = toTicks(symbolId, orderType, price);
+        this.trader = trader;
+        setQuantity(quantity);
+        setStatus(OrderStatus.NEW);
+        setGeneratedNanos(0);
+        setEnqueuedNanos(0);
+        setDequeuedNanos(0);
+        setTtlNanos(0);
+    }
+
+    @Override
+    OrderPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public int getOrderId() {
+        return orderId;
+    }
+
+    @Override
+    public String getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    @Override
+    public OrderType getOrderType() {
+        return orderType;
+    }
+
+    @Override
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    @Override
+    public Trader getTrader() {
+        return trader;
+    }
+}
@@ -0,0 +1,86 @@
+package edu.yu.parallel.model;
+
+/**
+ * Conversions between decimal prices and fixed-point prices.
+ *
+ * Inside the system a price is a long count of its symbol's tick size (see
+ * {@link SymbolDictionary#tickSize(int)}), so with a 0.01 tick 189.25 is
+ * 18925. Ticks compare, index book levels and sum exactly. Decimal prices only
+ * appear at the edges: when an order is created from a generated price, and
+ * when a price is reported.
+ */
+public final class Price {
+    /**
+     * Tick size of a symbol registered without one.
+     */
+    public static final double DEFAULT_TICK_SIZE = 0.01;
+
+    /**
+     * Stands in for a price in ticks where there is none, such as the best bid
+     * of a book with no bids.
+     */
+    public static final long NO_TICKS = Long.MIN_VALUE;
+
+    /**
+     * Slack for prices that are a whole number of ticks up to floating-point
+     * error, e.g. 0.07 / 0.01 = 7.000000000000001.
+     */
+    private static final double EPSILON = 1e-9;
+
+    private Price() {
+    }
+
+    /**
+     * Converts a price to the largest whole number of ticks not above it. This
+     * is how a buy limit is converted, so a bid never pays more than its limit.
+     *
+     * @param price    the price
+     * @param tickSize the tick size
+     * @return price in ticks, rounded down
+     */
+    public static long floorTicks(double price, double tickSize) {
+        return (long) Math.floor(price / tickSize + EPSILON);
+    }
+
+    /**
+     * Converts a price to the smallest whole number of ticks not below it. This
+     * is how a sell limit is converted, so an ask never receives less than its
+     * limit.
+     *
+     * @param price    the price
+     * @param tickSize the tick size
+     * @return price in ticks, rounded up
+     */
+    public static long ceilTicks(double price, double tickSize) {
+        return (long) Math.ceil(price / tickSize - EPSILON);
+    }
+
+    /**
+     * Converts a price to the nearest whole number of ticks.
+     *
+     * @param price    the price
+     * @param tickSize the tick size
+     * @return price in ticks, rounded to nearest
+     */
+    public static long roundTicks(double price, double tickSize) {
+        return Math.round(price / tickSize);
+    }
+
+    /**
+     * Converts ticks back to a price. When the tick size divides 1 exactly the
+     * result is ticks divided by ticks-per-unit, which is the closest double to
+     * the decimal price (18925 / 100.0 is 189.25, while 18925 * 0.01 is not).
+     *
+     * @param ticks    the price in ticks
+     * @param tickSize the tick size
+     * @return the price
+     */
+    public static double toPrice(long ticks, double tickSize) {
+        double perUnit = 1.0 / tickSize;
+        double rounded = Math.rint(perUnit);
+        if (Math.abs(perUnit - rounded) < EPSILON * perUnit) {
+            return ticks / rounded;
+        }
+        return ticks * tickSize;
+    }
+}
@@ -0,0 +1,154 @@
+package edu.yu.parallel.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Global singleton that assigns each symbol a dense int ID, 0, 1, 2, ... in
+ * order of first registration, so per-symbol state can live in arrays indexed
+ * by symbol ID instead of maps keyed by string.
+ *
+ * A symbol's string is hashed once, when an order or a piece of market data
+ * is first tied to it; from then on the symbol travels as its ID. IDs are
+ * never reused or reassigned. Lookups by ID read a volatile array and take
+ * no lock, and registering a new symbol is serialized by the dictionary.
+ * Lookups by symbol read a volatile, copy-on-write map that is replaced, never
+ * mutated, when a symbol is registered, so they take no lock either.
+ *
+ * Each symbol also has a fixed tick size, the unit of its fixed-point prices
+ * (see {@link Price}). It is set when the symbol is registered and defaults to
+ * {@link Price#DEFAULT_TICK_SIZE}.
+ */
+public final class SymbolDictionary {
+    private static final SymbolDictionary INSTANCE = new SymbolDictionary();
+
+    /**
+     * IDs by symbol. Replaced under the dictionary's lock by
+     * {@link #register(String, double)}; never mutated once published.
+     */
+    private volatile Map<String, Integer> ids = new HashMap<>();
+    private volatile String[] symbols = new String[0];
+    private volatile double[] tickSizes = new double[0];
+
+    private SymbolDictionary() {
+    }
+
+    /**
+     * Gets the singleton instance of SymbolDictionary.
+     *
+     * @return SymbolDictionary instance
+     */
+    public static SymbolDictionary getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the ID of a symbol, registering the symbol if it is new.
+     *
+     * @param symbol the stock symbol
+     * @return the symbol's ID
+     * @throws IllegalArgumentException if symbol is null
+     */
+    public int idOf(String symbol) {
+        if (symbol == null) {
+            throw new IllegalArgumentException("Symbol must not be null");
+        }
+        Integer id = ids.get(symbol);
+        return id != null ? id : register(symbol, Price.DEFAULT_TICK_SIZE);
+    }
+
+    /**
+     * Gets the ID of a symbol, registering the symbol with the given tick size
+     * if it is new.
+     *
+     * @param symbol   the stock symbol
+     * @param tickSize the symbol's tick size (must be positive)
+     * @return the symbol's ID
+     * @throws IllegalArgumentException if symbol is null, tickSize is not
+     *                                  positive, or the symbol is already
+     *                                  registered with a different tick size
+     */
+    public int idOf(String symbol, double tickSize) {
+        if (symbol == null) {
+            throw new IllegalArgumentException("Symbol must not be null");
+        }
+        if (!(tickSize > 0)) {
+            throw new IllegalArgumentException("Tick size must be positive");
+        }
+        Integer existing = ids.get(symbol);
+        int id = existing != null ? existing : register(symbol, tickSize);
+        if (tickSize(id) != tickSize) {
+            throw new IllegalArgumentException("Symbol " + symbol + " already has tick size " + tickSize(id));
+        }
+        return id;
+    }
+
+    /**
+     * Gets the ID of a symbol without registering it.
+     *
+     * @param symbol the stock symbol
+     * @return the symbol's ID, or -1 if the symbol is not registered
+     */
+    public int find(String symbol) {
+        Integer id = symbol == null ? null : ids.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Gets the symbol with the given ID.
+     *
+     * @param id the symbol ID
+     * @return the symbol
+     * @throws IllegalArgumentException if no symbol has this ID
+     */
+    public String symbolOf(int id) {
+        String[] current = symbols;
+        if (id < 0 || id >= current.length) {
+            throw new IllegalArgumentException("Unknown symbol ID: " + id);
+        }
+        return current[id];
+    }
+
+    /**
+     * Gets the tick size of the symbol with the given ID.
+     *
+     * @param id the symbol ID
+     * @return the tick size
+     * @throws IllegalArgumentException if no symbol has this ID
+     */
+    public double tickSize(int id) {
+        double[] current = tickSizes;
+        if (id < 0 || id >= current.length) {
+            throw new IllegalArgumentException("Unknown symbol ID: " + id);
+        }
+        return current[id];
+    }
+
+    /**
+     * Gets the number of registered symbols. Every ID is below this value.
+     *
+     * @return number of symbols
+     */
+    public int size() {
+        return symbols.length;
+    }
+
+    private synchronized int register(String symbol, double tickSize) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        double[] grownTicks = Arrays.copyOf(tickSizes, tickSizes.length + 1);
+        grownTicks[grownTicks.length - 1] = tickSize;
+        String[] grown = Arrays.copyOf(symbols, symbols.length + 1);
+        grown[grown.length - 1] = symbol;
+        // Publish the string and tick size before the ID so lookups never miss a known ID
+        Map<String, Integer> grownIds = new HashMap<>(ids);
+        grownIds.put(symbol, grown.length - 1);
+        tickSizes = grownTicks;
+        symbols = grown;
+        ids = grownIds;
+        return grown.length - 1;
+    }
+}
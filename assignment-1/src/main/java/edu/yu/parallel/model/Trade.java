@@ -21,7 +21,7 @@ public class Trade {
     }
 
     private final int quantity;
-    private final double price;
+    private final long priceTicks;
     private final Trader trader;
     private final Trader counterparty;
     private final TradeDirection direction;
@@ -47,7 +47,7 @@ public class Trade {
                 execution,
                 execution.getSymbol(),
                 execution.getQuantity(),
-                execution.getPrice(),
+                execution.getPriceTicks(),
                 buyOrder.getTrader(),
                 sellOrder.getTrader(),
                 TradeDirection.BUY,
@@ -70,7 +70,7 @@ public class Trade {
                 execution,
                 execution.getSymbol(),
                 execution.getQuantity(),
-                execution.getPrice(),
+                execution.getPriceTicks(),
                 sellOrder.getTrader(),
                 buyOrder.getTrader(),
                 TradeDirection.SELL,
@@ -80,13 +80,13 @@ public class Trade {
     /**
      * Private constructor for Trade. Use factory methods to create instances.
      */
-    private Trade(int tradeId, Execution orderExecution, String symbol, int quantity, double price,
+    private Trade(int tradeId, Execution orderExecution, String symbol, int quantity, long priceTicks,
             Trader trader, Trader counterparty, TradeDirection direction, long timestamp) {
         this.tradeId = tradeId;
         this.orderExecution = orderExecution;
         this.symbol = symbol;
         this.quantity = quantity;
-        this.price = price;
+        this.priceTicks = priceTicks;
         this.trader = trader;
         this.counterparty = counterparty;
         this.direction = direction;
@@ -114,7 +114,16 @@ public class Trade {
     }
 
     public double getPrice() {
-        return price;
+        return Price.toPrice(priceTicks, SymbolDictionary.getInstance().tickSize(orderExecution.getSymbolId()));
+    }
+
+    /**
+     * Gets the trade price in ticks of the symbol's tick size.
+     * 
+     * @return price in ticks
+     */
+    public long getPriceTicks() {
+        return priceTicks;
     }
 
     /**
@@ -150,7 +159,7 @@ public class Trade {
                 ", orderExecution=" + orderExecution +
                 ", symbol='" + symbol + '\'' +
                 ", quantity=" + quantity +
-                ", price=" + price +
+                ", price=" + getPrice() +
                 ", trader=" + trader +
                 ", counterparty=" + counterparty +
                 ", direction=" + direction +
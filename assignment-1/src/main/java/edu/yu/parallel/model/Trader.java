@@ -1,5 +1,8 @@
 package edu.yu.parallel.model;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
@@ -17,6 +20,17 @@ public class Trader {
      */
     private final String traderId;
 
+    /**
+     * Trades booked for this trader, in booking order. Guarded by this.
+     */
+    private final List<Trade> trades = new ArrayList<>();
+
+    /**
+     * Running count, cash and position per symbol, kept alongside the trade
+     * list so statistics neither rescan it nor lock out market makers.
+     */
+    private final TraderLedger ledger = new TraderLedger();
+
     /**
      * Constructs a Trader with the specified trader ID.
      * 
@@ -37,13 +51,65 @@ public class Trader {
 
     /**
      * Adds a trade to this trader's trade list.
-     * Not yet implemented.
+     * Safe to call from multiple market maker threads.
      * 
      * @param trade the trade to add
-     * @throws UnsupportedOperationException always, since not implemented
+     * @throws IllegalArgumentException if trade is null
      */
     public void addTrade(Trade trade) {
-        throw new UnsupportedOperationException("addTrade not implemented");
+        if (trade == null) {
+            throw new IllegalArgumentException("Trade must not be null");
+        }
+        synchronized (this) {
+            trades.add(trade);
+        }
+        ledger.record(trade.getOrderExecution().getSymbolId(), trade.getDirection(), trade.getQuantity(),
+                trade.getPriceTicks());
+    }
+
+    /**
+     * Books one side of an execution into this trader's statistics without
+     * creating or keeping a {@link Trade}. Used with flyweight executions,
+     * which must not be referenced after the call returns.
+     * Safe to call from multiple market maker threads.
+     *
+     * @param execution the execution this trader took part in
+     * @param direction the side this trader was on
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public void addFill(Execution execution, Trade.TradeDirection direction) {
+        if (execution == null || direction == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        ledger.record(execution.getSymbolId(), direction, execution.getQuantity(), execution.getPriceTicks());
+    }
+
+    /**
+     * Sets restored statistics for one symbol, e.g. from a snapshot, in place
+     * of the ones held before, without restoring the trades behind them.
+     * Restoring the same statistics again changes nothing.
+     *
+     * @param symbolId  ID of the symbol
+     * @param count     number of trades
+     * @param cashTicks cash made or lost, in ticks of the symbol's tick size
+     * @param position  position held, negative if short
+     * @throws IllegalArgumentException if symbolId or count is negative
+     */
+    public void restorePosition(int symbolId, int count, long cashTicks, int position) {
+        if (symbolId < 0 || count < 0) {
+            throw new IllegalArgumentException("Symbol ID and count must not be negative");
+        }
+        ledger.restore(symbolId, count, cashTicks, position);
+    }
+
+    /**
+     * Takes a consistent copy of this trader's per-symbol statistics. Never
+     * blocks the market makers booking trades.
+     *
+     * @return ledger snapshot
+     */
+    public TraderLedger.Snapshot getLedgerSnapshot() {
+        return ledger.snapshot();
     }
 
     /**
@@ -67,8 +133,20 @@ public class Trader {
      * Results must be consistent even during concurrent updates.
      */
     public void printStatistics() {
-        // Call to outputStatistics with dummy data
-        outputStatistics(0L, 0D, Map.of(), Map.of(), Map.of());
+        // A lock-free snapshot, so printing never holds up matching
+        TraderLedger.Snapshot snapshot = ledger.snapshot();
+        Map<String, Integer> count = new HashMap<>();
+        Map<String, Double> cashBySymbol = new HashMap<>();
+        Map<String, Integer> position = new HashMap<>();
+        for (int symbolId = 0; symbolId < snapshot.getSymbolLimit(); symbolId++) {
+            if (snapshot.getCount(symbolId) > 0) {
+                String symbol = SymbolDictionary.getInstance().symbolOf(symbolId);
+                count.put(symbol, snapshot.getCount(symbolId));
+                cashBySymbol.put(symbol, snapshot.getCash(symbolId));
+                position.put(symbol, snapshot.getPosition(symbolId));
+            }
+        }
+        outputStatistics(snapshot.getTradeCount(), snapshot.getTotalCash(), count, cashBySymbol, position);
     }
 
     /*
@@ -113,4 +191,5 @@ public class Trader {
     public int hashCode() {
         return traderId != null ? traderId.hashCode() : 0;
     }
-}
\ No newline at end of file
+
+}
@@ -0,0 +1,210 @@
+package edu.yu.parallel.model;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Running trade count, cash and position per symbol for one trader, kept in
+ * primitive arrays indexed by {@link SymbolDictionary} ID.
+ *
+ * Fills are applied by one writer at a time, serialized by the ledger's
+ * monitor. Readers never lock: the writer makes a version number odd while it
+ * updates and even again when it is done, and {@link #snapshot()} copies the
+ * arrays until it sees the same even version before and after the copy. A
+ * reader therefore never holds up a market maker, and every snapshot reflects
+ * a whole number of fills.
+ */
+public final class TraderLedger {
+    /**
+     * Number of longs per symbol in {@link #cells}.
+     */
+    private static final int STRIDE = 3;
+    private static final int COUNT = 0;
+    private static final int CASH = 1;
+    private static final int POSITION = 2;
+
+    /**
+     * Per-symbol cells, symbol s at index s * STRIDE: trade count, cash in
+     * ticks (negative for buys) and position. Written only under this, read by
+     * {@link #snapshot()} without a lock.
+     */
+    private long[] cells = new long[0];
+    private long tradeCount = 0;
+    private volatile long version;
+
+    /**
+     * Books one side of a fill.
+     *
+     * @param symbolId   ID of the symbol traded
+     * @param direction  the side this trader was on
+     * @param quantity   the filled quantity
+     * @param priceTicks the fill price in ticks of the symbol's tick size
+     */
+    synchronized void record(int symbolId, Trade.TradeDirection direction, int quantity, long priceTicks) {
+        boolean buy = direction == Trade.TradeDirection.BUY;
+        int base = symbolId * STRIDE;
+        long v = version;
+        version = v + 1;
+        VarHandle.storeStoreFence();
+        if (base >= cells.length) {
+            int symbols = Math.max(symbolId + 1, SymbolDictionary.getInstance().size());
+            cells = Arrays.copyOf(cells, symbols * STRIDE);
+        }
+        tradeCount++;
+        cells[base + COUNT]++;
+        cells[base + CASH] += (buy ? -quantity : quantity) * priceTicks;
+        cells[base + POSITION] += buy ? quantity : -quantity;
+        version = v + 2;
+    }
+
+    /**
+     * Replaces the totals of one symbol with restored ones, e.g. from a
+     * snapshot. The trade count across symbols changes by the difference.
+     *
+     * @param symbolId  ID of the symbol
+     * @param count     number of trades
+     * @param cashTicks cash in ticks
+     * @param position  position
+     */
+    synchronized void restore(int symbolId, long count, long cashTicks, long position) {
+        int base = symbolId * STRIDE;
+        long v = version;
+        version = v + 1;
+        VarHandle.storeStoreFence();
+        if (base >= cells.length) {
+            int symbols = Math.max(symbolId + 1, SymbolDictionary.getInstance().size());
+            cells = Arrays.copyOf(cells, symbols * STRIDE);
+        }
+        tradeCount += count - cells[base + COUNT];
+        cells[base + COUNT] = count;
+        cells[base + CASH] = cashTicks;
+        cells[base + POSITION] = position;
+        version = v + 2;
+    }
+
+    /**
+     * Takes a consistent copy of the ledger without blocking writers.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        while (true) {
+            long before = version;
+            if ((before & 1) == 0) {
+                long count = tradeCount;
+                long[] copy = cells.clone();
+                VarHandle.loadLoadFence();
+                if (before == version) {
+                    return new Snapshot(count, copy);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * An immutable, consistent copy of a {@link TraderLedger}.
+     */
+    public static final class Snapshot {
+        private final long tradeCount;
+        private final long[] cells;
+
+        private Snapshot(long tradeCount, long[] cells) {
+            this.tradeCount = tradeCount;
+            this.cells = cells;
+        }
+
+        /**
+         * Gets the total number of trades booked.
+         *
+         * @return trade count
+         */
+        public long getTradeCount() {
+            return tradeCount;
+        }
+
+        /**
+         * Gets the number of symbol IDs covered; every symbol this trader has
+         * traded has an ID below this value.
+         *
+         * @return symbol ID limit
+         */
+        public int getSymbolLimit() {
+            return cells.length / STRIDE;
+        }
+
+        /**
+         * Gets the number of trades in a symbol.
+         *
+         * @param symbolId the symbol ID
+         * @return trade count, 0 if the symbol has not been traded
+         */
+        public int getCount(int symbolId) {
+            return (int) cell(symbolId, COUNT);
+        }
+
+        /**
+         * Gets the exact cash made or lost in a symbol, in ticks of its tick
+         * size.
+         *
+         * @param symbolId the symbol ID
+         * @return cash in ticks
+         */
+        public long getCashTicks(int symbolId) {
+            return cell(symbolId, CASH);
+        }
+
+        /**
+         * Gets the cash made or lost in a symbol.
+         *
+         * @param symbolId the symbol ID
+         * @return cash
+         */
+        public double getCash(int symbolId) {
+            return Price.toPrice(getCashTicks(symbolId), SymbolDictionary.getInstance().tickSize(symbolId));
+        }
+
+        /**
+         * Gets the position held in a symbol.
+         *
+         * @param symbolId the symbol ID
+         * @return position, negative if short
+         */
+        public int getPosition(int symbolId) {
+            return (int) cell(symbolId, POSITION);
+        }
+
+        /**
+         * Gets the cash made or lost across all symbols. Cash in symbols that
+         * share a tick size is summed in ticks before it is converted, so with
+         * a single tick size the total is exact.
+         *
+         * @return total cash
+         */
+        public double getTotalCash() {
+            SymbolDictionary dictionary = SymbolDictionary.getInstance();
+            double total = 0;
+            boolean[] done = new boolean[getSymbolLimit()];
+            for (int symbolId = 0; symbolId < done.length; symbolId++) {
+                if (done[symbolId] || getCount(symbolId) == 0) {
+                    continue;
+                }
+                double tickSize = dictionary.tickSize(symbolId);
+                long ticks = 0;
+                for (int other = symbolId; other < done.length; other++) {
+                    if (!done[other] && getCount(other) > 0 && dictionary.tickSize(other) == tickSize) {
+                        ticks += getCashTicks(other);
+                        done[other] = true;
+                    }
+                }
+                total += Price.toPrice(ticks, tickSize);
+            }
+            return total;
+        }
+
+        private long cell(int symbolId, int field) {
+            int index = symbolId * STRIDE + field;
+            return symbolId >= 0 && index < cells.length ? cells[index] : 0;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package edu.yu.parallel.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import edu.yu.parallel.model.Execution;
+
+/**
+ * Append-only journal of executions stored in memory-mapped segment files.
+ *
+ * Every execution becomes one fixed-size binary record. Writers claim a record
+ * position with a single atomic increment and write straight into the mapped
+ * segment. Nothing is copied through a stream and there is no system call per
+ * record. The last segment is full when the position passes its end, and the
+ * next segment is then mapped. Each record's commit marker is written last,
+ * with release semantics, so recovery can skip a record whose writer died
+ * part-way through.
+ *
+ * On open, appends carry on after the last committed record of the newest
+ * segment, so a restarted system does not leave most of a segment unused.
+ * Committed records are never overwritten; a record a crashed writer left
+ * uncommitted after them is. A newest segment of a different size than this
+ * instance uses is left alone, and appends start in a new segment after it.
+ *
+ * Symbols and trader IDs are stored as ASCII in fixed-width fields; longer
+ * values are truncated.
+ */
+public class ExecutionJournal implements AutoCloseable {
+    /**
+     * Size of one record in bytes.
+     */
+    public static final int RECORD_SIZE = 128;
+
+    /**
+     * Records per segment used by {@link #ExecutionJournal(Path)} (64 MiB files).
+     */
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 19;
+
+    private static final int COMMITTED = 0x45584543; // "EXEC"
+    private static final String SEGMENT_PREFIX = "executions-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final int MARKER = 0;
+    private static final int EXECUTION_ID = 4;
+    private static final int TIMESTAMP = 8;
+    private static final int PRICE = 16;
+    private static final int QUANTITY = 24;
+    private static final int BUY_ORDER_ID = 28;
+    private static final int SELL_ORDER_ID = 32;
+    private static final int SYMBOL = 40;
+    private static final int SYMBOL_LENGTH = 16;
+    private static final int BUY_TRADER = 56;
+    private static final int SELL_TRADER = 92;
+    private static final int TRADER_LENGTH = 36;
+
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle NEXT_RECORD;
+
+    static {
+        try {
+            NEXT_RECORD = MethodHandles.lookup().findVarHandle(ExecutionJournal.class, "nextRecord", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * One decoded journal record.
+     */
+    public record Entry(int executionId, long timestamp, String symbol, int quantity, double price,
+            int buyOrderId, int sellOrderId, String buyTraderId, String sellTraderId) {
+    }
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private volatile long nextRecord;
+
+    /**
+     * Segments mapped for writing by this instance, by index. Guarded by this;
+     * writers find the newest one through {@link #current} without the lock.
+     */
+    private final Map<Long, MappedByteBuffer> mapped = new HashMap<>();
+    private volatile Segment current;
+    private volatile boolean closed = false;
+
+    private record Segment(long index, MappedByteBuffer buffer) {
+    }
+
+    /**
+     * Opens (or creates) a journal with {@link #DEFAULT_RECORDS_PER_SEGMENT}.
+     *
+     * @param directory directory holding the segment files
+     * @throws UncheckedIOException if the directory cannot be read or created
+     */
+    public ExecutionJournal(Path directory) {
+        this(directory, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    /**
+     * Opens (or creates) a journal.
+     *
+     * @param directory         directory holding the segment files
+     * @param recordsPerSegment number of records in each segment file
+     * @throws IllegalArgumentException if directory is null or recordsPerSegment
+     *                                  is not positive
+     * @throws UncheckedIOException     if the directory cannot be read or created
+     */
+    public ExecutionJournal(Path directory, int recordsPerSegment) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory must not be null");
+        }
+        if (recordsPerSegment <= 0 || (long) recordsPerSegment * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Records per segment must be positive and fit in one mapping");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Long> existing = segmentIndexes();
+        this.nextRecord = existing.isEmpty() ? 0 : resumeAfter(existing.get(existing.size() - 1));
+    }
+
+    /**
+     * Appends one execution. Safe to call from any number of threads.
+     *
+     * @param execution the execution to append
+     * @throws IllegalArgumentException if execution is null
+     * @throws IllegalStateException    if the journal has been closed
+     * @throws UncheckedIOException     if a new segment cannot be mapped
+     */
+    public void append(Execution execution) {
+        if (execution == null) {
+            throw new IllegalArgumentException("Execution must not be null");
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal has been closed");
+        }
+        long record = (long) NEXT_RECORD.getAndAdd(this, 1L);
+        long segmentIndex = record / recordsPerSegment;
+        MappedByteBuffer buffer = segment(segmentIndex);
+        int offset = (int) (record % recordsPerSegment) * RECORD_SIZE;
+
+        buffer.putInt(offset + EXECUTION_ID, execution.getExecutionId());
+        buffer.putLong(offset + TIMESTAMP, execution.getTimestamp());
+        buffer.putDouble(offset + PRICE, execution.getPrice());
+        buffer.putInt(offset + QUANTITY, execution.getQuantity());
+        buffer.putInt(offset + BUY_ORDER_ID, execution.getBuyOrder().getOrderId());
+        buffer.putInt(offset + SELL_ORDER_ID, execution.getSellOrder().getOrderId());
+        putAscii(buffer, offset + SYMBOL, SYMBOL_LENGTH, execution.getSymbol());
+        putAscii(buffer, offset + BUY_TRADER, TRADER_LENGTH, execution.getBuyOrder().getTrader().getTraderId());
+        putAscii(buffer, offset + SELL_TRADER, TRADER_LENGTH, execution.getSellOrder().getTrader().getTraderId());
+        INT_VIEW.setRelease(buffer, offset + MARKER, COMMITTED);
+    }
+
+    /**
+     * Reads every committed record on disk, oldest segment first and in
+     * position order within a segment. Records appended by this instance are
+     * included once they are committed.
+     *
+     * @param visitor receives each record
+     * @throws UncheckedIOException if a segment cannot be read
+     */
+    public void forEach(Consumer<Entry> visitor) {
+        for (long index : segmentIndexes()) {
+            MappedByteBuffer buffer;
+            synchronized (this) {
+                buffer = mapped.get(index);
+            }
+            if (buffer == null) {
+                buffer = map(index, FileChannel.MapMode.READ_ONLY);
+            }
+            int records = buffer.capacity() / RECORD_SIZE;
+            for (int i = 0; i < records; i++) {
+                int offset = i * RECORD_SIZE;
+                if ((int) INT_VIEW.getAcquire(buffer, offset + MARKER) != COMMITTED) {
+                    continue;
+                }
+                visitor.accept(new Entry(
+                        buffer.getInt(offset + EXECUTION_ID),
+                        buffer.getLong(offset + TIMESTAMP),
+                        getAscii(buffer, offset + SYMBOL, SYMBOL_LENGTH),
+                        buffer.getInt(offset + QUANTITY),
+                        buffer.getDouble(offset + PRICE),
+                        buffer.getInt(offset + BUY_ORDER_ID),
+                        buffer.getInt(offset + SELL_ORDER_ID),
+                        getAscii(buffer, offset + BUY_TRADER, TRADER_LENGTH),
+                        getAscii(buffer, offset + SELL_TRADER, TRADER_LENGTH)));
+            }
+        }
+    }
+
+    /**
+     * Forces every segment mapped by this instance to storage.
+     */
+    public void flush() {
+        List<MappedByteBuffer> buffers;
+        synchronized (this) {
+            buffers = new ArrayList<>(mapped.values());
+        }
+        for (MappedByteBuffer buffer : buffers) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Flushes and closes the journal. Further appends fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+    }
+
+    /**
+     * Gets the directory holding the segment files.
+     *
+     * @return journal directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Finds the record after the last committed one in the given segment, or
+     * the first record of the next segment if this one has another size.
+     */
+    private long resumeAfter(long index) {
+        MappedByteBuffer buffer = map(index, FileChannel.MapMode.READ_ONLY);
+        if (buffer.capacity() != (long) recordsPerSegment * RECORD_SIZE) {
+            return (index + 1) * recordsPerSegment;
+        }
+        int last = recordsPerSegment - 1;
+        while (last >= 0 && (int) INT_VIEW.getAcquire(buffer, last * RECORD_SIZE + MARKER) != COMMITTED) {
+            last--;
+        }
+        return index * recordsPerSegment + last + 1;
+    }
+
+    private MappedByteBuffer segment(long index) {
+        Segment segment = current;
+        if (segment != null && segment.index() == index) {
+            return segment.buffer();
+        }
+        synchronized (this) {
+            MappedByteBuffer buffer = mapped.get(index);
+            if (buffer == null) {
+                buffer = map(index, FileChannel.MapMode.READ_WRITE);
+                mapped.put(index, buffer);
+                if (current == null || current.index() < index) {
+                    current = new Segment(index, buffer);
+                }
+                // Older segments stay mapped only while slow writers may still need them
+                mapped.entrySet().removeIf(e -> {
+                    if (e.getKey() >= index - 2) {
+                        return false;
+                    }
+                    e.getValue().force();
+                    return true;
+                });
+            }
+            return buffer;
+        }
+    }
+
+    private MappedByteBuffer map(long index, FileChannel.MapMode mode) {
+        Path path = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        long size = (long) recordsPerSegment * RECORD_SIZE;
+        try (FileChannel channel = mode == FileChannel.MapMode.READ_ONLY
+                ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(mode, 0, mode == FileChannel.MapMode.READ_ONLY ? channel.size() : size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Long> segmentIndexes() {
+        List<Long> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(SEGMENT_PREFIX) && n.endsWith(SEGMENT_SUFFIX))
+                    .map(n -> n.substring(SEGMENT_PREFIX.length(), n.length() - SEGMENT_SUFFIX.length()))
+                    .forEach(n -> {
+                        try {
+                            indexes.add(Long.parseLong(n));
+                        } catch (NumberFormatException e) {
+                            // not one of ours
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+
+    private static void putAscii(MappedByteBuffer buffer, int offset, int length, String value) {
+        int n = Math.min(length, value.length());
+        for (int i = 0; i < n; i++) {
+            buffer.put(offset + i, (byte) value.charAt(i));
+        }
+        for (int i = n; i < length; i++) {
+            buffer.put(offset + i, (byte) 0);
+        }
+    }
+
+    private static String getAscii(MappedByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        int n = 0;
+        while (n < length && (bytes[n] = buffer.get(offset + n)) != 0) {
+            n++;
+        }
+        return new String(bytes, 0, n, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,376 @@
+package edu.yu.parallel.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Price;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.model.TraderLedger;
+
+/**
+ * Binary snapshot of a stopped market: the resting orders in every book, each
+ * symbol's last execution and execution totals, and every trader's
+ * per-symbol statistics. A new run restored from it starts where the earlier
+ * one stopped, instead of from empty books.
+ *
+ * The file holds a fixed header, a symbol table (name and tick size) and a
+ * trader table, followed by the books, executions and positions. Each book is
+ * a short header followed by its orders. Orders
+ * ({@value #ORDER_RECORD_SIZE} bytes), executions and positions are
+ * fixed-size records that refer to symbols and traders by their place in the
+ * tables. Names are stored as ASCII.
+ *
+ * A snapshot is written to a temporary file next to the target, which is then
+ * moved over the target, so a crash while writing leaves any earlier snapshot
+ * intact. It is read back through a single memory mapping of the whole file
+ * (at most 2 GiB, some 80 million resting orders). Orders are rebuilt
+ * straight from the mapping, without a copy or a stream in between.
+ */
+public final class MarketSnapshot {
+    /**
+     * Size of one resting order record in bytes.
+     */
+    public static final int ORDER_RECORD_SIZE = 24;
+
+    private static final int MAGIC = 0x50414E53; // "SNAP"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int BOOK_HEADER_SIZE = 12;
+    private static final int EXECUTION_RECORD_SIZE = 64;
+    private static final int POSITION_RECORD_SIZE = 24;
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The resting orders of one book.
+     *
+     * @param marketMaker index of the market maker that owns the book
+     * @param symbol      the book's symbol
+     * @param orders      the orders, as {@link
+     *                    edu.yu.parallel.trading.OrderBook#getRestingOrders()}
+     *                    lists them
+     */
+    public record Book(int marketMaker, String symbol, List<Order> orders) {
+    }
+
+    /**
+     * A symbol's last execution and execution totals.
+     *
+     * @param last   the last execution
+     * @param count  number of executions
+     * @param volume number of shares executed
+     */
+    public record SymbolTotals(Execution last, long count, long volume) {
+    }
+
+    /**
+     * One trader's statistics in one symbol.
+     *
+     * @param trader    the trader
+     * @param symbolId  the symbol ID
+     * @param count     number of trades
+     * @param cashTicks cash made or lost, in ticks of the symbol's tick size
+     * @param position  position held, negative if short
+     */
+    public record Position(Trader trader, int symbolId, int count, long cashTicks, int position) {
+    }
+
+    /**
+     * Everything read back from a snapshot.
+     *
+     * @param books      the books, in the order written
+     * @param executions each symbol's last execution and totals
+     * @param positions  every trader's non-empty per-symbol statistics
+     */
+    public record Contents(List<Book> books, List<SymbolTotals> executions, List<Position> positions) {
+    }
+
+    private MarketSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot, replacing any file already at the path. Nothing in
+     * the snapshot may change while it is written.
+     *
+     * @param file       the snapshot file
+     * @param books      the books to save
+     * @param executions each symbol's last execution and totals
+     * @param traders    the traders whose statistics to save
+     * @throws IllegalArgumentException if an argument is null
+     * @throws UncheckedIOException     if the file cannot be written
+     */
+    public static void write(Path file, List<Book> books, List<SymbolTotals> executions, List<Trader> traders) {
+        if (file == null || books == null || executions == null || traders == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        Map<String, Integer> symbolRefs = new LinkedHashMap<>();
+        Map<String, Integer> traderRefs = new LinkedHashMap<>();
+        long orderCount = 0;
+        for (Book book : books) {
+            symbolRefs.putIfAbsent(book.symbol(), symbolRefs.size());
+            for (Order order : book.orders()) {
+                traderRefs.putIfAbsent(order.getTrader().getTraderId(), traderRefs.size());
+            }
+            orderCount += book.orders().size();
+        }
+        for (SymbolTotals totals : executions) {
+            symbolRefs.putIfAbsent(totals.last().getSymbol(), symbolRefs.size());
+            traderRefs.putIfAbsent(totals.last().getBuyOrder().getTrader().getTraderId(), traderRefs.size());
+            traderRefs.putIfAbsent(totals.last().getSellOrder().getTrader().getTraderId(), traderRefs.size());
+        }
+        List<Position> positions = new ArrayList<>();
+        for (Trader trader : traders) {
+            TraderLedger.Snapshot ledger = trader.getLedgerSnapshot();
+            for (int symbolId = 0; symbolId < ledger.getSymbolLimit(); symbolId++) {
+                if (ledger.getCount(symbolId) > 0) {
+                    positions.add(new Position(trader, symbolId, ledger.getCount(symbolId),
+                            ledger.getCashTicks(symbolId), ledger.getPosition(symbolId)));
+                    symbolRefs.putIfAbsent(dictionary.symbolOf(symbolId), symbolRefs.size());
+                    traderRefs.putIfAbsent(trader.getTraderId(), traderRefs.size());
+                }
+            }
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.room(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                    .putLong(System.currentTimeMillis())
+                    .putInt(symbolRefs.size()).putInt(traderRefs.size()).putInt(books.size())
+                    .putInt(executions.size()).putInt(positions.size()).putInt(0)
+                    .putLong(orderCount);
+            for (String symbol : symbolRefs.keySet()) {
+                out.putName(symbol);
+                out.room(8).putDouble(dictionary.tickSize(dictionary.idOf(symbol)));
+            }
+            for (String traderId : traderRefs.keySet()) {
+                out.putName(traderId);
+            }
+            for (Book book : books) {
+                out.room(BOOK_HEADER_SIZE).putInt(book.marketMaker()).putInt(symbolRefs.get(book.symbol()))
+                        .putInt(book.orders().size());
+                for (Order order : book.orders()) {
+                    out.room(ORDER_RECORD_SIZE)
+                            .putInt(order.getOrderId())
+                            .putInt(traderRefs.get(order.getTrader().getTraderId()))
+                            .putLong(order.getPriceTicks())
+                            .putInt(order.getQuantity())
+                            .put((byte) order.getOrderType().ordinal())
+                            .put((byte) order.getStatus().ordinal())
+                            .putShort((short) 0);
+                }
+            }
+            for (SymbolTotals totals : executions) {
+                Execution last = totals.last();
+                out.room(EXECUTION_RECORD_SIZE)
+                        .putInt(symbolRefs.get(last.getSymbol()))
+                        .putInt(last.getExecutionId())
+                        .putInt(last.getBuyOrder().getOrderId())
+                        .putInt(last.getSellOrder().getOrderId())
+                        .putInt(traderRefs.get(last.getBuyOrder().getTrader().getTraderId()))
+                        .putInt(traderRefs.get(last.getSellOrder().getTrader().getTraderId()))
+                        .putInt(last.getQuantity())
+                        .putInt(0)
+                        .putLong(last.getPriceTicks())
+                        .putLong(last.getTimestamp())
+                        .putLong(totals.count())
+                        .putLong(totals.volume());
+            }
+            for (Position position : positions) {
+                out.room(POSITION_RECORD_SIZE)
+                        .putInt(traderRefs.get(position.trader().getTraderId()))
+                        .putInt(symbolRefs.get(dictionary.symbolOf(position.symbolId())))
+                        .putInt(position.count())
+                        .putInt(position.position())
+                        .putLong(position.cashTicks());
+            }
+            out.drain();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a snapshot back. Symbols new to the {@link SymbolDictionary} are
+     * registered with their saved tick sizes. The orders are new NEW or
+     * PARTIAL orders, not taken from a pool. The last executions refer to
+     * FILLED orders that carry only their IDs, traders, quantity and price.
+     *
+     * @param file    the snapshot file
+     * @param traders gives the trader for each saved trader ID; called once
+     *                per ID
+     * @return the snapshot's contents
+     * @throws IllegalArgumentException if an argument is null, the file is not
+     *                                  a snapshot or a saved symbol has a
+     *                                  different tick size now
+     * @throws UncheckedIOException     if the file cannot be read
+     */
+    public static Contents read(Path file, Function<String, Trader> traders) {
+        if (file == null || traders == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Snapshot is too large to map: " + file);
+            }
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC || in.getShort() != VERSION) {
+            throw new IllegalArgumentException("Not a market snapshot: " + file);
+        }
+        in.getShort();
+        in.getLong();
+        int symbolCount = in.getInt();
+        int traderCount = in.getInt();
+        int bookCount = in.getInt();
+        int executionCount = in.getInt();
+        int positionCount = in.getInt();
+        in.getInt();
+        in.getLong();
+
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        int[] symbolIds = new int[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            String symbol = getName(in);
+            symbolIds[i] = dictionary.idOf(symbol, in.getDouble());
+        }
+        Trader[] traderTable = new Trader[traderCount];
+        Map<String, Trader> resolved = new HashMap<>();
+        for (int i = 0; i < traderCount; i++) {
+            traderTable[i] = resolved.computeIfAbsent(getName(in), traders);
+        }
+        OrderType[] orderTypes = OrderType.values();
+        OrderStatus[] statuses = OrderStatus.values();
+
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int b = 0; b < bookCount; b++) {
+            int marketMaker = in.getInt();
+            int symbolId = symbolIds[in.getInt()];
+            int orderCount = in.getInt();
+            double tickSize = dictionary.tickSize(symbolId);
+            List<Order> orders = new ArrayList<>(orderCount);
+            for (int i = 0; i < orderCount; i++) {
+                int orderId = in.getInt();
+                Trader trader = traderTable[in.getInt()];
+                long priceTicks = in.getLong();
+                int quantity = in.getInt();
+                OrderType orderType = orderTypes[in.get()];
+                OrderStatus status = statuses[in.get()];
+                in.getShort();
+                orders.add(Order.restoreOrder(orderId, symbolId, orderType, quantity,
+                        Price.toPrice(priceTicks, tickSize), trader, status));
+            }
+            books.add(new Book(marketMaker, dictionary.symbolOf(symbolId), orders));
+        }
+
+        List<SymbolTotals> executions = new ArrayList<>(executionCount);
+        for (int i = 0; i < executionCount; i++) {
+            int symbolId = symbolIds[in.getInt()];
+            int executionId = in.getInt();
+            int buyOrderId = in.getInt();
+            int sellOrderId = in.getInt();
+            Trader buyer = traderTable[in.getInt()];
+            Trader seller = traderTable[in.getInt()];
+            int quantity = in.getInt();
+            in.getInt();
+            double price = Price.toPrice(in.getLong(), dictionary.tickSize(symbolId));
+            long timestamp = in.getLong();
+            long count = in.getLong();
+            long volume = in.getLong();
+            Order buy = Order.restoreOrder(buyOrderId, symbolId, OrderType.BUY, quantity, price, buyer,
+                    OrderStatus.FILLED);
+            Order sell = Order.restoreOrder(sellOrderId, symbolId, OrderType.SELL, quantity, price, seller,
+                    OrderStatus.FILLED);
+            executions.add(new SymbolTotals(
+                    Execution.restoreExecution(executionId, buy, sell, quantity, price, timestamp), count, volume));
+        }
+
+        List<Position> positions = new ArrayList<>(positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            Trader trader = traderTable[in.getInt()];
+            int symbolId = symbolIds[in.getInt()];
+            int count = in.getInt();
+            int position = in.getInt();
+            positions.add(new Position(trader, symbolId, count, in.getLong(), position));
+        }
+        return new Contents(books, executions, positions);
+    }
+
+    private static String getName(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Buffered writer over a file channel.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Makes room for the given number of bytes.
+         *
+         * @return the buffer to put them in
+         */
+        ByteBuffer room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+            return buffer;
+        }
+
+        void putName(String name) throws IOException {
+            int length = Math.min(name.length(), MAX_NAME_LENGTH);
+            room(2 + length).putShort((short) length);
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) name.charAt(i));
+            }
+        }
+
+        void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package edu.yu.parallel.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Trader;
+
+/**
+ * Binary recording of a stream of new orders, so the same orders can later be
+ * replayed through the market makers without the randomness that produced
+ * them.
+ *
+ * The file starts with a magic number and a version, followed by records that
+ * each begin with a one-byte kind. An order record has a fixed size of
+ * {@value #ORDER_RECORD_SIZE} bytes. It holds the time since the tape was
+ * opened, the order ID, side, quantity and limit price in ticks, and
+ * references to its symbol and trader. A symbol or trader is written once, in
+ * a definition record just before the first order that refers to it. Names
+ * are stored as ASCII, truncated to {@value #MAX_NAME_LENGTH} characters.
+ *
+ * Records are collected in a buffer and written when it fills and on close.
+ * A tape cut short by a crash ends at its last whole record. Only what an
+ * order is when it is generated is recorded: its time-to-live is not, since a
+ * replay runs without a clock.
+ */
+public class OrderTape implements AutoCloseable {
+    /**
+     * Size of one order record in bytes.
+     */
+    public static final int ORDER_RECORD_SIZE = 32;
+
+    /**
+     * Longest symbol or trader ID stored; longer ones are truncated.
+     */
+    public static final int MAX_NAME_LENGTH = 255;
+
+    private static final int MAGIC = 0x45504154; // "TAPE"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 6;
+    private static final int DEFINITION_SIZE = 6;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final byte SYMBOL = 1;
+    private static final byte TRADER = 2;
+    private static final byte ORDER = 3;
+    private static final byte BUY = 0;
+    private static final byte SELL = 1;
+
+    /**
+     * One decoded order record.
+     */
+    public record Entry(long timestampNanos, int orderId, String symbol, OrderType orderType, int quantity,
+            long priceTicks, String traderId) {
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Symbols already defined on the tape, by {@link
+     * edu.yu.parallel.model.SymbolDictionary} ID, which is also the symbol's
+     * reference on the tape.
+     */
+    private boolean[] symbolsDefined = new boolean[64];
+    private final Map<Trader, Integer> traderRefs = new IdentityHashMap<>();
+    private long orderCount;
+    private boolean closed = false;
+
+    /**
+     * Creates a tape, replacing any file already at the path.
+     *
+     * @param file the tape file
+     * @throws IllegalArgumentException if file is null
+     * @throws UncheckedIOException     if the file cannot be created
+     */
+    public OrderTape(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null");
+        }
+        this.file = file;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.putInt(MAGIC).putShort(VERSION);
+    }
+
+    /**
+     * Records a new order. Safe to call from any number of threads; the tape
+     * holds the orders in the order the calls were made.
+     *
+     * @param order the order, before it is handed to a market maker
+     * @throws IllegalArgumentException if order is null
+     * @throws IllegalStateException    if the tape has been closed
+     * @throws UncheckedIOException     if the tape cannot be written
+     */
+    public synchronized void record(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order must not be null");
+        }
+        if (closed) {
+            throw new IllegalStateException("Tape has been closed");
+        }
+        int symbolId = order.getSymbolId();
+        if (symbolId >= symbolsDefined.length) {
+            symbolsDefined = Arrays.copyOf(symbolsDefined, Math.max(symbolId + 1, symbolsDefined.length * 2));
+        }
+        if (!symbolsDefined[symbolId]) {
+            define(SYMBOL, symbolId, order.getSymbol());
+            symbolsDefined[symbolId] = true;
+        }
+        Integer traderRef = traderRefs.get(order.getTrader());
+        if (traderRef == null) {
+            traderRef = traderRefs.size();
+            define(TRADER, traderRef, order.getTrader().getTraderId());
+            traderRefs.put(order.getTrader(), traderRef);
+        }
+        ensureRoom(ORDER_RECORD_SIZE);
+        buffer.put(ORDER)
+                .put(order.getOrderType() == OrderType.BUY ? BUY : SELL)
+                .putShort((short) symbolId)
+                .putInt(order.getOrderId())
+                .putLong(System.nanoTime() - startNanos)
+                .putLong(order.getPriceTicks())
+                .putInt(order.getQuantity())
+                .putInt(traderRef);
+        orderCount++;
+    }
+
+    /**
+     * Gets the number of orders recorded so far.
+     *
+     * @return order count
+     */
+    public synchronized long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Gets the tape file.
+     *
+     * @return tape file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes out buffered records and closes the tape. Further records fail.
+     *
+     * @throws UncheckedIOException if the tape cannot be written
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (channel) {
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads every order on a tape, in recorded order.
+     *
+     * @param file    the tape file
+     * @param visitor receives each order
+     * @return the number of orders read
+     * @throws IllegalArgumentException if an argument is null or the file is
+     *                                  not a tape
+     * @throws UncheckedIOException     if the file cannot be read
+     */
+    public static long forEach(Path file, Consumer<Entry> visitor) {
+        if (file == null || visitor == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        List<String> symbols = new ArrayList<>();
+        List<String> traders = new ArrayList<>();
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in.flip();
+            if (!fill(channel, in, HEADER_SIZE) || in.getInt() != MAGIC || in.getShort() != VERSION) {
+                throw new IllegalArgumentException("Not an order tape: " + file);
+            }
+            while (fill(channel, in, 1)) {
+                byte kind = in.get(in.position());
+                if (kind == ORDER) {
+                    if (!fill(channel, in, ORDER_RECORD_SIZE)) {
+                        break;
+                    }
+                    in.get();
+                    OrderType orderType = in.get() == BUY ? OrderType.BUY : OrderType.SELL;
+                    String symbol = symbols.get(Short.toUnsignedInt(in.getShort()));
+                    int orderId = in.getInt();
+                    long timestamp = in.getLong();
+                    long priceTicks = in.getLong();
+                    int quantity = in.getInt();
+                    String trader = traders.get(in.getInt());
+                    visitor.accept(new Entry(timestamp, orderId, symbol, orderType, quantity, priceTicks, trader));
+                    count++;
+                } else if (kind == SYMBOL || kind == TRADER) {
+                    if (!fill(channel, in, DEFINITION_SIZE)
+                            || !fill(channel, in, DEFINITION_SIZE + Byte.toUnsignedInt(in.get(in.position() + 5)))) {
+                        break;
+                    }
+                    in.get();
+                    int ref = in.getInt();
+                    byte[] name = new byte[Byte.toUnsignedInt(in.get())];
+                    in.get(name);
+                    List<String> names = kind == SYMBOL ? symbols : traders;
+                    while (names.size() <= ref) {
+                        names.add(null);
+                    }
+                    names.set(ref, new String(name, StandardCharsets.US_ASCII));
+                } else {
+                    throw new IllegalArgumentException("Corrupt order tape: " + file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    private void define(byte kind, int ref, String name) {
+        int length = Math.min(name.length(), MAX_NAME_LENGTH);
+        ensureRoom(DEFINITION_SIZE + length);
+        buffer.put(kind).putInt(ref).put((byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) name.charAt(i));
+        }
+    }
+
+    private void ensureRoom(int bytes) {
+        if (buffer.remaining() < bytes) {
+            try {
+                drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads more of the file until the buffer holds at least the given number
+     * of unread bytes.
+     *
+     * @return false if the file ends first
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer in, int bytes) throws IOException {
+        if (in.remaining() >= bytes) {
+            return true;
+        }
+        in.compact();
+        try {
+            while (in.position() < bytes) {
+                if (channel.read(in) < 0) {
+                    return false;
+                }
+            }
+        } finally {
+            in.flip();
+        }
+        return true;
+    }
+}
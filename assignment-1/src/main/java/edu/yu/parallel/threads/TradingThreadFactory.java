@@ -1,16 +1,111 @@
 package edu.yu.parallel.threads;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.Order;
 import edu.yu.parallel.model.Trader;
 import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.LifecycleLatency;
+import edu.yu.parallel.trading.MarketMaker;
 import edu.yu.parallel.trading.OrderGenerator;
 import edu.yu.parallel.trading.OrderQueue;
+import edu.yu.parallel.trading.OrderSink;
+import edu.yu.parallel.trading.ShardRebalancer;
 
+/**
+ * Creates the trader and market maker threads of a {@link edu.yu.parallel.TradingSystem}.
+ *
+ * Trader threads are platform threads by default. In virtual mode each trader
+ * runs on a virtual thread instead, so a system can simulate far more traders
+ * than it could afford platform threads for. {@link OrderQueue} blocks in a
+ * monitor wait, which on JDK 21 pins a virtual trader to its carrier while the
+ * queue is full; size the queue so traders rarely block, or use a
+ * {@link edu.yu.parallel.trading.RingBufferOrderQueue} with the parking wait
+ * strategy, whose sleep unmounts the trader. Virtual mode is chosen per
+ * factory, or for factories built without it by setting the system property
+ * {@value #VIRTUAL_TRADERS_PROPERTY} to true. Market makers always run on
+ * dedicated platform threads.
+ */
 public class TradingThreadFactory {
+        private final static Logger logger = LogManager.getLogger(TradingThreadFactory.class);
+
+        /**
+         * Default maximum number of orders a market maker takes per wake-up.
+         */
+        public static final int DEFAULT_DRAIN_BATCH_SIZE = 256;
+
+        /**
+         * System property that turns on virtual trader threads for factories
+         * constructed without an explicit mode.
+         */
+        public static final String VIRTUAL_TRADERS_PROPERTY = "edu.yu.parallel.virtualTraders";
+
+        private final int basketSize;
+        private final int drainBatchSize;
+        private final boolean virtualTraders;
+        private int marketMakerCount = 0;
+
+        /**
+         * Constructs a factory whose traders submit one order at a time and whose
+         * market makers drain up to {@link #DEFAULT_DRAIN_BATCH_SIZE} orders per
+         * wake-up.
+         */
+        public TradingThreadFactory() {
+                this(1, DEFAULT_DRAIN_BATCH_SIZE);
+        }
+
+        /**
+         * Constructs a factory with the given batching on both ends of the queue.
+         *
+         * @param basketSize number of orders each trader generates and submits
+         *                   together through {@link OrderQueue#addOrders}; 1 submits
+         *                   each order on its own
+         * @param drainBatchSize maximum number of orders a market maker takes per
+         *                   wake-up through {@link OrderQueue#drainTo}
+         * @throws IllegalArgumentException if either size is not positive
+         */
+        public TradingThreadFactory(int basketSize, int drainBatchSize) {
+                this(basketSize, drainBatchSize, Boolean.getBoolean(VIRTUAL_TRADERS_PROPERTY));
+        }
+
+        /**
+         * Constructs a factory with the given batching and trader thread mode.
+         *
+         * @param basketSize number of orders each trader generates and submits
+         *                   together through {@link OrderQueue#addOrders}; 1 submits
+         *                   each order on its own
+         * @param drainBatchSize maximum number of orders a market maker takes per
+         *                   wake-up through {@link OrderQueue#drainTo}
+         * @param virtualTraders whether trader threads are virtual threads
+         * @throws IllegalArgumentException if either size is not positive
+         */
+        public TradingThreadFactory(int basketSize, int drainBatchSize, boolean virtualTraders) {
+                if (basketSize <= 0 || drainBatchSize <= 0) {
+                        throw new IllegalArgumentException("Batch sizes must be positive");
+                }
+                this.basketSize = basketSize;
+                this.drainBatchSize = drainBatchSize;
+                this.virtualTraders = virtualTraders;
+        }
 
         /**
-         * Creates a new trading thread for the given trader.
+         * Checks whether this factory creates trader threads as virtual threads.
+         *
+         * @return true in virtual mode
+         */
+        public boolean isVirtualTraders() {
+                return virtualTraders;
+        }
+
+        /**
+         * Creates a new trading thread for the given trader, a virtual thread if
+         * the factory is in virtual mode.
+         * The thread generates and submits orders until it is interrupted or the
+         * queue is shut down.
          *
          * @param trader the trader for this thread (must not be null)
          * @param orderGenerator the order generator to use (must not be null)
@@ -22,7 +117,61 @@ public class TradingThreadFactory {
                         Trader trader,
                         OrderGenerator orderGenerator,
                         OrderQueue orderQueue) {
-                throw new UnsupportedOperationException("not implemented yet");
+                return createTradingThread(trader, orderGenerator, (OrderSink) orderQueue);
+        }
+
+        /**
+         * Creates a new trading thread for the given trader that submits to any
+         * {@link OrderSink}, e.g. a {@link edu.yu.parallel.trading.ShardedOrderQueue},
+         * as {@link #createTradingThread(Trader, OrderGenerator, OrderQueue)} does.
+         *
+         * @param trader the trader for this thread (must not be null)
+         * @param orderGenerator the order generator to use (must not be null)
+         * @param orderQueue the queue to submit to (must not be null)
+         * @return a new Thread for trading
+         * @throws IllegalArgumentException if any argument is null
+         */
+        public Thread createTradingThread(
+                        Trader trader,
+                        OrderGenerator orderGenerator,
+                        OrderSink orderQueue) {
+                if (trader == null || orderGenerator == null || orderQueue == null) {
+                        throw new IllegalArgumentException("Arguments must not be null");
+                }
+                Runnable task = () -> {
+                        try {
+                                if (basketSize == 1) {
+                                        while (!Thread.currentThread().isInterrupted()) {
+                                                Order order = orderGenerator.generateOrder(trader);
+                                                if (LifecycleLatency.ENABLED) {
+                                                        order.setEnqueuedNanos(System.nanoTime());
+                                                }
+                                                orderQueue.addOrder(order);
+                                        }
+                                        return;
+                                }
+                                List<Order> basket = new ArrayList<>(basketSize);
+                                while (!Thread.currentThread().isInterrupted()) {
+                                        for (int i = 0; i < basketSize; i++) {
+                                                basket.add(orderGenerator.generateOrder(trader));
+                                        }
+                                        if (LifecycleLatency.ENABLED) {
+                                                long now = System.nanoTime();
+                                                for (Order order : basket) {
+                                                        order.setEnqueuedNanos(now);
+                                                }
+                                        }
+                                        orderQueue.addOrders(basket);
+                                        basket.clear();
+                                }
+                        } catch (IllegalStateException e) {
+                                // Queue was shut down: nothing more to submit
+                        }
+                };
+                if (virtualTraders) {
+                        return Thread.ofVirtual().name(trader.getTraderId()).unstarted(task);
+                }
+                return new Thread(task, trader.getTraderId());
         }
 
         /**
@@ -38,6 +187,88 @@ public class TradingThreadFactory {
                         List<String> stockSymbols,
                         OrderQueue orderQueue,
                         ExecutedOrders executedOrders) {
-                throw new UnsupportedOperationException("not implemented yet");
+                return createMarketMakerThread(new MarketMaker(stockSymbols, executedOrders), orderQueue);
+        }
+
+        /**
+         * Creates a new market maker thread that feeds orders from the queue to an
+         * existing market maker. The thread is the market maker's only caller, so
+         * the market maker's books are confined to it.
+         * Orders are taken up to the factory's drain batch size per wake-up and
+         * matched in one pass (or, in call auction mode, collected for auctions
+         * the thread runs when they fall due), after which it expires resting orders
+         * whose time-to-live has passed. While the queue is empty the thread
+         * waits only until the next auction or expiry check is due (see
+         * {@link MarketMaker#getNanosUntilDue()}), so both go on without new
+         * orders. Expired orders stay with the
+         * market maker until its shutdown reports them. The thread stops when
+         * it is interrupted or the queue is shut down.
+         *
+         * @param marketMaker the market maker to drive (must not be null)
+         * @param orderQueue the order queue to consume (must not be null)
+         * @return a new Thread for market making
+         * @throws IllegalArgumentException if any argument is null
+         */
+        public Thread createMarketMakerThread(
+                        MarketMaker marketMaker,
+                        OrderQueue orderQueue) {
+                return createMarketMakerThread(marketMaker, orderQueue, null, -1);
+        }
+
+        /**
+         * Creates a new market maker thread for one shard of a
+         * {@link edu.yu.parallel.trading.ShardedOrderQueue}, as
+         * {@link #createMarketMakerThread(MarketMaker, OrderQueue)} does, that
+         * also reports every batch to a rebalancer so symbols can be moved
+         * between shards.
+         *
+         * @param marketMaker the market maker to drive (must not be null)
+         * @param orderQueue the shard's queue to consume (must not be null)
+         * @param rebalancer the rebalancer to report to, or null
+         * @param shard the shard index
+         * @return a new Thread for market making
+         * @throws IllegalArgumentException if marketMaker or orderQueue is null
+         */
+        public synchronized Thread createMarketMakerThread(
+                        MarketMaker marketMaker,
+                        OrderQueue orderQueue,
+                        ShardRebalancer rebalancer,
+                        int shard) {
+                if (marketMaker == null || orderQueue == null) {
+                        throw new IllegalArgumentException("Arguments must not be null");
+                }
+                Runnable task = () -> {
+                        List<Order> batch = new ArrayList<>(drainBatchSize);
+                        while (!Thread.currentThread().isInterrupted()) {
+                                int drained = orderQueue.drainTo(batch, drainBatchSize, marketMaker.getNanosUntilDue());
+                                if (drained < 0) {
+                                        break; // interrupted or queue shut down
+                                }
+                                long start = LifecycleLatency.ENABLED || rebalancer != null ? System.nanoTime() : 0;
+                                if (LifecycleLatency.ENABLED) {
+                                        for (Order order : batch) {
+                                                order.setDequeuedNanos(start);
+                                        }
+                                }
+                                try {
+                                        for (Order order : batch) {
+                                                try {
+                                                        marketMaker.processOrder(order);
+                                                } catch (IllegalArgumentException e) {
+                                                        logger.warn("Rejected order: " + e.getMessage());
+                                                }
+                                        }
+                                        marketMaker.runAuctions();
+                                        marketMaker.expireOrders();
+                                        if (rebalancer != null && drained > 0) {
+                                                rebalancer.afterBatch(shard, drained, System.nanoTime() - start);
+                                        }
+                                } catch (IllegalStateException e) {
+                                        break; // market maker shut down
+                                }
+                                batch.clear();
+                        }
+                };
+                return new Thread(task, "MarketMaker-" + (++marketMakerCount));
         }
 }
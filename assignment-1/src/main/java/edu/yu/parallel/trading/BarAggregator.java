@@ -0,0 +1,308 @@
+package edu.yu.parallel.trading;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.SymbolDictionary;
+
+/**
+ * Rolling OHLCV and VWAP bars per symbol, updated incrementally from
+ * executions.
+ *
+ * For every symbol and every configured interval the aggregator keeps a ring
+ * of the most recent bars in preallocated primitive arrays. An execution
+ * updates one slot per interval in constant time and allocates nothing; a
+ * slot is reset in place when a new interval begins. Readers therefore get
+ * current bars without scanning any history.
+ *
+ * Writers to the same symbol are serialized by that symbol's monitor. Readers
+ * never lock: each symbol's bars are guarded by a sequence number that a
+ * writer makes odd while it updates the slots, and a reader retries until it
+ * sees the same even sequence before and after copying a bar.
+ *
+ * An execution stamped earlier than the newest one already seen for its
+ * symbol is counted in the newest bar, so bars never move backwards.
+ *
+ * Subscribe an instance with {@link ExecutedOrders#addListener(ExecutionListener)}.
+ */
+public class BarAggregator implements ExecutionListener {
+    private final static Logger logger = LogManager.getLogger(BarAggregator.class);
+
+    /**
+     * Intervals used by {@link #BarAggregator()}: 1 second, 5 seconds and 1
+     * minute.
+     */
+    public static final long[] DEFAULT_INTERVALS = { 1_000, 5_000, 60_000 };
+
+    /**
+     * Number of bars kept per symbol and interval by {@link #BarAggregator()}.
+     */
+    public static final int DEFAULT_DEPTH = 60;
+
+    /**
+     * One bar.
+     *
+     * @param symbol   the stock symbol
+     * @param interval bar length in millis
+     * @param start    start of the bar (inclusive), epoch millis
+     * @param count    number of executions
+     * @param volume   number of shares executed
+     * @param open     first price
+     * @param high     highest price
+     * @param low      lowest price
+     * @param close    last price
+     * @param vwap     volume-weighted average price
+     */
+    public record Bar(String symbol, long interval, long start, long count, long volume,
+            double open, double high, double low, double close, double vwap) {
+    }
+
+    private final long[] intervals;
+    private final int depth;
+
+    /**
+     * Per-symbol bars indexed by {@link SymbolDictionary} ID; null for symbols
+     * with no executions yet. Replaced, never mutated in place, when a symbol
+     * is added.
+     */
+    private volatile SymbolBars[] symbols = new SymbolBars[0];
+
+    /**
+     * Constructs an aggregator with {@link #DEFAULT_INTERVALS} and
+     * {@link #DEFAULT_DEPTH}.
+     */
+    public BarAggregator() {
+        this(DEFAULT_DEPTH, DEFAULT_INTERVALS);
+    }
+
+    /**
+     * Constructs an aggregator.
+     *
+     * @param depth     number of most recent bars kept per symbol and interval
+     * @param intervals bar lengths in millis
+     * @throws IllegalArgumentException if depth is not positive, no interval is
+     *                                  given, or an interval is not positive or
+     *                                  repeated
+     */
+    public BarAggregator(int depth, long... intervals) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Depth must be positive");
+        }
+        if (intervals == null || intervals.length == 0) {
+            throw new IllegalArgumentException("At least one interval is required");
+        }
+        long[] sorted = intervals.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] <= 0 || (i > 0 && sorted[i] == sorted[i - 1])) {
+                throw new IllegalArgumentException("Intervals must be positive and distinct");
+            }
+        }
+        this.intervals = sorted;
+        this.depth = depth;
+    }
+
+    /**
+     * Updates the symbol's current bar for every interval.
+     *
+     * @param execution the execution that was just recorded
+     */
+    @Override
+    public void onExecution(Execution execution) {
+        SymbolBars bars = bars(execution.getSymbolId());
+        if (bars == null) {
+            bars = createBars(execution.getSymbolId());
+        }
+        bars.add(execution.getTimestamp(), execution.getPrice(), execution.getQuantity());
+    }
+
+    /**
+     * Gets the configured intervals in ascending order.
+     *
+     * @return bar lengths in millis
+     */
+    public long[] getIntervals() {
+        return intervals.clone();
+    }
+
+    /**
+     * Gets the newest bar of a symbol for an interval, which may still be
+     * receiving executions.
+     *
+     * @param symbol   the stock symbol
+     * @param interval one of the configured intervals
+     * @return the newest bar, or null if the symbol has no executions
+     * @throws IllegalArgumentException if symbol is null or interval is not
+     *                                  configured
+     */
+    public Bar getCurrentBar(String symbol, long interval) {
+        List<Bar> bars = getBars(symbol, interval, 1);
+        return bars.isEmpty() ? null : bars.get(0);
+    }
+
+    /**
+     * Gets the bars of a symbol that started within the last count intervals,
+     * up to and including the newest one. Intervals without executions have no
+     * bar.
+     *
+     * @param symbol   the stock symbol
+     * @param interval one of the configured intervals
+     * @param count    number of intervals to look back; capped at the depth
+     * @return the bars, oldest first
+     * @throws IllegalArgumentException if symbol is null, interval is not
+     *                                  configured or count is not positive
+     */
+    public List<Bar> getBars(String symbol, long interval, int count) {
+        if (symbol == null) {
+            throw new IllegalArgumentException("Symbol must not be null");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be positive");
+        }
+        int k = indexOf(interval);
+        SymbolBars bars = bars(SymbolDictionary.getInstance().find(symbol));
+        if (bars == null) {
+            return List.of();
+        }
+        return bars.read(symbol, k, interval, Math.min(count, depth));
+    }
+
+    /**
+     * Logs the newest bar of every symbol for every interval.
+     */
+    public void printStatistics() {
+        SymbolBars[] current = symbols;
+        for (int symbolId = 0; symbolId < current.length; symbolId++) {
+            if (current[symbolId] == null) {
+                continue;
+            }
+            String symbol = SymbolDictionary.getInstance().symbolOf(symbolId);
+            for (int k = 0; k < intervals.length; k++) {
+                List<Bar> bars = current[symbolId].read(symbol, k, intervals[k], 1);
+                if (!bars.isEmpty()) {
+                    Bar bar = bars.get(0);
+                    logger.info("  Symbol: " + bar.symbol() + ", " + bar.interval() + " ms bar at " + bar.start()
+                            + ": O " + bar.open() + " H " + bar.high() + " L " + bar.low() + " C " + bar.close()
+                            + " V " + bar.volume() + " VWAP " + bar.vwap());
+                }
+            }
+        }
+    }
+
+    private SymbolBars bars(int symbolId) {
+        SymbolBars[] current = symbols;
+        return symbolId >= 0 && symbolId < current.length ? current[symbolId] : null;
+    }
+
+    private synchronized SymbolBars createBars(int symbolId) {
+        SymbolBars[] current = symbols;
+        if (symbolId < current.length && current[symbolId] != null) {
+            return current[symbolId];
+        }
+        SymbolBars[] grown = Arrays.copyOf(current,
+                Math.max(current.length, SymbolDictionary.getInstance().size()));
+        grown[symbolId] = new SymbolBars(intervals.length);
+        symbols = grown;
+        return grown[symbolId];
+    }
+
+    private int indexOf(long interval) {
+        int k = Arrays.binarySearch(intervals, interval);
+        if (k < 0) {
+            throw new IllegalArgumentException("Interval " + interval + " is not configured");
+        }
+        return k;
+    }
+
+    /**
+     * Bar rings of one symbol, one ring per interval, stored flat: slot s of
+     * interval k is at index k * depth + s.
+     */
+    private final class SymbolBars {
+        private final long[] bucket;
+        private final long[] count;
+        private final long[] volume;
+        private final double[] notional;
+        private final double[] open;
+        private final double[] high;
+        private final double[] low;
+        private final double[] close;
+        private final long[] newest;
+        private long lastTimestamp = Long.MIN_VALUE;
+        private volatile long seq;
+
+        SymbolBars(int intervalCount) {
+            int n = intervalCount * depth;
+            this.bucket = new long[n];
+            this.count = new long[n];
+            this.volume = new long[n];
+            this.notional = new double[n];
+            this.open = new double[n];
+            this.high = new double[n];
+            this.low = new double[n];
+            this.close = new double[n];
+            this.newest = new long[intervalCount];
+            Arrays.fill(bucket, Long.MIN_VALUE);
+            Arrays.fill(newest, Long.MIN_VALUE);
+        }
+
+        synchronized void add(long timestamp, double price, int quantity) {
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+            long s = seq;
+            seq = s + 1;
+            VarHandle.storeStoreFence();
+            for (int k = 0; k < newest.length; k++) {
+                long b = Math.floorDiv(lastTimestamp, intervals[k]);
+                int i = k * depth + (int) Math.floorMod(b, (long) depth);
+                if (bucket[i] != b) {
+                    bucket[i] = b;
+                    count[i] = 0;
+                    volume[i] = 0;
+                    notional[i] = 0;
+                    open[i] = price;
+                    high[i] = price;
+                    low[i] = price;
+                    newest[k] = b;
+                }
+                count[i]++;
+                volume[i] += quantity;
+                notional[i] += price * quantity;
+                high[i] = Math.max(high[i], price);
+                low[i] = Math.min(low[i], price);
+                close[i] = price;
+            }
+            seq = s + 2;
+        }
+
+        List<Bar> read(String symbol, int k, long interval, int n) {
+            List<Bar> bars = new ArrayList<>(n);
+            while (true) {
+                long before = seq;
+                if ((before & 1) == 0) {
+                    long last = newest[k];
+                    if (last != Long.MIN_VALUE) {
+                        for (long b = last - n + 1; b <= last; b++) {
+                            int i = k * depth + (int) Math.floorMod(b, (long) depth);
+                            if (bucket[i] == b) {
+                                bars.add(new Bar(symbol, interval, b * interval, count[i], volume[i],
+                                        open[i], high[i], low[i], close[i], notional[i] / volume[i]));
+                            }
+                        }
+                    }
+                    VarHandle.loadLoadFence();
+                    if (before == seq) {
+                        return bars;
+                    }
+                    bars.clear();
+                }
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
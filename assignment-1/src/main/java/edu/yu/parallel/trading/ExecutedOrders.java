@@ -1,11 +1,23 @@
 package edu.yu.parallel.trading;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.persistence.ExecutionJournal;
 
 /**
  * Thread-safe manager for all executed orders in the trading system.
@@ -21,32 +33,252 @@ import edu.yu.parallel.model.Execution;
  * - Ensure that statistics (count, volume) are accurate under concurrent
  * updates.
  * - Optimize getLastExecution for fast retrieval by symbol.
+ *
+ * Per-symbol state lives in an array indexed by {@link SymbolDictionary} ID.
+ * Each symbol has one volatile slot holding its last execution, so
+ * getLastExecution is an array lookup plus a volatile read and never waits on
+ * a writer. Count and volume are kept in per-symbol striped cells. Each cell is
+ * a small seqlock: a writer claims the cell by moving its sequence from even
+ * to odd and releases it with the next even value. Market makers on different
+ * threads normally land on different cells, and a writer that finds its cell
+ * busy moves on to another instead of waiting. Readers retry a cell until they
+ * see the same even sequence before and after reading it, so each cell's count
+ * and volume always describe the same set of executions.
+ *
+ * A flyweight execution (see {@link Execution#isFlyweight()}) is reused by
+ * its owner as soon as recordExecution returns, so it is never kept. Its
+ * fields are copied into a per-symbol seqlocked slot instead, and
+ * getLastExecution rebuilds an Execution from that copy on demand.
+ * {@link #getLastPrice(String)} reads either form without allocating.
+ *
+ * Optionally, every execution is also appended to an {@link ExecutionJournal},
+ * and a new instance rebuilds its state from that journal on startup. A
+ * journal can also be attached to an existing instance between runs (see
+ * {@link #attachJournal(ExecutionJournal)}).
+ * Other consumers, such as {@link ExecutionHistory}, subscribe through
+ * {@link #addListener(ExecutionListener)}.
  */
 public class ExecutedOrders {
     private final static Logger logger = LogManager.getLogger(ExecutedOrders.class);
 
+    /**
+     * A snapshot of the execution statistics. Per-symbol values are read from
+     * stable cells and the totals are their sums.
+     *
+     * @param totalCount   number of executions
+     * @param totalVolume  number of shares executed
+     * @param symbolCount  number of executions per symbol
+     * @param symbolVolume number of shares executed per symbol
+     */
+    public record Statistics(long totalCount, long totalVolume,
+            Map<String, Long> symbolCount, Map<String, Long> symbolVolume) {
+    }
+
+    private static final int STRIPES = Integer.highestOneBit(
+            Math.max(1, Math.min(64, Runtime.getRuntime().availableProcessors())) * 2 - 1);
+
+    /**
+     * Per-symbol state indexed by {@link SymbolDictionary} ID; null for symbols
+     * with no executions yet. Replaced, never mutated in place, when a slot is
+     * added.
+     */
+    private volatile SymbolExecutions[] symbols = new SymbolExecutions[0];
+    private volatile ExecutionJournal journal;
+    private volatile ExecutionListener[] listeners = new ExecutionListener[0];
+
+    /**
+     * Constructs an in-memory ExecutedOrders.
+     */
+    public ExecutedOrders() {
+        this.journal = null;
+    }
+
+    /**
+     * Constructs an ExecutedOrders that appends every execution to the given
+     * journal. The last execution and statistics for each symbol are first
+     * rebuilt by scanning the journal's existing segments.
+     * The rebuilt last executions refer to placeholder orders and traders that
+     * carry only the IDs stored in the journal.
+     *
+     * @param journal the journal to recover from and append to
+     * @throws IllegalArgumentException if journal is null
+     */
+    public ExecutedOrders(ExecutionJournal journal) {
+        if (journal == null) {
+            throw new IllegalArgumentException("Journal must not be null");
+        }
+        this.journal = journal;
+        recover(journal);
+    }
+
+    /**
+     * Starts appending every execution to the given journal. If this instance
+     * has recorded nothing yet, its state is first rebuilt from the journal as
+     * by {@link #ExecutedOrders(ExecutionJournal)}; otherwise its state is
+     * kept as it is. Must not be called while executions are being recorded.
+     *
+     * @param journal the journal to append to
+     * @throws IllegalArgumentException if journal is null
+     * @throws IllegalStateException    if a journal is attached already
+     */
+    public void attachJournal(ExecutionJournal journal) {
+        if (journal == null) {
+            throw new IllegalArgumentException("Journal must not be null");
+        }
+        if (this.journal != null) {
+            throw new IllegalStateException("A journal is attached already");
+        }
+        if (getStatistics().totalCount() == 0) {
+            recover(journal);
+        }
+        this.journal = journal;
+    }
+
+    /**
+     * Stops appending executions to the journal, if one is attached. Must not
+     * be called while executions are being recorded.
+     *
+     * @return the detached journal, or null if none was attached
+     */
+    public ExecutionJournal detachJournal() {
+        ExecutionJournal detached = journal;
+        journal = null;
+        return detached;
+    }
+
     /**
      * Records a completed order execution.
      * Must be thread-safe for concurrent updates.
-     * 
+     *
      * @param execution the execution to record
      * @throws IllegalArgumentException if execution is null
      */
     public void recordExecution(Execution execution) {
-        // Implementation goes here
+        if (execution == null) {
+            throw new IllegalArgumentException("Execution must not be null");
+        }
+        ExecutionJournal journal = this.journal;
+        if (journal != null) {
+            journal.append(execution);
+        }
+        SymbolExecutions entry = entryFor(execution.getSymbolId());
+        entry.add(execution.getQuantity());
+        if (execution.isFlyweight()) {
+            entry.copyLast(execution);
+            entry.last = null;
+        } else {
+            entry.last = execution;
+        }
+        for (ExecutionListener listener : listeners) {
+            listener.onExecution(execution);
+        }
+    }
+
+    /**
+     * Subscribes a listener to every execution recorded from now on.
+     * Listeners are called in subscription order on the recording thread.
+     *
+     * @param listener the listener to add
+     * @throws IllegalArgumentException if listener is null
+     */
+    public synchronized void addListener(ExecutionListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        ExecutionListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[updated.length - 1] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * Unsubscribes a listener.
+     *
+     * @param listener the listener to remove
+     * @return true if the listener was subscribed
+     */
+    public synchronized boolean removeListener(ExecutionListener listener) {
+        List<ExecutionListener> updated = new ArrayList<>(Arrays.asList(listeners));
+        boolean removed = updated.remove(listener);
+        listeners = updated.toArray(new ExecutionListener[0]);
+        return removed;
     }
 
     /**
      * Returns the most recent execution for the given symbol, or null if none
      * exist.
      * Should be optimized for fast lookup by symbol.
-     * 
+     *
      * @param symbol the stock symbol
      * @return last execution for symbol, or null if none
      * @throws IllegalArgumentException if symbol is null
      */
     public Execution getLastExecution(String symbol) {
-        return null; // Implementation goes here
+        if (symbol == null) {
+            throw new IllegalArgumentException("Symbol must not be null");
+        }
+        SymbolExecutions entry = entry(SymbolDictionary.getInstance().find(symbol));
+        if (entry == null) {
+            return null;
+        }
+        Execution last = entry.last;
+        return last != null ? last : entry.copiedLast(symbol);
+    }
+
+    /**
+     * Returns the price of the most recent execution for the given symbol
+     * without allocating.
+     *
+     * @param symbol the stock symbol
+     * @return last execution price for symbol, or NaN if none
+     * @throws IllegalArgumentException if symbol is null
+     */
+    public double getLastPrice(String symbol) {
+        if (symbol == null) {
+            throw new IllegalArgumentException("Symbol must not be null");
+        }
+        return getLastPrice(SymbolDictionary.getInstance().find(symbol));
+    }
+
+    /**
+     * Returns the price of the most recent execution for the symbol with the
+     * given {@link SymbolDictionary} ID, without hashing or allocating.
+     *
+     * @param symbolId the symbol ID
+     * @return last execution price for symbol, or NaN if none
+     */
+    public double getLastPrice(int symbolId) {
+        SymbolExecutions entry = entry(symbolId);
+        if (entry == null) {
+            return Double.NaN;
+        }
+        Execution last = entry.last;
+        return last != null ? last.getPrice() : entry.lastPrice;
+    }
+
+    /**
+     * Returns a snapshot of the execution statistics without blocking writers.
+     *
+     * @return execution counts and volumes, in total and per symbol
+     */
+    public Statistics getStatistics() {
+        long totalCount = 0;
+        long totalVolume = 0;
+        Map<String, Long> symbolCount = new HashMap<>();
+        Map<String, Long> symbolVolume = new HashMap<>();
+        long[] pair = new long[2];
+        SymbolExecutions[] current = symbols;
+        for (int symbolId = 0; symbolId < current.length; symbolId++) {
+            if (current[symbolId] == null) {
+                continue;
+            }
+            String symbol = SymbolDictionary.getInstance().symbolOf(symbolId);
+            current[symbolId].read(pair);
+            symbolCount.put(symbol, pair[0]);
+            symbolVolume.put(symbol, pair[1]);
+            totalCount += pair[0];
+            totalVolume += pair[1];
+        }
+        return new Statistics(totalCount, totalVolume, symbolCount, symbolVolume);
     }
 
     /**
@@ -54,18 +286,95 @@ public class ExecutedOrders {
      * 1) Total execution count
      * 2) Total volume
      * 3) For each symbol, execution count and volume
-     * 
+     *
      * Volume calculation per execution:
      * - Volume = execution.getQuantity() [number of shares/contracts executed]
      * - Total volume: sum of quantities from all executions
      * - Per-symbol volume: sum of quantities for executions of that symbol
-     * 
+     *
      * Note, you must call outputStatistics to print the results.
      * Results must be consistent even during concurrent updates.
      */
     public void printStatistics() {
-        // Call to outputStatistics with dummy data
-        outputStatistics(0L, 0L, Map.of(), Map.of());
+        Statistics statistics = getStatistics();
+        Map<String, Integer> symbolCount = new HashMap<>();
+        Map<String, Integer> symbolVolume = new HashMap<>();
+        statistics.symbolCount().forEach((symbol, count) -> symbolCount.put(symbol, saturatedInt(count)));
+        statistics.symbolVolume().forEach((symbol, volume) -> symbolVolume.put(symbol, saturatedInt(volume)));
+        outputStatistics(statistics.totalCount(), statistics.totalVolume(), symbolCount, symbolVolume);
+    }
+
+    /**
+     * Restores a symbol's last execution and statistics, e.g. from a
+     * snapshot, replacing what was recorded for the symbol before. Restoring
+     * the same values again changes nothing. Restored executions are not
+     * journaled or passed to listeners. Must not be called while executions
+     * of the symbol are being recorded.
+     *
+     * @param last   the symbol's last execution
+     * @param count  the symbol's execution count
+     * @param volume the symbol's volume
+     * @throws IllegalArgumentException if last is null or a number is negative
+     */
+    public void restore(Execution last, long count, long volume) {
+        if (last == null) {
+            throw new IllegalArgumentException("Execution must not be null");
+        }
+        if (count < 0 || volume < 0) {
+            throw new IllegalArgumentException("Count and volume must not be negative");
+        }
+        SymbolExecutions entry = entryFor(last.getSymbolId());
+        long[] pair = new long[2];
+        entry.read(pair);
+        entry.add(count - pair[0], volume - pair[1]);
+        entry.last = last;
+    }
+
+    private void recover(ExecutionJournal journal) {
+        Map<String, ExecutionJournal.Entry> lastEntries = new HashMap<>();
+        long[] recovered = new long[1];
+        journal.forEach(entry -> {
+            entryFor(SymbolDictionary.getInstance().idOf(entry.symbol())).add(entry.quantity());
+            lastEntries.put(entry.symbol(), entry);
+            recovered[0]++;
+        });
+        for (ExecutionJournal.Entry entry : lastEntries.values()) {
+            Order buy = Order.restoreOrder(entry.buyOrderId(), entry.symbol(), OrderType.BUY,
+                    entry.quantity(), entry.price(), new Trader(entry.buyTraderId()), OrderStatus.FILLED);
+            Order sell = Order.restoreOrder(entry.sellOrderId(), entry.symbol(), OrderType.SELL,
+                    entry.quantity(), entry.price(), new Trader(entry.sellTraderId()), OrderStatus.FILLED);
+            entry(buy.getSymbolId()).last = Execution.restoreExecution(entry.executionId(), buy, sell,
+                    entry.quantity(), entry.price(), entry.timestamp());
+        }
+        if (recovered[0] > 0) {
+            logger.info("Recovered " + recovered[0] + " executions from " + journal.getDirectory());
+        }
+    }
+
+    private SymbolExecutions entry(int symbolId) {
+        SymbolExecutions[] current = symbols;
+        return symbolId >= 0 && symbolId < current.length ? current[symbolId] : null;
+    }
+
+    private SymbolExecutions entryFor(int symbolId) {
+        SymbolExecutions entry = entry(symbolId);
+        return entry != null ? entry : createEntry(symbolId);
+    }
+
+    private synchronized SymbolExecutions createEntry(int symbolId) {
+        SymbolExecutions[] current = symbols;
+        if (symbolId < current.length && current[symbolId] != null) {
+            return current[symbolId];
+        }
+        SymbolExecutions[] grown = Arrays.copyOf(current,
+                Math.max(current.length, SymbolDictionary.getInstance().size()));
+        grown[symbolId] = new SymbolExecutions();
+        symbols = grown;
+        return grown[symbolId];
+    }
+
+    private static int saturatedInt(long value) {
+        return (int) Math.min(Integer.MAX_VALUE, value);
     }
 
     /*
@@ -86,4 +395,164 @@ public class ExecutedOrders {
                     + ", Volume: " + symbolVolume.get(symbol));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Last-execution slot and striped statistics for one symbol.
+     */
+    private static final class SymbolExecutions {
+        private static final VarHandle COPY_SEQ;
+
+        static {
+            try {
+                COPY_SEQ = MethodHandles.lookup().findVarHandle(SymbolExecutions.class, "copySeq", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final Cell[] cells = new Cell[STRIPES];
+        private volatile Execution last;
+
+        /**
+         * Copy of the last flyweight execution, guarded by copySeq like a Cell.
+         */
+        @SuppressWarnings("unused")
+        private volatile long copySeq;
+        private volatile double lastPrice = Double.NaN;
+        private int executionId;
+        private int quantity;
+        private long timestamp;
+        private int buyOrderId;
+        private int sellOrderId;
+        private Trader buyTrader;
+        private Trader sellTrader;
+
+        SymbolExecutions() {
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = new Cell();
+            }
+        }
+
+        void add(int quantity) {
+            add(1, quantity);
+        }
+
+        void add(long count, long volume) {
+            int probe = probe();
+            while (true) {
+                Cell cell = cells[probe & (cells.length - 1)];
+                long seq = cell.seq;
+                if ((seq & 1) == 0 && Cell.SEQ.compareAndSet(cell, seq, seq + 1)) {
+                    Cell.COUNT.setOpaque(cell, cell.count + count);
+                    Cell.VOLUME.setOpaque(cell, cell.volume + volume);
+                    Cell.SEQ.setRelease(cell, seq + 2);
+                    return;
+                }
+                probe++;
+            }
+        }
+
+        /**
+         * Sums every cell into pair[0] (count) and pair[1] (volume).
+         */
+        void read(long[] pair) {
+            long count = 0;
+            long volume = 0;
+            for (Cell cell : cells) {
+                while (true) {
+                    long before = (long) Cell.SEQ.getAcquire(cell);
+                    long c = (long) Cell.COUNT.getOpaque(cell);
+                    long v = (long) Cell.VOLUME.getOpaque(cell);
+                    VarHandle.acquireFence();
+                    if ((before & 1) == 0 && before == (long) Cell.SEQ.getOpaque(cell)) {
+                        count += c;
+                        volume += v;
+                        break;
+                    }
+                    Thread.onSpinWait();
+                }
+            }
+            pair[0] = count;
+            pair[1] = volume;
+        }
+
+        void copyLast(Execution execution) {
+            long seq;
+            while (((seq = copySeq) & 1) != 0 || !COPY_SEQ.compareAndSet(this, seq, seq + 1)) {
+                Thread.onSpinWait();
+            }
+            executionId = execution.getExecutionId();
+            quantity = execution.getQuantity();
+            timestamp = execution.getTimestamp();
+            buyOrderId = execution.getBuyOrder().getOrderId();
+            sellOrderId = execution.getSellOrder().getOrderId();
+            buyTrader = execution.getBuyOrder().getTrader();
+            sellTrader = execution.getSellOrder().getTrader();
+            lastPrice = execution.getPrice();
+            COPY_SEQ.setRelease(this, seq + 2);
+        }
+
+        /**
+         * Rebuilds the last flyweight execution from its copy, with orders that
+         * carry only its IDs, traders, quantity and price.
+         */
+        Execution copiedLast(String symbol) {
+            while (true) {
+                long before = (long) COPY_SEQ.getAcquire(this);
+                int id = executionId;
+                int qty = quantity;
+                long ts = timestamp;
+                int buyId = buyOrderId;
+                int sellId = sellOrderId;
+                Trader buyer = buyTrader;
+                Trader seller = sellTrader;
+                double price = lastPrice;
+                VarHandle.acquireFence();
+                if ((before & 1) == 0 && before == copySeq) {
+                    if (buyer == null) {
+                        return null;
+                    }
+                    Order buy = Order.restoreOrder(buyId, symbol, OrderType.BUY, qty, price, buyer,
+                            OrderStatus.FILLED);
+                    Order sell = Order.restoreOrder(sellId, symbol, OrderType.SELL, qty, price, seller,
+                            OrderStatus.FILLED);
+                    return Execution.restoreExecution(id, buy, sell, qty, price, ts);
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        private static int probe() {
+            long id = Thread.currentThread().threadId();
+            return (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        }
+    }
+
+    /**
+     * One seqlock-protected stripe of a symbol's statistics, padded so that
+     * neighbouring cells do not share a cache line.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cell {
+        private static final VarHandle SEQ;
+        private static final VarHandle COUNT;
+        private static final VarHandle VOLUME;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                SEQ = lookup.findVarHandle(Cell.class, "seq", long.class);
+                COUNT = lookup.findVarHandle(Cell.class, "count", long.class);
+                VOLUME = lookup.findVarHandle(Cell.class, "volume", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private long p01, p02, p03, p04, p05, p06, p07;
+        private volatile long seq;
+        private long count;
+        private long volume;
+        private long p11, p12, p13, p14, p15;
+    }
+}
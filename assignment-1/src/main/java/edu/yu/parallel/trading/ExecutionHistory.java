@@ -0,0 +1,343 @@
+package edu.yu.parallel.trading;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.SymbolDictionary;
+
+/**
+ * Columnar in-memory history of executions, per symbol, for time-range
+ * analytics (volume, VWAP, OHLC).
+ *
+ * Each symbol's history is a list of fixed-size chunks holding parallel
+ * primitive columns: timestamps as long[], prices as double[] and quantities as
+ * int[]. That is 20 bytes per execution instead of an Execution object plus two
+ * Orders. Appends to a symbol are serialized by that symbol's monitor, which in
+ * sharded mode only one market maker thread ever takes. Queries take no locks:
+ * each chunk publishes its size through a volatile write after filling a row.
+ *
+ * Timestamps within a symbol are kept non-decreasing (an execution stamped
+ * earlier than the previous row is stored with the previous row's timestamp), so
+ * every chunk can be binary searched. Queries over many chunks are aggregated
+ * in parallel.
+ *
+ * Subscribe an instance with {@link ExecutedOrders#addListener(ExecutionListener)}.
+ */
+public class ExecutionHistory implements ExecutionListener {
+    /**
+     * Rows per chunk.
+     */
+    public static final int CHUNK_SIZE = 1 << 14;
+
+    /**
+     * Range queries spanning at least this many chunks are aggregated in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 4;
+
+    /**
+     * Aggregate over the executions of one symbol within a time window.
+     *
+     * @param count  number of executions
+     * @param volume number of shares executed
+     * @param vwap   volume-weighted average price, NaN if no executions
+     * @param open   first price, NaN if no executions
+     * @param high   highest price, NaN if no executions
+     * @param low    lowest price, NaN if no executions
+     * @param close  last price, NaN if no executions
+     */
+    public record Window(long count, long volume, double vwap, double open, double high, double low, double close) {
+    }
+
+    /**
+     * One OHLC bar of a {@link #bars} query.
+     *
+     * @param start  start of the bar's interval (inclusive), epoch millis
+     * @param window aggregate of the executions in the interval
+     */
+    public record Bar(long start, Window window) {
+    }
+
+    /**
+     * Per-symbol histories indexed by {@link SymbolDictionary} ID; null for
+     * symbols with no executions yet. Replaced, never mutated in place, when a
+     * history is added.
+     */
+    private volatile SymbolHistory[] symbols = new SymbolHistory[0];
+
+    /**
+     * Appends the execution to its symbol's history.
+     *
+     * @param execution the execution that was just recorded
+     */
+    @Override
+    public void onExecution(Execution execution) {
+        SymbolHistory history = history(execution.getSymbolId());
+        if (history == null) {
+            history = createHistory(execution.getSymbolId());
+        }
+        history.append(execution.getTimestamp(), execution.getPrice(), execution.getQuantity());
+    }
+
+    /**
+     * Gets the number of executions stored for a symbol.
+     *
+     * @param symbol the stock symbol
+     * @return number of stored executions
+     */
+    public long size(String symbol) {
+        SymbolHistory history = history(symbol);
+        return history == null ? 0 : history.size();
+    }
+
+    /**
+     * Aggregates the executions of a symbol with from &lt;= timestamp &lt; to.
+     *
+     * @param symbol the stock symbol
+     * @param from   start of the window (inclusive), epoch millis
+     * @param to     end of the window (exclusive), epoch millis
+     * @return the window aggregate
+     * @throws IllegalArgumentException if symbol is null or from &gt; to
+     */
+    public Window window(String symbol, long from, long to) {
+        if (symbol == null || from > to) {
+            throw new IllegalArgumentException("Symbol must be non-null and from must not exceed to");
+        }
+        SymbolHistory history = history(symbol);
+        return history == null ? Partial.EMPTY.toWindow() : history.aggregate(from, to).toWindow();
+    }
+
+    /**
+     * Gets the number of shares of a symbol executed with from &lt;= timestamp &lt; to.
+     *
+     * @param symbol the stock symbol
+     * @param from   start of the window (inclusive), epoch millis
+     * @param to     end of the window (exclusive), epoch millis
+     * @return executed volume
+     */
+    public long volume(String symbol, long from, long to) {
+        return window(symbol, from, to).volume();
+    }
+
+    /**
+     * Gets the volume-weighted average price of a symbol with
+     * from &lt;= timestamp &lt; to.
+     *
+     * @param symbol the stock symbol
+     * @param from   start of the window (inclusive), epoch millis
+     * @param to     end of the window (exclusive), epoch millis
+     * @return VWAP, or NaN if there were no executions
+     */
+    public double vwap(String symbol, long from, long to) {
+        return window(symbol, from, to).vwap();
+    }
+
+    /**
+     * Splits [from, to) into consecutive intervals and aggregates each one. The
+     * intervals are computed in parallel.
+     *
+     * @param symbol   the stock symbol
+     * @param from     start of the first bar (inclusive), epoch millis
+     * @param to       end of the range (exclusive), epoch millis
+     * @param interval bar length in millis
+     * @return one bar per interval, oldest first, including empty bars
+     * @throws IllegalArgumentException if symbol is null, from &gt; to or
+     *                                  interval is not positive
+     */
+    public List<Bar> bars(String symbol, long from, long to, long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        if (symbol == null || from > to) {
+            throw new IllegalArgumentException("Symbol must be non-null and from must not exceed to");
+        }
+        SymbolHistory history = history(symbol);
+        long buckets = (to - from + interval - 1) / interval;
+        if (buckets > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many bars");
+        }
+        return IntStream.range(0, (int) buckets).parallel()
+                .mapToObj(b -> {
+                    long start = from + b * interval;
+                    long end = Math.min(to, start + interval);
+                    Partial p = history == null ? Partial.EMPTY : history.aggregate(start, end);
+                    return new Bar(start, p.toWindow());
+                })
+                .toList();
+    }
+
+    private SymbolHistory history(String symbol) {
+        return symbol == null ? null : history(SymbolDictionary.getInstance().find(symbol));
+    }
+
+    private SymbolHistory history(int symbolId) {
+        SymbolHistory[] current = symbols;
+        return symbolId >= 0 && symbolId < current.length ? current[symbolId] : null;
+    }
+
+    private synchronized SymbolHistory createHistory(int symbolId) {
+        SymbolHistory[] current = symbols;
+        if (symbolId < current.length && current[symbolId] != null) {
+            return current[symbolId];
+        }
+        SymbolHistory[] grown = Arrays.copyOf(current,
+                Math.max(current.length, SymbolDictionary.getInstance().size()));
+        grown[symbolId] = new SymbolHistory();
+        symbols = grown;
+        return grown[symbolId];
+    }
+
+    /**
+     * The chunk list of one symbol.
+     */
+    private static final class SymbolHistory {
+        private volatile Chunk[] chunks = new Chunk[] { new Chunk() };
+        private long lastTimestamp = Long.MIN_VALUE;
+
+        synchronized void append(long timestamp, double price, int quantity) {
+            Chunk[] current = chunks;
+            Chunk tail = current[current.length - 1];
+            if (tail.size == CHUNK_SIZE) {
+                tail = new Chunk();
+                Chunk[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[grown.length - 1] = tail;
+                chunks = grown;
+            }
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+            tail.append(lastTimestamp, price, quantity);
+        }
+
+        long size() {
+            Chunk[] current = chunks;
+            return (long) (current.length - 1) * CHUNK_SIZE + current[current.length - 1].size;
+        }
+
+        Partial aggregate(long from, long to) {
+            Chunk[] current = chunks;
+            int first = firstChunkEndingAtOrAfter(current, from);
+            int last = lastChunkStartingBefore(current, to);
+            if (first > last) {
+                return Partial.EMPTY;
+            }
+            IntStream range = IntStream.rangeClosed(first, last);
+            if (last - first + 1 >= PARALLEL_THRESHOLD) {
+                range = range.parallel();
+            }
+            return range.mapToObj(i -> current[i].aggregate(from, to))
+                    .reduce(Partial.EMPTY, Partial::combine);
+        }
+
+        private static int firstChunkEndingAtOrAfter(Chunk[] chunks, long from) {
+            int lo = 0;
+            int hi = chunks.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                Chunk c = chunks[mid];
+                int n = c.size;
+                if (n > 0 && c.timestamps[n - 1] < from) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static int lastChunkStartingBefore(Chunk[] chunks, long to) {
+            int lo = 0;
+            int hi = chunks.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                Chunk c = chunks[mid];
+                if (c.size > 0 && c.timestamps[0] < to) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Fixed-size columns for CHUNK_SIZE executions.
+     */
+    private static final class Chunk {
+        private final long[] timestamps = new long[CHUNK_SIZE];
+        private final double[] prices = new double[CHUNK_SIZE];
+        private final int[] quantities = new int[CHUNK_SIZE];
+        private volatile int size;
+
+        void append(long timestamp, double price, int quantity) {
+            int n = size;
+            timestamps[n] = timestamp;
+            prices[n] = price;
+            quantities[n] = quantity;
+            size = n + 1; // publishes the row
+        }
+
+        Partial aggregate(long from, long to) {
+            int n = size;
+            int start = lowerBound(from, n);
+            int end = lowerBound(to, n);
+            if (start >= end) {
+                return Partial.EMPTY;
+            }
+            long volume = 0;
+            double notional = 0;
+            double high = Double.NEGATIVE_INFINITY;
+            double low = Double.POSITIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                double price = prices[i];
+                volume += quantities[i];
+                notional += price * quantities[i];
+                high = Math.max(high, price);
+                low = Math.min(low, price);
+            }
+            return new Partial(end - start, volume, notional, prices[start], high, low, prices[end - 1]);
+        }
+
+        /**
+         * Index of the first row with timestamp &gt;= key, or n if none.
+         */
+        private int lowerBound(long key, int n) {
+            int lo = 0;
+            int hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (timestamps[mid] < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Mergeable partial aggregate. combine is associative, and the left operand
+     * always holds the earlier rows.
+     */
+    private record Partial(long count, long volume, double notional,
+            double open, double high, double low, double close) {
+        static final Partial EMPTY = new Partial(0, 0, 0, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+
+        Partial combine(Partial later) {
+            if (count == 0) {
+                return later;
+            }
+            if (later.count == 0) {
+                return this;
+            }
+            return new Partial(count + later.count, volume + later.volume, notional + later.notional,
+                    open, Math.max(high, later.high), Math.min(low, later.low), later.close);
+        }
+
+        Window toWindow() {
+            double vwap = volume == 0 ? Double.NaN : notional / volume;
+            return new Window(count, volume, vwap, open, high, low, close);
+        }
+    }
+}
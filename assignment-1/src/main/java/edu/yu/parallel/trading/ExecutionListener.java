@@ -0,0 +1,23 @@
+package edu.yu.parallel.trading;
+
+import edu.yu.parallel.model.Execution;
+
+/**
+ * Receives every execution recorded by {@link ExecutedOrders}.
+ *
+ * Listeners are called on the market maker thread that recorded the
+ * execution, possibly from several threads at once, so they must be
+ * thread-safe and should return quickly. The execution may be a flyweight
+ * that is overwritten once the call returns (see
+ * {@link Execution#isFlyweight()}), so listeners must copy whatever they keep.
+ */
+@FunctionalInterface
+public interface ExecutionListener {
+
+    /**
+     * Called once for each recorded execution.
+     *
+     * @param execution the execution that was just recorded
+     */
+    void onExecution(Execution execution);
+}
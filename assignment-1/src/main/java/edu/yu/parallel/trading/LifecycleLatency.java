@@ -0,0 +1,214 @@
+package edu.yu.parallel.trading;
+
+import java.util.Arrays;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.util.LatencyHistogram;
+
+/**
+ * Global singleton that records how long orders spend in each stage of the
+ * trading pipeline, per stage and per symbol, in {@link LatencyHistogram}s.
+ *
+ * Orders are stamped with {@link System#nanoTime()} when they are generated,
+ * handed to the queue and taken off it (see {@link Order#getGeneratedNanos()}
+ * and the neighbouring accessors). When a market maker has matched an order
+ * and booked its fills it records every stage at once, so all recording for a
+ * symbol happens on the market maker threads that own its books; a stage
+ * whose stamps were not taken is skipped. Stamping costs one clock read per
+ * order, or per batch where orders move in batches, and recording a handful
+ * of atomic increments.
+ *
+ * Instrumentation is off unless the system property
+ * {@value #ENABLED_PROPERTY} is true. The statistics are printed by
+ * {@link OrderQueue#printStatistics()}.
+ */
+public final class LifecycleLatency {
+    private final static Logger logger = LogManager.getLogger(LifecycleLatency.class);
+
+    /**
+     * System property that turns instrumentation on when set to true.
+     */
+    public static final String ENABLED_PROPERTY = "edu.yu.parallel.lifecycleLatency";
+
+    /**
+     * Whether orders are stamped and stages recorded. Read once, so the JIT
+     * can drop the instrumentation entirely when it is off.
+     */
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "false"));
+
+    /**
+     * A stage of an order's life, between two consecutive stamps.
+     */
+    public enum Stage {
+        /**
+         * From generation until the order is handed to the queue.
+         */
+        SUBMIT,
+        /**
+         * From being handed to the queue until a market maker takes it,
+         * including any time blocked on a full queue.
+         */
+        QUEUE,
+        /**
+         * From being taken off the queue until matching starts, i.e. waiting
+         * behind the rest of the market maker's batch.
+         */
+        DISPATCH,
+        /**
+         * Matching the order and booking its fills, or resting it.
+         */
+        MATCH,
+        /**
+         * From generation until matching and booking are done.
+         */
+        TOTAL
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final LifecycleLatency INSTANCE = new LifecycleLatency();
+
+    /**
+     * Histograms indexed by symbol ID, each holding one histogram per stage;
+     * grown under this when a new symbol is first recorded.
+     */
+    private volatile LatencyHistogram[][] bySymbol = new LatencyHistogram[0][];
+
+    private LifecycleLatency() {
+    }
+
+    /**
+     * Gets the singleton instance of LifecycleLatency.
+     *
+     * @return LifecycleLatency instance
+     */
+    public static LifecycleLatency getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records every stage of an order that has just been matched. The caller
+     * passes the order's stamps read before matching, as a filled pooled
+     * order may be recycled during the match.
+     *
+     * @param symbolId       the order's symbol ID
+     * @param generatedNanos the order's generation stamp, or 0
+     * @param enqueuedNanos  the order's enqueue stamp, or 0
+     * @param dequeuedNanos  the order's dequeue stamp, or 0
+     * @param matchNanos     when matching started
+     * @param bookedNanos    when matching and booking finished
+     */
+    public void record(int symbolId, long generatedNanos, long enqueuedNanos, long dequeuedNanos,
+            long matchNanos, long bookedNanos) {
+        LatencyHistogram[] stages = histograms(symbolId);
+        if (generatedNanos != 0 && enqueuedNanos != 0) {
+            stages[Stage.SUBMIT.ordinal()].record(enqueuedNanos - generatedNanos);
+        }
+        if (enqueuedNanos != 0 && dequeuedNanos != 0) {
+            stages[Stage.QUEUE.ordinal()].record(dequeuedNanos - enqueuedNanos);
+        }
+        if (dequeuedNanos != 0) {
+            stages[Stage.DISPATCH.ordinal()].record(matchNanos - dequeuedNanos);
+        }
+        stages[Stage.MATCH.ordinal()].record(bookedNanos - matchNanos);
+        if (generatedNanos != 0) {
+            stages[Stage.TOTAL.ordinal()].record(bookedNanos - generatedNanos);
+        }
+    }
+
+    /**
+     * Takes a snapshot of one stage for one symbol.
+     *
+     * @param stage    the stage
+     * @param symbolId the symbol ID
+     * @return the snapshot; empty if nothing was recorded for the symbol
+     */
+    public LatencyHistogram.Snapshot getSnapshot(Stage stage, int symbolId) {
+        LatencyHistogram[][] current = bySymbol;
+        if (symbolId >= 0 && symbolId < current.length && current[symbolId] != null) {
+            return current[symbolId][stage.ordinal()].snapshot();
+        }
+        return new LatencyHistogram().snapshot();
+    }
+
+    /**
+     * Takes a snapshot of one stage across all symbols.
+     *
+     * @param stage the stage
+     * @return the combined snapshot
+     */
+    public LatencyHistogram.Snapshot getSnapshot(Stage stage) {
+        LatencyHistogram.Snapshot total = new LatencyHistogram().snapshot();
+        for (LatencyHistogram[] stages : bySymbol) {
+            if (stages != null) {
+                total = total.merge(stages[stage.ordinal()].snapshot());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Discards everything recorded so far.
+     */
+    public void reset() {
+        for (LatencyHistogram[] stages : bySymbol) {
+            if (stages != null) {
+                for (LatencyHistogram histogram : stages) {
+                    histogram.reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * Logs p50, p99, p99.9 and max in microseconds for each stage, across all
+     * symbols and then per symbol.
+     */
+    public void printStatistics() {
+        LatencyHistogram[][] current = bySymbol;
+        for (Stage stage : STAGES) {
+            logger.info(format("Latency " + stage, getSnapshot(stage)));
+            for (int symbolId = 0; symbolId < current.length; symbolId++) {
+                if (current[symbolId] != null) {
+                    logger.info(format("  " + SymbolDictionary.getInstance().symbolOf(symbolId),
+                            current[symbolId][stage.ordinal()].snapshot()));
+                }
+            }
+        }
+    }
+
+    private static String format(String label, LatencyHistogram.Snapshot s) {
+        return String.format("%-16s count=%-10d p50=%9.1f us  p99=%9.1f us  p99.9=%9.1f us  max=%9.1f us",
+                label, s.getCount(), s.getPercentile(0.50) / 1e3, s.getPercentile(0.99) / 1e3,
+                s.getPercentile(0.999) / 1e3, s.getMax() / 1e3);
+    }
+
+    private LatencyHistogram[] histograms(int symbolId) {
+        LatencyHistogram[][] current = bySymbol;
+        if (symbolId < current.length && current[symbolId] != null) {
+            return current[symbolId];
+        }
+        return createHistograms(symbolId);
+    }
+
+    private synchronized LatencyHistogram[] createHistograms(int symbolId) {
+        LatencyHistogram[][] current = bySymbol;
+        if (symbolId >= current.length) {
+            current = Arrays.copyOf(current, Math.max(symbolId + 1, SymbolDictionary.getInstance().size()));
+        } else if (current[symbolId] != null) {
+            return current[symbolId];
+        } else {
+            current = current.clone();
+        }
+        LatencyHistogram[] stages = new LatencyHistogram[STAGES.length];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+        current[symbolId] = stages;
+        bySymbol = current;
+        return stages;
+    }
+}
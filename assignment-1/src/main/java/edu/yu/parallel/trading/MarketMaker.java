@@ -1,35 +1,895 @@
-
 package edu.yu.parallel.trading;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
 
+import edu.yu.parallel.model.Execution;
 import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderPool;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Price;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trade;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.util.IdGenerator;
+import edu.yu.parallel.util.TimingWheel;
 
 /**
  * MarketMaker is responsible for matching incoming orders with resting orders
  * in the order book and producing executions.
+ *
+ * Each symbol has its own {@link OrderBook}, found by the order's
+ * {@link SymbolDictionary} ID with an array lookup. A MarketMaker is confined
+ * to the single thread that calls {@link #processOrder(Order)}, so its books
+ * need no locking.
+ *
+ * Market makers built on a {@link StripedOrderBooks} share its books instead.
+ * Before touching a book such a market maker takes the symbol's owner token,
+ * and if another market maker holds it, the order is handed to that owner
+ * rather than waited on. An owner matches every order handed to it before it
+ * gives the token back.
+ *
+ * In pooled mode the market maker books every fill through one flyweight
+ * {@link Execution} and {@link Trader#addFill} instead of allocating an
+ * Execution and two Trades, and returns orders that reach FILLED to their
+ * {@link OrderPool}. This is safe because, in that mode, nothing downstream
+ * keeps a reference to the execution or its orders once the fill is booked.
+ *
+ * Resting orders can be cancelled or replaced one at a time by order ID (see
+ * {@link #cancel(int, int)}); the book finds them without a scan.
+ *
+ * Given a {@link TopOfBookFeed}, the market maker publishes the best bid, best
+ * ask and last fill price of a book after every order it matches there.
+ *
+ * In call auction mode the market maker does not match orders as they
+ * arrive. It collects them per symbol, and {@link #runAuctions()} clears each
+ * symbol's batch against its book at a single price once every auction
+ * interval (see {@link OrderBook#auction}). Fills are booked exactly as in
+ * continuous matching.
+ *
+ * An order with a time-to-live (see {@link Order#setTtlNanos(long)}) that
+ * rests is entered in the market maker's {@link TimingWheel}, and
+ * {@link #expireOrders()} cancels the ones whose time is up. The wheel is
+ * turned by the market maker's own thread between orders, so expiry needs no
+ * timer thread and no locking. An order that fills or is cancelled before it
+ * expires leaves its timer behind, and the timer is dropped when it fires and
+ * finds the order gone. Expired orders are kept and returned by
+ * {@link #shutdown()} along with the orders it cancels.
  */
 public class MarketMaker {
+    /**
+     * Resolution of order expiry: orders expire up to this long after their
+     * time-to-live has passed.
+     */
+    public static final long EXPIRY_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Books indexed by {@link SymbolDictionary} ID; null for symbols this
+     * market maker does not handle.
+     */
+    private final OrderBook[] books;
+
+    /**
+     * Owner tokens of the shared books, indexed like books; null if the books
+     * are this market maker's own.
+     */
+    private final StripedOrderBooks.Stripe[] stripes;
+
+    /**
+     * Shared books whose owner token this market maker keeps between orders,
+     * indexed like books; null if the books are this market maker's own.
+     */
+    private final boolean[] held;
+
+    /**
+     * Length of a call auction, or 0 to match each order as it arrives.
+     */
+    private final long auctionIntervalNanos;
+
+    /**
+     * Orders waiting for their symbol's next auction, indexed like books; null
+     * when matching continuously.
+     */
+    private final List<List<Order>> auctionBatches;
+    private final List<Order> auctionRested = new ArrayList<>();
+    private long nextAuctionNanos;
+
+    /**
+     * Lifecycle stamps of the batch being auctioned, read before the auction
+     * because pooled orders that fill are recycled during it.
+     */
+    private long[] auctionStamps = new long[0];
+    private final ExecutedOrders executedOrders;
+    private final IdGenerator idGenerator;
+    private final OrderBook.FillListener fillListener;
+    private final Execution flyweight;
+    private final TopOfBookFeed feed;
+
+    /**
+     * Expiry timers of resting orders, keyed by symbol ID in the high half and
+     * order ID in the low half.
+     */
+    private final TimingWheel expiries;
+    private final LongConsumer expiryHandler = this::expire;
+
+    /**
+     * Orders cancelled by expiry, kept until {@link #shutdown()} reports them
+     * with the rest of the cancelled orders.
+     */
+    private final List<Order> expired = new ArrayList<>();
+    private long expiryNanos;
+    private long expiredCount;
+
+    /**
+     * Price in ticks of the last fill of the order being matched, or
+     * {@link Price#NO_TICKS} if it has not filled.
+     */
+    private long lastFillTicks;
+    private boolean shutdown = false;
+
+    /**
+     * Constructs a MarketMaker that makes markets in the given symbols.
+     *
+     * @param stockSymbols   symbols to keep books for (must not be null or empty)
+     * @param executedOrders where executions are recorded (must not be null)
+     * @throws IllegalArgumentException if any argument is null or if stockSymbols is empty
+     */
+    public MarketMaker(List<String> stockSymbols, ExecutedOrders executedOrders) {
+        this(stockSymbols, executedOrders, false);
+    }
+
+    /**
+     * Constructs a MarketMaker that makes markets in the given symbols, either
+     * allocating an Execution and two Trades per fill or, in pooled mode,
+     * booking fills through a flyweight and recycling filled pooled orders.
+     *
+     * @param stockSymbols   symbols to keep books for (must not be null or empty)
+     * @param executedOrders where executions are recorded (must not be null)
+     * @param pooled         whether to run in pooled mode
+     * @throws IllegalArgumentException if any argument is null or if stockSymbols is empty
+     */
+    public MarketMaker(List<String> stockSymbols, ExecutedOrders executedOrders, boolean pooled) {
+        this(stockSymbols, executedOrders, pooled, IdGenerator.getInstance());
+    }
+
+    /**
+     * Constructs a MarketMaker that takes execution and trade IDs from the
+     * given generator instead of the global one.
+     *
+     * @param stockSymbols   symbols to keep books for (must not be null or empty)
+     * @param executedOrders where executions are recorded (must not be null)
+     * @param pooled         whether to run in pooled mode
+     * @param idGenerator    source of execution and trade IDs (must not be null)
+     * @throws IllegalArgumentException if any argument is null or if stockSymbols is empty
+     */
+    public MarketMaker(List<String> stockSymbols, ExecutedOrders executedOrders, boolean pooled,
+            IdGenerator idGenerator) {
+        this(stockSymbols, executedOrders, pooled, idGenerator, null);
+    }
+
+    /**
+     * Constructs a MarketMaker that also publishes the top of its book to a
+     * feed after every order it processes.
+     *
+     * @param stockSymbols   symbols to keep books for (must not be null or empty)
+     * @param executedOrders where executions are recorded (must not be null)
+     * @param pooled         whether to run in pooled mode
+     * @param idGenerator    source of execution and trade IDs (must not be null)
+     * @param feed           where the top of book is published, or null to
+     *                       publish nothing
+     * @throws IllegalArgumentException if any argument except feed is null or
+     *                                  if stockSymbols is empty
+     */
+    public MarketMaker(List<String> stockSymbols, ExecutedOrders executedOrders, boolean pooled,
+            IdGenerator idGenerator, TopOfBookFeed feed) {
+        this(stockSymbols, executedOrders, pooled, idGenerator, feed, 0);
+    }
+
+    /**
+     * Constructs a MarketMaker that, given a positive auction interval, clears
+     * orders in periodic call auctions instead of matching them as they arrive.
+     *
+     * @param stockSymbols         symbols to keep books for (must not be null
+     *                             or empty)
+     * @param executedOrders       where executions are recorded (must not be
+     *                             null)
+     * @param pooled               whether to run in pooled mode
+     * @param idGenerator          source of execution and trade IDs (must not
+     *                             be null)
+     * @param feed                 where the top of book is published, or null
+     *                             to publish nothing
+     * @param auctionIntervalNanos length of each call auction, or 0 to match
+     *                             continuously
+     * @throws IllegalArgumentException if any argument except feed is null, if
+     *                                  stockSymbols is empty or if the interval
+     *                                  is negative
+     */
+    public MarketMaker(List<String> stockSymbols, ExecutedOrders executedOrders, boolean pooled,
+            IdGenerator idGenerator, TopOfBookFeed feed, long auctionIntervalNanos) {
+        this(createBooks(stockSymbols), null, executedOrders, pooled, idGenerator, feed, auctionIntervalNanos);
+    }
+
+    /**
+     * Constructs a MarketMaker that works on books shared with other market
+     * makers, taking each symbol's owner token before touching its book.
+     *
+     * @param books          the shared books (must not be null)
+     * @param executedOrders where executions are recorded (must not be null)
+     * @param pooled         whether to run in pooled mode
+     * @param idGenerator    source of execution and trade IDs (must not be null)
+     * @param feed           where the top of book is published, or null to
+     *                       publish nothing
+     * @throws IllegalArgumentException if any argument except feed is null
+     */
+    public MarketMaker(StripedOrderBooks books, ExecutedOrders executedOrders, boolean pooled,
+            IdGenerator idGenerator, TopOfBookFeed feed) {
+        this(booksOf(books), stripesOf(books), executedOrders, pooled, idGenerator, feed, 0);
+    }
+
+    private MarketMaker(OrderBook[] books, StripedOrderBooks.Stripe[] stripes, ExecutedOrders executedOrders,
+            boolean pooled, IdGenerator idGenerator, TopOfBookFeed feed, long auctionIntervalNanos) {
+        if (executedOrders == null) {
+            throw new IllegalArgumentException("ExecutedOrders must not be null");
+        }
+        if (idGenerator == null) {
+            throw new IllegalArgumentException("IdGenerator must not be null");
+        }
+        if (auctionIntervalNanos < 0) {
+            throw new IllegalArgumentException("Auction interval must not be negative");
+        }
+        this.auctionIntervalNanos = auctionIntervalNanos;
+        if (auctionIntervalNanos > 0) {
+            this.auctionBatches = new ArrayList<>(books.length);
+            for (OrderBook book : books) {
+                auctionBatches.add(book == null ? null : new ArrayList<>());
+            }
+            this.nextAuctionNanos = System.nanoTime() + auctionIntervalNanos;
+        } else {
+            this.auctionBatches = null;
+        }
+        this.books = books;
+        this.stripes = stripes;
+        this.held = stripes == null ? null : new boolean[stripes.length];
+        this.executedOrders = executedOrders;
+        this.idGenerator = idGenerator;
+        this.feed = feed;
+        this.flyweight = pooled ? Execution.createFlyweight() : null;
+        this.fillListener = pooled ? this::onPooledFill : this::onFill;
+        this.expiries = new TimingWheel(EXPIRY_TICK_NANOS, System.nanoTime());
+    }
+
+    private static OrderBook[] createBooks(List<String> stockSymbols) {
+        if (stockSymbols == null || stockSymbols.isEmpty()) {
+            throw new IllegalArgumentException("Stock symbols must not be null or empty");
+        }
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        int maxId = 0;
+        for (String symbol : stockSymbols) {
+            maxId = Math.max(maxId, dictionary.idOf(symbol));
+        }
+        OrderBook[] books = new OrderBook[maxId + 1];
+        for (String symbol : stockSymbols) {
+            books[dictionary.idOf(symbol)] = new OrderBook(symbol);
+        }
+        return books;
+    }
+
+    private static StripedOrderBooks.Stripe[] stripesOf(StripedOrderBooks books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books must not be null");
+        }
+        StripedOrderBooks.Stripe[] stripes = new StripedOrderBooks.Stripe[books.size()];
+        for (int symbolId = 0; symbolId < stripes.length; symbolId++) {
+            stripes[symbolId] = books.stripe(symbolId);
+        }
+        return stripes;
+    }
+
+    private static OrderBook[] booksOf(StripedOrderBooks books) {
+        StripedOrderBooks.Stripe[] stripes = stripesOf(books);
+        OrderBook[] result = new OrderBook[stripes.length];
+        for (int symbolId = 0; symbolId < stripes.length; symbolId++) {
+            result[symbolId] = stripes[symbolId] == null ? null : stripes[symbolId].book;
+        }
+        return result;
+    }
 
     /**
      * Process an incoming order by attempting to match it with resting orders.
+     * In call auction mode the order instead joins its symbol's next auction.
+     * On shared books whose symbol another market maker currently owns, the
+     * order is handed to that market maker and matched before it returns the
+     * book.
      *
      * @param newOrder the incoming {@link Order} to process
-     * 
-     * @throws IllegalArgumentException if newOrder is null or not in a NEW state
+     *
+     * @throws IllegalArgumentException if newOrder is null or not in a NEW state,
+     *                                  or if its symbol is not handled by this
+     *                                  market maker
      * @throws IllegalStateException    if the market maker has been shut down
      */
     public void processOrder(Order newOrder) {
-        // Implementation goes here
+        if (newOrder == null || newOrder.getStatus() != OrderStatus.NEW) {
+            throw new IllegalArgumentException("Order must be non-null and in NEW state");
+        }
+        if (shutdown) {
+            throw new IllegalStateException("MarketMaker has been shut down");
+        }
+        int symbolId = newOrder.getSymbolId();
+        OrderBook book = symbolId < books.length ? books[symbolId] : null;
+        if (book == null) {
+            throw new IllegalArgumentException("Unknown symbol: " + newOrder.getSymbol());
+        }
+        if (auctionBatches != null) {
+            auctionBatches.get(symbolId).add(newOrder);
+            return;
+        }
+        if (stripes == null || held[symbolId]) {
+            matchTimed(symbolId, book, newOrder);
+            return;
+        }
+        StripedOrderBooks.Stripe stripe = stripes[symbolId];
+        if (stripe.tryAcquire()) {
+            // Orders handed off earlier, possibly by this market maker, go first
+            matchHandOffs(symbolId, book, stripe);
+            matchTimed(symbolId, book, newOrder);
+        } else {
+            stripe.handOff(newOrder);
+            // The owner may have let go before seeing the order; if so, match it here
+            if (!stripe.tryAcquire()) {
+                return;
+            }
+        }
+        release(symbolId, stripe);
+    }
+
+    /**
+     * Cancels a resting order, or in call auction mode an order waiting for
+     * the next auction. Like {@link #processOrder(Order)}, this must be called
+     * from the market maker's own thread.
+     *
+     * @param symbolId the {@link SymbolDictionary} ID of the order's symbol
+     * @param orderId  the order ID
+     * @return the cancelled order, or null if the order is not resting (it has
+     *         filled, was cancelled already, or never rested)
+     * @throws IllegalArgumentException if the symbol is not handled by this
+     *                                  market maker
+     * @throws IllegalStateException    if the market maker has been shut down
+     */
+    public Order cancel(int symbolId, int orderId) {
+        OrderBook book = bookFor(symbolId);
+        acquire(symbolId);
+        try {
+            Order cancelled = book.cancel(orderId);
+            if (cancelled != null) {
+                publish(symbolId, book, Price.NO_TICKS);
+            } else if (auctionBatches != null) {
+                cancelled = cancelWaiting(auctionBatches.get(symbolId), orderId);
+            }
+            return cancelled;
+        } finally {
+            release(symbolId);
+        }
+    }
+
+    /**
+     * Replaces a resting order with one for a new quantity and price. If only
+     * the quantity goes down (or nothing changes), the order is reduced in
+     * place and keeps its ID and its place in the queue. Otherwise it is
+     * cancelled and a new order for the same trader and side, with a new ID,
+     * is matched in its place like any incoming order; in pooled mode the
+     * cancelled order goes back to its pool. In a call auction the replacement
+     * waits for the next auction instead, and an order still waiting for one
+     * is replaced in its batch the same way. Like {@link #processOrder(Order)},
+     * this must be called from the market maker's own thread.
+     *
+     * @param symbolId the {@link SymbolDictionary} ID of the order's symbol
+     * @param orderId  the order ID
+     * @param quantity the new quantity (must be positive)
+     * @param price    the new limit price
+     * @return the reduced order or its replacement, or null if the order is
+     *         neither resting nor waiting for an auction
+     * @throws IllegalArgumentException if quantity is not positive or the
+     *                                  symbol is not handled by this market
+     *                                  maker
+     * @throws IllegalStateException    if the market maker has been shut down
+     */
+    public Order replace(int symbolId, int orderId, int quantity, double price) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        OrderBook book = bookFor(symbolId);
+        acquire(symbolId);
+        try {
+            List<Order> batch = auctionBatches == null ? null : auctionBatches.get(symbolId);
+            Order resting = book.find(orderId);
+            if (resting == null) {
+                return batch == null ? null : replaceWaiting(symbolId, batch, orderId, quantity, price);
+            }
+            OrderType type = resting.getOrderType();
+            if (Order.toTicks(symbolId, type, price) == resting.getPriceTicks()
+                    && quantity <= resting.getQuantity()) {
+                if (quantity == resting.getQuantity()) {
+                    return resting;
+                }
+                book.reduce(orderId, quantity);
+                publish(symbolId, book, Price.NO_TICKS);
+                return resting;
+            }
+            // Order IDs come from the global generator, like those of traders' orders
+            Order replacement = Order.createOrder(IdGenerator.getInstance(), symbolId, type, quantity, price,
+                    resting.getTrader());
+            replacement.setTtlNanos(resting.getTtlNanos());
+            Order cancelled = book.cancel(orderId);
+            if (flyweight != null) {
+                OrderPool.recycle(cancelled);
+            }
+            if (batch != null) {
+                publish(symbolId, book, Price.NO_TICKS);
+                batch.add(replacement);
+            } else {
+                match(symbolId, book, replacement);
+            }
+            return replacement;
+        } finally {
+            release(symbolId);
+        }
+    }
+
+    /**
+     * Clears every symbol's waiting orders in a call auction if the auction
+     * interval has passed since the last auctions; does nothing when matching
+     * continuously. Like {@link #processOrder(Order)}, this must be called
+     * from the market maker's own thread, and it is cheap enough to call
+     * after every batch.
+     *
+     * @throws IllegalStateException if the market maker has been shut down
+     */
+    public void runAuctions() {
+        if (auctionBatches == null) {
+            return;
+        }
+        if (shutdown) {
+            throw new IllegalStateException("MarketMaker has been shut down");
+        }
+        long now = System.nanoTime();
+        if (now - nextAuctionNanos < 0) {
+            return;
+        }
+        for (int symbolId = 0; symbolId < books.length; symbolId++) {
+            List<Order> batch = auctionBatches.get(symbolId);
+            if (batch != null && !batch.isEmpty()) {
+                auction(symbolId, books[symbolId], batch);
+            }
+        }
+        nextAuctionNanos = now + auctionIntervalNanos;
+    }
+
+    /**
+     * Cancels every resting order whose time-to-live has passed. Like
+     * {@link #processOrder(Order)}, this must be called from the market
+     * maker's own thread; it is cheap enough to call after every batch.
+     * The expired orders are kept and returned by {@link #shutdown()} with
+     * the orders it cancels, so they are reported in the same way; until
+     * then nothing may recycle them.
+     *
+     * @return the number of orders cancelled by expiry
+     * @throws IllegalStateException if the market maker has been shut down
+     */
+    public int expireOrders() {
+        if (shutdown) {
+            throw new IllegalStateException("MarketMaker has been shut down");
+        }
+        return expiries.size() == 0 ? 0 : expireOrders(System.nanoTime());
+    }
+
+    /**
+     * Cancels every resting order whose time-to-live had passed at the given
+     * time, as {@link #expireOrders()} does.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return the number of orders cancelled by expiry
+     * @throws IllegalStateException if the market maker has been shut down
+     */
+    public int expireOrders(long nowNanos) {
+        if (shutdown) {
+            throw new IllegalStateException("MarketMaker has been shut down");
+        }
+        int before = expired.size();
+        expiryNanos = nowNanos;
+        expiries.advance(nowNanos, expiryHandler);
+        return expired.size() - before;
+    }
+
+    /**
+     * Gets how long the market maker's thread may wait for new orders before
+     * {@link #runAuctions()} or {@link #expireOrders()} has work to do: until
+     * the next auction while orders are waiting for one, and one expiry tick
+     * while orders with a time-to-live are resting.
+     *
+     * @return the wait in nanoseconds, 0 if work is due already, or
+     *         {@link Long#MAX_VALUE} if nothing is scheduled
+     */
+    public long getNanosUntilDue() {
+        long wait = expiries.size() == 0 ? Long.MAX_VALUE : EXPIRY_TICK_NANOS;
+        if (auctionBatches != null) {
+            for (List<Order> batch : auctionBatches) {
+                if (batch != null && !batch.isEmpty()) {
+                    return Math.min(wait, Math.max(nextAuctionNanos - System.nanoTime(), 0));
+                }
+            }
+        }
+        return wait;
+    }
+
+    /**
+     * Gets the number of orders this market maker has cancelled by expiry.
+     *
+     * @return expired order count
+     */
+    public long getExpiredCount() {
+        return expiredCount;
     }
 
     /**
      * Shuts down the market maker, stopping all processing and cleaning up resources.
-     * 
-     * @return a list of all cancelled orders
+     * Shared books must only be shut down once every market maker working on
+     * them has stopped; the first to shut down cancels their orders.
+     *
+     * @return a list of all cancelled orders, including those cancelled
+     *         earlier by expiry
      */
     public List<Order> shutdown() {
-        return List.of(); // Implementation goes here
+        shutdown = true;
+        List<Order> cancelled = new ArrayList<>(expired);
+        expired.clear();
+        for (int symbolId = 0; symbolId < books.length; symbolId++) {
+            if (books[symbolId] == null) {
+                continue;
+            }
+            cancelled.addAll(books[symbolId].cancelAll());
+            if (auctionBatches != null) {
+                for (Order waiting : auctionBatches.get(symbolId)) {
+                    waiting.setStatus(OrderStatus.CANCELLED);
+                    cancelled.add(waiting);
+                }
+                auctionBatches.get(symbolId).clear();
+            }
+            if (stripes != null) {
+                Order handed;
+                while ((handed = stripes[symbolId].pollHandOff()) != null) {
+                    handed.setStatus(OrderStatus.CANCELLED);
+                    cancelled.add(handed);
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Rests orders from an earlier run in this market maker's book for a
+     * symbol, e.g. from a snapshot, and publishes the book's top. Orders
+     * that would cross the book are matched as new orders instead, which
+     * happens only when books from several market makers are merged into
+     * one. Must be called before the market maker takes its first order.
+     *
+     * @param symbol the stock symbol
+     * @param orders the orders, listed as {@link OrderBook#getRestingOrders()}
+     *               lists them
+     * @return the number of orders matched instead of rested
+     * @throws IllegalArgumentException if this market maker does not handle
+     *                                  the symbol
+     * @throws IllegalStateException    if the market maker has been shut down
+     */
+    public int restore(String symbol, List<Order> orders) {
+        int symbolId = SymbolDictionary.getInstance().find(symbol);
+        OrderBook book = bookFor(symbolId);
+        int matched = 0;
+        for (Order order : orders) {
+            if (!book.restore(order)) {
+                match(symbolId, book, order);
+                matched++;
+            }
+        }
+        publish(symbolId, book, Price.NO_TICKS);
+        return matched;
+    }
+
+    /**
+     * Gets the book for the given symbol.
+     *
+     * @param symbol the stock symbol
+     * @return the book, or null if this market maker does not handle the symbol
+     */
+    public OrderBook getBook(String symbol) {
+        int symbolId = SymbolDictionary.getInstance().find(symbol);
+        return symbolId >= 0 && symbolId < books.length ? books[symbolId] : null;
+    }
+
+    /**
+     * Gets the book for a symbol, for operations other than processOrder.
+     */
+    private OrderBook bookFor(int symbolId) {
+        if (shutdown) {
+            throw new IllegalStateException("MarketMaker has been shut down");
+        }
+        OrderBook book = symbolId >= 0 && symbolId < books.length ? books[symbolId] : null;
+        if (book == null) {
+            throw new IllegalArgumentException("Unknown symbol ID: " + symbolId);
+        }
+        return book;
+    }
+
+    /**
+     * Takes a shared book's owner token and keeps it until
+     * {@link #releaseBook(int)}, so that orders other market makers take for
+     * the symbol in the meantime are handed to this one and wait. Must be
+     * called from the market maker's own thread.
+     *
+     * @param symbolId the symbol ID
+     * @throws IllegalArgumentException if the symbol is not handled or the
+     *                                  books are not shared
+     * @throws IllegalStateException    if the book is already held
+     */
+    void holdBook(int symbolId) {
+        bookFor(symbolId);
+        if (stripes == null) {
+            throw new IllegalArgumentException("Books are not shared");
+        }
+        if (held[symbolId]) {
+            throw new IllegalStateException("Book already held: " + symbolId);
+        }
+        acquire(symbolId);
+        held[symbolId] = true;
+    }
+
+    /**
+     * Gives back a book taken by {@link #holdBook(int)}, first matching every
+     * order handed off while it was held. Must be called from the market
+     * maker's own thread.
+     *
+     * @param symbolId the symbol ID
+     * @throws IllegalStateException if the book is not held
+     */
+    void releaseBook(int symbolId) {
+        if (held == null || symbolId < 0 || symbolId >= held.length || !held[symbolId]) {
+            throw new IllegalStateException("Book not held: " + symbolId);
+        }
+        held[symbolId] = false;
+        release(symbolId);
+    }
+
+    /**
+     * Takes a shared book's owner token, spinning while another market maker
+     * holds it. Cancels and replaces cannot be handed off like new orders.
+     */
+    private void acquire(int symbolId) {
+        if (stripes != null && !held[symbolId]) {
+            while (!stripes[symbolId].tryAcquire()) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Gives back a shared book's owner token taken by {@link #acquire(int)}.
+     */
+    private void release(int symbolId) {
+        if (stripes != null && !held[symbolId]) {
+            release(symbolId, stripes[symbolId]);
+        }
+    }
+
+    /**
+     * Matches the orders handed to a stripe's owner, then gives back the owner
+     * token, taking it again whenever an order is handed off in between.
+     */
+    private void release(int symbolId, StripedOrderBooks.Stripe stripe) {
+        OrderBook book = books[symbolId];
+        do {
+            matchHandOffs(symbolId, book, stripe);
+            stripe.release();
+        } while (stripe.hasHandOffs() && stripe.tryAcquire());
+    }
+
+    /**
+     * Matches every order handed to a stripe's owner, in the order they were
+     * handed off. The caller must own the stripe.
+     */
+    private void matchHandOffs(int symbolId, OrderBook book, StripedOrderBooks.Stripe stripe) {
+        Order handed;
+        while ((handed = stripe.pollHandOff()) != null) {
+            matchTimed(symbolId, book, handed);
+        }
+    }
+
+    /**
+     * Matches an order, recording its lifecycle latency if enabled.
+     */
+    private void matchTimed(int symbolId, OrderBook book, Order newOrder) {
+        if (!LifecycleLatency.ENABLED) {
+            match(symbolId, book, newOrder);
+            return;
+        }
+        // Read the stamps first: a pooled order that fills is recycled during the match
+        long generated = newOrder.getGeneratedNanos();
+        long enqueued = newOrder.getEnqueuedNanos();
+        long dequeued = newOrder.getDequeuedNanos();
+        long matched = System.nanoTime();
+        match(symbolId, book, newOrder);
+        LifecycleLatency.getInstance().record(symbolId, generated, enqueued, dequeued, matched, System.nanoTime());
+    }
+
+    /**
+     * Matches an order, starts its expiry timer if it rests with a
+     * time-to-live, and publishes the resulting top of book.
+     */
+    private void match(int symbolId, OrderBook book, Order newOrder) {
+        // Read these first: a pooled order that fills is recycled during the match
+        int orderId = newOrder.getOrderId();
+        long ttlNanos = newOrder.getTtlNanos();
+        lastFillTicks = Price.NO_TICKS;
+        if (book.match(newOrder, fillListener) && ttlNanos > 0) {
+            expiries.schedule(((long) symbolId << 32) | (orderId & 0xFFFFFFFFL), System.nanoTime() + ttlNanos);
+        }
+        publish(symbolId, book, lastFillTicks);
+    }
+
+    /**
+     * Clears one symbol's waiting orders in a call auction, starts the expiry
+     * timers of those left resting and publishes the resulting top of book.
+     */
+    private void auction(int symbolId, OrderBook book, List<Order> batch) {
+        int size = batch.size();
+        if (LifecycleLatency.ENABLED) {
+            if (auctionStamps.length < size * 3) {
+                auctionStamps = new long[Math.max(size * 3, auctionStamps.length * 2)];
+            }
+            for (int i = 0; i < size; i++) {
+                Order order = batch.get(i);
+                auctionStamps[i * 3] = order.getGeneratedNanos();
+                auctionStamps[i * 3 + 1] = order.getEnqueuedNanos();
+                auctionStamps[i * 3 + 2] = order.getDequeuedNanos();
+            }
+        }
+        long matched = System.nanoTime();
+        lastFillTicks = Price.NO_TICKS;
+        book.auction(batch, fillListener, auctionRested);
+        batch.clear();
+        for (Order order : auctionRested) {
+            long ttlNanos = order.getTtlNanos();
+            if (ttlNanos > 0) {
+                expiries.schedule(((long) symbolId << 32) | (order.getOrderId() & 0xFFFFFFFFL), matched + ttlNanos);
+            }
+        }
+        auctionRested.clear();
+        publish(symbolId, book, lastFillTicks);
+        if (LifecycleLatency.ENABLED) {
+            long booked = System.nanoTime();
+            LifecycleLatency latency = LifecycleLatency.getInstance();
+            for (int i = 0; i < size; i++) {
+                latency.record(symbolId, auctionStamps[i * 3], auctionStamps[i * 3 + 1], auctionStamps[i * 3 + 2],
+                        matched, booked);
+            }
+        }
+    }
+
+    /**
+     * Replaces an order waiting in a symbol's auction batch, as
+     * {@link #replace(int, int, int, double)} does for a resting one. A
+     * replacement goes to the back of the batch.
+     *
+     * @return the reduced order or its replacement, or null if it is not
+     *         waiting
+     */
+    private Order replaceWaiting(int symbolId, List<Order> batch, int orderId, int quantity, double price) {
+        for (int i = 0; i < batch.size(); i++) {
+            Order waiting = batch.get(i);
+            if (waiting.getOrderId() != orderId) {
+                continue;
+            }
+            OrderType type = waiting.getOrderType();
+            if (Order.toTicks(symbolId, type, price) == waiting.getPriceTicks()
+                    && quantity <= waiting.getQuantity()) {
+                waiting.setQuantity(quantity);
+                return waiting;
+            }
+            Order replacement = Order.createOrder(IdGenerator.getInstance(), symbolId, type, quantity, price,
+                    waiting.getTrader());
+            replacement.setTtlNanos(waiting.getTtlNanos());
+            batch.remove(i);
+            waiting.setStatus(OrderStatus.CANCELLED);
+            if (flyweight != null) {
+                OrderPool.recycle(waiting);
+            }
+            batch.add(replacement);
+            return replacement;
+        }
+        return null;
+    }
+
+    /**
+     * Removes an order from a symbol's waiting auction batch and cancels it.
+     *
+     * @return the order, or null if it is not waiting
+     */
+    private static Order cancelWaiting(List<Order> batch, int orderId) {
+        for (int i = 0; i < batch.size(); i++) {
+            Order order = batch.get(i);
+            if (order.getOrderId() == orderId) {
+                batch.remove(i);
+                order.setStatus(OrderStatus.CANCELLED);
+                return order;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cancels an order whose expiry timer fired, unless it is no longer
+     * resting. If another market maker owns the order's shared book, the timer
+     * is set to fire again on the next tick.
+     */
+    private void expire(long key) {
+        int symbolId = (int) (key >>> 32);
+        if (stripes != null && !held[symbolId] && !stripes[symbolId].tryAcquire()) {
+            expiries.schedule(key, expiryNanos);
+            return;
+        }
+        try {
+            OrderBook book = books[symbolId];
+            Order order = book.cancel((int) key);
+            if (order == null) {
+                return;
+            }
+            expired.add(order);
+            expiredCount++;
+            publish(symbolId, book, Price.NO_TICKS);
+        } finally {
+            release(symbolId);
+        }
     }
 
+    /**
+     * Publishes the top of a book to the feed, if there is one.
+     */
+    private void publish(int symbolId, OrderBook book, long lastTicks) {
+        if (feed != null) {
+            feed.publish(symbolId, book.getBestBidTicks(), book.getBestBidQuantity(),
+                    book.getBestAskTicks(), book.getBestAskQuantity(), lastTicks);
+        }
+    }
+
+    /**
+     * Books a single fill: records the execution and gives each trader a trade.
+     */
+    private void onFill(Order buyOrder, Order sellOrder, int quantity, long priceTicks) {
+        lastFillTicks = priceTicks;
+        Execution execution = Execution.createExecution(idGenerator, buyOrder, sellOrder, quantity, priceTicks);
+        executedOrders.recordExecution(execution);
+        buyOrder.getTrader().addTrade(Trade.createBuyTrade(execution, idGenerator));
+        sellOrder.getTrader().addTrade(Trade.createSellTrade(execution, idGenerator));
+    }
+
+    /**
+     * Books a single fill through the flyweight execution, then recycles
+     * whichever order the fill completed. The book has already dropped a
+     * filled resting order, and a filled incoming order ends the match.
+     */
+    private void onPooledFill(Order buyOrder, Order sellOrder, int quantity, long priceTicks) {
+        lastFillTicks = priceTicks;
+        flyweight.reset(idGenerator, buyOrder, sellOrder, quantity, priceTicks);
+        executedOrders.recordExecution(flyweight);
+        buyOrder.getTrader().addFill(flyweight, Trade.TradeDirection.BUY);
+        sellOrder.getTrader().addFill(flyweight, Trade.TradeDirection.SELL);
+        if (buyOrder.getStatus() == OrderStatus.FILLED) {
+            OrderPool.recycle(buyOrder);
+        }
+        if (sellOrder.getStatus() == OrderStatus.FILLED) {
+            OrderPool.recycle(sellOrder);
+        }
+    }
 }
@@ -0,0 +1,248 @@
+package edu.yu.parallel.trading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.util.LatencyHistogram;
+
+/**
+ * Drives an {@link OrderQueue} with orders from an {@link OrderGenerator} on
+ * an open-loop arrival schedule, and measures order-to-execution latency.
+ *
+ * Unlike a trader thread, which sends its next order only once the previous
+ * one is accepted, the generator sends each order at its scheduled time
+ * whatever happened to the ones before it. Arrivals are either evenly spaced
+ * or Poisson at the target rate. Latency is measured from an order's intended
+ * send time, not from when it was actually sent, so a stall anywhere (a full
+ * queue, a slow market maker, or the generator itself falling behind) shows
+ * up in the latency of every order scheduled during it rather than being
+ * silently skipped (coordinated omission).
+ *
+ * The latency of an order is taken at the first execution in which it is the
+ * incoming order, that is, when it fills on arrival. Orders that rest in the
+ * book and fill later are waiting on the market, not on the system, and are
+ * not sampled. Intended send times are kept in a ring indexed by order ID,
+ * written by the generating thread and read by the market makers through
+ * {@link #onExecution(Execution)}, so nothing is allocated per order.
+ *
+ * One generator runs one schedule at a time, on the thread that calls
+ * {@link #run(double, long)}.
+ */
+public class OpenLoopLoadGenerator implements ExecutionListener {
+    /**
+     * How arrival times are spaced.
+     */
+    public enum Arrivals {
+        /**
+         * Every 1/rate seconds exactly.
+         */
+        FIXED,
+        /**
+         * Exponentially distributed gaps with mean 1/rate seconds.
+         */
+        POISSON
+    }
+
+    /**
+     * Outcome of one run at one target rate. Latencies are in nanoseconds.
+     *
+     * @param targetRate the requested orders per second
+     * @param sentRate   orders per second actually sent
+     * @param sent       number of orders sent
+     * @param samples    number of orders that filled on arrival and were
+     *                   measured
+     * @param p50        median latency
+     * @param p99        99th percentile latency
+     * @param p999       99.9th percentile latency
+     * @param max        maximum latency
+     */
+    public record Result(double targetRate, double sentRate, long sent, long samples,
+            long p50, long p99, long p999, long max) {
+    }
+
+    /**
+     * Number of in-flight orders whose send times are remembered; must be a
+     * power of two.
+     */
+    private static final int RING_SIZE = 1 << 20;
+
+    /**
+     * Below this, the generator spins for the next send time instead of
+     * sleeping.
+     */
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * How long a run waits for the queue to empty after its last send.
+     */
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final VarHandle ORDER_ID = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle SEND_TIME = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final OrderGenerator orderGenerator;
+    private final OrderQueue orderQueue;
+    private final ExecutedOrders executedOrders;
+    private final Trader[] traders;
+    private final Arrivals arrivals;
+    private final Random random = new Random();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Order ID owning each ring slot, negated once its latency is recorded; 0
+     * while the slot is being rewritten. Both arrays are accessed only with
+     * volatile semantics through {@link #ORDER_ID} and {@link #SEND_TIME}.
+     */
+    private final int[] slotOrderIds = new int[RING_SIZE];
+    private final long[] slotSendTimes = new long[RING_SIZE];
+
+    /**
+     * Constructs a load generator.
+     *
+     * @param orderGenerator generates the orders (must not be null)
+     * @param orderQueue     queue the orders are sent to (must not be null)
+     * @param executedOrders where the market makers record executions (must
+     *                       not be null)
+     * @param traders        traders the orders are placed for, in turn (must not
+     *                       be null or empty)
+     * @param arrivals       how arrivals are spaced (must not be null)
+     * @throws IllegalArgumentException if any argument is null or traders is empty
+     */
+    public OpenLoopLoadGenerator(OrderGenerator orderGenerator, OrderQueue orderQueue,
+            ExecutedOrders executedOrders, List<Trader> traders, Arrivals arrivals) {
+        if (orderGenerator == null || orderQueue == null || executedOrders == null || traders == null
+                || arrivals == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        if (traders.isEmpty()) {
+            throw new IllegalArgumentException("Traders must not be empty");
+        }
+        this.orderGenerator = orderGenerator;
+        this.orderQueue = orderQueue;
+        this.executedOrders = executedOrders;
+        this.traders = traders.toArray(new Trader[0]);
+        this.arrivals = arrivals;
+    }
+
+    /**
+     * Sends orders at the target rate for the given duration, waits for the
+     * queue to empty, and reports the latency of the orders sent.
+     *
+     * @param ratePerSecond target orders per second (must be positive)
+     * @param durationNanos how long to send for (must be positive)
+     * @return the run's result
+     * @throws IllegalArgumentException if either argument is not positive
+     * @throws IllegalStateException    if the queue is shut down during the run
+     */
+    public Result run(double ratePerSecond, long durationNanos) {
+        if (!(ratePerSecond > 0) || durationNanos <= 0) {
+            throw new IllegalArgumentException("Rate and duration must be positive");
+        }
+        double meanGapNanos = 1e9 / ratePerSecond;
+        latencies.reset();
+        executedOrders.addListener(this);
+        long sent = 0;
+        long start = System.nanoTime();
+        try {
+            double offset = 0;
+            while (offset < durationNanos && !Thread.currentThread().isInterrupted()) {
+                long intended = start + (long) offset;
+                awaitTime(intended);
+                Order order = orderGenerator.generateOrder(traders[(int) (sent % traders.length)]);
+                remember(order.getOrderId(), intended);
+                orderQueue.addOrder(order);
+                sent++;
+                offset += arrivals == Arrivals.FIXED ? meanGapNanos : -Math.log(1 - random.nextDouble()) * meanGapNanos;
+            }
+            long sendNanos = System.nanoTime() - start;
+            awaitDrained();
+            LatencyHistogram.Snapshot s = latencies.snapshot();
+            return new Result(ratePerSecond, sent * 1e9 / sendNanos, sent, s.getCount(),
+                    s.getPercentile(0.50), s.getPercentile(0.99), s.getPercentile(0.999), s.getMax());
+        } finally {
+            executedOrders.removeListener(this);
+        }
+    }
+
+    /**
+     * Records the latency of the incoming side of an execution, if it was
+     * sent by this generator and has not been measured yet.
+     *
+     * @param execution the execution that was just recorded
+     */
+    @Override
+    public void onExecution(Execution execution) {
+        long now = System.nanoTime();
+        int buyId = execution.getBuyOrder().getOrderId();
+        int sellId = execution.getSellOrder().getOrderId();
+        long buySent = sendTime(buyId);
+        long sellSent = sendTime(sellId);
+        // The resting side was sent first, so the incoming side is the later one
+        int incoming = buySent >= sellSent ? buyId : sellId;
+        long intended = Math.max(buySent, sellSent);
+        if (intended != Long.MIN_VALUE && ORDER_ID.compareAndSet(slotOrderIds, incoming & (RING_SIZE - 1), incoming, -incoming)) {
+            latencies.record(now - intended);
+        }
+    }
+
+    private void remember(int orderId, long intended) {
+        int slot = orderId & (RING_SIZE - 1);
+        ORDER_ID.setVolatile(slotOrderIds, slot, 0);
+        SEND_TIME.setVolatile(slotSendTimes, slot, intended);
+        ORDER_ID.setVolatile(slotOrderIds, slot, orderId);
+    }
+
+    /**
+     * Gets the intended send time of an order still in the ring, measured or
+     * not.
+     *
+     * @return the send time, or Long.MIN_VALUE if the order is not in the ring
+     */
+    private long sendTime(int orderId) {
+        int slot = orderId & (RING_SIZE - 1);
+        if (Math.abs((int) ORDER_ID.getVolatile(slotOrderIds, slot)) != orderId) {
+            return Long.MIN_VALUE;
+        }
+        long sent = (long) SEND_TIME.getVolatile(slotSendTimes, slot);
+        return Math.abs((int) ORDER_ID.getVolatile(slotOrderIds, slot)) == orderId ? sent : Long.MIN_VALUE;
+    }
+
+    private static void awaitTime(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) {
+                sleepNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void awaitDrained() {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (orderQueue.getStatistics().pendingCount() > 0 && System.nanoTime() < deadline
+                && !Thread.currentThread().isInterrupted()) {
+            sleepNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        // Let the market makers finish the batch they took last
+        sleepNanos(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    /**
+     * Sleeps for about the given time. An interrupt ends the sleep early and
+     * leaves the thread's interrupt status set, which stops the run's loop.
+     */
+    private static void sleepNanos(long nanos) {
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,866 @@
+package edu.yu.parallel.trading;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Price;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.util.IntIntHashMap;
+
+/**
+ * Price-time priority limit order book for a single symbol.
+ *
+ * Orders carry their limit prices as ticks of the symbol's tick size (see
+ * {@link Price}), and each side of the book keeps its price
+ * levels in a tick-indexed array (index = tick - baseTick), so locating a level
+ * is an array access rather than a tree walk over boxed prices. A bitmap of
+ * non-empty levels lets the best price be re-established 64 levels at a time
+ * when the best level empties; otherwise best bid and best ask are read in
+ * O(1).
+ *
+ * Resting orders are held in slots, and each price level is a doubly linked
+ * list of slots threaded through parallel int arrays, so no node is allocated
+ * per order. An {@link IntIntHashMap} from order ID to slot lets
+ * {@link #cancel(int)} and {@link #reduce(int, int)} find and unlink any
+ * resting order in O(1), without scanning its level.
+ *
+ * Besides matching orders one at a time, the book can clear a whole batch of
+ * orders in a single call auction at one uniform price (see
+ * {@link #auction(List, FillListener, List)}).
+ *
+ * The book is NOT thread-safe: it must be owned by exactly one market maker
+ * thread at a time.
+ */
+public class OrderBook {
+    /**
+     * Default price increment for all symbols.
+     */
+    public static final double DEFAULT_TICK_SIZE = Price.DEFAULT_TICK_SIZE;
+
+    /**
+     * Number of levels allocated per side when the first order arrives.
+     */
+    private static final int INITIAL_LEVELS = 4096;
+
+    /**
+     * Number of resting-order slots allocated up front.
+     */
+    private static final int INITIAL_SLOTS = 1024;
+
+    /**
+     * Slot number that ends a level's list; slots are numbered from 1.
+     */
+    private static final int NIL = 0;
+
+    private static final Comparator<Order> BY_PRICE = Comparator.comparingLong(Order::getPriceTicks);
+    private static final Comparator<Order> BY_PRICE_DESCENDING = BY_PRICE.reversed();
+
+    /**
+     * Receives every fill produced by {@link #match(Order, FillListener)} and
+     * {@link #auction(List, FillListener, List)}.
+     */
+    @FunctionalInterface
+    public interface FillListener {
+        /**
+         * Called once per fill, after both orders' quantity and status have been
+         * updated.
+         *
+         * @param buyOrder   the buy side of the fill
+         * @param sellOrder  the sell side of the fill
+         * @param quantity   the filled quantity
+         * @param priceTicks the fill price in ticks (the resting order's limit
+         *                   price, or the clearing price of an auction)
+         */
+        void onFill(Order buyOrder, Order sellOrder, int quantity, long priceTicks);
+    }
+
+    private final String symbol;
+    private final double tickSize;
+    private final Slots slots = new Slots();
+    private final BookSide bids = new BookSide(true, slots);
+    private final BookSide asks = new BookSide(false, slots);
+
+    /**
+     * Slot of every resting order, by order ID.
+     */
+    private final IntIntHashMap slotsByOrderId = new IntIntHashMap(INITIAL_SLOTS);
+
+    /**
+     * Scratch space for {@link #auction(List, FillListener, List)}, kept
+     * between calls so that an auction allocates only when a batch outgrows
+     * them.
+     */
+    private final List<Order> auctionBuys = new ArrayList<>();
+    private final List<Order> auctionSells = new ArrayList<>();
+    private final AuctionSide buyQueue = new AuctionSide(bids);
+    private final AuctionSide sellQueue = new AuctionSide(asks);
+    private Order[] fillBuys = new Order[64];
+    private Order[] fillSells = new Order[64];
+    private int[] fillBuySlots = new int[64];
+    private int[] fillSellSlots = new int[64];
+    private int[] fillQuantities = new int[64];
+
+    /**
+     * Constructs an empty book using the symbol's tick size in the
+     * {@link SymbolDictionary}, registering the symbol with
+     * {@link #DEFAULT_TICK_SIZE} if it is new.
+     *
+     * @param symbol the symbol this book holds orders for
+     * @throws IllegalArgumentException if symbol is null
+     */
+    public OrderBook(String symbol) {
+        if (symbol == null) {
+            throw new IllegalArgumentException("Symbol must not be null");
+        }
+        this.symbol = symbol;
+        this.tickSize = SymbolDictionary.getInstance().tickSize(SymbolDictionary.getInstance().idOf(symbol));
+    }
+
+    /**
+     * Constructs an empty book, registering the symbol with the given tick
+     * size if it is new. Orders convert their prices with the symbol's tick
+     * size, so it cannot differ from the one already registered.
+     *
+     * @param symbol   the symbol this book holds orders for
+     * @param tickSize the minimum price increment (must be positive)
+     * @throws IllegalArgumentException if symbol is null, tickSize is not
+     *                                  positive, or the symbol is registered
+     *                                  with a different tick size
+     */
+    public OrderBook(String symbol, double tickSize) {
+        SymbolDictionary.getInstance().idOf(symbol, tickSize);
+        this.symbol = symbol;
+        this.tickSize = tickSize;
+    }
+
+    /**
+     * Gets the symbol for this book.
+     *
+     * @return symbol
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Matches the incoming order against the opposite side of the book and rests
+     * any unfilled remainder.
+     * Fills happen at the resting order's price, best price first and FIFO within
+     * a price level. The incoming order's quantity is reduced as it fills and its
+     * status is set to FILLED or PARTIAL accordingly.
+     *
+     * @param incoming the order to match (must be for this book's symbol)
+     * @param listener receives each fill
+     * @return true if a remainder of the order was left resting
+     */
+    public boolean match(Order incoming, FillListener listener) {
+        boolean buy = incoming.getOrderType() == OrderType.BUY;
+        BookSide opposite = buy ? asks : bids;
+        long limitTick = incoming.getPriceTicks();
+        int remaining = incoming.getQuantity();
+
+        while (remaining > 0 && !opposite.isEmpty()) {
+            long bestTick = opposite.bestTick();
+            if (buy ? bestTick > limitTick : bestTick < limitTick) {
+                break;
+            }
+            int slot = opposite.head[opposite.best];
+            Order resting = slots.orders[slot];
+            int quantity = Math.min(remaining, resting.getQuantity());
+
+            remaining -= quantity;
+            incoming.setQuantity(remaining);
+            incoming.setStatus(remaining == 0 ? OrderStatus.FILLED : OrderStatus.PARTIAL);
+            resting.setQuantity(resting.getQuantity() - quantity);
+            if (resting.getQuantity() == 0) {
+                resting.setStatus(OrderStatus.FILLED);
+                slotsByOrderId.remove(resting.getOrderId());
+                opposite.remove(opposite.best, slot, quantity);
+            } else {
+                resting.setStatus(OrderStatus.PARTIAL);
+                opposite.levelQuantity[opposite.best] -= quantity;
+            }
+
+            if (buy) {
+                listener.onFill(incoming, resting, quantity, resting.getPriceTicks());
+            } else {
+                listener.onFill(resting, incoming, quantity, resting.getPriceTicks());
+            }
+        }
+
+        if (remaining == 0) {
+            return false;
+        }
+        slotsByOrderId.put(incoming.getOrderId(), (buy ? bids : asks).add(incoming, limitTick));
+        return true;
+    }
+
+    /**
+     * Clears a batch of new orders together with the resting orders in one
+     * call auction. Every fill happens at a single price chosen to maximize the
+     * quantity traded. Buys are filled from the highest limit down and sells
+     * from the lowest up, and among equal limits resting orders come first,
+     * then batch orders in batch order. Orders that cross the clearing price
+     * are filled completely, and at most one order per side at the clearing
+     * price is filled in part. Whatever is left of the batch rests in the book,
+     * which is never left crossed. When several prices trade the same
+     * quantity, the middle of that range is used.
+     *
+     * The batch is sorted once and swept once against the book, instead of
+     * each order walking the book on its own.
+     *
+     * @param batch    new orders for this book's symbol, in arrival order
+     * @param listener receives each fill
+     * @param rested   receives the batch orders left resting, or null
+     * @return the clearing price in ticks, or {@link Price#NO_TICKS} if
+     *         nothing traded
+     */
+    public long auction(List<Order> batch, FillListener listener, List<Order> rested) {
+        for (Order order : batch) {
+            (order.getOrderType() == OrderType.BUY ? auctionBuys : auctionSells).add(order);
+        }
+        auctionBuys.sort(BY_PRICE_DESCENDING);
+        auctionSells.sort(BY_PRICE);
+
+        // Find the crossing without touching the book: best buy against best sell until they no longer cross
+        AuctionSide buy = buyQueue.start(auctionBuys);
+        AuctionSide sell = sellQueue.start(auctionSells);
+        int fillCount = 0;
+        long lastBuyTick = Price.NO_TICKS;
+        long lastSellTick = Price.NO_TICKS;
+        while (buy.order != null && sell.order != null && buy.tick >= sell.tick) {
+            int quantity = Math.min(buy.remaining, sell.remaining);
+            if (fillCount == fillQuantities.length) {
+                growFills();
+            }
+            fillBuys[fillCount] = buy.order;
+            fillBuySlots[fillCount] = buy.slot;
+            fillSells[fillCount] = sell.order;
+            fillSellSlots[fillCount] = sell.slot;
+            fillQuantities[fillCount] = quantity;
+            fillCount++;
+            lastBuyTick = buy.tick;
+            lastSellTick = sell.tick;
+            buy.take(quantity);
+            sell.take(quantity);
+        }
+
+        long clearingTick = Price.NO_TICKS;
+        if (fillCount > 0) {
+            // Every traded order must accept the price, and no order left over may want to trade at it
+            long low = buy.order == null ? lastSellTick : Math.max(lastSellTick, buy.tick);
+            long high = sell.order == null ? lastBuyTick : Math.min(lastBuyTick, sell.tick);
+            clearingTick = low + (high - low) / 2;
+            for (int i = 0; i < fillCount; i++) {
+                int quantity = fillQuantities[i];
+                fill(fillBuys[i], fillBuySlots[i], bids, quantity);
+                fill(fillSells[i], fillSellSlots[i], asks, quantity);
+                listener.onFill(fillBuys[i], fillSells[i], quantity, clearingTick);
+            }
+            Arrays.fill(fillBuys, 0, fillCount, null);
+            Arrays.fill(fillSells, 0, fillCount, null);
+        }
+
+        // Batch orders past each side's stopping point are unfilled or partly filled
+        rest(auctionBuys, buy.batchIndex, bids, rested);
+        rest(auctionSells, sell.batchIndex, asks, rested);
+        auctionBuys.clear();
+        auctionSells.clear();
+        return clearingTick;
+    }
+
+    /**
+     * Applies one auction fill to one order, unlinking a resting order that
+     * fills completely.
+     */
+    private void fill(Order order, int slot, BookSide side, int quantity) {
+        int remaining = order.getQuantity() - quantity;
+        order.setQuantity(remaining);
+        order.setStatus(remaining == 0 ? OrderStatus.FILLED : OrderStatus.PARTIAL);
+        if (slot == NIL) {
+            return;
+        }
+        int index = side.indexOf(order.getPriceTicks());
+        if (remaining == 0) {
+            slotsByOrderId.remove(order.getOrderId());
+            side.remove(index, slot, quantity);
+        } else {
+            side.levelQuantity[index] -= quantity;
+        }
+    }
+
+    private void rest(List<Order> orders, int from, BookSide side, List<Order> rested) {
+        for (int i = from; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            slotsByOrderId.put(order.getOrderId(), side.add(order, order.getPriceTicks()));
+            if (rested != null) {
+                rested.add(order);
+            }
+        }
+    }
+
+    private void growFills() {
+        int length = fillQuantities.length * 2;
+        fillBuys = Arrays.copyOf(fillBuys, length);
+        fillSells = Arrays.copyOf(fillSells, length);
+        fillBuySlots = Arrays.copyOf(fillBuySlots, length);
+        fillSellSlots = Arrays.copyOf(fillSellSlots, length);
+        fillQuantities = Arrays.copyOf(fillQuantities, length);
+    }
+
+    /**
+     * Rests an order without matching it, behind the orders already at its
+     * price, e.g. to rebuild a book from a snapshot.
+     *
+     * @param order the order
+     * @return true if the order rested, false if it would cross the book and
+     *         was left alone
+     * @throws IllegalArgumentException if order is null, has no quantity left
+     *                                  or is already resting
+     */
+    public boolean restore(Order order) {
+        if (order == null || order.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Order must not be null and must have quantity left");
+        }
+        if (slotsByOrderId.get(order.getOrderId()) != NIL) {
+            throw new IllegalArgumentException("Order " + order.getOrderId() + " is already resting");
+        }
+        long tick = order.getPriceTicks();
+        boolean buy = order.getOrderType() == OrderType.BUY;
+        BookSide opposite = buy ? asks : bids;
+        if (!opposite.isEmpty() && (buy ? tick >= opposite.bestTick() : tick <= opposite.bestTick())) {
+            return false;
+        }
+        slotsByOrderId.put(order.getOrderId(), (buy ? bids : asks).add(order, tick));
+        return true;
+    }
+
+    /**
+     * Lists the resting orders, bids then asks, each side by price level with
+     * every level in time priority. Restoring them in this order rebuilds the
+     * book.
+     *
+     * @return the resting orders
+     */
+    public List<Order> getRestingOrders() {
+        List<Order> orders = new ArrayList<>(bids.orderCount + asks.orderCount);
+        bids.forEach(orders);
+        asks.forEach(orders);
+        return orders;
+    }
+
+    /**
+     * Finds a resting order by its ID.
+     *
+     * @param orderId the order ID
+     * @return the resting order, or null if no order with this ID rests in the
+     *         book
+     */
+    public Order find(int orderId) {
+        int slot = slotsByOrderId.get(orderId);
+        return slot == NIL ? null : slots.orders[slot];
+    }
+
+    /**
+     * Removes a resting order from the book and marks it CANCELLED.
+     *
+     * @param orderId the order ID
+     * @return the cancelled order, or null if no order with this ID rests in
+     *         the book (it may have filled already)
+     */
+    public Order cancel(int orderId) {
+        int slot = slotsByOrderId.remove(orderId);
+        if (slot == NIL) {
+            return null;
+        }
+        Order order = slots.orders[slot];
+        BookSide side = order.getOrderType() == OrderType.BUY ? bids : asks;
+        side.remove(side.indexOf(order.getPriceTicks()), slot, order.getQuantity());
+        order.setStatus(OrderStatus.CANCELLED);
+        return order;
+    }
+
+    /**
+     * Reduces the quantity of a resting order in place, keeping its place in
+     * its price level.
+     *
+     * @param orderId  the order ID
+     * @param quantity the new quantity (must be positive and below the order's
+     *                 current quantity)
+     * @return the reduced order, or null if no order with this ID rests in the
+     *         book
+     * @throws IllegalArgumentException if quantity is not positive or not below
+     *                                  the order's current quantity
+     */
+    public Order reduce(int orderId, int quantity) {
+        int slot = slotsByOrderId.get(orderId);
+        if (slot == NIL) {
+            return null;
+        }
+        Order order = slots.orders[slot];
+        if (quantity <= 0 || quantity >= order.getQuantity()) {
+            throw new IllegalArgumentException("Quantity must be positive and below the current quantity");
+        }
+        BookSide side = order.getOrderType() == OrderType.BUY ? bids : asks;
+        side.levelQuantity[side.indexOf(order.getPriceTicks())] -= order.getQuantity() - quantity;
+        order.setQuantity(quantity);
+        return order;
+    }
+
+    /**
+     * Removes every resting order from the book and marks it CANCELLED.
+     *
+     * @return the cancelled orders, bids first then asks
+     */
+    public List<Order> cancelAll() {
+        List<Order> cancelled = new ArrayList<>(bids.orderCount + asks.orderCount);
+        bids.drainTo(cancelled);
+        asks.drainTo(cancelled);
+        slots.clear();
+        slotsByOrderId.clear();
+        for (Order order : cancelled) {
+            order.setStatus(OrderStatus.CANCELLED);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Gets the best (highest) bid price.
+     *
+     * @return best bid price, or NaN if there are no bids
+     */
+    public double getBestBid() {
+        return bids.isEmpty() ? Double.NaN : Price.toPrice(bids.bestTick(), tickSize);
+    }
+
+    /**
+     * Gets the best (lowest) ask price.
+     *
+     * @return best ask price, or NaN if there are no asks
+     */
+    public double getBestAsk() {
+        return asks.isEmpty() ? Double.NaN : Price.toPrice(asks.bestTick(), tickSize);
+    }
+
+    /**
+     * Gets the best bid price in ticks.
+     *
+     * @return best bid in ticks, or {@link Price#NO_TICKS} if there are no bids
+     */
+    public long getBestBidTicks() {
+        return bids.isEmpty() ? Price.NO_TICKS : bids.bestTick();
+    }
+
+    /**
+     * Gets the best ask price in ticks.
+     *
+     * @return best ask in ticks, or {@link Price#NO_TICKS} if there are no asks
+     */
+    public long getBestAskTicks() {
+        return asks.isEmpty() ? Price.NO_TICKS : asks.bestTick();
+    }
+
+    /**
+     * Gets the total resting quantity at the best bid.
+     *
+     * @return quantity at the best bid, or 0 if there are no bids
+     */
+    public long getBestBidQuantity() {
+        return bids.isEmpty() ? 0 : bids.levelQuantity[bids.best];
+    }
+
+    /**
+     * Gets the total resting quantity at the best ask.
+     *
+     * @return quantity at the best ask, or 0 if there are no asks
+     */
+    public long getBestAskQuantity() {
+        return asks.isEmpty() ? 0 : asks.levelQuantity[asks.best];
+    }
+
+    /**
+     * Gets the number of orders resting on the bid side.
+     *
+     * @return resting bid count
+     */
+    public int getBidOrderCount() {
+        return bids.orderCount;
+    }
+
+    /**
+     * Gets the number of orders resting on the ask side.
+     *
+     * @return resting ask count
+     */
+    public int getAskOrderCount() {
+        return asks.orderCount;
+    }
+
+    /**
+     * Gets the number of distinct price levels on the bid side.
+     *
+     * @return bid level count
+     */
+    public int getBidLevelCount() {
+        return bids.levelCount;
+    }
+
+    /**
+     * Gets the number of distinct price levels on the ask side.
+     *
+     * @return ask level count
+     */
+    public int getAskLevelCount() {
+        return asks.levelCount;
+    }
+
+    /**
+     * Resting orders and the links threading them into their price levels,
+     * shared by both sides of a book. Slot 0 is never used, so {@link #NIL}
+     * ends a list and the int arrays need no initialization. Free slots are
+     * chained through next.
+     */
+    private static final class Slots {
+        private Order[] orders = new Order[INITIAL_SLOTS];
+        private int[] next = new int[INITIAL_SLOTS];
+        private int[] prev = new int[INITIAL_SLOTS];
+        private int free = NIL;
+        private int used = 1;
+
+        int allocate(Order order) {
+            int slot = free;
+            if (slot != NIL) {
+                free = next[slot];
+            } else {
+                if (used == orders.length) {
+                    orders = Arrays.copyOf(orders, used * 2);
+                    next = Arrays.copyOf(next, used * 2);
+                    prev = Arrays.copyOf(prev, used * 2);
+                }
+                slot = used++;
+            }
+            orders[slot] = order;
+            next[slot] = NIL;
+            prev[slot] = NIL;
+            return slot;
+        }
+
+        void release(int slot) {
+            orders[slot] = null;
+            next[slot] = free;
+            free = slot;
+        }
+
+        void clear() {
+            Arrays.fill(orders, 0, used, null);
+            free = NIL;
+            used = 1;
+        }
+    }
+
+    /**
+     * One side of the book. Levels are indexed by tick - baseTick; the window is
+     * re-anchored when the side is empty and grown when a price falls outside it.
+     * Each level is a FIFO list of slots from head to tail.
+     */
+    private static final class BookSide {
+        private final boolean bid;
+        private final Slots slots;
+        private long baseTick;
+        private int[] head;
+        private int[] tail;
+        private long[] levelQuantity;
+        private long[] occupied;
+        private int best = -1;
+        private int orderCount;
+        private int levelCount;
+
+        BookSide(boolean bid, Slots slots) {
+            this.bid = bid;
+            this.slots = slots;
+        }
+
+        boolean isEmpty() {
+            return best < 0;
+        }
+
+        long bestTick() {
+            return baseTick + best;
+        }
+
+        /**
+         * Gets the level index of a price that has resting orders.
+         */
+        int indexOf(long tick) {
+            return (int) (tick - baseTick);
+        }
+
+        /**
+         * Appends an order to the tail of its level.
+         *
+         * @return the order's slot
+         */
+        int add(Order order, long tick) {
+            int index = indexFor(tick);
+            int slot = slots.allocate(order);
+            int last = tail[index];
+            if (last == NIL) {
+                head[index] = slot;
+                occupied[index >>> 6] |= 1L << index;
+                levelCount++;
+            } else {
+                slots.next[last] = slot;
+                slots.prev[slot] = last;
+            }
+            tail[index] = slot;
+            levelQuantity[index] += order.getQuantity();
+            orderCount++;
+            if (best < 0 || (bid ? index > best : index < best)) {
+                best = index;
+            }
+            return slot;
+        }
+
+        /**
+         * Unlinks a slot from the level at index and releases it, given the
+         * order's remaining quantity.
+         */
+        void remove(int index, int slot, int quantity) {
+            int before = slots.prev[slot];
+            int after = slots.next[slot];
+            if (before == NIL) {
+                head[index] = after;
+            } else {
+                slots.next[before] = after;
+            }
+            if (after == NIL) {
+                tail[index] = before;
+            } else {
+                slots.prev[after] = before;
+            }
+            slots.release(slot);
+
+            levelQuantity[index] -= quantity;
+            orderCount--;
+            if (head[index] == NIL) {
+                levelQuantity[index] = 0;
+                occupied[index >>> 6] &= ~(1L << index);
+                levelCount--;
+                if (index == best) {
+                    best = levelCount == 0 ? -1 : (bid ? prevOccupied(index) : nextOccupied(index));
+                }
+            }
+        }
+
+        /**
+         * Appends every resting order to out, level by level, and empties the
+         * side. The caller releases the slots.
+         */
+        void drainTo(List<Order> out) {
+            if (head == null) {
+                return;
+            }
+            forEach(out);
+            Arrays.fill(head, NIL);
+            Arrays.fill(tail, NIL);
+            Arrays.fill(levelQuantity, 0);
+            Arrays.fill(occupied, 0L);
+            best = -1;
+            orderCount = 0;
+            levelCount = 0;
+        }
+
+        /**
+         * Appends every resting order, level by level.
+         */
+        void forEach(List<Order> out) {
+            if (head == null) {
+                return;
+            }
+            for (int i = 0; i < head.length; i++) {
+                for (int slot = head[i]; slot != NIL; slot = slots.next[slot]) {
+                    out.add(slots.orders[slot]);
+                }
+            }
+        }
+
+        private int indexFor(long tick) {
+            if (head == null) {
+                allocate(INITIAL_LEVELS, tick - INITIAL_LEVELS / 2);
+            } else if (tick < baseTick || tick >= baseTick + head.length) {
+                if (orderCount == 0) {
+                    // Nothing resting: just move the window to the new price
+                    baseTick = tick - head.length / 2;
+                } else {
+                    grow(tick);
+                }
+            }
+            return (int) (tick - baseTick);
+        }
+
+        private void allocate(int length, long base) {
+            head = new int[length];
+            tail = new int[length];
+            levelQuantity = new long[length];
+            occupied = new long[length >>> 6];
+            baseTick = base;
+        }
+
+        private void grow(long tick) {
+            long low = Math.min(baseTick, tick);
+            long high = Math.max(baseTick + head.length, tick + 1);
+            long span = high - low;
+            int length = head.length;
+            while (length < span * 2) {
+                if (length > (1 << 29)) {
+                    throw new IllegalStateException("Price range too wide for order book");
+                }
+                length <<= 1;
+            }
+            long newBase = low - (length - span) / 2;
+            int shift = (int) (baseTick - newBase);
+
+            int[] oldHead = head;
+            int[] oldTail = tail;
+            long[] oldQuantity = levelQuantity;
+            allocate(length, newBase);
+            System.arraycopy(oldHead, 0, head, shift, oldHead.length);
+            System.arraycopy(oldTail, 0, tail, shift, oldTail.length);
+            System.arraycopy(oldQuantity, 0, levelQuantity, shift, oldQuantity.length);
+            for (int i = 0; i < head.length; i++) {
+                if (head[i] != NIL) {
+                    occupied[i >>> 6] |= 1L << i;
+                }
+            }
+            if (best >= 0) {
+                best += shift;
+            }
+        }
+
+        /**
+         * Gets the next level with resting orders after index, moving away
+         * from the best price.
+         *
+         * @return the level index, or -1 if there is none
+         */
+        int nextLevel(int index) {
+            if (bid) {
+                for (int word = (index - 1) >> 6, from = index - 1; word >= 0; from = (--word << 6) + 63) {
+                    long bits = occupied[word] & (-1L >>> (63 - (from & 63)));
+                    if (bits != 0) {
+                        return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+                    }
+                }
+            } else {
+                for (int word = (index + 1) >>> 6, from = index + 1; word < occupied.length; from = ++word << 6) {
+                    long bits = occupied[word] & (-1L << from);
+                    if (bits != 0) {
+                        return (word << 6) + Long.numberOfTrailingZeros(bits);
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private int nextOccupied(int from) {
+            int word = from >>> 6;
+            long bits = occupied[word] & (-1L << from);
+            while (bits == 0) {
+                bits = occupied[++word];
+            }
+            return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+
+        private int prevOccupied(int from) {
+            int word = from >>> 6;
+            long bits = occupied[word] & (-1L >>> (63 - (from & 63)));
+            while (bits == 0) {
+                bits = occupied[--word];
+            }
+            return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+        }
+    }
+
+    /**
+     * One side's orders in auction priority: resting orders level by level
+     * from the best price, merged with the batch orders of that side sorted
+     * the same way, resting orders first at equal prices. Reads the book but
+     * never changes it.
+     */
+    private final class AuctionSide {
+        private final BookSide side;
+        private List<Order> batch;
+        private int level;
+        private int bookSlot;
+        int batchIndex;
+
+        /**
+         * The current order, its limit, its slot (NIL for a batch order) and
+         * the quantity not yet assigned to a fill; order is null when the side
+         * is exhausted.
+         */
+        Order order;
+        long tick;
+        int slot;
+        int remaining;
+
+        AuctionSide(BookSide side) {
+            this.side = side;
+        }
+
+        AuctionSide start(List<Order> sortedBatch) {
+            batch = sortedBatch;
+            batchIndex = 0;
+            level = side.isEmpty() ? -1 : side.best;
+            bookSlot = level < 0 ? NIL : side.head[level];
+            select();
+            return this;
+        }
+
+        /**
+         * Assigns quantity of the current order to a fill, moving on once it
+         * is used up.
+         */
+        void take(int quantity) {
+            remaining -= quantity;
+            if (remaining > 0) {
+                return;
+            }
+            if (slot != NIL) {
+                bookSlot = slots.next[bookSlot];
+                if (bookSlot == NIL) {
+                    level = side.nextLevel(level);
+                    bookSlot = level < 0 ? NIL : side.head[level];
+                }
+            } else {
+                batchIndex++;
+            }
+            select();
+        }
+
+        private void select() {
+            Order next = batchIndex < batch.size() ? batch.get(batchIndex) : null;
+            if (bookSlot != NIL) {
+                long bookTick = side.baseTick + level;
+                if (next == null || (side.bid ? bookTick >= next.getPriceTicks() : bookTick <= next.getPriceTicks())) {
+                    order = slots.orders[bookSlot];
+                    tick = bookTick;
+                    slot = bookSlot;
+                    remaining = order.getQuantity();
+                    return;
+                }
+            }
+            order = next;
+            slot = NIL;
+            if (next != null) {
+                tick = next.getPriceTicks();
+                remaining = next.getQuantity();
+            }
+        }
+    }
+}
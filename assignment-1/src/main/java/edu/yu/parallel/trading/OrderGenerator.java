@@ -1,19 +1,39 @@
 package edu.yu.parallel.trading;
 
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
-import edu.yu.parallel.model.Execution;
 import edu.yu.parallel.model.MarketData;
 import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderPool;
+import edu.yu.parallel.model.SymbolDictionary;
 import edu.yu.parallel.model.OrderType;
 import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.persistence.OrderTape;
 import edu.yu.parallel.util.IdGenerator;
 
 /**
  * Class responsible for generating orders based on current market data and
  * execution history.
+ *
+ * By default orders are priced around the latest quote in a
+ * {@link TopOfBookFeed} that the market makers publish to, so generating an
+ * order never touches the execution store while quotes are available.
+ *
+ * Generated orders rest until filled unless the system property
+ * {@value #ORDER_TTL_PROPERTY} gives them a time-to-live in milliseconds, after
+ * which their market maker cancels them.
+ *
+ * While an {@link OrderTape} is attached, every generated order is recorded to
+ * it, so the run's order stream can be replayed later.
  */
 public class OrderGenerator {
+    /**
+     * System property holding the time-to-live, in milliseconds, of generated
+     * orders; unset or 0 for orders that never expire.
+     */
+    public static final String ORDER_TTL_PROPERTY = "edu.yu.parallel.orderTtlMillis";
+
     /**
      * Market data utility for accessing symbols and prices.
      */
@@ -24,6 +44,28 @@ public class OrderGenerator {
      */
     private final ExecutedOrders executedOrders;
 
+    /**
+     * Optional bars whose shortest-interval VWAP is used as the current market
+     * price; null to use the last execution price.
+     */
+    private final BarAggregator bars;
+
+    /**
+     * Bar length read from {@link #bars}.
+     */
+    private final long barInterval;
+
+    /**
+     * Optional feed whose quotes are used as the current market price; null
+     * to use the last execution price.
+     */
+    private final TopOfBookFeed feed;
+
+    /**
+     * Optional pool orders are taken from; null to allocate each order.
+     */
+    private final OrderPool orderPool;
+
     /**
      * Minimum quantity allowed for generated orders.
      */
@@ -34,14 +76,25 @@ public class OrderGenerator {
      */
     private final int maxQuantity;
 
+    /**
+     * Time-to-live given to every generated order, in nanoseconds; 0 for none.
+     */
+    private final long orderTtlNanos;
+
     /**
      * Random number generator for randomizing order attributes.
      */
     private final Random random = new Random();
 
+    /**
+     * Tape every generated order is recorded to, or null.
+     */
+    private volatile OrderTape orderTape;
+
     /**
      * Constructs an OrderGenerator with the specified market data, executed orders,
-     * and quantity bounds.
+     * and quantity bounds. Orders are priced around the quotes in a new
+     * {@link TopOfBookFeed} (see {@link #getTopOfBookFeed()}).
      * 
      * @param marketData     the market data utility
      * @param executedOrders the executed orders tracker
@@ -50,10 +103,78 @@ public class OrderGenerator {
      */
     public OrderGenerator(MarketData marketData, ExecutedOrders executedOrders,
             int minQuantity, int maxQuantity) {
+        this(marketData, executedOrders, null, minQuantity, maxQuantity);
+    }
+
+    /**
+     * Constructs an OrderGenerator that prices orders around the VWAP of the
+     * current shortest bar kept by the given aggregator, falling back to the
+     * last execution price and then the closing price. The aggregator must be
+     * subscribed to the same executed orders tracker.
+     * 
+     * @param marketData     the market data utility
+     * @param executedOrders the executed orders tracker
+     * @param bars           the bar aggregator, or null to price around the last
+     *                       execution
+     * @param minQuantity    minimum quantity for orders
+     * @param maxQuantity    maximum quantity for orders
+     */
+    public OrderGenerator(MarketData marketData, ExecutedOrders executedOrders, BarAggregator bars,
+            int minQuantity, int maxQuantity) {
+        this(marketData, executedOrders, bars, null, minQuantity, maxQuantity);
+    }
+
+    /**
+     * Constructs an OrderGenerator that optionally prices around bars and
+     * optionally takes its orders from a pool. Pooled orders only return to
+     * the pool when they are matched by market makers running in pooled mode
+     * (see {@link #isPooled()}).
+     * 
+     * @param marketData     the market data utility
+     * @param executedOrders the executed orders tracker
+     * @param bars           the bar aggregator, or null to price around the last
+     *                       execution
+     * @param orderPool      the pool to take orders from, or null to allocate
+     *                       each order
+     * @param minQuantity    minimum quantity for orders
+     * @param maxQuantity    maximum quantity for orders
+     */
+    public OrderGenerator(MarketData marketData, ExecutedOrders executedOrders, BarAggregator bars,
+            OrderPool orderPool, int minQuantity, int maxQuantity) {
+        this(marketData, executedOrders, bars, orderPool, new TopOfBookFeed(), minQuantity, maxQuantity);
+    }
+
+    /**
+     * Constructs an OrderGenerator that prices orders around the quotes in the
+     * given feed, falling back to the last execution price when a symbol has
+     * neither a two-sided quote nor a trade, and then to the closing price.
+     * Bars, if given, take precedence over the feed.
+     * 
+     * @param marketData     the market data utility
+     * @param executedOrders the executed orders tracker
+     * @param bars           the bar aggregator, or null
+     * @param orderPool      the pool to take orders from, or null to allocate
+     *                       each order
+     * @param feed           the feed market makers publish to, or null to price
+     *                       around the last execution
+     * @param minQuantity    minimum quantity for orders
+     * @param maxQuantity    maximum quantity for orders
+     */
+    public OrderGenerator(MarketData marketData, ExecutedOrders executedOrders, BarAggregator bars,
+            OrderPool orderPool, TopOfBookFeed feed, int minQuantity, int maxQuantity) {
+        this.orderPool = orderPool;
+        this.feed = feed;
         this.marketData = marketData;
         this.executedOrders = executedOrders;
+        this.bars = bars;
+        this.barInterval = bars == null ? 0 : bars.getIntervals()[0];
         this.minQuantity = minQuantity;
         this.maxQuantity = maxQuantity;
+        long ttlMillis = Long.getLong(ORDER_TTL_PROPERTY, 0);
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException(ORDER_TTL_PROPERTY + " must not be negative");
+        }
+        this.orderTtlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
     }
 
     /**
@@ -64,55 +185,121 @@ public class OrderGenerator {
      * @return a newly created Order object
      */
     public Order generateOrder(Trader trader) {
-        String symbol = marketData.getRandomSymbol();
+        int symbolId = marketData.getRandomSymbolId();
         int quantity = random.nextInt(maxQuantity - minQuantity + 1) + minQuantity;
         OrderType orderType = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
         double price;
         if (orderType == OrderType.BUY) {
-            price = generateBidPrice(symbol);
+            price = generateBidPrice(symbolId);
         } else {
-            price = generateAskPrice(symbol);
+            price = generateAskPrice(symbolId);
+        }
+        Order order = orderPool != null
+                ? orderPool.acquire(IdGenerator.getInstance(), symbolId, orderType, quantity, price, trader)
+                : Order.createOrder(IdGenerator.getInstance(), symbolId, orderType, quantity, price, trader);
+        if (orderTtlNanos > 0) {
+            order.setTtlNanos(orderTtlNanos);
         }
-        return Order.createOrder(IdGenerator.getInstance(), symbol, orderType, quantity, price, trader);
+        if (LifecycleLatency.ENABLED) {
+            order.setGeneratedNanos(System.nanoTime());
+        }
+        OrderTape tape = orderTape;
+        if (tape != null) {
+            tape.record(order);
+        }
+        return order;
+    }
+
+    /**
+     * Attaches a tape that every order generated from now on is recorded to,
+     * or detaches the current one.
+     *
+     * @param orderTape the tape, or null to stop recording
+     */
+    public void setOrderTape(OrderTape orderTape) {
+        this.orderTape = orderTape;
+    }
+
+    /**
+     * Gets the time-to-live given to generated orders.
+     *
+     * @return time-to-live in nanoseconds, or 0 if orders never expire
+     */
+    public long getOrderTtlNanos() {
+        return orderTtlNanos;
+    }
+
+    /**
+     * Checks whether generated orders come from an {@link OrderPool}. A
+     * trading system driven by a pooled generator runs its market makers in
+     * pooled mode.
+     * 
+     * @return true if orders are pooled
+     */
+    public boolean isPooled() {
+        return orderPool != null;
+    }
+
+    /**
+     * Gets the feed this generator reads quotes from. A trading system driven
+     * by this generator has its market makers publish to it.
+     * 
+     * @return the feed, or null if orders are priced around the last execution
+     */
+    public TopOfBookFeed getTopOfBookFeed() {
+        return feed;
     }
 
     /**
      * Gets the current market price for the specified symbol.
-     * Uses the last execution price if available, otherwise falls back to the
-     * closing price.
+     * Uses the current bar's VWAP if bars are configured, then the feed's
+     * reference price, then the last execution price if available, otherwise
+     * falls back to the closing price.
      * 
-     * @param symbol the symbol to look up
+     * @param symbolId the ID of the symbol to look up
      * @return the current market price
      */
-    private double getCurrentMarketPrice(String symbol) {
-        Execution lastExecution = executedOrders.getLastExecution(symbol);
-        if (lastExecution != null) {
-            return lastExecution.getPrice();
+    private double getCurrentMarketPrice(int symbolId) {
+        if (bars != null) {
+            BarAggregator.Bar bar = bars.getCurrentBar(SymbolDictionary.getInstance().symbolOf(symbolId), barInterval);
+            if (bar != null && bar.volume() > 0) {
+                return bar.vwap();
+            }
+        }
+        if (feed != null) {
+            double referencePrice = feed.getReferencePrice(symbolId);
+            if (!Double.isNaN(referencePrice)) {
+                return referencePrice;
+            }
+        }
+        double lastPrice = executedOrders.getLastPrice(symbolId);
+        if (!Double.isNaN(lastPrice)) {
+            return lastPrice;
         }
-        return marketData.getClosingPrice(symbol);
+        return marketData.getClosingPrice(symbolId);
     }
 
     /**
      * Generates a realistic bid price for the specified symbol based on current
      * market price.
      * 
-     * @param symbol the symbol to generate a bid price for
+     * @param symbolId the ID of the symbol to generate a bid price for
      * @return a bid price
      */
-    private double generateBidPrice(String symbol) {
-        double currentPrice = getCurrentMarketPrice(symbol);
-        return marketData.generateBuyPrice(symbol, currentPrice);
+    private double generateBidPrice(int symbolId) {
+        double currentPrice = getCurrentMarketPrice(symbolId);
+        return marketData.generateBuyPrice(symbolId, currentPrice);
     }
 
     /**
      * Generates a realistic ask price for the specified symbol based on current
      * market price.
      * 
-     * @param symbol the symbol to generate an ask price for
+     * @param symbolId the ID of the symbol to generate an ask price for
      * @return an ask price
      */
-    private double generateAskPrice(String symbol) {
-        double currentPrice = getCurrentMarketPrice(symbol);
-        return marketData.generateSellPrice(symbol, currentPrice);
+    private double generateAskPrice(int symbolId) {
+        double currentPrice = getCurrentMarketPrice(symbolId);
+        return marketData.generateSellPrice(symbolId, currentPrice);
     }
-}
\ No newline at end of file
+}
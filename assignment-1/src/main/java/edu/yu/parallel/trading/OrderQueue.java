@@ -1,10 +1,14 @@
 package edu.yu.parallel.trading;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
 
 /**
  * Thread-safe queue for managing orders in the trading system.
@@ -12,7 +16,7 @@ import edu.yu.parallel.model.Order;
  * Ensures thread safety for concurrent submissions and retrievals.
  * Maintains FIFO order within the queue.
  * Provides statistics for monitoring.
- * 
+ *
  * Requirements:
  * - The queue must support a maximum capacity.
  * - Orders must be in the NEW state when added.
@@ -20,15 +24,38 @@ import edu.yu.parallel.model.Order;
  * - If the queue is empty, getNextOrder must not return until an order is available.
  * - Cancelling all pending orders must set their state to CANCELLED and return them.
  * - Statistics must be consistent during concurrent updates.
+ *
+ * This implementation guards an ArrayDeque with a single monitor. Subclasses
+ * may replace the storage entirely by overriding the public methods and
+ * {@link #getStatistics()}.
  */
-public class OrderQueue {
+public class OrderQueue implements OrderSink {
         private final static Logger logger = LogManager.getLogger(OrderQueue.class);
 
+    /**
+     * A consistent view of the queue counters.
+     *
+     * @param totalCount   number of orders ever accepted by the queue
+     * @param pendingCount number of orders currently waiting in the queue
+     */
+    public record Statistics(long totalCount, long pendingCount) {
+    }
+
     /**
      * The maximum capacity of the queue. If not set, defaults to Integer.MAX_VALUE.
      */
     private final int capacity;
 
+    /**
+     * Monitor guarding all mutable state below.
+     */
+    private final Object lock = new Object();
+    private final ArrayDeque<Order> orders = new ArrayDeque<>();
+    private long totalCount = 0;
+    private int waitingConsumers = 0;
+    private int waitingProducers = 0;
+    private boolean shutdown = false;
+
     /**
      * Constructs an OrderQueue with unlimited capacity (Integer.MAX_VALUE).
      */
@@ -38,7 +65,7 @@ public class OrderQueue {
 
     /**
      * Constructs an OrderQueue with the specified capacity.
-     * 
+     *
      * @param capacity the maximum number of orders the queue can hold
      * @throws IllegalArgumentException if capacity is not positive
      */
@@ -51,7 +78,7 @@ public class OrderQueue {
 
     /**
      * Returns the maximum capacity of the queue.
-     * 
+     *
      * @return the capacity
      */
     public int getCapacity() {
@@ -62,50 +89,282 @@ public class OrderQueue {
      * Adds a new order to the queue.
      * The order must be in the NEW state when added.
      * If the queue is full, this method must block until space is available.
-     * 
+     * If the calling thread is interrupted while waiting, the order is not added
+     * and the method returns with the thread's interrupt status set.
+     *
      * @param order the order to add
      * @throws IllegalArgumentException if the order is not in the NEW state
-     * @throws InterruptedException     if the thread is interrupted while waiting for space
      * @throws IllegalStateException    if the queue has been shut down
      */
     public void addOrder(Order order) {
-        // Must implement
+        if (order == null || order.getStatus() != OrderStatus.NEW) {
+            throw new IllegalArgumentException("Order must be non-null and in NEW state");
+        }
+        synchronized (lock) {
+            while (!shutdown && orders.size() >= capacity) {
+                waitingProducers++;
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    waitingProducers--;
+                }
+            }
+            if (shutdown) {
+                throw new IllegalStateException("OrderQueue has been shut down");
+            }
+            orders.addLast(order);
+            totalCount++;
+            if (waitingConsumers > 0) {
+                lock.notifyAll();
+            }
+        }
     }
 
     /**
      * Retrieves and removes the next order to process from the queue.
      * If the queue is empty, this method must not return until an order is available.
-     * 
-     * @return the next order to process
-     * @throws InterruptedException if the thread is interrupted while waiting for
-     *                              an order
+     *
+     * @return the next order to process, or null if the calling thread was
+     *         interrupted while waiting (interrupt status is preserved) or the
+     *         queue has been shut down
      */
     public Order getNextOrder() {
-        return null; // Must implement
+        synchronized (lock) {
+            while (!shutdown && orders.isEmpty()) {
+                waitingConsumers++;
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                } finally {
+                    waitingConsumers--;
+                }
+            }
+            Order order = orders.pollFirst();
+            if (order != null && waitingProducers > 0) {
+                lock.notifyAll();
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Adds a batch of new orders to the queue, in iteration order, taking the
+     * queue's lock once per wake-up rather than once per order.
+     * All orders are validated before any is added. If the queue cannot hold the
+     * whole batch, orders are added as space becomes available, so other
+     * producers' orders may be interleaved with the batch.
+     * If the calling thread is interrupted while waiting, the remaining orders
+     * are not added and the method returns with the thread's interrupt status set.
+     *
+     * @param batch the orders to add
+     * @return the number of orders added
+     * @throws IllegalArgumentException if batch is null or any order is not in the NEW state
+     * @throws IllegalStateException    if the queue has been shut down
+     */
+    public int addOrders(Collection<Order> batch) {
+        validateBatch(batch);
+        int added = 0;
+        synchronized (lock) {
+            for (Order order : batch) {
+                while (!shutdown && orders.size() >= capacity) {
+                    if (waitingConsumers > 0) {
+                        lock.notifyAll();
+                    }
+                    waitingProducers++;
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return added;
+                    } finally {
+                        waitingProducers--;
+                    }
+                }
+                if (shutdown) {
+                    throw new IllegalStateException("OrderQueue has been shut down");
+                }
+                orders.addLast(order);
+                totalCount++;
+                added++;
+            }
+            if (waitingConsumers > 0) {
+                lock.notifyAll();
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Moves up to max orders from the queue into the given list, in FIFO order.
+     * If the queue is empty, this method waits until at least one order is
+     * available, then takes as many as are present (up to max) under a single
+     * acquisition of the queue's lock.
+     *
+     * @param target the list to append orders to
+     * @param max    the maximum number of orders to move
+     * @return the number of orders moved; 0 if the calling thread was interrupted
+     *         while waiting (interrupt status is preserved) or the queue has been
+     *         shut down
+     * @throws IllegalArgumentException if target is null or max is not positive
+     */
+    public int drainTo(List<Order> target, int max) {
+        if (target == null || max <= 0) {
+            throw new IllegalArgumentException("Target must be non-null and max must be positive");
+        }
+        synchronized (lock) {
+            while (!shutdown && orders.isEmpty()) {
+                waitingConsumers++;
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return 0;
+                } finally {
+                    waitingConsumers--;
+                }
+            }
+            return takeAvailable(target, max);
+        }
+    }
+
+    /**
+     * Moves up to max orders from the queue into the given list, in FIFO order,
+     * as {@link #drainTo(List, int)} does, but waits at most the given time for
+     * the first one. A consumer that must also act on a schedule, such as a
+     * market maker running call auctions, uses the timeout to wake up in time.
+     *
+     * @param target       the list to append orders to
+     * @param max          the maximum number of orders to move
+     * @param timeoutNanos how long to wait at most while the queue is empty
+     * @return the number of orders moved; 0 if the timeout elapsed first, or -1
+     *         if the calling thread was interrupted while waiting (interrupt
+     *         status is preserved) or the queue has been shut down
+     * @throws IllegalArgumentException if target is null or max is not positive
+     */
+    public int drainTo(List<Order> target, int max, long timeoutNanos) {
+        if (target == null || max <= 0) {
+            throw new IllegalArgumentException("Target must be non-null and max must be positive");
+        }
+        synchronized (lock) {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (!shutdown && orders.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return 0;
+                }
+                waitingConsumers++;
+                try {
+                    lock.wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                } finally {
+                    waitingConsumers--;
+                }
+            }
+            if (orders.isEmpty()) {
+                return -1;
+            }
+            return takeAvailable(target, max);
+        }
+    }
+
+    /**
+     * Moves up to max orders into the given list and wakes waiting producers
+     * if any were moved. The caller must hold the lock.
+     */
+    private int takeAvailable(List<Order> target, int max) {
+        int moved = 0;
+        while (moved < max && !orders.isEmpty()) {
+            target.add(orders.pollFirst());
+            moved++;
+        }
+        if (moved > 0 && waitingProducers > 0) {
+            lock.notifyAll();
+        }
+        return moved;
     }
 
     /**
      * Shuts down the queue so that no new orders can be added.
      * Cancels all pending orders in the queue and returns them as a list.
      * Sets the state of each cancelled order to CANCELLED.
-     * 
+     * Threads blocked in addOrder or getNextOrder are released.
+     *
      * @return a list of all cancelled orders
      */
     public List<Order> shutdown() {
-        return List.of(); // Must implement
+        List<Order> cancelled;
+        synchronized (lock) {
+            shutdown = true;
+            cancelled = new ArrayList<>(orders);
+            orders.clear();
+            lock.notifyAll();
+        }
+        for (Order order : cancelled) {
+            order.setStatus(OrderStatus.CANCELLED);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Accepts new orders again after {@link #shutdown()}. The counters carry
+     * on from before the shutdown. Must not be called while any thread is
+     * using the queue.
+     */
+    public void reopen() {
+        synchronized (lock) {
+            shutdown = false;
+        }
+    }
+
+    /**
+     * Returns a consistent snapshot of the queue counters.
+     *
+     * @return total and pending order counts taken at the same instant
+     */
+    public Statistics getStatistics() {
+        synchronized (lock) {
+            return new Statistics(totalCount, orders.size());
+        }
+    }
+
+    /**
+     * Checks that a batch is non-null and holds only NEW orders.
+     *
+     * @param batch the orders to check
+     * @throws IllegalArgumentException if the batch is invalid
+     */
+    protected static void validateBatch(Collection<Order> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch must not be null");
+        }
+        for (Order order : batch) {
+            if (order == null || order.getStatus() != OrderStatus.NEW) {
+                throw new IllegalArgumentException("Order must be non-null and in NEW state");
+            }
+        }
     }
 
     /**
      * Prints statistics for the queue:
      * 1) Total order count
      * 2) Pending order count
-     * 
+     *
      * You must call outputStatistics to print the results.
      * Results must be consistent during concurrent updates.
      */
     public void printStatistics() {
-        // Call to outputStatistics with dummy data
-        outputStatistics(0L, 0L);
+        Statistics statistics = getStatistics();
+        outputStatistics(statistics.totalCount(), statistics.pendingCount());
+        if (LifecycleLatency.ENABLED) {
+            LifecycleLatency.getInstance().printStatistics();
+        }
     }
 
     /*
@@ -117,4 +376,4 @@ public class OrderQueue {
         logger.info("Total order count: " + totalCount);
         logger.info("Total pending count: " + totalPending);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package edu.yu.parallel.trading;
+
+import java.util.Collection;
+import java.util.List;
+
+import edu.yu.parallel.model.Order;
+
+/**
+ * The producer side of an order queue: what traders and the trading system
+ * need to submit orders and shut the queue down, without taking orders off
+ * it.
+ *
+ * {@link OrderQueue} implements it for queues that market makers also consume
+ * from directly. {@link ShardedOrderQueue} implements only this side, since
+ * its market makers take from the per-shard queues instead.
+ */
+public interface OrderSink {
+    /**
+     * Adds a new order, blocking while there is no room for it.
+     * If the calling thread is interrupted while waiting, the order is not added
+     * and the method returns with the thread's interrupt status set.
+     *
+     * @param order the order to add
+     * @throws IllegalArgumentException if the order is not in the NEW state
+     * @throws IllegalStateException    if the queue has been shut down
+     */
+    void addOrder(Order order);
+
+    /**
+     * Adds a batch of new orders, in iteration order.
+     * All orders are validated before any is added. If the calling thread is
+     * interrupted while waiting, the remaining orders are not added and the
+     * method returns with the thread's interrupt status set.
+     *
+     * @param batch the orders to add
+     * @return the number of orders added
+     * @throws IllegalArgumentException if batch is null or any order is not in the NEW state
+     * @throws IllegalStateException    if the queue has been shut down
+     */
+    int addOrders(Collection<Order> batch);
+
+    /**
+     * Shuts down the queue so that no new orders can be added, and cancels and
+     * returns every pending order. Threads blocked on the queue are released.
+     *
+     * @return a list of all cancelled orders
+     */
+    List<Order> shutdown();
+
+    /**
+     * Accepts new orders again after {@link #shutdown()}, so that a stopped
+     * system can be started again. The counters carry on from before the
+     * shutdown. Must not be called while any thread is using the queue.
+     */
+    void reopen();
+
+    /**
+     * Returns the queue counters.
+     *
+     * @return total and pending order counts
+     */
+    OrderQueue.Statistics getStatistics();
+}
@@ -0,0 +1,432 @@
+package edu.yu.parallel.trading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.util.PaddedSequence;
+
+/**
+ * Lock-free bounded OrderQueue backed by a preallocated multi-producer,
+ * multi-consumer ring buffer.
+ *
+ * Each slot carries its own sequence number: a producer may fill slot i for
+ * position p once the slot's sequence equals p, and a consumer may empty it
+ * once the sequence equals p + 1. Producers and consumers claim positions by
+ * CAS on separate cache-line padded cursors, so the common path is one CAS and
+ * never takes a lock. When the ring is full or empty the caller waits using
+ * its {@link WaitStrategy}. Every publish and every take is followed by a
+ * signal to the strategy on the other side, which must not miss a waiter that
+ * is about to block (see {@link WaitStrategy#signalAll()}).
+ *
+ * Shutdown sets a closed bit in the producer cursor, so no producer can claim
+ * a position after the final position is known, and then drains everything up
+ * to that position. Reopening clears the bit again.
+ *
+ * Statistics are derived from the two cursors. The consumer cursor is read
+ * first, so the pending count is never negative and never exceeds the total.
+ */
+public class RingBufferOrderQueue extends OrderQueue {
+    /**
+     * Ring capacity used by the no-argument constructor.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * Largest supported capacity; the ring is allocated up front.
+     */
+    public static final int MAX_CAPACITY = 1 << 26;
+
+    private static final long CLOSED = 1L << 62;
+
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final Order[] buffer;
+
+    /**
+     * Sequence number of each slot, read with acquire and written with release
+     * semantics through {@link #SEQUENCE}.
+     */
+    private final long[] sequences;
+    private final int mask;
+    private final boolean exactCapacity;
+    private final PaddedSequence tail = new PaddedSequence(0);
+    private final PaddedSequence head = new PaddedSequence(0);
+    private final WaitStrategy consumerWait;
+    private final WaitStrategy producerWait;
+    private final BooleanSupplier producerReady = this::producerReady;
+    private final BooleanSupplier consumerReady = this::consumerReady;
+
+    /**
+     * Constructs a ring of {@link #DEFAULT_CAPACITY} whose producers and
+     * consumers both use a parking wait strategy.
+     */
+    public RingBufferOrderQueue() {
+        this(DEFAULT_CAPACITY, WaitStrategy.parking());
+    }
+
+    /**
+     * Constructs a ring whose producers and consumers share one wait strategy.
+     *
+     * @param capacity     the maximum number of orders the queue can hold
+     * @param waitStrategy how threads wait when the ring is empty or full
+     * @throws IllegalArgumentException if capacity is not between 1 and
+     *                                  {@link #MAX_CAPACITY} or waitStrategy is null
+     */
+    public RingBufferOrderQueue(int capacity, WaitStrategy waitStrategy) {
+        this(capacity, waitStrategy, waitStrategy);
+    }
+
+    /**
+     * Constructs a ring.
+     *
+     * @param capacity     the maximum number of orders the queue can hold
+     * @param consumerWait how consumers wait while the ring is empty
+     * @param producerWait how producers wait while the ring is full
+     * @throws IllegalArgumentException if capacity is not between 1 and
+     *                                  {@link #MAX_CAPACITY} or a strategy is null
+     */
+    public RingBufferOrderQueue(int capacity, WaitStrategy consumerWait, WaitStrategy producerWait) {
+        super(capacity);
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must not exceed " + MAX_CAPACITY);
+        }
+        if (consumerWait == null || producerWait == null) {
+            throw new IllegalArgumentException("Wait strategies must not be null");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Order[size];
+        // Final field: the initial sequences are published with the constructed queue
+        this.sequences = new long[size];
+        for (int i = 0; i < size; i++) {
+            sequences[i] = i;
+        }
+        this.mask = size - 1;
+        this.exactCapacity = size == capacity;
+        this.consumerWait = consumerWait;
+        this.producerWait = producerWait;
+    }
+
+    /**
+     * Adds a new order to the queue, waiting with the producer strategy while
+     * the queue is full.
+     * If the calling thread is interrupted while waiting, the order is not added
+     * and the method returns with the thread's interrupt status set.
+     *
+     * @param order the order to add
+     * @throws IllegalArgumentException if the order is not in the NEW state
+     * @throws IllegalStateException    if the queue has been shut down
+     */
+    @Override
+    public void addOrder(Order order) {
+        if (order == null || order.getStatus() != OrderStatus.NEW) {
+            throw new IllegalArgumentException("Order must be non-null and in NEW state");
+        }
+        while (true) {
+            long t = tail.get();
+            if ((t & CLOSED) != 0) {
+                throw new IllegalStateException("OrderQueue has been shut down");
+            }
+            if (hasSpace(t)) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    int index = (int) t & mask;
+                    buffer[index] = order;
+                    publish(index, t + 1);
+                    consumerWait.signalAll();
+                    return;
+                }
+            } else if (!await(producerWait, producerReady)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retrieves and removes the next order, waiting with the consumer strategy
+     * while the queue is empty.
+     *
+     * @return the next order to process, or null if the calling thread was
+     *         interrupted while waiting (interrupt status is preserved) or the
+     *         queue has been shut down and drained
+     */
+    @Override
+    public Order getNextOrder() {
+        while (true) {
+            long h = head.get();
+            int index = (int) h & mask;
+            long diff = sequence(index) - (h + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(h, h + 1)) {
+                    return take(index, h);
+                }
+            } else if (diff < 0) {
+                long t = tail.get();
+                if ((t & CLOSED) != 0 && h >= (t & ~CLOSED)) {
+                    return null;
+                }
+                if (!await(consumerWait, consumerReady)) {
+                    return null;
+                }
+            }
+            // diff > 0: another consumer took this position; retry with the new head
+        }
+    }
+
+    /**
+     * Adds a batch of new orders, in iteration order. Each CAS on the producer
+     * cursor claims as many consecutive free positions as the batch still needs,
+     * so a batch that fits costs one CAS in total.
+     * If the ring cannot hold the whole batch, the rest is added as space becomes
+     * available and may be interleaved with other producers' orders.
+     * If the calling thread is interrupted while waiting, the remaining orders
+     * are not added and the method returns with the thread's interrupt status set.
+     *
+     * @param batch the orders to add
+     * @return the number of orders added
+     * @throws IllegalArgumentException if batch is null or any order is not in the NEW state
+     * @throws IllegalStateException    if the queue has been shut down
+     */
+    @Override
+    public int addOrders(Collection<Order> batch) {
+        validateBatch(batch);
+        Iterator<Order> orders = batch.iterator();
+        int remaining = batch.size();
+        int added = 0;
+        while (remaining > 0) {
+            long t = tail.get();
+            if ((t & CLOSED) != 0) {
+                throw new IllegalStateException("OrderQueue has been shut down");
+            }
+            int claim = freeRun(t, remaining);
+            if (claim == 0) {
+                if (!await(producerWait, producerReady)) {
+                    return added;
+                }
+                continue;
+            }
+            if (tail.compareAndSet(t, t + claim)) {
+                for (int i = 0; i < claim; i++) {
+                    int index = (int) (t + i) & mask;
+                    buffer[index] = orders.next();
+                    publish(index, t + i + 1);
+                }
+                consumerWait.signalAll();
+                remaining -= claim;
+                added += claim;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Moves up to max orders into the given list, in FIFO order. Each CAS on the
+     * consumer cursor claims every consecutive published position (up to max),
+     * waiting with the consumer strategy only while the ring is empty.
+     *
+     * @param target the list to append orders to
+     * @param max    the maximum number of orders to move
+     * @return the number of orders moved; 0 if the calling thread was interrupted
+     *         while waiting (interrupt status is preserved) or the queue has been
+     *         shut down and drained
+     * @throws IllegalArgumentException if target is null or max is not positive
+     */
+    @Override
+    public int drainTo(List<Order> target, int max) {
+        if (target == null || max <= 0) {
+            throw new IllegalArgumentException("Target must be non-null and max must be positive");
+        }
+        return Math.max(drain(target, max, false, 0), 0);
+    }
+
+    /**
+     * Moves up to max orders into the given list, in FIFO order, as
+     * {@link #drainTo(List, int)} does, but waits with the consumer strategy
+     * at most the given time for the first one.
+     *
+     * @param target       the list to append orders to
+     * @param max          the maximum number of orders to move
+     * @param timeoutNanos how long to wait at most while the queue is empty
+     * @return the number of orders moved; 0 if the timeout elapsed first, or -1
+     *         if the calling thread was interrupted while waiting (interrupt
+     *         status is preserved) or the queue has been shut down and drained
+     * @throws IllegalArgumentException if target is null or max is not positive
+     */
+    @Override
+    public int drainTo(List<Order> target, int max, long timeoutNanos) {
+        if (target == null || max <= 0) {
+            throw new IllegalArgumentException("Target must be non-null and max must be positive");
+        }
+        return drain(target, max, true, System.nanoTime() + timeoutNanos);
+    }
+
+    /**
+     * Claims and moves every consecutive published position (up to max),
+     * waiting while the ring is empty, until the deadline if timed.
+     *
+     * @return the number of orders moved; 0 if the deadline passed first, or -1
+     *         if interrupted or the queue has been shut down and drained
+     */
+    private int drain(List<Order> target, int max, boolean timed, long deadlineNanos) {
+        while (true) {
+            long h = head.get();
+            int run = 0;
+            while (run < max && sequence((int) (h + run) & mask) == h + run + 1) {
+                run++;
+            }
+            if (run > 0) {
+                if (head.compareAndSet(h, h + run)) {
+                    for (int i = 0; i < run; i++) {
+                        target.add(take((int) (h + i) & mask, h + i));
+                    }
+                    return run;
+                }
+                continue;
+            }
+            if (sequence((int) h & mask) > h + 1) {
+                continue; // another consumer moved the cursor
+            }
+            long t = tail.get();
+            if ((t & CLOSED) != 0 && h >= (t & ~CLOSED)) {
+                return -1;
+            }
+            if (!timed) {
+                if (!await(consumerWait, consumerReady)) {
+                    return -1;
+                }
+                continue;
+            }
+            long remaining = deadlineNanos - System.nanoTime();
+            try {
+                if (remaining <= 0 || !consumerWait.awaitNanos(consumerReady, remaining)) {
+                    return 0;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Shuts down the queue so that no new orders can be added, then cancels and
+     * returns every order that was accepted but not yet taken.
+     * Threads waiting in addOrder or getNextOrder are released.
+     *
+     * @return a list of all cancelled orders
+     */
+    @Override
+    public List<Order> shutdown() {
+        long end = tail.getAndBitwiseOr(CLOSED) & ~CLOSED;
+        consumerWait.signalAll();
+        producerWait.signalAll();
+
+        List<Order> cancelled = new ArrayList<>();
+        while (true) {
+            long h = head.get();
+            if (h >= end) {
+                break;
+            }
+            if (head.compareAndSet(h, h + 1)) {
+                int index = (int) h & mask;
+                // The producer claimed this position before we closed; wait for it to publish
+                while (sequence(index) != h + 1) {
+                    Thread.onSpinWait();
+                }
+                Order order = take(index, h);
+                order.setStatus(OrderStatus.CANCELLED);
+                cancelled.add(order);
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Accepts new orders again after {@link #shutdown()} by clearing the
+     * closed bit. Shutdown has drained the ring up to the final position, so
+     * both cursors already agree on where to carry on. Must not be called
+     * while any thread is using the queue.
+     */
+    @Override
+    public void reopen() {
+        long t = tail.get();
+        if ((t & CLOSED) != 0) {
+            tail.compareAndSet(t, t & ~CLOSED);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the queue counters read from the two cursors.
+     *
+     * @return total and pending order counts
+     */
+    @Override
+    public Statistics getStatistics() {
+        long h = head.get();
+        long t = tail.get() & ~CLOSED;
+        return new Statistics(t, t - h);
+    }
+
+    private Order take(int index, long position) {
+        Order order = buffer[index];
+        buffer[index] = null;
+        publish(index, position + mask + 1);
+        producerWait.signalAll();
+        return order;
+    }
+
+    private long sequence(int index) {
+        return (long) SEQUENCE.getAcquire(sequences, index);
+    }
+
+    private void publish(int index, long sequence) {
+        SEQUENCE.setRelease(sequences, index, sequence);
+    }
+
+    /**
+     * Counts how many consecutive positions starting at t are free, up to wanted.
+     */
+    private int freeRun(long t, int wanted) {
+        long limit = exactCapacity ? wanted : Math.min(wanted, getCapacity() - (t - head.get()));
+        int run = 0;
+        while (run < limit && sequence((int) (t + run) & mask) == t + run) {
+            run++;
+        }
+        return run;
+    }
+
+    private boolean hasSpace(long t) {
+        if (sequence((int) t & mask) != t) {
+            return false;
+        }
+        return exactCapacity || t - head.get() < getCapacity();
+    }
+
+    private boolean producerReady() {
+        long t = tail.get();
+        return (t & CLOSED) != 0 || hasSpace(t);
+    }
+
+    private boolean consumerReady() {
+        long h = head.get();
+        return sequence((int) h & mask) == h + 1 || (tail.get() & CLOSED) != 0;
+    }
+
+    private static boolean await(WaitStrategy strategy, BooleanSupplier ready) {
+        try {
+            strategy.await(ready);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
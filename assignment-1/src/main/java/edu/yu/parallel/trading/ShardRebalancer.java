@@ -0,0 +1,302 @@
+package edu.yu.parallel.trading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import edu.yu.parallel.model.SymbolDictionary;
+
+/**
+ * Moves symbols between the shards of a {@link ShardedOrderQueue} at runtime,
+ * so that a few heavily traded symbols do not saturate one market maker while
+ * the others sit idle.
+ *
+ * Each shard's market maker thread reports every batch it takes through
+ * {@link #afterBatch(int, int, long)}, from which the rebalancer knows how busy
+ * that thread is. The queue counts the orders routed for each symbol. A single
+ * monitoring thread calls {@link #rebalance()} periodically. When the busiest
+ * market maker is saturated and another has spare time, it picks the busiest
+ * symbol of the saturated shard whose move would narrow the gap between the
+ * two, and asks the saturated shard to hand that symbol over.
+ *
+ * The handover runs on the old owner's thread, between batches. It holds the
+ * symbol's book (see {@link MarketMaker#holdBook(int)}), routes the symbol's
+ * new orders to the new shard, and reads from its queue's statistics how many
+ * orders the queue has accepted and how many it has already given up, all of
+ * them matched since the thread is between batches. Orders the new owner
+ * takes for the symbol in the meantime are handed to the old owner and wait.
+ * Once the old owner has drained every
+ * order its queue accepted before the switch, it releases the book. The
+ * orders that waited are matched first, in the order they arrived, and the
+ * new owner carries on. The symbol's orders are therefore matched in queue
+ * order across the move. The exceptions are orders whose producer had already
+ * picked the old shard, but had not yet got them into its queue, at the
+ * instant of the switch. Those may be matched after newer ones.
+ *
+ * The market makers must share one {@link StripedOrderBooks}, and market
+ * maker i must consume shard i and be the only consumer of it. Only one
+ * handover is in progress at a time.
+ */
+public class ShardRebalancer {
+    private final static Logger logger = LogManager.getLogger(ShardRebalancer.class);
+
+    /**
+     * Share of its time a market maker must spend matching to count as
+     * saturated.
+     */
+    public static final double DEFAULT_SATURATION = 0.9;
+
+    /**
+     * How much less busy than the saturated market maker another must be to
+     * take a symbol from it.
+     */
+    private static final double MIN_UTILIZATION_GAP = 0.2;
+
+    private static final VarHandle MOVE_COUNT;
+
+    static {
+        try {
+            MOVE_COUNT = MethodHandles.lookup().findVarHandle(ShardRebalancer.class, "moveCount", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ShardedOrderQueue queue;
+    private final List<MarketMaker> marketMakers;
+    private final double saturation;
+    private final Shard[] shards;
+    private final int[] symbolIds;
+    private volatile long moveCount = 0;
+
+    /**
+     * State of the last call to rebalance, used only by the calling thread.
+     */
+    private long lastSampleNanos;
+    private final long[] lastArrivals;
+
+    /**
+     * Constructs a rebalancer with the default saturation threshold.
+     *
+     * @param queue        the sharded queue (must not be null)
+     * @param marketMakers one market maker per shard, in shard order, all built
+     *                     on the same {@link StripedOrderBooks} (must not be
+     *                     null)
+     * @throws IllegalArgumentException if an argument is null or there is not
+     *                                  one market maker per shard
+     */
+    public ShardRebalancer(ShardedOrderQueue queue, List<MarketMaker> marketMakers) {
+        this(queue, marketMakers, DEFAULT_SATURATION);
+    }
+
+    /**
+     * Constructs a rebalancer.
+     *
+     * @param queue        the sharded queue (must not be null)
+     * @param marketMakers one market maker per shard, in shard order, all built
+     *                     on the same {@link StripedOrderBooks} (must not be
+     *                     null)
+     * @param saturation   share of its time, between 0 and 1, a market maker
+     *                     must spend matching before symbols are moved off it
+     * @throws IllegalArgumentException if an argument is null or out of range,
+     *                                  or there is not one market maker per
+     *                                  shard
+     */
+    public ShardRebalancer(ShardedOrderQueue queue, List<MarketMaker> marketMakers, double saturation) {
+        if (queue == null || marketMakers == null) {
+            throw new IllegalArgumentException("Arguments must not be null");
+        }
+        if (marketMakers.size() != queue.getShardCount()) {
+            throw new IllegalArgumentException("Need one market maker per shard");
+        }
+        if (!(saturation > 0 && saturation <= 1)) {
+            throw new IllegalArgumentException("Saturation must be between 0 and 1");
+        }
+        this.queue = queue;
+        this.marketMakers = List.copyOf(marketMakers);
+        this.saturation = saturation;
+        this.shards = new Shard[queue.getShardCount()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+        List<String> symbols = queue.getSymbols();
+        this.symbolIds = new int[symbols.size()];
+        for (int i = 0; i < symbolIds.length; i++) {
+            symbolIds[i] = SymbolDictionary.getInstance().find(symbols.get(i));
+        }
+        this.lastArrivals = new long[symbolIds.length];
+        this.lastSampleNanos = System.nanoTime();
+    }
+
+    /**
+     * Reports a batch taken from a shard's queue and carries on with any
+     * handover the shard has been asked for. Must be called by the shard's
+     * market maker thread after every batch.
+     *
+     * @param shard     the shard index
+     * @param drained   number of orders taken from the shard's queue
+     * @param busyNanos time spent matching the batch
+     */
+    public void afterBatch(int shard, int drained, long busyNanos) {
+        Shard state = shards[shard];
+        state.drained += drained;
+        state.busyNanos += busyNanos;
+        Handover handover = state.handover;
+        if (handover == null) {
+            return;
+        }
+        MarketMaker marketMaker = marketMakers.get(shard);
+        if (handover.fence < 0) {
+            marketMaker.holdBook(handover.symbolId);
+            queue.moveSymbol(handover.symbolId, handover.toShard);
+            // Only this thread takes from the queue, and it is between batches, so
+            // every order the queue has given up so far has been matched
+            OrderQueue.Statistics statistics = queue.getShard(shard).getStatistics();
+            handover.fence = statistics.totalCount();
+            state.drained = statistics.totalCount() - statistics.pendingCount();
+        }
+        if (state.drained >= handover.fence) {
+            marketMaker.releaseBook(handover.symbolId);
+            state.handover = null;
+            MOVE_COUNT.getAndAdd(this, 1L);
+            logger.info("Moved " + SymbolDictionary.getInstance().symbolOf(handover.symbolId) + " from shard "
+                    + shard + " to shard " + handover.toShard);
+        }
+    }
+
+    /**
+     * Measures every market maker's utilization and every symbol's arrival
+     * rate since the previous call, and asks a saturated shard to hand a
+     * symbol to the least busy one if that would even out the load. Must be
+     * called from one thread only.
+     */
+    public void rebalance() {
+        long now = System.nanoTime();
+        long elapsed = Math.max(1, now - lastSampleNanos);
+        lastSampleNanos = now;
+        double[] utilization = new double[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            long busy = shards[i].busyNanos;
+            utilization[i] = (double) (busy - shards[i].lastBusyNanos) / elapsed;
+            shards[i].lastBusyNanos = busy;
+        }
+        long[] arrivals = new long[symbolIds.length];
+        for (int i = 0; i < symbolIds.length; i++) {
+            long count = queue.getArrivalCount(symbolIds[i]);
+            arrivals[i] = count - lastArrivals[i];
+            lastArrivals[i] = count;
+        }
+        for (Shard shard : shards) {
+            if (shard.handover != null) {
+                return;
+            }
+        }
+
+        int hot = 0;
+        int cold = 0;
+        for (int i = 1; i < shards.length; i++) {
+            if (utilization[i] > utilization[hot]) {
+                hot = i;
+            }
+            if (utilization[i] < utilization[cold]) {
+                cold = i;
+            }
+        }
+        if (utilization[hot] < saturation || utilization[hot] - utilization[cold] < MIN_UTILIZATION_GAP) {
+            return;
+        }
+        long[] load = new long[shards.length];
+        int[] owner = new int[symbolIds.length];
+        int hotSymbols = 0;
+        for (int i = 0; i < symbolIds.length; i++) {
+            owner[i] = queue.shardFor(symbolIds[i]);
+            load[owner[i]] += arrivals[i];
+            if (owner[i] == hot) {
+                hotSymbols++;
+            }
+        }
+        // Move the busiest symbol that still leaves the cold shard less loaded than the hot one was
+        int best = -1;
+        for (int i = 0; i < symbolIds.length; i++) {
+            if (owner[i] == hot && arrivals[i] > 0 && arrivals[i] < load[hot] - load[cold]
+                    && (best < 0 || arrivals[i] > arrivals[best])) {
+                best = i;
+            }
+        }
+        if (best < 0 || hotSymbols < 2) {
+            return;
+        }
+        move(symbolIds[best], cold);
+    }
+
+    /**
+     * Asks the shard that owns a symbol to hand it to another shard, unless a
+     * handover is already in progress. Must be called from the thread that
+     * calls {@link #rebalance()}.
+     *
+     * @param symbolId the symbol ID
+     * @param toShard  the shard to move the symbol to
+     * @return true if the handover was requested
+     * @throws IllegalArgumentException if the symbol is not routed by the
+     *                                  queue or toShard is out of range
+     */
+    boolean move(int symbolId, int toShard) {
+        if (toShard < 0 || toShard >= shards.length) {
+            throw new IllegalArgumentException("Shard out of range: " + toShard);
+        }
+        int fromShard = queue.shardFor(symbolId);
+        if (fromShard == toShard) {
+            return false;
+        }
+        for (Shard shard : shards) {
+            if (shard.handover != null) {
+                return false;
+            }
+        }
+        shards[fromShard].handover = new Handover(symbolId, toShard);
+        return true;
+    }
+
+    /**
+     * Gets the number of symbols moved so far.
+     *
+     * @return move count
+     */
+    public long getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * A symbol being handed from one shard to another.
+     */
+    private static final class Handover {
+        final int symbolId;
+        final int toShard;
+
+        /**
+         * Orders the old shard's queue had accepted when the symbol was
+         * rerouted; -1 until then. Used only by the old shard's thread.
+         */
+        long fence = -1;
+
+        Handover(int symbolId, int toShard) {
+            this.symbolId = symbolId;
+            this.toShard = toShard;
+        }
+    }
+
+    /**
+     * Per-shard counters. Written by the shard's market maker thread, except
+     * that rebalance sets handover and keeps lastBusyNanos. drained counts
+     * only the batches since the current handover started.
+     */
+    private static final class Shard {
+        long drained;
+        volatile long busyNanos;
+        long lastBusyNanos;
+        volatile Handover handover;
+    }
+}
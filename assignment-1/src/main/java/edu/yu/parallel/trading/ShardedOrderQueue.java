@@ -0,0 +1,343 @@
+package edu.yu.parallel.trading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.util.PaddedSequence;
+
+/**
+ * The producer side of a queue that routes each order by symbol to one of
+ * several per-shard inbound {@link OrderQueue}s.
+ *
+ * Every symbol belongs to exactly one shard, so a market maker thread that
+ * consumes a shard's queue is the only writer of that shard's books and
+ * matching needs no locks. Producers call {@link #addOrder(Order)} on this
+ * queue as usual; consumers take from {@link #getShard(int)}, as this queue
+ * has no take side of its own.
+ *
+ * Statistics are summed over the shards. Each shard's counters are consistent
+ * on their own; the sum is not an atomic snapshot across shards. The queue
+ * also counts the orders routed for each symbol, so that the load of each
+ * symbol can be measured.
+ *
+ * Symbols start out dealt round-robin across the shards and can be moved to
+ * another shard while orders flow (see {@link #moveSymbol(int, int)}). Moving
+ * a symbol only changes where its new orders go; handing its book from the
+ * old shard's market maker to the new one is up to the caller, as
+ * {@link ShardRebalancer} does.
+ */
+public class ShardedOrderQueue implements OrderSink {
+    private static final VarHandle SHARD = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final OrderQueue[] shards;
+
+    /**
+     * Symbols traded here, in the order given.
+     */
+    private final List<String> symbols;
+
+    /**
+     * Shard index by {@link SymbolDictionary} ID; -1 for symbols not traded
+     * here. Elements are read and written through {@link #SHARD} with volatile
+     * semantics, as symbols move while orders are routed.
+     */
+    private final int[] shardBySymbolId;
+
+    /**
+     * Orders routed per {@link SymbolDictionary} ID, each counter on its own
+     * cache line since producers of different symbols bump them at once; null
+     * for symbols not traded here.
+     */
+    private final PaddedSequence[] arrivals;
+
+    /**
+     * Constructs a sharded queue whose shards have unlimited capacity.
+     *
+     * @param symbols    all symbols that will be traded (must not be null or empty)
+     * @param shardCount number of shards (between 1 and symbols.length)
+     * @throws IllegalArgumentException if any argument is invalid
+     */
+    public ShardedOrderQueue(String[] symbols, int shardCount) {
+        this(symbols, shardCount, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a sharded queue whose shards are plain OrderQueues. Symbols are
+     * dealt round-robin across shards in the order given.
+     *
+     * @param symbols          all symbols that will be traded (must not be null or empty)
+     * @param shardCount       number of shards (between 1 and symbols.length)
+     * @param capacityPerShard maximum number of pending orders per shard
+     * @throws IllegalArgumentException if any argument is invalid
+     */
+    public ShardedOrderQueue(String[] symbols, int shardCount, int capacityPerShard) {
+        this(symbols, shardCount, shard -> new OrderQueue(capacityPerShard));
+    }
+
+    /**
+     * Constructs a sharded queue whose shard queues are created by the given
+     * factory, e.g. to use a {@link RingBufferOrderQueue} per shard. Symbols are
+     * dealt round-robin across shards in the order given.
+     *
+     * @param symbols      all symbols that will be traded (must not be null or empty)
+     * @param shardCount   number of shards (between 1 and symbols.length)
+     * @param shardFactory creates the inbound queue for each shard index
+     * @throws IllegalArgumentException if any argument is invalid
+     */
+    public ShardedOrderQueue(String[] symbols, int shardCount, IntFunction<OrderQueue> shardFactory) {
+        this(symbols, createShards(symbols, shardCount, shardFactory));
+    }
+
+    private ShardedOrderQueue(String[] symbols, OrderQueue[] shards) {
+        this.shards = shards;
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        int maxId = 0;
+        for (String symbol : symbols) {
+            maxId = Math.max(maxId, dictionary.idOf(symbol));
+        }
+        int[] assigned = new int[maxId + 1];
+        Arrays.fill(assigned, -1);
+        this.arrivals = new PaddedSequence[maxId + 1];
+        for (int i = 0; i < symbols.length; i++) {
+            int symbolId = dictionary.idOf(symbols[i]);
+            if (assigned[symbolId] != -1) {
+                throw new IllegalArgumentException("Duplicate symbol: " + symbols[i]);
+            }
+            assigned[symbolId] = i % shards.length;
+            arrivals[symbolId] = new PaddedSequence(0);
+        }
+        // Final field: published to other threads with the constructed queue
+        this.shardBySymbolId = assigned;
+        this.symbols = List.of(symbols);
+    }
+
+    private static OrderQueue[] createShards(String[] symbols, int shardCount, IntFunction<OrderQueue> shardFactory) {
+        if (symbols == null || symbols.length == 0) {
+            throw new IllegalArgumentException("Symbols must not be null or empty");
+        }
+        if (shardCount < 1 || shardCount > symbols.length) {
+            throw new IllegalArgumentException("Shard count must be between 1 and the number of symbols");
+        }
+        if (shardFactory == null) {
+            throw new IllegalArgumentException("Shard factory must not be null");
+        }
+        OrderQueue[] shards = new OrderQueue[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = shardFactory.apply(i);
+            if (shards[i] == null) {
+                throw new IllegalArgumentException("Shard factory must not return null");
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return shard count
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Gets the inbound queue for a shard.
+     *
+     * @param shard shard index
+     * @return the shard's queue
+     */
+    public OrderQueue getShard(int shard) {
+        return shards[shard];
+    }
+
+    /**
+     * Gets the symbols a shard owns at the moment.
+     *
+     * @param shard shard index
+     * @return unmodifiable list of symbols
+     */
+    public List<String> getShardSymbols(int shard) {
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        List<String> owned = new ArrayList<>();
+        for (String symbol : symbols) {
+            if ((int) SHARD.getVolatile(shardBySymbolId, dictionary.find(symbol)) == shard) {
+                owned.add(symbol);
+            }
+        }
+        return Collections.unmodifiableList(owned);
+    }
+
+    /**
+     * Gets every symbol traded through this queue.
+     *
+     * @return unmodifiable list of symbols, in the order given
+     */
+    public List<String> getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Routes a symbol's new orders to another shard. Orders already in the old
+     * shard's queue stay there.
+     *
+     * @param symbolId the symbol ID
+     * @param shard    the shard to route to
+     * @return the shard the symbol was routed to before
+     * @throws IllegalArgumentException if the symbol or shard is unknown
+     */
+    public int moveSymbol(int symbolId, int shard) {
+        if (shard < 0 || shard >= shards.length) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        shardFor(symbolId);
+        return (int) SHARD.getAndSet(shardBySymbolId, symbolId, shard);
+    }
+
+    /**
+     * Gets the number of orders routed for a symbol so far.
+     *
+     * @param symbolId the symbol ID
+     * @return arrival count
+     * @throws IllegalArgumentException if the symbol is unknown
+     */
+    public long getArrivalCount(int symbolId) {
+        shardFor(symbolId);
+        return arrivals[symbolId].get();
+    }
+
+    /**
+     * Gets the shard that owns a symbol.
+     *
+     * @param symbol the stock symbol
+     * @return shard index
+     * @throws IllegalArgumentException if the symbol is unknown
+     */
+    public int shardFor(String symbol) {
+        int symbolId = SymbolDictionary.getInstance().find(symbol);
+        int shard = symbolId >= 0 && symbolId < shardBySymbolId.length
+                ? (int) SHARD.getVolatile(shardBySymbolId, symbolId)
+                : -1;
+        if (shard < 0) {
+            throw new IllegalArgumentException("Unknown symbol: " + symbol);
+        }
+        return shard;
+    }
+
+    /**
+     * Gets the shard that owns a symbol given by its {@link SymbolDictionary}
+     * ID.
+     *
+     * @param symbolId the symbol ID
+     * @return shard index
+     * @throws IllegalArgumentException if the symbol is unknown
+     */
+    public int shardFor(int symbolId) {
+        int shard = symbolId >= 0 && symbolId < shardBySymbolId.length
+                ? (int) SHARD.getVolatile(shardBySymbolId, symbolId)
+                : -1;
+        if (shard < 0) {
+            throw new IllegalArgumentException("Unknown symbol ID: " + symbolId);
+        }
+        return shard;
+    }
+
+    /**
+     * Routes the order to the queue of the shard that owns its symbol, blocking
+     * if that shard is full.
+     *
+     * @param order the order to add
+     * @throws IllegalArgumentException if the order is not in the NEW state or
+     *                                  its symbol is unknown
+     * @throws IllegalStateException    if the queue has been shut down
+     */
+    @Override
+    public void addOrder(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order must be non-null and in NEW state");
+        }
+        int shard = shardFor(order.getSymbolId());
+        arrivals[order.getSymbolId()].getAndAdd(1);
+        shards[shard].addOrder(order);
+    }
+
+    /**
+     * Splits the batch by shard, preserving order within each shard, and adds
+     * each part to its shard in one call.
+     *
+     * @param batch the orders to add
+     * @return the number of orders added
+     * @throws IllegalArgumentException if batch is null, any order is not in the
+     *                                  NEW state or any symbol is unknown
+     * @throws IllegalStateException    if the queue has been shut down
+     */
+    @Override
+    public int addOrders(Collection<Order> batch) {
+        OrderQueue.validateBatch(batch);
+        List<List<Order>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (Order order : batch) {
+            parts.get(shardFor(order.getSymbolId())).add(order);
+            arrivals[order.getSymbolId()].getAndAdd(1);
+        }
+        int added = 0;
+        for (int i = 0; i < shards.length && !Thread.currentThread().isInterrupted(); i++) {
+            if (!parts.get(i).isEmpty()) {
+                added += shards[i].addOrders(parts.get(i));
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Shuts down every shard and returns all of their pending orders, cancelled.
+     *
+     * @return a list of all cancelled orders
+     */
+    @Override
+    public List<Order> shutdown() {
+        List<Order> cancelled = new ArrayList<>();
+        for (OrderQueue shard : shards) {
+            cancelled.addAll(shard.shutdown());
+        }
+        return cancelled;
+    }
+
+    /**
+     * Reopens every shard after {@link #shutdown()}. Symbols stay on the
+     * shards they were last moved to. Must not be called while any thread is
+     * using the queue.
+     */
+    @Override
+    public void reopen() {
+        for (OrderQueue shard : shards) {
+            shard.reopen();
+        }
+    }
+
+    /**
+     * Sums the statistics of all shards.
+     *
+     * @return total and pending order counts across shards
+     */
+    @Override
+    public OrderQueue.Statistics getStatistics() {
+        long total = 0;
+        long pending = 0;
+        for (OrderQueue shard : shards) {
+            OrderQueue.Statistics statistics = shard.getStatistics();
+            total += statistics.totalCount();
+            pending += statistics.pendingCount();
+        }
+        return new OrderQueue.Statistics(total, pending);
+    }
+}
@@ -0,0 +1,207 @@
+package edu.yu.parallel.trading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.List;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.SymbolDictionary;
+
+/**
+ * One {@link OrderBook} per symbol, shared by several market makers that pull
+ * from the same queue.
+ *
+ * Each symbol is a stripe with its own owner token. A market maker that takes
+ * the token has the book to itself until it gives the token back. A market
+ * maker that finds the token taken does not wait for it: it hands the order to
+ * the stripe, and whichever market maker owns the stripe matches the order
+ * before giving the token back. The owner checks for handed-off orders again
+ * after releasing and takes the token back if one slipped in, so no order is
+ * left behind. Market makers therefore never block one another over a book,
+ * and a busy symbol is worked by one thread at a time while the others go on
+ * with the rest of their batches. An owner matches the orders handed to it
+ * before its own, so each market maker's orders for a symbol are matched in
+ * the order it took them.
+ *
+ * The owner token is a flag taken with a compare-and-set. Handed-off orders
+ * wait in a deque guarded by the stripe's monitor, which only a market maker
+ * that lost the race for the token, or the owner emptying it, ever locks.
+ *
+ * Stripes are used through a {@link MarketMaker} built on this object (see
+ * {@link MarketMaker#MarketMaker(StripedOrderBooks, ExecutedOrders, boolean,
+ * edu.yu.parallel.util.IdGenerator, TopOfBookFeed)}).
+ */
+public class StripedOrderBooks {
+    private static final VarHandle OWNED;
+
+    static {
+        try {
+            OWNED = MethodHandles.lookup().findVarHandle(Stripe.class, "owned", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Stripes indexed by {@link SymbolDictionary} ID; null for symbols not
+     * handled.
+     */
+    private final Stripe[] stripes;
+
+    /**
+     * Constructs a book with its own owner token for each symbol.
+     *
+     * @param stockSymbols symbols to keep books for (must not be null or empty)
+     * @throws IllegalArgumentException if stockSymbols is null or empty
+     */
+    public StripedOrderBooks(List<String> stockSymbols) {
+        if (stockSymbols == null || stockSymbols.isEmpty()) {
+            throw new IllegalArgumentException("Stock symbols must not be null or empty");
+        }
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        int maxId = 0;
+        for (String symbol : stockSymbols) {
+            maxId = Math.max(maxId, dictionary.idOf(symbol));
+        }
+        this.stripes = new Stripe[maxId + 1];
+        for (String symbol : stockSymbols) {
+            stripes[dictionary.idOf(symbol)] = new Stripe(new OrderBook(symbol));
+        }
+    }
+
+    /**
+     * Gets the book for the given symbol. The book may only be read while no
+     * market maker is running on it.
+     *
+     * @param symbol the stock symbol
+     * @return the book, or null if the symbol is not handled
+     */
+    public OrderBook getBook(String symbol) {
+        Stripe stripe = stripe(SymbolDictionary.getInstance().find(symbol));
+        return stripe == null ? null : stripe.book;
+    }
+
+    /**
+     * Gets the number of orders market makers have handed to another market
+     * maker because the symbol's book was busy.
+     *
+     * @return hand-off count
+     */
+    public long getHandOffCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            if (stripe != null) {
+                count += stripe.getHandOffCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the stripe for a symbol.
+     *
+     * @param symbolId the symbol ID
+     * @return the stripe, or null if the symbol is not handled
+     */
+    Stripe stripe(int symbolId) {
+        return symbolId >= 0 && symbolId < stripes.length ? stripes[symbolId] : null;
+    }
+
+    /**
+     * Gets the number of stripe slots, one more than the highest symbol ID
+     * handled.
+     *
+     * @return stripe array length
+     */
+    int size() {
+        return stripes.length;
+    }
+
+    /**
+     * A symbol's book, its owner token and the orders handed to its owner.
+     */
+    static final class Stripe {
+        final OrderBook book;
+
+        /**
+         * Owner token, accessed through {@link #OWNED}.
+         */
+        private volatile boolean owned = false;
+
+        /**
+         * Handed-off orders and the number ever handed off, guarded by this.
+         */
+        private final ArrayDeque<Order> handOffs = new ArrayDeque<>();
+        private long handOffCount = 0;
+
+        /**
+         * Size of handOffs, written under this and read without a lock. A
+         * market maker writes it before reading the token and the owner
+         * clears the token before reading it, both with volatile accesses, so
+         * at least one of them sees the other.
+         */
+        private volatile int pending = 0;
+
+        private Stripe(OrderBook book) {
+            this.book = book;
+        }
+
+        /**
+         * Takes the owner token if no one holds it.
+         *
+         * @return true if the caller now owns the book
+         */
+        boolean tryAcquire() {
+            return !owned && OWNED.compareAndSet(this, false, true);
+        }
+
+        /**
+         * Gives the owner token back. The caller must then check
+         * {@link #hasHandOffs()} and, if true, try to take the token again.
+         */
+        void release() {
+            owned = false;
+        }
+
+        /**
+         * Leaves an order for the owner to match.
+         *
+         * @param order the order
+         */
+        synchronized void handOff(Order order) {
+            handOffs.addLast(order);
+            handOffCount++;
+            pending = handOffs.size();
+        }
+
+        /**
+         * Takes the next handed-off order. Only the owner may call this.
+         *
+         * @return the order, or null if there is none
+         */
+        Order pollHandOff() {
+            if (pending == 0) {
+                return null;
+            }
+            synchronized (this) {
+                Order order = handOffs.pollFirst();
+                pending = handOffs.size();
+                return order;
+            }
+        }
+
+        /**
+         * Checks whether orders are waiting for an owner.
+         *
+         * @return true if any order has been handed off and not yet taken
+         */
+        boolean hasHandOffs() {
+            return pending > 0;
+        }
+
+        private synchronized long getHandOffCount() {
+            return handOffCount;
+        }
+    }
+}
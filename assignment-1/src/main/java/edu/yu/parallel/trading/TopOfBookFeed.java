@@ -0,0 +1,193 @@
+package edu.yu.parallel.trading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+import edu.yu.parallel.model.Price;
+import edu.yu.parallel.model.SymbolDictionary;
+
+/**
+ * Conflating market data feed holding the latest best bid, best ask and last
+ * trade price for each symbol.
+ *
+ * Market makers publish after every order they match, and each publish simply
+ * overwrites the symbol's single slot, so a reader always sees the latest
+ * quote and never the updates it missed in between. Each slot is a small
+ * seqlock like the cells of {@link ExecutedOrders}: a publisher claims the slot
+ * by moving its sequence from even to odd and releases it with the next even
+ * value, and readers retry until they see the same even sequence before and
+ * after reading, so a quote never mixes two publishes. Readers never lock and
+ * never hold up a market maker.
+ *
+ * When several market makers share one queue with books of their own, the
+ * slot holds the top of whichever book was published last; on
+ * {@link StripedOrderBooks} there is only one book per symbol.
+ */
+public class TopOfBookFeed {
+    /**
+     * The latest top of book for one symbol. Prices are NaN and quantities 0
+     * for a side with no resting orders; last is NaN until the first trade.
+     *
+     * @param bid          best bid price
+     * @param bidQuantity  total quantity at the best bid
+     * @param ask          best ask price
+     * @param askQuantity  total quantity at the best ask
+     * @param last         last trade price
+     * @param publishCount number of publishes for the symbol so far
+     */
+    public record Quote(double bid, long bidQuantity, double ask, long askQuantity, double last, long publishCount) {
+    }
+
+    /**
+     * Slots indexed by {@link SymbolDictionary} ID; null for symbols never
+     * published. Replaced, never mutated in place, when a slot is added.
+     */
+    private volatile Slot[] slots = new Slot[0];
+
+    /**
+     * Publishes the top of a book, replacing the symbol's previous quote.
+     *
+     * @param symbolId    the symbol ID
+     * @param bidTicks    best bid in ticks, or {@link Price#NO_TICKS}
+     * @param bidQuantity total quantity at the best bid
+     * @param askTicks    best ask in ticks, or {@link Price#NO_TICKS}
+     * @param askQuantity total quantity at the best ask
+     * @param lastTicks   price in ticks of the last trade since the previous
+     *                    publish, or {@link Price#NO_TICKS} to keep the
+     *                    previous last trade price
+     */
+    public void publish(int symbolId, long bidTicks, long bidQuantity, long askTicks, long askQuantity,
+            long lastTicks) {
+        Slot slot = slotFor(symbolId);
+        long seq;
+        while (((seq = slot.seq) & 1) != 0 || !Slot.SEQ.compareAndSet(slot, seq, seq + 1)) {
+            Thread.onSpinWait();
+        }
+        Slot.BID.setOpaque(slot, bidTicks);
+        Slot.BID_QUANTITY.setOpaque(slot, bidQuantity);
+        Slot.ASK.setOpaque(slot, askTicks);
+        Slot.ASK_QUANTITY.setOpaque(slot, askQuantity);
+        if (lastTicks != Price.NO_TICKS) {
+            Slot.LAST.setOpaque(slot, lastTicks);
+        }
+        Slot.SEQ.setRelease(slot, seq + 2);
+    }
+
+    /**
+     * Gets the latest quote for a symbol.
+     *
+     * @param symbolId the symbol ID
+     * @return the quote, or null if nothing was published for the symbol
+     */
+    public Quote getQuote(int symbolId) {
+        Slot slot = slot(symbolId);
+        if (slot == null) {
+            return null;
+        }
+        double tickSize = SymbolDictionary.getInstance().tickSize(symbolId);
+        while (true) {
+            long before = (long) Slot.SEQ.getAcquire(slot);
+            long bid = (long) Slot.BID.getOpaque(slot);
+            long bidQuantity = (long) Slot.BID_QUANTITY.getOpaque(slot);
+            long ask = (long) Slot.ASK.getOpaque(slot);
+            long askQuantity = (long) Slot.ASK_QUANTITY.getOpaque(slot);
+            long last = (long) Slot.LAST.getOpaque(slot);
+            VarHandle.acquireFence();
+            if ((before & 1) == 0 && before == (long) Slot.SEQ.getOpaque(slot)) {
+                return new Quote(toPrice(bid, tickSize), bidQuantity, toPrice(ask, tickSize), askQuantity,
+                        toPrice(last, tickSize), before >>> 1);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Gets a reference price for a symbol without allocating: the mid price
+     * when both sides are quoted, otherwise the last trade price.
+     *
+     * @param symbolId the symbol ID
+     * @return the reference price, or NaN if there is neither a two-sided
+     *         quote nor a trade
+     */
+    public double getReferencePrice(int symbolId) {
+        Slot slot = slot(symbolId);
+        if (slot == null) {
+            return Double.NaN;
+        }
+        while (true) {
+            long before = (long) Slot.SEQ.getAcquire(slot);
+            long bid = (long) Slot.BID.getOpaque(slot);
+            long ask = (long) Slot.ASK.getOpaque(slot);
+            long last = (long) Slot.LAST.getOpaque(slot);
+            VarHandle.acquireFence();
+            if ((before & 1) == 0 && before == (long) Slot.SEQ.getOpaque(slot)) {
+                double tickSize = SymbolDictionary.getInstance().tickSize(symbolId);
+                if (bid != Price.NO_TICKS && ask != Price.NO_TICKS) {
+                    return Price.toPrice(bid + ask, tickSize) / 2;
+                }
+                return toPrice(last, tickSize);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static double toPrice(long ticks, double tickSize) {
+        return ticks == Price.NO_TICKS ? Double.NaN : Price.toPrice(ticks, tickSize);
+    }
+
+    private Slot slot(int symbolId) {
+        Slot[] current = slots;
+        return symbolId >= 0 && symbolId < current.length ? current[symbolId] : null;
+    }
+
+    private Slot slotFor(int symbolId) {
+        Slot slot = slot(symbolId);
+        return slot != null ? slot : createSlot(symbolId);
+    }
+
+    private synchronized Slot createSlot(int symbolId) {
+        Slot[] current = slots;
+        if (symbolId < current.length && current[symbolId] != null) {
+            return current[symbolId];
+        }
+        Slot[] grown = Arrays.copyOf(current,
+                Math.max(symbolId + 1, Math.max(current.length, SymbolDictionary.getInstance().size())));
+        grown[symbolId] = new Slot();
+        slots = grown;
+        return grown[symbolId];
+    }
+
+    /**
+     * One symbol's quote, guarded by seq.
+     */
+    private static final class Slot {
+        static final VarHandle SEQ;
+        static final VarHandle BID;
+        static final VarHandle BID_QUANTITY;
+        static final VarHandle ASK;
+        static final VarHandle ASK_QUANTITY;
+        static final VarHandle LAST;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                SEQ = lookup.findVarHandle(Slot.class, "seq", long.class);
+                BID = lookup.findVarHandle(Slot.class, "bid", long.class);
+                BID_QUANTITY = lookup.findVarHandle(Slot.class, "bidQuantity", long.class);
+                ASK = lookup.findVarHandle(Slot.class, "ask", long.class);
+                ASK_QUANTITY = lookup.findVarHandle(Slot.class, "askQuantity", long.class);
+                LAST = lookup.findVarHandle(Slot.class, "last", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile long seq;
+        private long bid = Price.NO_TICKS;
+        private long bidQuantity;
+        private long ask = Price.NO_TICKS;
+        private long askQuantity;
+        private long last = Price.NO_TICKS;
+    }
+}
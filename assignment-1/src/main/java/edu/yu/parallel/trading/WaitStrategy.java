@@ -0,0 +1,269 @@
+package edu.yu.parallel.trading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a thread waits for a lock-free queue to become ready (non-empty for a
+ * consumer, non-full for a producer).
+ *
+ * The strategies trade latency for CPU: busy-spin reacts fastest but burns a
+ * core per waiter, blocking costs a wake-up but uses no CPU while idle.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Returns once ready reports true.
+     *
+     * @param ready condition to wait for; re-evaluated on every wake-up
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    void await(BooleanSupplier ready) throws InterruptedException;
+
+    /**
+     * Returns once ready reports true or the timeout has elapsed.
+     *
+     * @param ready        condition to wait for; re-evaluated on every wake-up
+     * @param timeoutNanos how long to wait at most
+     * @return true if ready reported true, false if the timeout elapsed first
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    boolean awaitNanos(BooleanSupplier ready, long timeoutNanos) throws InterruptedException;
+
+    /**
+     * Called after every state change that may make a waiter ready.
+     * Must be cheap when nobody is waiting. The state change may have been
+     * published with only release semantics, so a strategy that blocks must
+     * fence before it looks for waiters.
+     */
+    void signalAll();
+
+    /**
+     * Spins on the condition with {@link Thread#onSpinWait()}.
+     *
+     * @return a busy-spin strategy
+     */
+    static WaitStrategy busySpin() {
+        return new BusySpin();
+    }
+
+    /**
+     * Spins briefly, then yields the processor between checks.
+     *
+     * @return a yielding strategy
+     */
+    static WaitStrategy yielding() {
+        return new Yielding();
+    }
+
+    /**
+     * Spins, then yields, then sleeps for a short interval between checks.
+     * Producers never have to signal.
+     *
+     * @return a parking strategy
+     */
+    static WaitStrategy parking() {
+        return new Parking();
+    }
+
+    /**
+     * Blocks on a monitor until signalled.
+     *
+     * @return a blocking strategy
+     */
+    static WaitStrategy blocking() {
+        return new Blocking();
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public void await(BooleanSupplier ready) throws InterruptedException {
+            while (!ready.getAsBoolean()) {
+                checkInterrupted();
+                Thread.onSpinWait();
+            }
+        }
+
+        @Override
+        public boolean awaitNanos(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (!ready.getAsBoolean()) {
+                checkInterrupted();
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                Thread.onSpinWait();
+            }
+            return true;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    final class Yielding implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        public void await(BooleanSupplier ready) throws InterruptedException {
+            int tries = 0;
+            while (!ready.getAsBoolean()) {
+                checkInterrupted();
+                if (tries++ < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        @Override
+        public boolean awaitNanos(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            int tries = 0;
+            while (!ready.getAsBoolean()) {
+                checkInterrupted();
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                if (tries++ < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    final class Parking implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 200;
+        private static final int SLEEP_NANOS = 50_000;
+
+        @Override
+        public void await(BooleanSupplier ready) throws InterruptedException {
+            int tries = 0;
+            while (!ready.getAsBoolean()) {
+                checkInterrupted();
+                if (tries < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (tries < YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    Thread.sleep(0, SLEEP_NANOS);
+                }
+                tries++;
+            }
+        }
+
+        @Override
+        public boolean awaitNanos(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            int tries = 0;
+            while (!ready.getAsBoolean()) {
+                checkInterrupted();
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                if (tries < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (tries < YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    Thread.sleep(0, (int) Math.min(remaining, SLEEP_NANOS));
+                }
+                tries++;
+            }
+            return true;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+
+    final class Blocking implements WaitStrategy {
+        private static final VarHandle WAITERS;
+
+        static {
+            try {
+                WAITERS = MethodHandles.lookup().findVarHandle(Blocking.class, "waiters", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final Object mutex = new Object();
+        private volatile int waiters = 0;
+
+        @Override
+        public void await(BooleanSupplier ready) throws InterruptedException {
+            if (ready.getAsBoolean()) {
+                return;
+            }
+            // Announce ourselves, then re-check. The announcement is a full fence and
+            // signalAll() fences between publishing and reading the count, so either
+            // the re-check sees the new state or the signaller sees this waiter.
+            WAITERS.getAndAdd(this, 1);
+            try {
+                synchronized (mutex) {
+                    while (!ready.getAsBoolean()) {
+                        mutex.wait();
+                    }
+                }
+            } finally {
+                WAITERS.getAndAdd(this, -1);
+            }
+        }
+
+        @Override
+        public boolean awaitNanos(BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            if (ready.getAsBoolean()) {
+                return true;
+            }
+            long deadline = System.nanoTime() + timeoutNanos;
+            // Announced and re-checked as in await()
+            WAITERS.getAndAdd(this, 1);
+            try {
+                synchronized (mutex) {
+                    while (!ready.getAsBoolean()) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            return false;
+                        }
+                        mutex.wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                    }
+                }
+                return true;
+            } finally {
+                WAITERS.getAndAdd(this, -1);
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            // The caller's release store may otherwise be reordered after this load,
+            // letting a waiter re-check stale state while we read a zero count
+            VarHandle.fullFence();
+            if (waiters > 0) {
+                synchronized (mutex) {
+                    mutex.notifyAll();
+                }
+            }
+        }
+    }
+}
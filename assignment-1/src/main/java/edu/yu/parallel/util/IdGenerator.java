@@ -2,14 +2,55 @@ package edu.yu.parallel.util;
 
 /**
  * Global singleton for generating unique integer trade IDs and order IDs.
+ *
+ * Each kind of ID has its own shared sequence on its own cache line. Threads do
+ * not take IDs from the shared sequence one at a time: each thread leases a
+ * block of consecutive IDs with a single atomic add and then hands them out
+ * from a thread-local lease without touching shared memory. So with a block
+ * size of B, threads meet on the shared line once every B IDs instead of on
+ * every ID.
+ *
+ * IDs are unique across all threads. Each thread's IDs increase, but IDs from
+ * different threads interleave in no particular order, and the unused part of
+ * a lease is lost when its thread ends. A block size of 1 takes every ID
+ * straight from the shared sequence, which makes IDs increase across all
+ * threads in allocation order.
+ *
+ * The singleton's block size is read from the system property
+ * {@value #BLOCK_SIZE_PROPERTY} and defaults to {@value #DEFAULT_BLOCK_SIZE}.
  */
 public class IdGenerator {
-    private static final IdGenerator INSTANCE = new IdGenerator();
-    private int tradeIdCounter = 0;
-    private int orderIdCounter = 0;
-    private int executionIdCounter = 0;
+    /**
+     * System property holding the singleton's block size.
+     */
+    public static final String BLOCK_SIZE_PROPERTY = "edu.yu.parallel.idBlockSize";
 
-    private IdGenerator() {}
+    /**
+     * Block size used when {@value #BLOCK_SIZE_PROPERTY} is not set.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private static final IdGenerator INSTANCE = new IdGenerator(Integer.getInteger(BLOCK_SIZE_PROPERTY, DEFAULT_BLOCK_SIZE));
+
+    private final IdSequence tradeIds;
+    private final IdSequence orderIds;
+    private final IdSequence executionIds;
+
+    /**
+     * Constructs a generator independent of the singleton, e.g. for
+     * benchmarks. Its IDs overlap with those of every other generator.
+     *
+     * @param blockSize number of IDs each thread leases at a time
+     * @throws IllegalArgumentException if blockSize is not positive
+     */
+    public IdGenerator(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.tradeIds = new IdSequence(blockSize);
+        this.orderIds = new IdSequence(blockSize);
+        this.executionIds = new IdSequence(blockSize);
+    }
 
     /**
      * Gets the singleton instance of IdGenerator.
@@ -22,24 +63,91 @@ public class IdGenerator {
     /**
      * Generates the next unique trade ID as an integer.
      * @return next trade ID
+     * @throws IllegalStateException if trade IDs are exhausted
      */
     public int nextTradeId() {
-        return ++tradeIdCounter;
+        return tradeIds.next();
     }
 
     /**
      * Generates the next unique execution ID as an integer.
      * @return next execution ID
+     * @throws IllegalStateException if execution IDs are exhausted
      */
     public int nextExecutionId() {
-        return ++executionIdCounter;
+        return executionIds.next();
     }
 
     /**
      * Generates the next unique order ID as an integer.
      * @return next order ID
+     * @throws IllegalStateException if order IDs are exhausted
      */
     public int nextOrderId() {
-        return ++orderIdCounter;
+        return orderIds.next();
+    }
+
+    /**
+     * Makes the order and execution IDs handed out from now on greater than
+     * the given ones, e.g. after restoring orders and executions from an
+     * earlier run. IDs a thread has already leased are still handed out, so
+     * this must be called before the threads that need fresh IDs take any.
+     *
+     * @param orderId     the highest order ID in use
+     * @param executionId the highest execution ID in use
+     */
+    public void skipPast(int orderId, int executionId) {
+        orderIds.skipPast(orderId);
+        executionIds.skipPast(executionId);
+    }
+
+    /**
+     * One kind of ID: a padded shared sequence of the next unleased ID plus
+     * each thread's current lease.
+     */
+    private static final class IdSequence {
+        private final int blockSize;
+        private final PaddedSequence sequence = new PaddedSequence(1);
+        private final ThreadLocal<Lease> leases = ThreadLocal.withInitial(Lease::new);
+
+        IdSequence(int blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        int next() {
+            if (blockSize == 1) {
+                return checked(sequence.getAndAdd(1));
+            }
+            Lease lease = leases.get();
+            if (lease.next == lease.limit) {
+                long start = sequence.getAndAdd(blockSize);
+                checked(start);
+                lease.next = start;
+                lease.limit = Math.min(start + blockSize, (long) Integer.MAX_VALUE + 1);
+            }
+            return (int) lease.next++;
+        }
+
+        void skipPast(int id) {
+            long current;
+            while ((current = sequence.get()) <= id && !sequence.compareAndSet(current, (long) id + 1)) {
+                Thread.onSpinWait();
+            }
+        }
+
+        private static int checked(long id) {
+            if (id > Integer.MAX_VALUE) {
+                throw new IllegalStateException("IDs exhausted");
+            }
+            return (int) id;
+        }
+    }
+
+    /**
+     * IDs [next, limit) leased by one thread.
+     */
+    private static final class Lease {
+        private long next;
+        private long limit;
     }
 }
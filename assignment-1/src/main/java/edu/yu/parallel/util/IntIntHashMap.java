@@ -0,0 +1,152 @@
+package edu.yu.parallel.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from int keys to non-zero int values, with no
+ * boxing and no allocation except when it grows.
+ *
+ * Keys and values sit in two parallel arrays probed linearly; a value of 0
+ * marks an empty entry, which is why 0 cannot be stored. Removal shifts later
+ * entries of the same probe run back instead of leaving tombstones, so lookups
+ * stay short however many keys come and go. The table is kept at most half
+ * full.
+ *
+ * Not thread-safe.
+ */
+public final class IntIntHashMap {
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructs an empty map sized for the given number of entries.
+     *
+     * @param expectedSize number of entries to hold without growing
+     * @throws IllegalArgumentException if expectedSize is negative or too large
+     */
+    public IntIntHashMap(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > (1 << 29)) {
+            throw new IllegalArgumentException("Expected size out of range: " + expectedSize);
+        }
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) * 2));
+    }
+
+    /**
+     * Gets the value for a key.
+     *
+     * @param key the key
+     * @return the value, or 0 if the key is absent
+     */
+    public int get(int key) {
+        for (int i = slot(key); values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     *
+     * @param key   the key
+     * @param value the value (must not be 0)
+     * @return the previous value, or 0 if the key was absent
+     * @throws IllegalArgumentException if value is 0
+     */
+    public int put(int key, int value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("Value must not be 0");
+        }
+        int i = slot(key);
+        for (; values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+        return 0;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key
+     * @return the removed value, or 0 if the key was absent
+     */
+    public int remove(int key) {
+        int i = slot(key);
+        while (keys[i] != key || values[i] == 0) {
+            if (values[i] == 0) {
+                return 0;
+            }
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+        values[i] = 0;
+        size--;
+        // Pull back every later entry of the run that would otherwise be cut off from its home slot
+        for (int j = (i + 1) & mask; values[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                values[j] = 0;
+                i = j;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return entry count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package edu.yu.parallel.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Log-linear histogram of non-negative long values, typically latencies in
+ * nanoseconds, with a relative error below 1/64 at every magnitude.
+ *
+ * Values below 128 get a bucket each. Above that, every power of two is split
+ * into 64 equal buckets, so a bucket is found with a leading-zero count and a
+ * shift. Recording is lock-free and safe from any number of threads; reads may
+ * run concurrently with recording and see each recorded value either fully or
+ * not at all.
+ */
+public class LatencyHistogram {
+    /**
+     * Sub-buckets per power of two above the linear range.
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final VarHandle COUNT = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle MAX;
+
+    static {
+        try {
+            MAX = MethodHandles.lookup().findVarHandle(LatencyHistogram.class, "max", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Count per bucket, accessed only with volatile semantics through
+     * {@link #COUNT}.
+     */
+    private final long[] counts = new long[BUCKETS];
+    private volatile long max = 0;
+
+    /**
+     * Records one value.
+     *
+     * @param value the value (negative values are recorded as 0)
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        COUNT.getAndAdd(counts, indexOf(v), 1L);
+        long current;
+        while (v > (current = max) && !MAX.compareAndSet(this, current, v)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Takes a copy of the recorded values, for computing percentiles from one
+     * consistent set of counts.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = (long) COUNT.getVolatile(counts, i);
+        }
+        return new Snapshot(copy, max);
+    }
+
+    /**
+     * Discards everything recorded so far. Values recorded concurrently with a
+     * reset may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            COUNT.setVolatile(counts, i, 0L);
+        }
+        max = 0;
+    }
+
+    private static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index - (long) shift * SUB_BUCKETS;
+        return (sub << shift) | ((1L << shift) - 1);
+    }
+
+    /**
+     * Recorded counts at one point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        private Snapshot(long[] counts, long max) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            this.counts = counts;
+            this.count = total;
+            this.max = max;
+        }
+
+        /**
+         * Combines this snapshot with another, as if both sets of values had
+         * been recorded into one histogram.
+         *
+         * @param other the snapshot to add (must not be null)
+         * @return the combined snapshot
+         * @throws IllegalArgumentException if other is null
+         */
+        public Snapshot merge(Snapshot other) {
+            if (other == null) {
+                throw new IllegalArgumentException("Snapshot must not be null");
+            }
+            long[] sum = counts.clone();
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += other.counts[i];
+            }
+            return new Snapshot(sum, Math.max(max, other.max));
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return value count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the largest recorded value, exactly.
+         *
+         * @return maximum, or 0 if nothing was recorded
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets the value below or at which the given fraction of recorded values
+         * fall, as the upper bound of its bucket (capped at the maximum).
+         *
+         * @param fraction the percentile as a fraction, e.g. 0.999 for p99.9
+         * @return the percentile value, or 0 if nothing was recorded
+         * @throws IllegalArgumentException if fraction is not in [0, 1]
+         */
+        public long getPercentile(double fraction) {
+            if (!(fraction >= 0 && fraction <= 1)) {
+                throw new IllegalArgumentException("Fraction must be between 0 and 1");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package edu.yu.parallel.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A long counter padded on both sides so that it sits alone on its cache line
+ * (false sharing between hot counters otherwise costs as much as a lock).
+ *
+ * The padding lives in a chain of superclasses because the JVM may reorder
+ * fields within one class but lays out superclass fields first.
+ */
+public final class PaddedSequence extends SequenceRhsPadding {
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Constructs a sequence with the given initial value.
+     *
+     * @param initialValue the starting value
+     */
+    public PaddedSequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    /**
+     * Volatile read of the current value.
+     *
+     * @return current value
+     */
+    public long get() {
+        return value;
+    }
+
+    /**
+     * Acquire read of the current value.
+     *
+     * @return current value
+     */
+    public long getAcquire() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /**
+     * Release write of a new value.
+     *
+     * @param newValue the new value
+     */
+    public void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    /**
+     * Atomically sets the value if it currently equals expected.
+     *
+     * @param expected the expected value
+     * @param newValue the new value
+     * @return true if successful
+     */
+    public boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+
+    /**
+     * Atomically adds delta to the value.
+     *
+     * @param delta amount to add
+     * @return the previous value
+     */
+    public long getAndAdd(long delta) {
+        return (long) VALUE.getAndAdd(this, delta);
+    }
+
+    /**
+     * Atomically ORs bits into the value.
+     *
+     * @param bits the bits to set
+     * @return the previous value
+     */
+    public long getAndBitwiseOr(long bits) {
+        return (long) VALUE.getAndBitwiseOr(this, bits);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
+
+@SuppressWarnings("unused")
+abstract class SequenceLhsPadding {
+    protected long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SequenceValue extends SequenceLhsPadding {
+    protected volatile long value;
+}
+
+@SuppressWarnings("unused")
+abstract class SequenceRhsPadding extends SequenceValue {
+    protected long p09, p10, p11, p12, p13, p14, p15;
+}
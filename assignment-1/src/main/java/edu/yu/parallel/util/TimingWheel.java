@@ -0,0 +1,200 @@
+package edu.yu.parallel.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel that fires long keys at their deadlines, driven
+ * entirely by the thread that calls {@link #advance(long, LongConsumer)}.
+ *
+ * Time is cut into ticks of a fixed length. Each of the {@value #LEVELS}
+ * levels is a ring of 64 buckets, and a bucket at level k spans 64^k ticks,
+ * so the wheel covers 64^4 ticks (about 4.7 hours at 1 ms ticks) with 256
+ * buckets. A timer goes into the coarsest level its distance calls for. When
+ * the wheel turns onto a coarse bucket, that bucket's timers are cascaded
+ * down to finer levels, and a timer reaches level 0 by its deadline tick. Each
+ * timer therefore costs O(1) to schedule and is moved at most once per level
+ * before it fires, and turning through a quiet stretch skips the ticks on
+ * which no timer could fire or cascade. Timers further out than the wheel covers wait in the top
+ * level and are rescheduled each time it comes round.
+ *
+ * Timers live in primitive arrays chained into per-bucket lists, so
+ * scheduling allocates only when the wheel grows. They cannot be cancelled;
+ * a caller whose timer has become moot ignores it when it fires.
+ *
+ * Not thread-safe.
+ */
+public final class TimingWheel {
+    private static final int LEVELS = 4;
+    private static final int BUCKET_BITS = 6;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    private static final int MASK = BUCKETS - 1;
+
+    /**
+     * Timer number that ends a bucket's list; timers are numbered from 1.
+     */
+    private static final int NIL = 0;
+
+    private final long tickNanos;
+    private long currentTick;
+
+    /**
+     * First timer in each bucket, level by level.
+     */
+    private final int[] heads = new int[LEVELS * BUCKETS];
+
+    /**
+     * Number of timers at each level.
+     */
+    private final int[] levelCounts = new int[LEVELS];
+
+    private long[] keys = new long[256];
+    private long[] deadlineTicks = new long[256];
+    private int[] next = new int[256];
+    private int free = NIL;
+    private int used = 1;
+    private int size;
+
+    /**
+     * Constructs a wheel whose clock starts at the given time.
+     *
+     * @param tickNanos resolution of the wheel (must be positive)
+     * @param nowNanos  the current time, on the clock later passed to advance
+     * @throws IllegalArgumentException if tickNanos is not positive
+     */
+    public TimingWheel(long tickNanos, long nowNanos) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick length must be positive");
+        }
+        this.tickNanos = tickNanos;
+        this.currentTick = Math.floorDiv(nowNanos, tickNanos);
+    }
+
+    /**
+     * Schedules a key to fire at a deadline. A deadline that has already
+     * passed fires on the next tick.
+     *
+     * @param key           the key handed back when the timer fires
+     * @param deadlineNanos when to fire
+     */
+    public void schedule(long key, long deadlineNanos) {
+        int timer = allocate();
+        keys[timer] = key;
+        deadlineTicks[timer] = Math.max(ceilDiv(deadlineNanos, tickNanos), currentTick + 1);
+        place(timer);
+        size++;
+    }
+
+    /**
+     * Turns the wheel up to the given time, firing every timer whose deadline
+     * has been reached, in deadline-tick order.
+     *
+     * @param nowNanos the current time
+     * @param expired  receives each fired key
+     */
+    public void advance(long nowNanos, LongConsumer expired) {
+        long target = Math.floorDiv(nowNanos, tickNanos);
+        while (currentTick < target) {
+            if (size == 0) {
+                currentTick = target;
+                return;
+            }
+            // While the finer levels are empty, nothing happens before the first busy level's next bucket
+            int busy = 0;
+            while (levelCounts[busy] == 0) {
+                busy++;
+            }
+            if (busy > 0) {
+                long span = 1L << (BUCKET_BITS * busy);
+                long quiet = (Math.floorDiv(currentTick, span) + 1) * span - 1;
+                if (quiet > currentTick) {
+                    currentTick = Math.min(quiet, target);
+                    continue;
+                }
+            }
+            long tick = ++currentTick;
+            // Cascade coarse buckets that come due at this tick, coarsest first
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (BUCKET_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) (tick >>> (BUCKET_BITS * level)) & MASK);
+                }
+            }
+            int bucket = (int) tick & MASK;
+            int timer = heads[bucket];
+            heads[bucket] = NIL;
+            while (timer != NIL) {
+                int following = next[timer];
+                long key = keys[timer];
+                release(timer);
+                levelCounts[0]--;
+                size--;
+                expired.accept(key);
+                timer = following;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of scheduled timers.
+     *
+     * @return timer count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves every timer in a bucket to the level its remaining distance calls
+     * for.
+     */
+    private void cascade(int level, int bucket) {
+        int index = level * BUCKETS + bucket;
+        int timer = heads[index];
+        heads[index] = NIL;
+        while (timer != NIL) {
+            int following = next[timer];
+            levelCounts[level]--;
+            place(timer);
+            timer = following;
+        }
+    }
+
+    private void place(int timer) {
+        long deadline = deadlineTicks[timer];
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BUCKET_BITS * (level + 1))) {
+            level++;
+        }
+        long slotTick = level == LEVELS - 1
+                ? Math.min(deadline, currentTick + (1L << (BUCKET_BITS * LEVELS)) - 1)
+                : deadline;
+        int index = level * BUCKETS + ((int) (slotTick >>> (BUCKET_BITS * level)) & MASK);
+        next[timer] = heads[index];
+        heads[index] = timer;
+        levelCounts[level]++;
+    }
+
+    private int allocate() {
+        int timer = free;
+        if (timer != NIL) {
+            free = next[timer];
+            return timer;
+        }
+        if (used == keys.length) {
+            keys = Arrays.copyOf(keys, used * 2);
+            deadlineTicks = Arrays.copyOf(deadlineTicks, used * 2);
+            next = Arrays.copyOf(next, used * 2);
+        }
+        return used++;
+    }
+
+    private void release(int timer) {
+        next[timer] = free;
+        free = timer;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
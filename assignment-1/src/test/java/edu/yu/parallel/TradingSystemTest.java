@@ -0,0 +1,146 @@
+package edu.yu.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.model.MarketData;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.persistence.ExecutionJournal;
+import edu.yu.parallel.persistence.MarketSnapshot;
+import edu.yu.parallel.threads.TradingThreadFactory;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.OrderGenerator;
+import edu.yu.parallel.trading.OrderQueue;
+import edu.yu.parallel.trading.OrderSink;
+import edu.yu.parallel.trading.RingBufferOrderQueue;
+import edu.yu.parallel.trading.ShardedOrderQueue;
+
+/**
+ * Stops a running system and starts it again, with each kind of queue, and
+ * checks that the second run accepts orders and trades, also when it starts
+ * from the snapshot the first run saved or journals its executions.
+ */
+class TradingSystemTest {
+    private static final long RUN_MS = 300;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restartsWithOrderQueue() throws InterruptedException {
+        assertRestartTrades(marketData -> new OrderQueue(10_000));
+    }
+
+    @Test
+    void restartsWithRingBufferOrderQueue() throws InterruptedException {
+        assertRestartTrades(marketData -> new RingBufferOrderQueue());
+    }
+
+    @Test
+    void restartsWithShardedOrderQueue() throws InterruptedException {
+        assertRestartTrades(marketData -> new ShardedOrderQueue(marketData.getAvailableSymbols(), 2, 10_000));
+    }
+
+    @Test
+    void restartFromOwnSnapshotKeepsStatistics() throws InterruptedException {
+        Path file = dir.resolve("restart.snapshot");
+        MarketData marketData = new MarketData();
+        OrderQueue orderQueue = new OrderQueue(10_000);
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        long[] recorded = new long[1];
+        executedOrders.addListener(execution -> recorded[0]++);
+        OrderGenerator orderGenerator = new OrderGenerator(marketData, executedOrders, 10, 100);
+        List<Trader> traders = List.of(new Trader("T-snapshot1"), new Trader("T-snapshot2"));
+        TradingSystem system = new TradingSystem(traders, marketData, orderGenerator, orderQueue, executedOrders,
+                new TradingThreadFactory());
+
+        system.start(null);
+        Thread.sleep(RUN_MS);
+        system.stop(file);
+        long firstRun = recorded[0];
+        assertTrue(firstRun > 0, "first run made no executions");
+        assertTrue(MarketSnapshot.read(file, Trader::new).books().stream().anyMatch(b -> !b.orders().isEmpty()),
+                "nothing resting to restore");
+
+        // The executed orders and traders still hold what the snapshot saved
+        system.start(file);
+        Thread.sleep(RUN_MS);
+        system.stop(null);
+        assertTrue(recorded[0] > firstRun, "second run made no executions");
+
+        // Restored totals must not have been added on top of the live ones
+        assertEquals(recorded[0], executedOrders.getStatistics().totalCount());
+        long trades = traders.stream().mapToLong(trader -> trader.getLedgerSnapshot().getTradeCount()).sum();
+        assertEquals(2 * recorded[0], trades);
+    }
+
+    @Test
+    void journalFromPropertyRecoversEveryRun() throws InterruptedException {
+        Path journalDirectory = dir.resolve("journal");
+        MarketData marketData = new MarketData();
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        long[] recorded = new long[1];
+        executedOrders.addListener(execution -> recorded[0]++);
+        OrderGenerator orderGenerator = new OrderGenerator(marketData, executedOrders, 10, 100);
+        TradingSystem system = new TradingSystem(List.of(new Trader("T-journal1"), new Trader("T-journal2")),
+                marketData, orderGenerator, new OrderQueue(10_000), executedOrders, new TradingThreadFactory());
+
+        System.setProperty(TradingSystem.EXECUTION_JOURNAL_PROPERTY, journalDirectory.toString());
+        try {
+            for (int run = 0; run < 2; run++) {
+                system.start();
+                Thread.sleep(RUN_MS);
+                system.stop();
+            }
+        } finally {
+            System.clearProperty(TradingSystem.EXECUTION_JOURNAL_PROPERTY);
+        }
+        assertTrue(recorded[0] > 0, "no executions to journal");
+
+        try (ExecutionJournal journal = new ExecutionJournal(journalDirectory)) {
+            ExecutedOrders recovered = new ExecutedOrders(journal);
+            assertEquals(recorded[0], recovered.getStatistics().totalCount());
+            assertEquals(executedOrders.getStatistics().symbolVolume(), recovered.getStatistics().symbolVolume());
+        }
+        // The second run carried on in the first run's segment
+        assertEquals(1, journalDirectory.toFile().list().length);
+    }
+
+    private static void assertRestartTrades(Function<MarketData, OrderSink> queueFactory) throws InterruptedException {
+        MarketData marketData = new MarketData();
+        OrderSink orderQueue = queueFactory.apply(marketData);
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        OrderGenerator orderGenerator = new OrderGenerator(marketData, executedOrders, 10, 100);
+        List<Trader> traders = List.of(new Trader("T-restart1"), new Trader("T-restart2"));
+        TradingSystem system = orderQueue instanceof ShardedOrderQueue sharded
+                ? new TradingSystem(traders, marketData, orderGenerator, sharded, executedOrders,
+                        new TradingThreadFactory())
+                : new TradingSystem(traders, 2, marketData, orderGenerator, (OrderQueue) orderQueue, executedOrders,
+                        new TradingThreadFactory());
+
+        long[] accepted = new long[2];
+        long[] executions = new long[2];
+        for (int run = 0; run < 2; run++) {
+            long acceptedBefore = orderQueue.getStatistics().totalCount();
+            long executionsBefore = executedOrders.getStatistics().totalCount();
+            system.start();
+            Thread.sleep(RUN_MS);
+            system.stop();
+            assertFalse(system.isRunning());
+            accepted[run] = orderQueue.getStatistics().totalCount() - acceptedBefore;
+            executions[run] = executedOrders.getStatistics().totalCount() - executionsBefore;
+        }
+        for (int run = 0; run < 2; run++) {
+            assertTrue(accepted[run] > 0, "run " + (run + 1) + " accepted no orders");
+            assertTrue(executions[run] > 0, "run " + (run + 1) + " made no executions");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package edu.yu.parallel.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Checks the totals a {@link Trader} keeps in its {@link TraderLedger}, both
+ * across symbols with different tick sizes and while market makers keep
+ * booking fills.
+ */
+class TraderTest {
+    private static final int WRITERS = 4;
+    private static final int FILLS_PER_WRITER = 100_000;
+
+    private int nextOrderId = 1;
+
+    @Test
+    void totalsAcrossTickSizes() {
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        int cents = dictionary.idOf("LEDGERCENTA", 0.01);
+        int otherCents = dictionary.idOf("LEDGERCENTB", 0.01);
+        int nickels = dictionary.idOf("LEDGERNICKEL", 0.05);
+        IdGenerator idGen = new IdGenerator(64);
+        Trader trader = new Trader("T-ledger");
+        Trader counterparty = new Trader("T-other");
+
+        // Sell 1 at 0.10 and 1 at 0.20 in two cent symbols, buy 3 at 1.05 in nickels
+        trader.addTrade(Trade.createSellTrade(execution(idGen, cents, counterparty, trader, 1, 10), idGen));
+        trader.addFill(execution(idGen, otherCents, counterparty, trader, 1, 20), Trade.TradeDirection.SELL);
+        trader.addTrade(Trade.createBuyTrade(execution(idGen, nickels, trader, counterparty, 3, 21), idGen));
+
+        TraderLedger.Snapshot snapshot = trader.getLedgerSnapshot();
+        assertEquals(3, snapshot.getTradeCount());
+        assertEquals(1, snapshot.getCount(cents));
+        assertEquals(-1, snapshot.getPosition(cents));
+        assertEquals(10, snapshot.getCashTicks(cents));
+        assertEquals(0.10, snapshot.getCash(cents));
+        assertEquals(0.20, snapshot.getCash(otherCents));
+        assertEquals(3, snapshot.getPosition(nickels));
+        assertEquals(-63, snapshot.getCashTicks(nickels));
+        assertEquals(-3.15, snapshot.getCash(nickels), 1e-9);
+        // The cent symbols are summed in ticks, so 0.1 + 0.2 comes out as 0.3
+        assertEquals(0.30 - 3.15, snapshot.getTotalCash(), 1e-9);
+        assertEquals(0, snapshot.getCount(dictionary.size() + 10));
+
+        // Restoring replaces the symbol's totals, so doing it twice is the same as once
+        for (int i = 0; i < 2; i++) {
+            trader.restorePosition(nickels, 2, 0, 0);
+            snapshot = trader.getLedgerSnapshot();
+            assertEquals(4, snapshot.getTradeCount());
+            assertEquals(2, snapshot.getCount(nickels));
+            assertEquals(0, snapshot.getPosition(nickels));
+            assertEquals(0.30, snapshot.getTotalCash());
+        }
+    }
+
+    @Test
+    void snapshotsStayConsistentUnderConcurrentFills() throws InterruptedException {
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        int[] symbolIds = { dictionary.idOf("LEDGERSEQA", 0.01), dictionary.idOf("LEDGERSEQB", 0.05) };
+        long[] priceTicks = { 100, 37 };
+        Trader trader = new Trader("T-seq");
+        Trader counterparty = new Trader("T-seq-other");
+
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            boolean flyweight = w % 2 == 0;
+            int parity = w;
+            writers.add(new Thread(() -> {
+                IdGenerator idGen = new IdGenerator(64);
+                Execution reused = Execution.createFlyweight();
+                Order[] buys = new Order[symbolIds.length];
+                Order[] sells = new Order[symbolIds.length];
+                for (int s = 0; s < symbolIds.length; s++) {
+                    buys[s] = Order.restoreOrder(1, symbolIds[s], OrderType.BUY, 1, 1.0, trader,
+                            OrderStatus.FILLED);
+                    sells[s] = Order.restoreOrder(2, symbolIds[s], OrderType.SELL, 1, 1.0, counterparty,
+                            OrderStatus.FILLED);
+                }
+                for (int i = 0; i < FILLS_PER_WRITER; i++) {
+                    int s = i % symbolIds.length;
+                    boolean buy = (i / symbolIds.length + parity) % 2 == 0;
+                    Trade.TradeDirection direction = buy ? Trade.TradeDirection.BUY : Trade.TradeDirection.SELL;
+                    if (flyweight) {
+                        reused.reset(idGen, buys[s], sells[s], 1, priceTicks[s]);
+                        trader.addFill(reused, direction);
+                    } else {
+                        Execution execution = Execution.createExecution(idGen, buys[s], sells[s], 1, priceTicks[s]);
+                        trader.addTrade(buy ? Trade.createBuyTrade(execution, idGen)
+                                : Trade.createSellTrade(execution, idGen));
+                    }
+                }
+            }, "Writer-" + w));
+        }
+
+        List<String> failures = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            long lastTradeCount = 0;
+            while (writers.stream().anyMatch(Thread::isAlive) && failures.isEmpty()) {
+                TraderLedger.Snapshot snapshot = trader.getLedgerSnapshot();
+                long total = 0;
+                for (int s = 0; s < symbolIds.length; s++) {
+                    int count = snapshot.getCount(symbolIds[s]);
+                    int position = snapshot.getPosition(symbolIds[s]);
+                    long cash = snapshot.getCashTicks(symbolIds[s]);
+                    // Every fill is one lot at a fixed price, so cash always mirrors position
+                    if (cash != -position * priceTicks[s] || Math.abs(position) > count
+                            || (count - position) % 2 != 0) {
+                        failures.add("torn snapshot: count " + count + ", position " + position + ", cash " + cash);
+                    }
+                    total += count;
+                }
+                if (total != snapshot.getTradeCount()) {
+                    failures.add("trade count " + snapshot.getTradeCount() + " but symbols add up to " + total);
+                }
+                if (snapshot.getTradeCount() < lastTradeCount) {
+                    failures.add("trade count went back from " + lastTradeCount);
+                }
+                lastTradeCount = snapshot.getTradeCount();
+            }
+        }, "Reader");
+
+        writers.forEach(Thread::start);
+        reader.start();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        reader.join();
+
+        assertTrue(failures.isEmpty(), () -> failures.get(0));
+        TraderLedger.Snapshot snapshot = trader.getLedgerSnapshot();
+        assertEquals((long) WRITERS * FILLS_PER_WRITER, snapshot.getTradeCount());
+        for (int symbolId : symbolIds) {
+            assertEquals(WRITERS * FILLS_PER_WRITER / symbolIds.length, snapshot.getCount(symbolId));
+            assertEquals(0, snapshot.getPosition(symbolId));
+            assertEquals(0, snapshot.getCashTicks(symbolId));
+        }
+        assertEquals(0.0, snapshot.getTotalCash());
+    }
+
+    private Execution execution(IdGenerator idGen, int symbolId, Trader buyer, Trader seller, int quantity,
+            long priceTicks) {
+        Order buy = Order.restoreOrder(nextOrderId++, symbolId, OrderType.BUY, quantity, 1.0, buyer,
+                OrderStatus.FILLED);
+        Order sell = Order.restoreOrder(nextOrderId++, symbolId, OrderType.SELL, quantity, 1.0, seller,
+                OrderStatus.FILLED);
+        return Execution.createExecution(idGen, buy, sell, quantity, priceTicks);
+    }
+}
@@ -0,0 +1,63 @@
+package edu.yu.parallel.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Reopens an {@link ExecutionJournal} several times and checks that appends
+ * carry on after the last committed record instead of starting a new segment
+ * each time.
+ */
+class ExecutionJournalTest {
+    private static final String SYMBOL = "JOURNALTEST";
+    private static final Trader TRADER = new Trader("T-journal");
+    private static final int RECORDS_PER_SEGMENT = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopenedJournalContinuesNewestSegment() throws IOException {
+        IdGenerator idGen = new IdGenerator(1);
+        List<Integer> appended = new ArrayList<>();
+        for (int run = 0; run < 4; run++) {
+            try (ExecutionJournal journal = new ExecutionJournal(dir, RECORDS_PER_SEGMENT)) {
+                for (int i = 0; i < 3; i++) {
+                    int orderId = 2 * appended.size() + 1;
+                    Order buy = Order.restoreOrder(orderId, SYMBOL, OrderType.BUY, 5, 10.0, TRADER,
+                            OrderStatus.FILLED);
+                    Order sell = Order.restoreOrder(orderId + 1, SYMBOL, OrderType.SELL, 5, 10.0, TRADER,
+                            OrderStatus.FILLED);
+                    Execution execution = Execution.createExecution(idGen, buy, sell, 5, 1_000);
+                    journal.append(execution);
+                    appended.add(execution.getExecutionId());
+                }
+            }
+        }
+
+        List<Integer> read = new ArrayList<>();
+        try (ExecutionJournal journal = new ExecutionJournal(dir, RECORDS_PER_SEGMENT)) {
+            journal.forEach(entry -> read.add(entry.executionId()));
+        }
+        assertEquals(appended, read);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals((appended.size() + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT, files.count());
+        }
+    }
+}
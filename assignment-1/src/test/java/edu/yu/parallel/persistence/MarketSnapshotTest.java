@@ -0,0 +1,154 @@
+package edu.yu.parallel.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.model.TraderLedger;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.MarketMaker;
+import edu.yu.parallel.trading.OrderBook;
+
+/**
+ * Saves a market built from random orders to a {@link MarketSnapshot},
+ * restores it into a fresh market maker, executed orders and traders the way
+ * {@link edu.yu.parallel.TradingSystem} does, and checks that the restored
+ * market is the saved one and goes on trading the same way.
+ */
+class MarketSnapshotTest {
+    private static final List<String> SYMBOLS = List.of("SNAPTEST1", "SNAPTEST2");
+    private static final List<String> TRADER_IDS = List.of("T-snap1", "T-snap2", "T-snap3");
+    private static final int ORDERS = 20_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restoredMarketMatchesSavedOne() {
+        Path file = dir.resolve("market.snapshot");
+        List<Trader> traders = TRADER_IDS.stream().map(Trader::new).toList();
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        List<String> fills = new ArrayList<>();
+        executedOrders.addListener(execution -> fills.add(describe(execution)));
+        MarketMaker marketMaker = new MarketMaker(SYMBOLS, executedOrders);
+        for (Order order : randomOrders(new Random(21), 1, traders)) {
+            marketMaker.processOrder(order);
+        }
+
+        List<MarketSnapshot.Book> books = new ArrayList<>();
+        for (String symbol : SYMBOLS) {
+            books.add(new MarketSnapshot.Book(0, symbol, marketMaker.getBook(symbol).getRestingOrders()));
+        }
+        ExecutedOrders.Statistics statistics = executedOrders.getStatistics();
+        List<MarketSnapshot.SymbolTotals> executions = new ArrayList<>();
+        for (String symbol : SYMBOLS) {
+            executions.add(new MarketSnapshot.SymbolTotals(executedOrders.getLastExecution(symbol),
+                    statistics.symbolCount().get(symbol), statistics.symbolVolume().get(symbol)));
+        }
+        MarketSnapshot.write(file, books, executions, traders);
+
+        Map<String, Trader> restoredTraders = new HashMap<>();
+        MarketSnapshot.Contents contents = MarketSnapshot.read(file,
+                traderId -> restoredTraders.computeIfAbsent(traderId, Trader::new));
+        ExecutedOrders restoredExecutedOrders = new ExecutedOrders();
+        List<String> restoredFills = new ArrayList<>();
+        restoredExecutedOrders.addListener(execution -> restoredFills.add(describe(execution)));
+        MarketMaker restored = new MarketMaker(SYMBOLS, restoredExecutedOrders);
+        for (MarketSnapshot.Book book : contents.books()) {
+            assertEquals(0, restored.restore(book.symbol(), book.orders()), "a saved book was crossed");
+        }
+        for (MarketSnapshot.SymbolTotals totals : contents.executions()) {
+            restoredExecutedOrders.restore(totals.last(), totals.count(), totals.volume());
+        }
+        for (MarketSnapshot.Position position : contents.positions()) {
+            position.trader().restorePosition(position.symbolId(), position.count(), position.cashTicks(),
+                    position.position());
+        }
+
+        for (String symbol : SYMBOLS) {
+            OrderBook expected = marketMaker.getBook(symbol);
+            OrderBook actual = restored.getBook(symbol);
+            assertTrue(expected.getBidOrderCount() > 0 && expected.getAskOrderCount() > 0, "empty side in " + symbol);
+            assertEquals(describe(expected.getRestingOrders()), describe(actual.getRestingOrders()));
+            assertEquals(expected.getBestBidTicks(), actual.getBestBidTicks());
+            assertEquals(expected.getBestAskTicks(), actual.getBestAskTicks());
+            assertEquals(expected.getBestBidQuantity(), actual.getBestBidQuantity());
+            assertEquals(expected.getBestAskQuantity(), actual.getBestAskQuantity());
+
+            Execution last = executedOrders.getLastExecution(symbol);
+            Execution restoredLast = restoredExecutedOrders.getLastExecution(symbol);
+            assertEquals(last.getExecutionId(), restoredLast.getExecutionId());
+            assertEquals(last.getTimestamp(), restoredLast.getTimestamp());
+            assertEquals(describe(last), describe(restoredLast));
+            assertEquals(last.getBuyOrder().getTrader().getTraderId(),
+                    restoredLast.getBuyOrder().getTrader().getTraderId());
+            assertEquals(last.getSellOrder().getTrader().getTraderId(),
+                    restoredLast.getSellOrder().getTrader().getTraderId());
+        }
+        ExecutedOrders.Statistics restoredStatistics = restoredExecutedOrders.getStatistics();
+        assertEquals(statistics.symbolCount(), restoredStatistics.symbolCount());
+        assertEquals(statistics.symbolVolume(), restoredStatistics.symbolVolume());
+
+        assertEquals(TRADER_IDS.size(), restoredTraders.size());
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        for (Trader trader : traders) {
+            TraderLedger.Snapshot expected = trader.getLedgerSnapshot();
+            TraderLedger.Snapshot actual = restoredTraders.get(trader.getTraderId()).getLedgerSnapshot();
+            assertEquals(expected.getTradeCount(), actual.getTradeCount());
+            for (String symbol : SYMBOLS) {
+                int symbolId = dictionary.idOf(symbol);
+                assertEquals(expected.getCount(symbolId), actual.getCount(symbolId));
+                assertEquals(expected.getCashTicks(symbolId), actual.getCashTicks(symbolId));
+                assertEquals(expected.getPosition(symbolId), actual.getPosition(symbolId));
+            }
+        }
+
+        // The same new orders must trade the same way in both markets
+        fills.clear();
+        for (Order order : randomOrders(new Random(22), ORDERS + 1, traders)) {
+            marketMaker.processOrder(order);
+        }
+        for (Order order : randomOrders(new Random(22), ORDERS + 1,
+                TRADER_IDS.stream().map(restoredTraders::get).toList())) {
+            restored.processOrder(order);
+        }
+        assertEquals(fills, restoredFills);
+    }
+
+    private static List<Order> randomOrders(Random random, int firstOrderId, List<Trader> traders) {
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(Order.restoreOrder(firstOrderId + i, SYMBOLS.get(random.nextInt(SYMBOLS.size())),
+                    random.nextBoolean() ? OrderType.BUY : OrderType.SELL, 1 + random.nextInt(500),
+                    (9_950 + random.nextInt(101)) / 100.0, traders.get(random.nextInt(traders.size())),
+                    OrderStatus.NEW));
+        }
+        return orders;
+    }
+
+    private static List<String> describe(List<Order> orders) {
+        return orders.stream().map(order -> order.getOrderId() + " " + order.getOrderType() + " "
+                + order.getQuantity() + "@" + order.getPriceTicks() + " " + order.getStatus() + " "
+                + order.getTrader().getTraderId()).toList();
+    }
+
+    private static String describe(Execution execution) {
+        return execution.getBuyOrder().getOrderId() + "/" + execution.getSellOrder().getOrderId() + "/"
+                + execution.getQuantity() + "@" + execution.getPriceTicks();
+    }
+}
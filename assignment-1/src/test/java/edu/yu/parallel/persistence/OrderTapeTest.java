@@ -0,0 +1,127 @@
+package edu.yu.parallel.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Price;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.trading.ExecutedOrders;
+import edu.yu.parallel.trading.MarketMaker;
+
+/**
+ * Records a random order stream to an {@link OrderTape}, reads it back, and
+ * replays it through a fresh market maker, which must produce the same
+ * executions as the market maker that saw the original orders.
+ */
+class OrderTapeTest {
+    private static final List<String> SYMBOLS = List.of("TAPETEST1", "TAPETEST2");
+    private static final List<Trader> TRADERS = List.of(new Trader("T-tape1"), new Trader("T-tape2"),
+            new Trader("T-tape3"));
+
+    /**
+     * Enough orders to fill the tape's write buffer several times.
+     */
+    private static final int ORDERS = 100_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordedOrdersReadBackAndReplayToSameExecutions() {
+        Path file = dir.resolve("orders.tape");
+        List<String> recorded = new ArrayList<>();
+        List<String> originalFills = new ArrayList<>();
+        MarketMaker original = new MarketMaker(SYMBOLS, fillRecorder(originalFills));
+        try (OrderTape tape = new OrderTape(file)) {
+            for (Order order : randomOrders(new Random(11))) {
+                tape.record(order);
+                recorded.add(describe(order.getOrderId(), order.getSymbol(), order.getOrderType(),
+                        order.getQuantity(), order.getPriceTicks(), order.getTrader().getTraderId()));
+                original.processOrder(order);
+            }
+            assertEquals(ORDERS, tape.getOrderCount());
+        }
+
+        List<OrderTape.Entry> entries = new ArrayList<>();
+        assertEquals(ORDERS, OrderTape.forEach(file, entries::add));
+        long lastTimestamp = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            OrderTape.Entry entry = entries.get(i);
+            assertEquals(recorded.get(i), describe(entry.orderId(), entry.symbol(), entry.orderType(),
+                    entry.quantity(), entry.priceTicks(), entry.traderId()));
+            assertTrue(entry.timestampNanos() >= lastTimestamp, "timestamps go backwards");
+            lastTimestamp = entry.timestampNanos();
+        }
+
+        List<String> replayFills = new ArrayList<>();
+        MarketMaker replay = new MarketMaker(SYMBOLS, fillRecorder(replayFills));
+        Map<String, Trader> traders = new HashMap<>();
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        for (OrderTape.Entry entry : entries) {
+            double tickSize = dictionary.tickSize(dictionary.idOf(entry.symbol()));
+            replay.processOrder(Order.restoreOrder(entry.orderId(), entry.symbol(), entry.orderType(),
+                    entry.quantity(), Price.toPrice(entry.priceTicks(), tickSize),
+                    traders.computeIfAbsent(entry.traderId(), Trader::new), OrderStatus.NEW));
+        }
+        assertTrue(originalFills.size() > ORDERS / 4, "too few executions to compare");
+        assertEquals(originalFills, replayFills);
+    }
+
+    @Test
+    void truncatedTapeEndsAtLastWholeRecord() throws IOException {
+        Path file = dir.resolve("truncated.tape");
+        List<Order> orders = randomOrders(new Random(12)).subList(0, 10);
+        try (OrderTape tape = new OrderTape(file)) {
+            orders.forEach(tape::record);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - OrderTape.ORDER_RECORD_SIZE / 2));
+
+        List<Integer> orderIds = new ArrayList<>();
+        assertEquals(orders.size() - 1, OrderTape.forEach(file, entry -> orderIds.add(entry.orderId())));
+        for (int i = 0; i < orderIds.size(); i++) {
+            assertEquals(orders.get(i).getOrderId(), orderIds.get(i));
+        }
+    }
+
+    private static List<Order> randomOrders(Random random) {
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(Order.restoreOrder(i + 1, SYMBOLS.get(random.nextInt(SYMBOLS.size())),
+                    random.nextBoolean() ? OrderType.BUY : OrderType.SELL, 1 + random.nextInt(500),
+                    (9_950 + random.nextInt(101)) / 100.0, TRADERS.get(random.nextInt(TRADERS.size())),
+                    OrderStatus.NEW));
+        }
+        return orders;
+    }
+
+    private static ExecutedOrders fillRecorder(List<String> fills) {
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        executedOrders.addListener(execution -> fills.add(execution.getBuyOrder().getOrderId() + "/"
+                + execution.getSellOrder().getOrderId() + "/" + execution.getQuantity() + "@"
+                + execution.getPriceTicks()));
+        return executedOrders;
+    }
+
+    private static String describe(int orderId, String symbol, OrderType orderType, int quantity, long priceTicks,
+            String traderId) {
+        return orderId + " " + symbol + " " + orderType + " " + quantity + "@" + priceTicks + " " + traderId;
+    }
+}
@@ -0,0 +1,145 @@
+package edu.yu.parallel.trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.yu.parallel.model.Execution;
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Checks that {@link ExecutedOrders} readers never see a torn statistics cell
+ * or a torn copy of a flyweight execution while writers are recording.
+ */
+class ExecutedOrdersTest {
+    private static final String[] SYMBOLS = { "EXECA", "EXECB" };
+    private static final int[] QUANTITIES = { 3, 7 };
+    private static final int WRITERS = 4;
+    private static final int EXECUTIONS_PER_WRITER = 100_000;
+    private static final long BASE_TICKS = 10_000;
+
+    @Test
+    void snapshotsStayConsistentUnderConcurrentWrites() throws InterruptedException {
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        IdGenerator idGen = new IdGenerator(64);
+        Trader buyer = new Trader("T-buy");
+        Trader seller = new Trader("T-sell");
+        int[] symbolIds = new int[SYMBOLS.length];
+        for (int s = 0; s < SYMBOLS.length; s++) {
+            symbolIds[s] = SymbolDictionary.getInstance().idOf(SYMBOLS[s]);
+        }
+
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            boolean flyweight = w % 2 == 0;
+            int firstOrderId = w * EXECUTIONS_PER_WRITER * 2;
+            writers.add(new Thread(() -> {
+                Execution reused = Execution.createFlyweight();
+                for (int i = 0; i < EXECUTIONS_PER_WRITER; i++) {
+                    int s = i % SYMBOLS.length;
+                    int buyId = firstOrderId + 2 * i;
+                    long ticks = BASE_TICKS + buyId % 100;
+                    Order buy = Order.restoreOrder(buyId, symbolIds[s], OrderType.BUY, QUANTITIES[s], 1.0,
+                            buyer, OrderStatus.FILLED);
+                    Order sell = Order.restoreOrder(buyId + 1, symbolIds[s], OrderType.SELL, QUANTITIES[s], 1.0,
+                            seller, OrderStatus.FILLED);
+                    if (flyweight) {
+                        reused.reset(idGen, buy, sell, QUANTITIES[s], ticks);
+                        executedOrders.recordExecution(reused);
+                    } else {
+                        executedOrders.recordExecution(
+                                Execution.createExecution(idGen, buy, sell, QUANTITIES[s], ticks));
+                    }
+                }
+            }, "Writer-" + w));
+        }
+
+        List<String> failures = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            long[] lastCounts = new long[SYMBOLS.length];
+            while (writers.stream().anyMatch(Thread::isAlive) && failures.isEmpty()) {
+                ExecutedOrders.Statistics statistics = executedOrders.getStatistics();
+                long totalCount = 0;
+                long totalVolume = 0;
+                for (int s = 0; s < SYMBOLS.length; s++) {
+                    long count = statistics.symbolCount().getOrDefault(SYMBOLS[s], 0L);
+                    long volume = statistics.symbolVolume().getOrDefault(SYMBOLS[s], 0L);
+                    if (volume != count * QUANTITIES[s]) {
+                        failures.add(SYMBOLS[s] + ": volume " + volume + " for " + count + " executions");
+                    }
+                    if (count < lastCounts[s]) {
+                        failures.add(SYMBOLS[s] + ": count went back from " + lastCounts[s] + " to " + count);
+                    }
+                    lastCounts[s] = count;
+                    totalCount += count;
+                    totalVolume += volume;
+
+                    Execution last = executedOrders.getLastExecution(SYMBOLS[s]);
+                    if (last != null && (last.getQuantity() != QUANTITIES[s]
+                            || last.getSellOrder().getOrderId() != last.getBuyOrder().getOrderId() + 1
+                            || last.getPriceTicks() != BASE_TICKS + last.getBuyOrder().getOrderId() % 100)) {
+                        failures.add(SYMBOLS[s] + ": torn last execution " + last);
+                    }
+                }
+                if (totalCount != statistics.totalCount() || totalVolume != statistics.totalVolume()) {
+                    failures.add("totals do not match the per-symbol values");
+                }
+            }
+        }, "Reader");
+
+        writers.forEach(Thread::start);
+        reader.start();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        reader.join();
+
+        assertTrue(failures.isEmpty(), () -> failures.get(0));
+        ExecutedOrders.Statistics statistics = executedOrders.getStatistics();
+        long perSymbol = (long) WRITERS * EXECUTIONS_PER_WRITER / SYMBOLS.length;
+        assertEquals(perSymbol * SYMBOLS.length, statistics.totalCount());
+        for (int s = 0; s < SYMBOLS.length; s++) {
+            assertEquals(perSymbol, statistics.symbolCount().get(SYMBOLS[s]));
+            assertEquals(perSymbol * QUANTITIES[s], statistics.symbolVolume().get(SYMBOLS[s]));
+            assertFalse(Double.isNaN(executedOrders.getLastPrice(SYMBOLS[s])));
+        }
+    }
+
+    @Test
+    void flyweightIsCopiedNotKept() {
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        IdGenerator idGen = new IdGenerator(64);
+        int symbolId = SymbolDictionary.getInstance().idOf(SYMBOLS[0]);
+        Trader trader = new Trader("T-fly");
+        Order buy = Order.restoreOrder(1, symbolId, OrderType.BUY, 5, 12.34, trader, OrderStatus.FILLED);
+        Order sell = Order.restoreOrder(2, symbolId, OrderType.SELL, 5, 12.34, trader, OrderStatus.FILLED);
+        Execution flyweight = Execution.createFlyweight();
+
+        assertNull(executedOrders.getLastExecution(SYMBOLS[0]));
+        flyweight.reset(idGen, buy, sell, 5, 1234);
+        executedOrders.recordExecution(flyweight);
+        int executionId = flyweight.getExecutionId();
+        Order otherBuy = Order.restoreOrder(3, symbolId, OrderType.BUY, 9, 1.00, trader, OrderStatus.FILLED);
+        Order otherSell = Order.restoreOrder(4, symbolId, OrderType.SELL, 9, 1.00, trader, OrderStatus.FILLED);
+        flyweight.reset(idGen, otherBuy, otherSell, 9, 100);
+
+        Execution last = executedOrders.getLastExecution(SYMBOLS[0]);
+        assertEquals(executionId, last.getExecutionId());
+        assertEquals(1, last.getBuyOrder().getOrderId());
+        assertEquals(2, last.getSellOrder().getOrderId());
+        assertEquals(5, last.getQuantity());
+        assertEquals(1234, last.getPriceTicks());
+        assertEquals(12.34, executedOrders.getLastPrice(SYMBOLS[0]), 1e-9);
+    }
+}
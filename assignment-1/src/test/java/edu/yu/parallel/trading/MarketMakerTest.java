@@ -0,0 +1,326 @@
+package edu.yu.parallel.trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Price;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.threads.TradingThreadFactory;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Drives a {@link MarketMaker} with a random mix of new orders, cancels and
+ * replaces, and checks every fill and the resulting book against a simple
+ * price-time priority model.
+ */
+class MarketMakerTest {
+    private static final String SYMBOL = "MMTEST";
+    private static final Trader TRADER = new Trader("T-mm");
+    private static final int OPERATIONS = 400_000;
+
+    /**
+     * Number of recent order IDs cancels and replaces pick from; some of them
+     * have filled or been cancelled already.
+     */
+    private static final int KNOWN_IDS = 1_000;
+
+    private static final long AUCTION_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long JOIN_TIMEOUT_MS = 10_000;
+
+    @Test
+    void randomAddsCancelsAndReplacesMatchReference() {
+        int symbolId = SymbolDictionary.getInstance().idOf(SYMBOL);
+        double tickSize = SymbolDictionary.getInstance().tickSize(symbolId);
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        List<String> fills = new ArrayList<>();
+        executedOrders.addListener(execution -> fills.add(execution.getBuyOrder().getOrderId() + "/"
+                + execution.getSellOrder().getOrderId() + "/" + execution.getQuantity() + "@"
+                + execution.getPriceTicks()));
+        MarketMaker marketMaker = new MarketMaker(List.of(SYMBOL), executedOrders);
+        OrderBook book = marketMaker.getBook(SYMBOL);
+        ReferenceBook reference = new ReferenceBook();
+        List<Integer> known = new ArrayList<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            fills.clear();
+            List<String> expectedFills;
+            int action = random.nextInt(4);
+            if (action >= 2 || known.isEmpty()) {
+                OrderType type = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+                int quantity = 1 + random.nextInt(500);
+                Order order = Order.createOrder(IdGenerator.getInstance(), symbolId, type, quantity,
+                        randomPrice(random), TRADER);
+                marketMaker.processOrder(order);
+                expectedFills = reference.match(order.getOrderId(), type == OrderType.BUY, order.getPriceTicks(),
+                        quantity);
+                remember(known, order.getOrderId(), random);
+            } else if (action == 1) {
+                int orderId = known.get(random.nextInt(known.size()));
+                Order cancelled = marketMaker.cancel(symbolId, orderId);
+                RefOrder expected = reference.cancel(orderId);
+                assertEquals(expected == null, cancelled == null, "cancel of order " + orderId);
+                if (cancelled != null) {
+                    assertEquals(orderId, cancelled.getOrderId());
+                    assertEquals(OrderStatus.CANCELLED, cancelled.getStatus());
+                }
+                expectedFills = List.of();
+            } else {
+                int orderId = known.get(random.nextInt(known.size()));
+                RefOrder resting = reference.find(orderId);
+                Order original = book.find(orderId);
+                boolean samePrice = resting != null && random.nextBoolean();
+                int quantity = samePrice ? 1 + random.nextInt(resting.quantity + 50) : 1 + random.nextInt(500);
+                double price = samePrice ? Price.toPrice(resting.tick, tickSize) : randomPrice(random);
+                Order replaced = marketMaker.replace(symbolId, orderId, quantity, price);
+                if (resting == null) {
+                    assertNull(replaced, "replace of order " + orderId);
+                    expectedFills = List.of();
+                } else if (Order.toTicks(symbolId, original.getOrderType(), price) == resting.tick
+                        && quantity <= resting.quantity) {
+                    assertEquals(orderId, replaced.getOrderId(), "reduce of order " + orderId);
+                    resting.quantity = quantity;
+                    expectedFills = List.of();
+                } else {
+                    assertNotEquals(orderId, replaced.getOrderId(), "replace of order " + orderId);
+                    assertEquals(OrderStatus.CANCELLED, original.getStatus());
+                    reference.cancel(orderId);
+                    long tick = Order.toTicks(symbolId, resting.buy ? OrderType.BUY : OrderType.SELL, price);
+                    expectedFills = reference.match(replaced.getOrderId(), resting.buy, tick, quantity);
+                    remember(known, replaced.getOrderId(), random);
+                }
+            }
+
+            assertEquals(expectedFills, fills, "fills of operation " + i);
+            assertEquals(reference.bestTick(true), book.getBestBidTicks());
+            assertEquals(reference.bestTick(false), book.getBestAskTicks());
+            assertEquals(reference.bestQuantity(true), book.getBestBidQuantity());
+            assertEquals(reference.bestQuantity(false), book.getBestAskQuantity());
+            assertEquals(reference.count(true), book.getBidOrderCount());
+            assertEquals(reference.count(false), book.getAskOrderCount());
+        }
+
+        List<Order> resting = book.getRestingOrders();
+        List<RefOrder> expected = reference.restingInBookOrder();
+        assertEquals(expected.size(), resting.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).orderId, resting.get(i).getOrderId());
+            assertEquals(expected.get(i).quantity, resting.get(i).getQuantity());
+        }
+    }
+
+    @Test
+    void expiredOrdersAreReportedAtShutdown() {
+        int symbolId = SymbolDictionary.getInstance().idOf(SYMBOL);
+        MarketMaker marketMaker = new MarketMaker(List.of(SYMBOL), new ExecutedOrders());
+        Order expiring = Order.createOrder(IdGenerator.getInstance(), symbolId, OrderType.BUY, 10, 99.00, TRADER);
+        expiring.setTtlNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        Order lasting = Order.createOrder(IdGenerator.getInstance(), symbolId, OrderType.SELL, 10, 101.00, TRADER);
+        marketMaker.processOrder(expiring);
+        marketMaker.processOrder(lasting);
+
+        assertEquals(1, marketMaker.expireOrders(System.nanoTime() + TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(OrderStatus.CANCELLED, expiring.getStatus());
+        assertNull(marketMaker.getBook(SYMBOL).find(expiring.getOrderId()));
+        assertEquals(1, marketMaker.getExpiredCount());
+
+        List<Order> cancelled = marketMaker.shutdown();
+        assertEquals(List.of(expiring, lasting), cancelled);
+        assertEquals(OrderStatus.CANCELLED, lasting.getStatus());
+    }
+
+    @Test
+    void replaceInCallAuctionWaitsForNextAuction() throws InterruptedException {
+        int symbolId = SymbolDictionary.getInstance().idOf(SYMBOL);
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        List<String> fills = new ArrayList<>();
+        executedOrders.addListener(execution -> fills.add(execution.getBuyOrder().getOrderId() + "/"
+                + execution.getSellOrder().getOrderId() + "/" + execution.getQuantity()));
+        MarketMaker marketMaker = new MarketMaker(List.of(SYMBOL), executedOrders, false, IdGenerator.getInstance(),
+                null, AUCTION_INTERVAL_NANOS);
+        OrderBook book = marketMaker.getBook(SYMBOL);
+        Order buy = Order.createOrder(IdGenerator.getInstance(), symbolId, OrderType.BUY, 10, 99.00, TRADER);
+        Order sell = Order.createOrder(IdGenerator.getInstance(), symbolId, OrderType.SELL, 10, 101.00, TRADER);
+        marketMaker.processOrder(buy);
+        marketMaker.processOrder(sell);
+
+        // Both orders are still waiting for the first auction
+        assertSame(buy, marketMaker.replace(symbolId, buy.getOrderId(), 5, 99.00));
+        assertEquals(5, buy.getQuantity());
+        Order newSell = marketMaker.replace(symbolId, sell.getOrderId(), 10, 100.00);
+        assertNotEquals(sell.getOrderId(), newSell.getOrderId());
+        assertEquals(OrderStatus.CANCELLED, sell.getStatus());
+        assertNull(marketMaker.replace(symbolId, sell.getOrderId(), 10, 100.00));
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(AUCTION_INTERVAL_NANOS) + 10);
+        marketMaker.runAuctions();
+        assertEquals(1, book.getBidOrderCount());
+        assertEquals(1, book.getAskOrderCount());
+
+        // A booked order moved across the spread must not trade before the next auction
+        Order newBuy = marketMaker.replace(symbolId, buy.getOrderId(), 5, 100.00);
+        assertNotEquals(buy.getOrderId(), newBuy.getOrderId());
+        assertEquals(List.of(), fills);
+        assertEquals(0, book.getBidOrderCount());
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(AUCTION_INTERVAL_NANOS) + 10);
+        marketMaker.runAuctions();
+        assertEquals(List.of(newBuy.getOrderId() + "/" + newSell.getOrderId() + "/5"), fills);
+        assertEquals(5, book.getBestAskQuantity());
+    }
+
+    @Test
+    void marketMakerThreadRunsAuctionsWhileQueueIsIdle() throws InterruptedException {
+        int symbolId = SymbolDictionary.getInstance().idOf(SYMBOL);
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        MarketMaker marketMaker = new MarketMaker(List.of(SYMBOL), executedOrders, false, IdGenerator.getInstance(),
+                null, AUCTION_INTERVAL_NANOS);
+        OrderQueue orderQueue = new OrderQueue(16);
+        Thread thread = new TradingThreadFactory().createMarketMakerThread(marketMaker, orderQueue);
+        thread.start();
+        orderQueue.addOrder(Order.createOrder(IdGenerator.getInstance(), symbolId, OrderType.BUY, 10, 100.00, TRADER));
+        orderQueue.addOrder(Order.createOrder(IdGenerator.getInstance(), symbolId, OrderType.SELL, 10, 100.00, TRADER));
+
+        // No further orders arrive, so only a timed wake-up can run the auction
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executedOrders.getStatistics().totalCount() == 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(5);
+        }
+        orderQueue.shutdown();
+        thread.join(JOIN_TIMEOUT_MS);
+        assertFalse(thread.isAlive());
+        assertEquals(1, executedOrders.getStatistics().totalCount());
+    }
+
+    private static double randomPrice(Random random) {
+        return (9_950 + random.nextInt(101)) / 100.0;
+    }
+
+    /**
+     * Adds an order ID to the ones cancels and replaces pick from, evicting a
+     * random one once there are enough.
+     */
+    private static void remember(List<Integer> known, int orderId, Random random) {
+        if (known.size() < KNOWN_IDS) {
+            known.add(orderId);
+        } else {
+            known.set(random.nextInt(KNOWN_IDS), orderId);
+        }
+    }
+
+    /**
+     * A resting order in the reference book.
+     */
+    private static final class RefOrder {
+        final int orderId;
+        final boolean buy;
+        final long tick;
+        int quantity;
+
+        RefOrder(int orderId, boolean buy, long tick, int quantity) {
+            this.orderId = orderId;
+            this.buy = buy;
+            this.tick = tick;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * Price-time priority book kept as a sorted map of FIFO levels per side.
+     */
+    private static final class ReferenceBook {
+        private final TreeMap<Long, ArrayDeque<RefOrder>> bids = new TreeMap<>(Comparator.reverseOrder());
+        private final TreeMap<Long, ArrayDeque<RefOrder>> asks = new TreeMap<>();
+        private final Map<Integer, RefOrder> byId = new HashMap<>();
+
+        List<String> match(int orderId, boolean buy, long tick, int quantity) {
+            TreeMap<Long, ArrayDeque<RefOrder>> opposite = buy ? asks : bids;
+            List<String> fills = new ArrayList<>();
+            int remaining = quantity;
+            while (remaining > 0 && !opposite.isEmpty()) {
+                Map.Entry<Long, ArrayDeque<RefOrder>> level = opposite.firstEntry();
+                if (buy ? level.getKey() > tick : level.getKey() < tick) {
+                    break;
+                }
+                RefOrder best = level.getValue().peekFirst();
+                int filled = Math.min(remaining, best.quantity);
+                remaining -= filled;
+                best.quantity -= filled;
+                if (best.quantity == 0) {
+                    remove(best);
+                }
+                fills.add(buy
+                        ? orderId + "/" + best.orderId + "/" + filled + "@" + best.tick
+                        : best.orderId + "/" + orderId + "/" + filled + "@" + best.tick);
+            }
+            if (remaining > 0) {
+                RefOrder order = new RefOrder(orderId, buy, tick, remaining);
+                (buy ? bids : asks).computeIfAbsent(tick, t -> new ArrayDeque<>()).addLast(order);
+                byId.put(orderId, order);
+            }
+            return fills;
+        }
+
+        RefOrder find(int orderId) {
+            return byId.get(orderId);
+        }
+
+        RefOrder cancel(int orderId) {
+            RefOrder order = byId.get(orderId);
+            if (order != null) {
+                remove(order);
+            }
+            return order;
+        }
+
+        private void remove(RefOrder order) {
+            TreeMap<Long, ArrayDeque<RefOrder>> side = order.buy ? bids : asks;
+            ArrayDeque<RefOrder> level = side.get(order.tick);
+            level.remove(order);
+            if (level.isEmpty()) {
+                side.remove(order.tick);
+            }
+            byId.remove(order.orderId);
+        }
+
+        long bestTick(boolean buy) {
+            TreeMap<Long, ArrayDeque<RefOrder>> side = buy ? bids : asks;
+            return side.isEmpty() ? Price.NO_TICKS : side.firstKey();
+        }
+
+        long bestQuantity(boolean buy) {
+            TreeMap<Long, ArrayDeque<RefOrder>> side = buy ? bids : asks;
+            return side.isEmpty() ? 0 : side.firstEntry().getValue().stream().mapToLong(order -> order.quantity).sum();
+        }
+
+        int count(boolean buy) {
+            return (buy ? bids : asks).values().stream().mapToInt(ArrayDeque::size).sum();
+        }
+
+        List<RefOrder> restingInBookOrder() {
+            List<RefOrder> ordered = new ArrayList<>();
+            bids.descendingMap().values().forEach(ordered::addAll);
+            asks.values().forEach(ordered::addAll);
+            return ordered;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package edu.yu.parallel.trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.Price;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+
+/**
+ * Checks {@link OrderBook} against a naive reference book that keeps resting
+ * orders in a list and scans it for the best price on every fill.
+ */
+class OrderBookTest {
+    private static final String SYMBOL = "BOOKTEST";
+    private static final Trader TRADER = new Trader("T-book");
+
+    private int nextOrderId = 1;
+
+    @Test
+    void randomOrdersAndCancelsMatchReference() {
+        int symbolId = SymbolDictionary.getInstance().idOf(SYMBOL);
+        OrderBook book = new OrderBook(SYMBOL);
+        ReferenceBook reference = new ReferenceBook();
+        List<String> fills = new ArrayList<>();
+        List<Integer> placed = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            if (!placed.isEmpty() && random.nextInt(4) == 0) {
+                int orderId = placed.get(random.nextInt(placed.size()));
+                Order cancelled = book.cancel(orderId);
+                boolean expected = reference.cancel(orderId);
+                assertEquals(expected, cancelled != null, "cancel of order " + orderId);
+                if (cancelled != null) {
+                    assertEquals(OrderStatus.CANCELLED, cancelled.getStatus());
+                    assertNull(book.find(orderId));
+                }
+                continue;
+            }
+            OrderType type = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+            int quantity = 1 + random.nextInt(500);
+            double price = 99.50 + random.nextInt(101) * 0.01;
+            Order order = Order.restoreOrder(nextOrderId++, symbolId, type, quantity, price, TRADER,
+                    OrderStatus.NEW);
+            placed.add(order.getOrderId());
+
+            fills.clear();
+            boolean rested = book.match(order, (buy, sell, qty, ticks) -> fills
+                    .add(buy.getOrderId() + "/" + sell.getOrderId() + "/" + qty + "@" + ticks));
+            List<String> expectedFills = reference.match(order.getOrderId(), type == OrderType.BUY,
+                    order.getPriceTicks(), quantity);
+
+            assertEquals(expectedFills, fills, "fills of order " + order.getOrderId());
+            assertEquals(!reference.isEmpty(order.getOrderId()), rested);
+            assertEquals(reference.bestTick(true), book.getBestBidTicks());
+            assertEquals(reference.bestTick(false), book.getBestAskTicks());
+            assertEquals(reference.bestQuantity(true), book.getBestBidQuantity());
+            assertEquals(reference.bestQuantity(false), book.getBestAskQuantity());
+            assertEquals(reference.count(true), book.getBidOrderCount());
+            assertEquals(reference.count(false), book.getAskOrderCount());
+        }
+
+        List<Order> resting = book.getRestingOrders();
+        List<RefOrder> expected = reference.restingInBookOrder();
+        assertEquals(expected.size(), resting.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).orderId, resting.get(i).getOrderId());
+            assertEquals(expected.get(i).quantity, resting.get(i).getQuantity());
+        }
+    }
+
+    @Test
+    void reduceKeepsTimePriority() {
+        int symbolId = SymbolDictionary.getInstance().idOf(SYMBOL);
+        OrderBook book = new OrderBook(SYMBOL);
+        Order first = Order.restoreOrder(nextOrderId++, symbolId, OrderType.SELL, 100, 100.00, TRADER,
+                OrderStatus.NEW);
+        Order second = Order.restoreOrder(nextOrderId++, symbolId, OrderType.SELL, 100, 100.00, TRADER,
+                OrderStatus.NEW);
+        book.match(first, (buy, sell, qty, ticks) -> { });
+        book.match(second, (buy, sell, qty, ticks) -> { });
+
+        assertSame(first, book.reduce(first.getOrderId(), 40));
+        assertEquals(140, book.getBestAskQuantity());
+
+        List<Order> sellers = new ArrayList<>();
+        Order buy = Order.restoreOrder(nextOrderId++, symbolId, OrderType.BUY, 50, 100.00, TRADER,
+                OrderStatus.NEW);
+        book.match(buy, (b, sell, qty, ticks) -> sellers.add(sell));
+
+        assertEquals(List.of(first, second), sellers);
+        assertEquals(OrderStatus.FILLED, first.getStatus());
+        assertEquals(90, second.getQuantity());
+    }
+
+    @Test
+    void auctionClearsCrossedBatchAtOnePrice() {
+        OrderBook book = new OrderBook(SYMBOL);
+        Order restingBuy = newOrder(OrderType.BUY, 100, 99.98);
+        Order restingSell = newOrder(OrderType.SELL, 100, 100.02);
+        Order restingHighSell = newOrder(OrderType.SELL, 100, 100.05);
+        for (Order order : List.of(restingBuy, restingSell, restingHighSell)) {
+            book.match(order, (buy, sell, qty, ticks) -> { });
+        }
+        Order bigBuy = newOrder(OrderType.BUY, 150, 100.04);
+        Order topBuy = newOrder(OrderType.BUY, 50, 100.10);
+        Order lowSell = newOrder(OrderType.SELL, 80, 99.97);
+        Order midSell = newOrder(OrderType.SELL, 50, 100.03);
+
+        // Buys from 100.10 down meet sells from 99.97 up until 20 of the 100.03 sell;
+        // 100.04 trades as much but would leave that sell wanting to trade
+        List<String> fills = new ArrayList<>();
+        List<Order> rested = new ArrayList<>();
+        long clearingTick = book.auction(List.of(bigBuy, topBuy, lowSell, midSell), (buy, sell, qty, ticks) -> fills
+                .add(buy.getOrderId() + "/" + sell.getOrderId() + "/" + qty + "@" + ticks), rested);
+
+        long expectedTick = Price.roundTicks(100.03, Price.DEFAULT_TICK_SIZE);
+        assertEquals(expectedTick, clearingTick);
+        assertEquals(List.of(
+                topBuy.getOrderId() + "/" + lowSell.getOrderId() + "/50@" + expectedTick,
+                bigBuy.getOrderId() + "/" + lowSell.getOrderId() + "/30@" + expectedTick,
+                bigBuy.getOrderId() + "/" + restingSell.getOrderId() + "/100@" + expectedTick,
+                bigBuy.getOrderId() + "/" + midSell.getOrderId() + "/20@" + expectedTick), fills);
+        assertEquals(List.of(midSell), rested);
+        assertEquals(OrderStatus.PARTIAL, midSell.getStatus());
+        assertEquals(30, midSell.getQuantity());
+        for (Order order : List.of(bigBuy, topBuy, lowSell, restingSell)) {
+            assertEquals(OrderStatus.FILLED, order.getStatus());
+            assertNull(book.find(order.getOrderId()));
+        }
+        assertEquals(Price.roundTicks(99.98, Price.DEFAULT_TICK_SIZE), book.getBestBidTicks());
+        assertEquals(100, book.getBestBidQuantity());
+        assertEquals(expectedTick, book.getBestAskTicks());
+        assertEquals(30, book.getBestAskQuantity());
+        assertEquals(List.of(restingBuy, midSell, restingHighSell), book.getRestingOrders());
+    }
+
+    @Test
+    void auctionUsesMiddleOfEqualVolumeRange() {
+        OrderBook book = new OrderBook(SYMBOL);
+        Order restingSell = newOrder(OrderType.SELL, 100, 100.00);
+        book.match(restingSell, (buy, sell, qty, ticks) -> { });
+        Order buy = newOrder(OrderType.BUY, 100, 100.10);
+        Order lowBuy = newOrder(OrderType.BUY, 40, 99.90);
+
+        // Any price from 100.00 to 100.10 trades the 100 lots, and nothing left over can trade
+        List<Long> prices = new ArrayList<>();
+        long clearingTick = book.auction(List.of(lowBuy, buy), (b, s, qty, ticks) -> prices.add(ticks), null);
+
+        assertEquals(Price.roundTicks(100.05, Price.DEFAULT_TICK_SIZE), clearingTick);
+        assertEquals(List.of(clearingTick), prices);
+        assertEquals(OrderStatus.FILLED, restingSell.getStatus());
+        assertEquals(0, book.getAskOrderCount());
+        assertEquals(List.of(lowBuy), book.getRestingOrders());
+
+        // A batch that does not cross rests whole
+        Order sell = newOrder(OrderType.SELL, 10, 100.20);
+        List<Order> rested = new ArrayList<>();
+        assertEquals(Price.NO_TICKS, book.auction(List.of(sell), (b, s, qty, ticks) -> prices.add(ticks), rested));
+        assertEquals(List.of(sell), rested);
+        assertEquals(1, prices.size());
+        assertEquals(OrderStatus.NEW, sell.getStatus());
+    }
+
+    private Order newOrder(OrderType type, int quantity, double price) {
+        return Order.restoreOrder(nextOrderId++, SymbolDictionary.getInstance().idOf(SYMBOL), type, quantity, price,
+                TRADER, OrderStatus.NEW);
+    }
+
+    /**
+     * A resting order in the reference book.
+     */
+    private static final class RefOrder {
+        final int orderId;
+        final boolean buy;
+        final long tick;
+        final long sequence;
+        int quantity;
+
+        RefOrder(int orderId, boolean buy, long tick, long sequence, int quantity) {
+            this.orderId = orderId;
+            this.buy = buy;
+            this.tick = tick;
+            this.sequence = sequence;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * Price-time priority book kept as an unsorted list.
+     */
+    private static final class ReferenceBook {
+        private final List<RefOrder> resting = new ArrayList<>();
+        private long sequence = 0;
+
+        List<String> match(int orderId, boolean buy, long tick, int quantity) {
+            List<String> fills = new ArrayList<>();
+            int remaining = quantity;
+            while (remaining > 0) {
+                RefOrder best = best(!buy);
+                if (best == null || (buy ? best.tick > tick : best.tick < tick)) {
+                    break;
+                }
+                int filled = Math.min(remaining, best.quantity);
+                remaining -= filled;
+                best.quantity -= filled;
+                if (best.quantity == 0) {
+                    resting.remove(best);
+                }
+                fills.add(buy
+                        ? orderId + "/" + best.orderId + "/" + filled + "@" + best.tick
+                        : best.orderId + "/" + orderId + "/" + filled + "@" + best.tick);
+            }
+            if (remaining > 0) {
+                resting.add(new RefOrder(orderId, buy, tick, sequence++, remaining));
+            }
+            return fills;
+        }
+
+        boolean cancel(int orderId) {
+            return resting.removeIf(order -> order.orderId == orderId);
+        }
+
+        boolean isEmpty(int orderId) {
+            return resting.stream().noneMatch(order -> order.orderId == orderId);
+        }
+
+        RefOrder best(boolean buy) {
+            RefOrder best = null;
+            for (RefOrder order : resting) {
+                if (order.buy != buy) {
+                    continue;
+                }
+                if (best == null
+                        || (buy ? order.tick > best.tick : order.tick < best.tick)
+                        || (order.tick == best.tick && order.sequence < best.sequence)) {
+                    best = order;
+                }
+            }
+            return best;
+        }
+
+        long bestTick(boolean buy) {
+            RefOrder best = best(buy);
+            return best == null ? Price.NO_TICKS : best.tick;
+        }
+
+        long bestQuantity(boolean buy) {
+            RefOrder best = best(buy);
+            if (best == null) {
+                return 0;
+            }
+            long quantity = 0;
+            for (RefOrder order : resting) {
+                if (order.buy == buy && order.tick == best.tick) {
+                    quantity += order.quantity;
+                }
+            }
+            return quantity;
+        }
+
+        int count(boolean buy) {
+            return (int) resting.stream().filter(order -> order.buy == buy).count();
+        }
+
+        List<RefOrder> restingInBookOrder() {
+            Comparator<RefOrder> byLevel = Comparator.<RefOrder>comparingLong(order -> order.tick)
+                    .thenComparingLong(order -> order.sequence);
+            List<RefOrder> ordered = new ArrayList<>();
+            resting.stream().filter(order -> order.buy).sorted(byLevel).forEach(ordered::add);
+            resting.stream().filter(order -> !order.buy).sorted(byLevel).forEach(ordered::add);
+            return ordered;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package edu.yu.parallel.trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+
+/**
+ * Stress tests for {@link RingBufferOrderQueue}. A tiny ring keeps producers
+ * and consumers blocking on each other, so a lost wake-up in the blocking
+ * strategy shows up as a thread that never finishes.
+ */
+class RingBufferOrderQueueTest {
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 3;
+    private static final int ORDERS_PER_PRODUCER = 50_000;
+    private static final long JOIN_TIMEOUT_MS = 60_000;
+
+    @Test
+    void blockingStrategyLosesNoWakeUps() throws InterruptedException {
+        stress(new RingBufferOrderQueue(4, WaitStrategy.blocking()), 1);
+    }
+
+    @Test
+    void blockingStrategyWithBatches() throws InterruptedException {
+        stress(new RingBufferOrderQueue(16, WaitStrategy.blocking()), 5);
+    }
+
+    @Test
+    void shutdownCancelsPendingOrders() {
+        RingBufferOrderQueue queue = new RingBufferOrderQueue(8, WaitStrategy.blocking());
+        int symbolId = SymbolDictionary.getInstance().idOf("RINGTEST");
+        Trader trader = new Trader("T-ring");
+        for (int i = 0; i < 5; i++) {
+            queue.addOrder(Order.restoreOrder(i + 1, symbolId, OrderType.BUY, 1, 10.0, trader, OrderStatus.NEW));
+        }
+        assertEquals(1, queue.getNextOrder().getOrderId());
+
+        List<Order> cancelled = queue.shutdown();
+
+        assertEquals(4, cancelled.size());
+        assertTrue(cancelled.stream().allMatch(order -> order.getStatus() == OrderStatus.CANCELLED));
+        assertEquals(new OrderQueue.Statistics(5, 0), queue.getStatistics());
+    }
+
+    @Test
+    void timedDrainTellsTimeoutFromShutdown() {
+        RingBufferOrderQueue queue = new RingBufferOrderQueue(8, WaitStrategy.blocking());
+        int symbolId = SymbolDictionary.getInstance().idOf("RINGTEST");
+        List<Order> drained = new ArrayList<>();
+        assertEquals(0, queue.drainTo(drained, 4, TimeUnit.MILLISECONDS.toNanos(5)));
+
+        queue.addOrder(Order.restoreOrder(1, symbolId, OrderType.BUY, 1, 10.0, new Trader("T-ring"), OrderStatus.NEW));
+        assertEquals(1, queue.drainTo(drained, 4, TimeUnit.MILLISECONDS.toNanos(5)));
+        assertEquals(1, drained.get(0).getOrderId());
+
+        queue.shutdown();
+        assertEquals(-1, queue.drainTo(drained, 4, TimeUnit.MILLISECONDS.toNanos(5)));
+    }
+
+    /**
+     * Runs producers and consumers to completion and checks that every order
+     * arrives exactly once and that each consumer sees each producer's orders
+     * in the order they were added.
+     */
+    private static void stress(RingBufferOrderQueue queue, int batchSize) throws InterruptedException {
+        int symbolId = SymbolDictionary.getInstance().idOf("RINGTEST");
+        Trader trader = new Trader("T-ring");
+        int total = PRODUCERS * ORDERS_PER_PRODUCER;
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int first = p * ORDERS_PER_PRODUCER + 1;
+            producers.add(new Thread(() -> {
+                List<Order> batch = new ArrayList<>(batchSize);
+                for (int id = first; id < first + ORDERS_PER_PRODUCER; id++) {
+                    batch.add(Order.restoreOrder(id, symbolId, OrderType.BUY, 1, 10.0, trader, OrderStatus.NEW));
+                    if (batch.size() == batchSize) {
+                        if (batchSize == 1) {
+                            queue.addOrder(batch.get(0));
+                        } else {
+                            queue.addOrders(batch);
+                        }
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    queue.addOrders(batch);
+                }
+            }, "Producer-" + p));
+        }
+        List<List<Order>> received = new ArrayList<>();
+        List<Thread> consumers = new ArrayList<>();
+        for (int c = 0; c < CONSUMERS; c++) {
+            List<Order> orders = new ArrayList<>();
+            received.add(orders);
+            consumers.add(new Thread(() -> {
+                List<Order> batch = new ArrayList<>();
+                while (queue.drainTo(batch, 3) > 0) {
+                    orders.addAll(batch);
+                    batch.clear();
+                }
+            }, "Consumer-" + c));
+        }
+
+        consumers.forEach(Thread::start);
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join(JOIN_TIMEOUT_MS);
+            assertFalse(producer.isAlive(), producer.getName() + " is stuck");
+        }
+        long deadline = System.currentTimeMillis() + JOIN_TIMEOUT_MS;
+        while (queue.getStatistics().pendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, queue.getStatistics().pendingCount(), "consumers are stuck");
+        assertTrue(queue.shutdown().isEmpty());
+        for (Thread consumer : consumers) {
+            consumer.join(JOIN_TIMEOUT_MS);
+            assertFalse(consumer.isAlive(), consumer.getName() + " did not stop at shutdown");
+        }
+
+        boolean[] seen = new boolean[total + 1];
+        int count = 0;
+        for (List<Order> orders : received) {
+            int[] lastByProducer = new int[PRODUCERS];
+            for (Order order : orders) {
+                int id = order.getOrderId();
+                assertFalse(seen[id], "order " + id + " taken twice");
+                seen[id] = true;
+                count++;
+                int producer = (id - 1) / ORDERS_PER_PRODUCER;
+                assertTrue(id > lastByProducer[producer], "order " + id + " overtook an earlier order");
+                lastByProducer[producer] = id;
+            }
+        }
+        assertEquals(total, count);
+        assertEquals(new OrderQueue.Statistics(total, 0), queue.getStatistics());
+    }
+}
@@ -0,0 +1,114 @@
+package edu.yu.parallel.trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.threads.TradingThreadFactory;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Moves a symbol from one shard to another while its orders are still
+ * queued on the old shard and new ones arrive on the new shard.
+ *
+ * The symbol gets two one-lot buys at one price for every one-lot sell below
+ * it, so if its orders are matched in queue order the n-th sell fills the
+ * n-th buy, and the buys left over rest in the order they were sent.
+ */
+class ShardRebalancerTest {
+    private static final String MOVED = "REBALMOVED";
+    private static final String OTHER = "REBALOTHER";
+    private static final String FILLER = "REBALFILLER";
+    private static final Trader TRADER = new Trader("T-rebalance");
+    private static final int ORDERS = 300_000;
+    private static final int DRAIN_BATCH_SIZE = 16;
+    private static final long TIMEOUT_MS = 60_000;
+
+    @Test
+    void movedSymbolKeepsQueueOrder() throws InterruptedException {
+        SymbolDictionary dictionary = SymbolDictionary.getInstance();
+        int symbolId = dictionary.idOf(MOVED);
+        int fillerId = dictionary.idOf(FILLER);
+        // Shards are assigned round robin, so MOVED and FILLER start on shard 0
+        ShardedOrderQueue queue = new ShardedOrderQueue(new String[] { MOVED, OTHER, FILLER }, 2);
+        StripedOrderBooks books = new StripedOrderBooks(List.of(MOVED, OTHER, FILLER));
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        List<int[]> fills = Collections.synchronizedList(new ArrayList<>());
+        executedOrders.addListener(execution -> {
+            if (execution.getBuyOrder().getSymbolId() == symbolId) {
+                fills.add(new int[] { execution.getBuyOrder().getOrderId(), execution.getSellOrder().getOrderId() });
+            }
+        });
+        List<MarketMaker> marketMakers = new ArrayList<>();
+        for (int shard = 0; shard < 2; shard++) {
+            marketMakers.add(new MarketMaker(books, executedOrders, false, IdGenerator.getInstance(), null));
+        }
+        ShardRebalancer rebalancer = new ShardRebalancer(queue, marketMakers);
+        TradingThreadFactory factory = new TradingThreadFactory(1, DRAIN_BATCH_SIZE);
+        List<Thread> threads = new ArrayList<>();
+        for (int shard = 0; shard < 2; shard++) {
+            threads.add(factory.createMarketMakerThread(marketMakers.get(shard), queue.getShard(shard), rebalancer,
+                    shard));
+        }
+        threads.forEach(Thread::start);
+
+        List<Order> buys = new ArrayList<>();
+        List<Order> sells = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            if (i == ORDERS / 2) {
+                assertTrue(rebalancer.move(symbolId, 1));
+                // Keep shard 0 busy until it switches, so the second half goes to shard 1
+                long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+                while (queue.shardFor(symbolId) != 1 && System.currentTimeMillis() < deadline) {
+                    queue.addOrder(Order.createOrder(IdGenerator.getInstance(), fillerId, OrderType.BUY, 1, 50.00,
+                            TRADER));
+                    Thread.sleep(1);
+                }
+                assertEquals(1, queue.shardFor(symbolId), "shard 0 never switched");
+            }
+            Order order = i % 3 == 2
+                    ? Order.createOrder(IdGenerator.getInstance(), symbolId, OrderType.SELL, 1, 90.00, TRADER)
+                    : Order.createOrder(IdGenerator.getInstance(), symbolId, OrderType.BUY, 1, 100.00, TRADER);
+            (order.getOrderType() == OrderType.BUY ? buys : sells).add(order);
+            queue.addOrder(order);
+        }
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while ((fills.size() < sells.size() || rebalancer.getMoveCount() < 1)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        queue.shutdown();
+        for (Thread thread : threads) {
+            thread.join(TIMEOUT_MS);
+            assertFalse(thread.isAlive(), thread.getName() + " is stuck");
+        }
+
+        assertEquals(1, rebalancer.getMoveCount());
+        assertEquals(sells.size(), fills.size());
+        for (int i = 0; i < fills.size(); i++) {
+            assertEquals(sells.get(i).getOrderId(), fills.get(i)[1], "sell filled out of order");
+            assertEquals(buys.get(i).getOrderId(), fills.get(i)[0], "sell " + fills.get(i)[1] + " filled the wrong buy");
+            assertEquals(OrderStatus.FILLED, sells.get(i).getStatus());
+        }
+        OrderBook book = books.getBook(MOVED);
+        assertEquals(0, book.getAskOrderCount());
+        List<Order> resting = book.getRestingOrders();
+        assertEquals(buys.size() - sells.size(), resting.size());
+        for (int i = 0; i < resting.size(); i++) {
+            assertEquals(buys.get(sells.size() + i).getOrderId(), resting.get(i).getOrderId(),
+                    "buys rest out of order");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package edu.yu.parallel.trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import edu.yu.parallel.model.Order;
+import edu.yu.parallel.model.OrderStatus;
+import edu.yu.parallel.model.OrderType;
+import edu.yu.parallel.model.SymbolDictionary;
+import edu.yu.parallel.model.Trader;
+import edu.yu.parallel.util.IdGenerator;
+
+/**
+ * Several market makers on one {@link StripedOrderBooks} all working the same
+ * symbol, so orders are constantly handed from one to another.
+ *
+ * Each market maker rests buys one lot at a time at a price of its own and
+ * sends a one-lot sell at a low price after every second buy. If every
+ * market maker's orders are matched in the order it took them, every sell
+ * finds a resting buy, and each price level fills and rests its buys in
+ * order-ID order.
+ */
+class StripedOrderBooksTest {
+    private static final String SYMBOL = "STRIPETEST";
+    private static final int MARKET_MAKERS = 4;
+    private static final int ORDERS_PER_MARKET_MAKER = 150_000;
+    private static final long JOIN_TIMEOUT_MS = 60_000;
+
+    @Test
+    void marketMakersSharingOneSymbolLoseNoOrdersAndKeepTheirOrder() throws InterruptedException {
+        int symbolId = SymbolDictionary.getInstance().idOf(SYMBOL);
+        StripedOrderBooks books = new StripedOrderBooks(List.of(SYMBOL));
+        ExecutedOrders executedOrders = new ExecutedOrders();
+        List<int[]> fills = Collections.synchronizedList(new ArrayList<>());
+        executedOrders.addListener(execution -> fills.add(new int[] {
+                execution.getBuyOrder().getOrderId(), execution.getSellOrder().getOrderId() }));
+        Trader trader = new Trader("T-stripe");
+
+        List<List<Order>> orders = new ArrayList<>();
+        Map<Integer, Integer> buyLevels = new HashMap<>();
+        int sells = 0;
+        for (int m = 0; m < MARKET_MAKERS; m++) {
+            List<Order> own = new ArrayList<>(ORDERS_PER_MARKET_MAKER);
+            for (int i = 0; i < ORDERS_PER_MARKET_MAKER; i++) {
+                int orderId = m * ORDERS_PER_MARKET_MAKER + i + 1;
+                if (i % 3 == 2) {
+                    own.add(Order.restoreOrder(orderId, symbolId, OrderType.SELL, 1, 90.00, trader,
+                            OrderStatus.NEW));
+                    sells++;
+                } else {
+                    own.add(Order.restoreOrder(orderId, symbolId, OrderType.BUY, 1, 100.00 + m / 100.0, trader,
+                            OrderStatus.NEW));
+                    buyLevels.put(orderId, m);
+                }
+            }
+            orders.add(own);
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int m = 0; m < MARKET_MAKERS; m++) {
+            MarketMaker marketMaker = new MarketMaker(books, executedOrders, false, IdGenerator.getInstance(), null);
+            List<Order> own = orders.get(m);
+            threads.add(new Thread(() -> {
+                try {
+                    for (Order order : own) {
+                        marketMaker.processOrder(order);
+                    }
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            }, "MarketMaker-" + m));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join(JOIN_TIMEOUT_MS);
+            assertFalse(thread.isAlive(), thread.getName() + " is stuck");
+        }
+        assertTrue(failures.isEmpty(), () -> failures.get(0).toString());
+
+        OrderBook book = books.getBook(SYMBOL);
+        assertEquals(sells, fills.size());
+        assertEquals(0, book.getAskOrderCount(), "a sell found no resting buy");
+        assertEquals(buyLevels.size() - sells, book.getBidOrderCount());
+
+        // Each level fills from the front, so its buys fill and then rest in ID order
+        Set<Integer> seen = new HashSet<>();
+        int[] lastByLevel = new int[MARKET_MAKERS];
+        for (int[] fill : fills) {
+            int level = buyLevels.get(fill[0]);
+            assertTrue(fill[0] > lastByLevel[level], "buy " + fill[0] + " filled before an earlier buy");
+            lastByLevel[level] = fill[0];
+            assertTrue(seen.add(fill[0]), "buy " + fill[0] + " filled twice");
+        }
+        for (Order resting : book.getRestingOrders()) {
+            int level = buyLevels.get(resting.getOrderId());
+            assertTrue(resting.getOrderId() > lastByLevel[level],
+                    "buy " + resting.getOrderId() + " rests behind a later buy");
+            lastByLevel[level] = resting.getOrderId();
+            assertTrue(seen.add(resting.getOrderId()), "buy " + resting.getOrderId() + " both filled and resting");
+        }
+        assertEquals(buyLevels.keySet(), seen);
+        for (List<Order> own : orders) {
+            for (Order order : own) {
+                if (order.getOrderType() == OrderType.SELL) {
+                    assertEquals(OrderStatus.FILLED, order.getStatus());
+                }
+            }
+        }
+    }
+}